@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.examples.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.metsci.glimpse.util.primitives.IntsArray;
+import com.metsci.glimpse.util.quadtree.QuadTreeInts;
+import com.metsci.glimpse.util.quadtree.QuadTreeIntsPacked;
+
+/**
+ * Compares build and search times of the incrementally built {@link QuadTreeInts}
+ * with the bulk-loaded {@link QuadTreeIntsPacked}, built both sequentially and
+ * in parallel. Also checks that all three trees return the same search results.
+ *
+ * @see com.metsci.glimpse.util.quadtree.QuadTreeIntsPacked
+ */
+public class QuadTreeBenchmark
+{
+    public static void main( String[] args )
+    {
+        final int size = args.length > 0 ? Integer.parseInt( args[0] ) : 2000000;
+        final int maxBucketSize = 100;
+        final int searchCount = 10000;
+        final float searchSize = 0.01f;
+        final int trials = 5;
+
+        Random r = new Random( 0 );
+
+        // Clustered points, so that the trees are not perfectly balanced
+        final float[] xs = new float[size];
+        final float[] ys = new float[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            float cx = ( i % 16 ) / 16f;
+            float cy = ( i % 7 ) / 7f;
+            xs[i] = cx + ( float ) r.nextGaussian( ) * 0.05f;
+            ys[i] = cy + ( float ) r.nextGaussian( ) * 0.05f;
+        }
+
+        float[] searchXs = new float[searchCount];
+        float[] searchYs = new float[searchCount];
+        for ( int i = 0; i < searchCount; i++ )
+        {
+            searchXs[i] = r.nextFloat( );
+            searchYs[i] = r.nextFloat( );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( Runtime.getRuntime( ).availableProcessors( ) );
+        try
+        {
+            IntsArray results = new IntsArray( );
+
+            for ( int trial = 0; trial < trials; trial++ )
+            {
+                long t0 = System.nanoTime( );
+                QuadTreeInts incremental = new QuadTreeInts( maxBucketSize )
+                {
+                    @Override
+                    protected float x( int v )
+                    {
+                        return xs[v];
+                    }
+
+                    @Override
+                    protected float y( int v )
+                    {
+                        return ys[v];
+                    }
+                };
+                for ( int i = 0; i < size; i++ )
+                {
+                    incremental.add( i );
+                }
+                long t1 = System.nanoTime( );
+
+                QuadTreeIntsPacked packed = new QuadTreeIntsPacked( xs, ys, size, maxBucketSize );
+                long t2 = System.nanoTime( );
+
+                QuadTreeIntsPacked parallel = new QuadTreeIntsPacked( xs, ys, size, maxBucketSize, executor );
+                long t3 = System.nanoTime( );
+
+                long incrementalFound = 0;
+                for ( int i = 0; i < searchCount; i++ )
+                {
+                    results.n = 0;
+                    incrementalFound += incremental.search( searchXs[i], searchXs[i] + searchSize, searchYs[i], searchYs[i] + searchSize, results );
+                }
+                long t4 = System.nanoTime( );
+
+                long packedFound = 0;
+                for ( int i = 0; i < searchCount; i++ )
+                {
+                    results.n = 0;
+                    packedFound += packed.search( searchXs[i], searchXs[i] + searchSize, searchYs[i], searchYs[i] + searchSize, results );
+                }
+                long t5 = System.nanoTime( );
+
+                System.out.printf( "trial %d: %d points%n", trial, size );
+                System.out.printf( "    build:  incremental %.1f ms, packed %.1f ms, packed parallel %.1f ms%n", ( t1 - t0 ) / 1e6, ( t2 - t1 ) / 1e6, ( t3 - t2 ) / 1e6 );
+                System.out.printf( "    search: incremental %.1f ms, packed %.1f ms (%d searches, %d and %d results)%n", ( t4 - t3 ) / 1e6, ( t5 - t4 ) / 1e6, searchCount, incrementalFound, packedFound );
+
+                if ( trial == 0 )
+                {
+                    checkSameResults( incremental, packed, parallel, searchXs, searchYs, searchSize );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown( );
+        }
+    }
+
+    protected static void checkSameResults( QuadTreeInts incremental, QuadTreeIntsPacked packed, QuadTreeIntsPacked parallel, float[] searchXs, float[] searchYs, float searchSize )
+    {
+        for ( int i = 0; i < searchXs.length; i++ )
+        {
+            float xMin = searchXs[i];
+            float yMin = searchYs[i];
+
+            int[] expected = incremental.search( xMin, xMin + searchSize, yMin, yMin + searchSize ).copyOf( );
+            int[] actual = packed.search( xMin, xMin + searchSize, yMin, yMin + searchSize ).copyOf( );
+            int[] actualParallel = parallel.search( xMin, xMin + searchSize, yMin, yMin + searchSize ).copyOf( );
+
+            Arrays.sort( expected );
+            Arrays.sort( actual );
+            Arrays.sort( actualParallel );
+
+            if ( !Arrays.equals( expected, actual ) || !Arrays.equals( expected, actualParallel ) )
+            {
+                throw new IllegalStateException( "Search results differ for search " + i );
+            }
+        }
+
+        System.out.println( "    search results match" );
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.examples.benchmark;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import com.metsci.glimpse.gl.attribute.GLFloatBuffer.Mutator;
+import com.metsci.glimpse.gl.attribute.GLFloatBuffer2D;
+import com.metsci.glimpse.util.primitives.IntsArray;
+
+/**
+ * Measures the time to build the spatial index of a {@link GLFloatBuffer2D},
+ * to update part of it, and to run range searches against it.
+ *
+ * @see com.metsci.glimpse.gl.attribute.GLFloatBuffer2D
+ */
+public class SpatialIndexBenchmark
+{
+    public static void main( String[] args )
+    {
+        final int size = args.length > 0 ? Integer.parseInt( args[0] ) : 1000000;
+        final int updateSize = 1000;
+        final int searchCount = 10000;
+        final int trials = 5;
+
+        final Random r = new Random( 0 );
+
+        GLFloatBuffer2D buffer = new GLFloatBuffer2D( size, true );
+
+        Mutator fill = new Mutator( )
+        {
+            @Override
+            public void mutate( FloatBuffer data, int length )
+            {
+                data.clear( );
+                for ( int i = 0; i < size * length; i++ )
+                {
+                    data.put( r.nextFloat( ) );
+                }
+                data.flip( );
+            }
+        };
+
+        Mutator update = new Mutator( )
+        {
+            @Override
+            public void mutate( FloatBuffer data, int length )
+            {
+                for ( int i = 0; i < updateSize * length; i++ )
+                {
+                    data.put( i, r.nextFloat( ) );
+                }
+            }
+        };
+
+        IntsArray results = new IntsArray( );
+
+        for ( int trial = 0; trial < trials; trial++ )
+        {
+            long t0 = System.nanoTime( );
+            buffer.mutate( fill );
+            long t1 = System.nanoTime( );
+
+            buffer.mutateRange( update, 0, updateSize );
+            long t2 = System.nanoTime( );
+
+            long found = 0;
+            for ( int i = 0; i < searchCount; i++ )
+            {
+                float x = r.nextFloat( );
+                float y = r.nextFloat( );
+
+                results.n = 0;
+                found += buffer.search( x, x + 0.01f, y, y + 0.01f, results );
+            }
+            long t3 = System.nanoTime( );
+
+            System.out.printf( "trial %d: build %d points %.1f ms, update %d points %.2f ms, %d searches %.1f ms (%d results)%n", trial, size, ( t1 - t0 ) / 1e6, updateSize, ( t2 - t1 ) / 1e6, searchCount, ( t3 - t2 ) / 1e6, found );
+        }
+    }
+}
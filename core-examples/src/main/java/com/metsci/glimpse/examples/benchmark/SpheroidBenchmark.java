@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.examples.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.metsci.glimpse.util.geo.LatLonGeo;
+import com.metsci.glimpse.util.geo.datum.Datum;
+import com.metsci.glimpse.util.geo.util.DistanceAzimuth;
+import com.metsci.glimpse.util.geo.util.PositionAzimuth;
+import com.metsci.glimpse.util.geo.util.SpheroidUtil;
+import com.metsci.glimpse.util.units.Azimuth;
+import com.metsci.glimpse.util.units.Length;
+
+/**
+ * Compares single-point {@link SpheroidUtil#inverse(Datum, LatLonGeo, LatLonGeo)} and
+ * {@link SpheroidUtil#forward(Datum, LatLonGeo, double, double)} with the batch versions,
+ * run on the calling thread and on executors with increasing numbers of threads. Reports
+ * throughput per thread, and checks that batch results match single-point results.
+ */
+public class SpheroidBenchmark
+{
+    public static void main( String[] args )
+    {
+        int size = args.length > 0 ? Integer.parseInt( args[0] ) : 500000;
+        int trials = 5;
+        int nCores = Runtime.getRuntime( ).availableProcessors( );
+        Datum datum = Datum.wgs84;
+
+        // Random point pairs, and displacements of up to 1000 km
+        Random r = new Random( 0 );
+        double[] fromLats = new double[size];
+        double[] fromLons = new double[size];
+        double[] toLats = new double[size];
+        double[] toLons = new double[size];
+        double[] dists = new double[size];
+        double[] azimuths = new double[size];
+        LatLonGeo[] froms = new LatLonGeo[size];
+        LatLonGeo[] tos = new LatLonGeo[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            froms[i] = LatLonGeo.fromDeg( 160 * r.nextDouble( ) - 80, 360 * r.nextDouble( ) - 180 );
+            tos[i] = LatLonGeo.fromDeg( 160 * r.nextDouble( ) - 80, 360 * r.nextDouble( ) - 180 );
+            fromLats[i] = froms[i].getLatRad( );
+            fromLons[i] = froms[i].getLonRad( );
+            toLats[i] = tos[i].getLatRad( );
+            toLons[i] = tos[i].getLonRad( );
+            dists[i] = Length.fromKilometers( 1000 * r.nextDouble( ) );
+            azimuths[i] = Azimuth.fromNavDeg( 360 * r.nextDouble( ) );
+        }
+
+        double[] outDists = new double[size];
+        double[] outAzimuths = new double[size];
+        double[] outLats = new double[size];
+        double[] outLons = new double[size];
+
+        checkSameResults( datum, froms, tos, dists, azimuths, outDists, outAzimuths, outLats, outLons );
+
+        for ( int trial = 0; trial < trials; trial++ )
+        {
+            System.out.printf( "trial %d: %d points%n", trial, size );
+
+            long t0 = System.nanoTime( );
+            double sum = 0;
+            for ( int i = 0; i < size; i++ )
+            {
+                sum += SpheroidUtil.inverse( datum, froms[i], tos[i] ).getDistance( );
+            }
+            long t1 = System.nanoTime( );
+            for ( int i = 0; i < size; i++ )
+            {
+                sum += SpheroidUtil.forward( datum, froms[i], dists[i], azimuths[i] ).getPosition( ).getLatRad( );
+            }
+            long t2 = System.nanoTime( );
+            printThroughput( "single-point", 1, size, t1 - t0, t2 - t1, sum );
+
+            t0 = System.nanoTime( );
+            SpheroidUtil.inverse( datum, fromLats, fromLons, toLats, toLons, outDists, outAzimuths, size );
+            t1 = System.nanoTime( );
+            SpheroidUtil.forward( datum, fromLats, fromLons, dists, azimuths, outLats, outLons, null, size );
+            t2 = System.nanoTime( );
+            printThroughput( "batch", 1, size, t1 - t0, t2 - t1, sum( outDists ) + sum( outLats ) );
+
+            for ( int nThreads = 2; nThreads <= nCores; nThreads *= 2 )
+            {
+                ExecutorService executor = Executors.newFixedThreadPool( nThreads - 1 );
+                try
+                {
+                    t0 = System.nanoTime( );
+                    SpheroidUtil.inverse( datum, fromLats, fromLons, toLats, toLons, outDists, outAzimuths, size, executor );
+                    t1 = System.nanoTime( );
+                    SpheroidUtil.forward( datum, fromLats, fromLons, dists, azimuths, outLats, outLons, null, size, executor );
+                    t2 = System.nanoTime( );
+                    printThroughput( "batch parallel", nThreads, size, t1 - t0, t2 - t1, sum( outDists ) + sum( outLats ) );
+                }
+                finally
+                {
+                    executor.shutdown( );
+                }
+            }
+        }
+    }
+
+    protected static void printThroughput( String name, int nThreads, int size, long inverseNanos, long forwardNanos, double checksum )
+    {
+        double inverseRate = size / ( inverseNanos / 1e9 ) / nThreads;
+        double forwardRate = size / ( forwardNanos / 1e9 ) / nThreads;
+        System.out.printf( "    %-15s %2d thread(s): inverse %,10.0f /s/thread, forward %,10.0f /s/thread (checksum %.6g)%n", name, nThreads, inverseRate, forwardRate, checksum );
+    }
+
+    protected static double sum( double[] values )
+    {
+        double sum = 0;
+        for ( double v : values )
+        {
+            sum += v;
+        }
+        return sum;
+    }
+
+    protected static void checkSameResults( Datum datum, LatLonGeo[] froms, LatLonGeo[] tos, double[] dists, double[] azimuths, double[] outDists, double[] outAzimuths, double[] outLats, double[] outLons )
+    {
+        int size = froms.length;
+        double[] fromLats = new double[size];
+        double[] fromLons = new double[size];
+        double[] toLats = new double[size];
+        double[] toLons = new double[size];
+        double[] outBackAzimuths = new double[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            fromLats[i] = froms[i].getLatRad( );
+            fromLons[i] = froms[i].getLonRad( );
+            toLats[i] = tos[i].getLatRad( );
+            toLons[i] = tos[i].getLonRad( );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( 3 );
+        try
+        {
+            for ( int pass = 0; pass < 3; pass++ )
+            {
+                ExecutorService passExecutor = ( pass == 1 ? executor : null );
+
+                if ( pass < 2 )
+                {
+                    SpheroidUtil.inverse( datum, fromLats, fromLons, toLats, toLons, outDists, outAzimuths, size, passExecutor );
+                    SpheroidUtil.forward( datum, fromLats, fromLons, dists, azimuths, outLats, outLons, outBackAzimuths, size, passExecutor );
+                }
+                else
+                {
+                    // One-to-many inverse, from the first point
+                    SpheroidUtil.inverse( datum, froms[0], toLats, toLons, outDists, outAzimuths, size, executor );
+                }
+
+                for ( int i = 0; i < size; i++ )
+                {
+                    LatLonGeo from = ( pass < 2 ? froms[i] : froms[0] );
+                    DistanceAzimuth da = SpheroidUtil.inverse( datum, from, tos[i] );
+                    if ( da.getDistance( ) != outDists[i] || da.getAzimuth( ) != outAzimuths[i] )
+                    {
+                        throw new IllegalStateException( "Inverse results differ for point " + i + ": " + da + " vs " + outDists[i] + ", " + outAzimuths[i] );
+                    }
+
+                    if ( pass < 2 )
+                    {
+                        PositionAzimuth pa = SpheroidUtil.forward( datum, froms[i], dists[i], azimuths[i] );
+                        if ( pa.getPosition( ).getLatRad( ) != outLats[i] || pa.getPosition( ).getLonRad( ) != outLons[i] || pa.getAzimuth( ) != outBackAzimuths[i] )
+                        {
+                            throw new IllegalStateException( "Forward results differ for point " + i + ": " + pa + " vs " + outLats[i] + ", " + outLons[i] + ", " + outBackAzimuths[i] );
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown( );
+        }
+
+        System.out.println( "results match" );
+    }
+}
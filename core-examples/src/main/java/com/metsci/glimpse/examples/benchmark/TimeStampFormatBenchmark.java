@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.examples.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import com.metsci.glimpse.util.units.time.format.TimeStampFormatStandard;
+
+/**
+ * Compares the general {@link TimeStampFormatStandard#format(BigDecimal)} and
+ * {@link TimeStampFormatStandard#parse(String)} with the fast paths that work on
+ * integer posix times: {@link TimeStampFormatStandard#formatPosixMillis(long, StringBuilder)}
+ * and {@link TimeStampFormatStandard#parsePosixMillis(CharSequence)}. Also checks that
+ * both produce the same results.
+ */
+public class TimeStampFormatBenchmark
+{
+    public static void main( String[] args )
+    {
+        int size = args.length > 0 ? Integer.parseInt( args[0] ) : 200000;
+        int trials = 5;
+
+        //@formatter:off
+        TimeStampFormatStandard[] formats = { new TimeStampFormatStandard( "%y-%M-%dT%H:%m:%SZ", "UTC" ),
+                                              new TimeStampFormatStandard( "%y-%M-%d %H:%m:%3S", "America/New_York" ),
+                                              new TimeStampFormatStandard( "%d %3N %y %H:%m", "UTC" ) };
+        //@formatter:on
+
+        // Millisecond times spread over 2000 to 2020
+        Random r = new Random( 0 );
+        long start = 946684800000L;
+        long span = 20L * 365 * 24 * 3600 * 1000;
+        long[] times = new long[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            times[i] = start + ( long ) ( r.nextDouble( ) * span );
+        }
+
+        for ( TimeStampFormatStandard format : formats )
+        {
+            String[] strings = new String[size];
+            for ( int i = 0; i < size; i++ )
+            {
+                strings[i] = format.format( BigDecimal.valueOf( times[i], 3 ) );
+            }
+
+            checkSameResults( format, times, strings );
+
+            StringBuilder buffer = new StringBuilder( );
+            for ( int trial = 0; trial < trials; trial++ )
+            {
+                long t0 = System.nanoTime( );
+                long slowLength = 0;
+                for ( int i = 0; i < size; i++ )
+                {
+                    slowLength += format.format( BigDecimal.valueOf( times[i], 3 ) ).length( );
+                }
+                long t1 = System.nanoTime( );
+
+                long fastLength = 0;
+                for ( int i = 0; i < size; i++ )
+                {
+                    buffer.setLength( 0 );
+                    fastLength += format.formatPosixMillis( times[i], buffer ).length( );
+                }
+                long t2 = System.nanoTime( );
+
+                long slowSum = 0;
+                for ( int i = 0; i < size; i++ )
+                {
+                    slowSum += format.parse( strings[i] ).longValue( );
+                }
+                long t3 = System.nanoTime( );
+
+                long fastSum = 0;
+                for ( int i = 0; i < size; i++ )
+                {
+                    fastSum += format.parsePosixMillis( strings[i] ) / 1000;
+                }
+                long t4 = System.nanoTime( );
+
+                System.out.printf( "trial %d: %d times, format \"%s\"%n", trial, size, strings[0] );
+                System.out.printf( "    format: general %.1f ms, fast %.1f ms (%d and %d chars)%n", ( t1 - t0 ) / 1e6, ( t2 - t1 ) / 1e6, slowLength, fastLength );
+                System.out.printf( "    parse:  general %.1f ms, fast %.1f ms (checksums %d and %d)%n", ( t3 - t2 ) / 1e6, ( t4 - t3 ) / 1e6, slowSum, fastSum );
+            }
+        }
+    }
+
+    protected static void checkSameResults( TimeStampFormatStandard format, long[] times, String[] strings )
+    {
+        StringBuilder buffer = new StringBuilder( );
+        for ( int i = 0; i < times.length; i++ )
+        {
+            buffer.setLength( 0 );
+            format.formatPosixMillis( times[i], buffer );
+            if ( !strings[i].contentEquals( buffer ) )
+            {
+                throw new IllegalStateException( "Formatted strings differ for time " + times[i] + ": " + strings[i] + " vs " + buffer );
+            }
+
+            long expected = format.parse( strings[i] ).scaleByPowerOfTen( 3 ).setScale( 0, RoundingMode.HALF_UP ).longValue( );
+            long actual = format.parsePosixMillis( strings[i] );
+            if ( expected != actual )
+            {
+                throw new IllegalStateException( "Parsed times differ for string " + strings[i] + ": " + expected + " vs " + actual );
+            }
+        }
+
+        System.out.println( "results match" );
+    }
+}
@@ -43,7 +43,13 @@ import com.metsci.glimpse.axis.Axis1D;
  * axis label.<p>
  *
  * For example, an axis with min and max values of 0.001 and 0.006 might have tick
- * values displayed as "1.0" or "6.0" with "(x 1,000)" specified in the axis label.
+ * values displayed as "1.0" or "6.0" with "(x 1,000)" specified in the axis label.<p>
+ *
+ * Tick positions and labels are cached until the axis bounds, the axis size in pixels,
+ * or the handler settings change. When the axis is panned without changing the tick
+ * interval, labels for ticks which remain visible are reused and only newly visible
+ * ticks are formatted. The returned arrays are shared between calls and must not be
+ * modified.
  *
  * @author ulman
  */
@@ -63,6 +69,24 @@ public class GridAxisLabelHandler implements AxisLabelHandler
 
     protected AxisUnitConverter converter;
 
+    // tick positions from the last call to getTickPositions
+    protected double cachedMin = Double.NaN;
+    protected double cachedMax = Double.NaN;
+    protected int cachedSizePixels = -1;
+    protected double[] cachedTicks;
+
+    // tick labels from the last call to getTickLabels, along with the tick positions
+    // they were created for and the settings used to format them
+    protected double[] cachedLabelTicks;
+    protected String[] cachedLabels;
+    protected double cachedLabelInterval;
+    protected int cachedLabelOrderAxis;
+    protected int cachedLabelOrderTick;
+
+    // minor tick positions from the last call to getMinorTickPositions
+    protected double[] cachedMinorTicksInput;
+    protected double[] cachedMinorTicks;
+
     public GridAxisLabelHandler( )
     {
         this.tickNumberFormatter = NumberFormat.getNumberInstance( );
@@ -100,13 +124,41 @@ public class GridAxisLabelHandler implements AxisLabelHandler
     public void setAxisUnitConverter( AxisUnitConverter converter )
     {
         this.converter = converter;
+        this.invalidateCache( );
+    }
+
+    /**
+     * Discards cached tick positions and labels. Subclasses should call this
+     * whenever they change state which affects tick positions or tick labels.
+     */
+    public void invalidateCache( )
+    {
+        this.cachedSizePixels = -1;
+        this.cachedTicks = null;
+        this.cachedLabelTicks = null;
+        this.cachedLabels = null;
+        this.cachedMinorTicksInput = null;
+        this.cachedMinorTicks = null;
     }
 
     @Override
     public double[] getTickPositions( Axis1D axis )
     {
-        if ( axis.getSizePixels( ) == 0 ) return new double[0];
-        return tickPositions( axis, tickInterval( axis ) );
+        int sizePixels = axis.getSizePixels( );
+        if ( sizePixels == 0 ) return new double[0];
+
+        double min = converter.toAxisUnits( axis.getMin( ) );
+        double max = converter.toAxisUnits( axis.getMax( ) );
+
+        if ( cachedTicks == null || min != cachedMin || max != cachedMax || sizePixels != cachedSizePixels )
+        {
+            cachedTicks = tickPositions( axis, tickInterval( axis ) );
+            cachedMin = min;
+            cachedMax = max;
+            cachedSizePixels = sizePixels;
+        }
+
+        return cachedTicks;
     }
 
     @Override
@@ -115,14 +167,38 @@ public class GridAxisLabelHandler implements AxisLabelHandler
         double tickInterval = tickInterval( axis );
         int orderAxis = getOrderAxis( axis );
         int orderTick = getOrderTick( tickInterval );
+
+        boolean sameFormat = cachedLabels != null && tickInterval == cachedLabelInterval && orderAxis == cachedLabelOrderAxis && orderTick == cachedLabelOrderTick;
+        if ( sameFormat && tickPositions == cachedLabelTicks ) return cachedLabels;
+
         updateFormatter( orderAxis, orderTick );
 
         String[] tickLabels = new String[ tickPositions.length ];
+        int j = 0;
         for ( int i = 0 ; i < tickPositions.length ; i++ )
         {
+            // when panning, reuse the labels of ticks which were already visible
+            // (both arrays of tick positions are sorted)
+            if ( sameFormat )
+            {
+                while ( j < cachedLabelTicks.length && cachedLabelTicks[j] < tickPositions[i] ) j++;
+
+                if ( j < cachedLabelTicks.length && cachedLabelTicks[j] == tickPositions[i] )
+                {
+                    tickLabels[i] = cachedLabels[j];
+                    continue;
+                }
+            }
+
             tickLabels[i] = tickString( tickPositions[i], orderAxis );
         }
 
+        cachedLabelTicks = tickPositions;
+        cachedLabels = tickLabels;
+        cachedLabelInterval = tickInterval;
+        cachedLabelOrderAxis = orderAxis;
+        cachedLabelOrderTick = orderTick;
+
         return tickLabels;
     }
 
@@ -132,6 +208,9 @@ public class GridAxisLabelHandler implements AxisLabelHandler
         if ( tickPositions.length < 2 )
             return new double[0];
 
+        if ( tickPositions == cachedMinorTicksInput )
+            return cachedMinorTicks;
+
         // assume all the ticks are evenly spaced
         double start = tickPositions[0];
         double end = tickPositions[1];
@@ -157,6 +236,8 @@ public class GridAxisLabelHandler implements AxisLabelHandler
             minorTickPositions[minorIndex++] = start + step * j;
         }
 
+        cachedMinorTicksInput = tickPositions;
+        cachedMinorTicks = minorTickPositions;
 
         return minorTickPositions;
     }
@@ -170,16 +251,19 @@ public class GridAxisLabelHandler implements AxisLabelHandler
     public void setTickSpacing( int spacing )
     {
         this.tickSpacing = spacing;
+        this.invalidateCache( );
     }
 
     public void setMinorTickCount( int count )
     {
         this.minorTickCount = count;
+        this.invalidateCache( );
     }
 
     public void setAxisLabel( String label )
     {
         this.axisLabel = label;
+        this.invalidateCache( );
     }
 
     public void setAxisUnits( String units, boolean abbreviated )
@@ -199,6 +283,7 @@ public class GridAxisLabelHandler implements AxisLabelHandler
         this.axisMilliUnits = milliUnits;
         this.axisUnits = units;
         this.axisKiloUnits = kiloUnits;
+        this.invalidateCache( );
     }
 
     protected String axisLabel( int orderX )
@@ -53,11 +53,26 @@ public class LatLonAxisLabelHandler extends GridAxisLabelHandler
     @Override
     public String[] getTickLabels( Axis1D axis, double[] tickPositions )
     {
+        // labels depend only on tick position, so any previous label for the same position can be reused
+        if ( tickPositions == cachedLabelTicks ) return cachedLabels;
+
         String[] tickLabels = new String[ tickPositions.length ];
+        int j = 0;
         for ( int i = 0 ; i < tickPositions.length ; i++ )
         {
             double tickPosition = tickPositions[ i ];
 
+            if ( cachedLabelTicks != null )
+            {
+                while ( j < cachedLabelTicks.length && cachedLabelTicks[j] < tickPosition ) j++;
+
+                if ( j < cachedLabelTicks.length && cachedLabelTicks[j] == tickPosition )
+                {
+                    tickLabels[i] = cachedLabels[j];
+                    continue;
+                }
+            }
+
             String tickString;
 
             if ( longitude )
@@ -74,6 +89,9 @@ public class LatLonAxisLabelHandler extends GridAxisLabelHandler
             tickLabels[i] = tickString;
         }
 
+        cachedLabelTicks = tickPositions;
+        cachedLabels = tickLabels;
+
         return tickLabels;
     }
 
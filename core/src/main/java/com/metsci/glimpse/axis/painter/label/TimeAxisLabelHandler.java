@@ -28,7 +28,10 @@ package com.metsci.glimpse.axis.painter.label;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 
 import com.metsci.glimpse.axis.Axis1D;
@@ -38,6 +41,15 @@ import com.metsci.glimpse.util.units.time.TimeStamp;
 import com.metsci.glimpse.util.units.time.format.TimeStampFormat;
 import com.metsci.glimpse.util.units.time.format.TimeStampFormatStandard;
 
+/**
+ * Calculates tick times and tick labels for time axes.<p>
+ *
+ * Tick times, tick positions, tick labels, and time structs are cached until the
+ * axis bounds or axis size change. When the axis is panned without changing the tick
+ * interval, tick times and labels for ticks which remain visible are reused, so only
+ * newly visible ticks are created and formatted. Returned lists and arrays are shared
+ * between calls and must not be modified.
+ */
 public class TimeAxisLabelHandler implements AxisLabelHandler
 {
     protected static final TimeZone defaultTimeZone = TimeZone.getTimeZone( "UTC" );
@@ -75,6 +87,35 @@ public class TimeAxisLabelHandler implements AxisLabelHandler
     
     protected AxisUnitConverter converter;
 
+    // tick times from the last call to tickTimes
+    protected double cachedMin = Double.NaN;
+    protected double cachedMax = Double.NaN;
+    protected double cachedLengthPixels = Double.NaN;
+    protected int cachedPixelsBetweenTicks;
+    protected double cachedYearOrderFactor;
+    protected Epoch cachedEpoch;
+    protected List<TimeStamp> cachedTickTimes;
+
+    // sub-day tick times from the last call to tickTimes, reused when panning
+    protected long cachedFirstTickNumber;
+    protected double cachedTickInterval_SU;
+    protected double cachedZoneOffset_SU;
+    protected List<TimeStamp> cachedSubDayTickTimes;
+
+    // tick positions from the last call to getTickPositions
+    protected List<TimeStamp> cachedPositionTimes;
+    protected double[] cachedPositions;
+
+    // tick labels from the last call to tickLabels, for each format
+    protected final Map<TimeStampFormat, LabelCache> labelCaches = new IdentityHashMap<TimeStampFormat, LabelCache>( );
+
+    // time structs from the last call to timeStructs
+    protected List<TimeStamp> cachedStructTimes;
+    protected TimeStructFactory cachedStructFactory;
+    protected double cachedStructMin = Double.NaN;
+    protected double cachedStructMax = Double.NaN;
+    protected List<TimeStruct> cachedStructs;
+
     public TimeAxisLabelHandler( Epoch epoch )
     {
         this( defaultTimeZone, epoch );
@@ -243,7 +284,31 @@ public class TimeAxisLabelHandler implements AxisLabelHandler
         return numSteps * yearStep;
     }
 
+    /**
+     * Returns the times at which ticks should be drawn for the current axis bounds.
+     * The result is cached, so repeated calls for unchanged axis bounds return the
+     * same unmodifiable list.
+     */
     public List<TimeStamp> tickTimes( Axis1D axis, double axisLengthPixels )
+    {
+        double min = axis.getMin( );
+        double max = axis.getMax( );
+
+        if ( cachedTickTimes == null || min != cachedMin || max != cachedMax || axisLengthPixels != cachedLengthPixels || pixelsBetweenTicks != cachedPixelsBetweenTicks || yearOrderFactor != cachedYearOrderFactor || epoch != cachedEpoch )
+        {
+            cachedTickTimes = Collections.unmodifiableList( tickTimes0( axis, axisLengthPixels ) );
+            cachedMin = min;
+            cachedMax = max;
+            cachedLengthPixels = axisLengthPixels;
+            cachedPixelsBetweenTicks = pixelsBetweenTicks;
+            cachedYearOrderFactor = yearOrderFactor;
+            cachedEpoch = epoch;
+        }
+
+        return cachedTickTimes;
+    }
+
+    protected List<TimeStamp> tickTimes0( Axis1D axis, double axisLengthPixels )
     {
         TimeStamp t0 = toTimeStamp( axis.getMin( ) );
         TimeStamp t1 = toTimeStamp( axis.getMax( ) );
@@ -360,12 +425,34 @@ public class TimeAxisLabelHandler implements AxisLabelHandler
             // Put ticks on nice round numbers in _local_ time
             double zoneOffset_SU = Time.fromMilliseconds( timeZone.getOffset( t0.toPosixMillis( ) ) );
             TimeStamp epoch = TimeStamp.posixEpoch( );
-            TimeStamp firstTick = epoch.add( tickInterval_SU * Math.floor( ( t0.durationAfter( epoch ) + zoneOffset_SU ) / tickInterval_SU ) - zoneOffset_SU );
+            long firstTickNumber = ( long ) Math.floor( ( t0.durationAfter( epoch ) + zoneOffset_SU ) / tickInterval_SU );
+            TimeStamp firstTick = epoch.add( tickInterval_SU * firstTickNumber - zoneOffset_SU );
             double numTicks = 1 + ( t1.durationAfter( firstTick ) / tickInterval_SU );
 
+            // when panning, the tick interval is unchanged and many ticks are still visible,
+            // so reuse the previous TimeStamps rather than creating new ones
+            List<TimeStamp> previous = cachedSubDayTickTimes;
+            boolean reuse = previous != null && tickInterval_SU == cachedTickInterval_SU && zoneOffset_SU == cachedZoneOffset_SU;
+
             List<TimeStamp> times = new ArrayList<TimeStamp>( );
             for ( int i = 0; i < numTicks; i++ )
-                times.add( firstTick.add( i * tickInterval_SU ) );
+            {
+                long previousIndex = firstTickNumber + i - cachedFirstTickNumber;
+                if ( reuse && previousIndex >= 0 && previousIndex < previous.size( ) )
+                {
+                    times.add( previous.get( ( int ) previousIndex ) );
+                }
+                else
+                {
+                    times.add( firstTick.add( i * tickInterval_SU ) );
+                }
+            }
+
+            cachedFirstTickNumber = firstTickNumber;
+            cachedTickInterval_SU = tickInterval_SU;
+            cachedZoneOffset_SU = zoneOffset_SU;
+            cachedSubDayTickTimes = times;
+
             return times;
         }
     }
@@ -510,6 +597,13 @@ public class TimeAxisLabelHandler implements AxisLabelHandler
 
     }
 
+    protected static class LabelCache
+    {
+        public List<TimeStamp> times;
+        public long[] millis;
+        public String[] labels;
+    }
+
     public static interface TimeStructFactory
     {
         public TimeStruct newTimeStruct( );
@@ -561,7 +655,79 @@ public class TimeAxisLabelHandler implements AxisLabelHandler
         return ( a.compareTo( b ) > 0 ? a : b );
     }
 
+    /**
+     * Returns a label for each of the provided tick times. Labels are cached per format:
+     * the same array is returned when called again with the same list of tick times, and
+     * labels for tick times which were also labeled in the previous call are reused.
+     */
+    public String[] tickLabels( List<TimeStamp> tickTimes, TimeStampFormat format )
+    {
+        LabelCache cache = labelCaches.get( format );
+        if ( cache == null )
+        {
+            cache = new LabelCache( );
+            labelCaches.put( format, cache );
+        }
+
+        if ( tickTimes == cache.times ) return cache.labels;
+
+        int size = tickTimes.size( );
+        long[] millis = new long[size];
+        String[] labels = new String[size];
+
+        // tick times are sorted, so walk the previous ticks alongside the new ones
+        long[] previousMillis = cache.millis;
+        String[] previousLabels = cache.labels;
+        int j = 0;
+        for ( int i = 0; i < size; i++ )
+        {
+            TimeStamp t = tickTimes.get( i );
+            millis[i] = t.toPosixMillis( );
+
+            if ( previousMillis != null )
+            {
+                while ( j < previousMillis.length && previousMillis[j] < millis[i] )
+                    j++;
+
+                if ( j < previousMillis.length && previousMillis[j] == millis[i] )
+                {
+                    labels[i] = previousLabels[j];
+                    continue;
+                }
+            }
+
+            labels[i] = t.toString( format );
+        }
+
+        cache.times = tickTimes;
+        cache.millis = millis;
+        cache.labels = labels;
+
+        return labels;
+    }
+
+    /**
+     * Returns a TimeStruct for each of the provided tick times. The result is cached,
+     * so repeated calls for unchanged tick times and axis bounds return the same list.
+     */
     public List<TimeStruct> timeStructs( Axis1D axis, List<TimeStamp> tickTimes, TimeStructFactory factory )
+    {
+        double min = axis.getMin( );
+        double max = axis.getMax( );
+
+        if ( cachedStructs == null || tickTimes != cachedStructTimes || factory != cachedStructFactory || min != cachedStructMin || max != cachedStructMax )
+        {
+            cachedStructs = Collections.unmodifiableList( timeStructs0( axis, tickTimes, factory ) );
+            cachedStructTimes = tickTimes;
+            cachedStructFactory = factory;
+            cachedStructMin = min;
+            cachedStructMax = max;
+        }
+
+        return cachedStructs;
+    }
+
+    protected List<TimeStruct> timeStructs0( Axis1D axis, List<TimeStamp> tickTimes, TimeStructFactory factory )
     {
         TimeStamp viewStart = toTimeStamp( axis.getMin( ) );
         TimeStamp viewEnd = toTimeStamp( axis.getMax( ) );
@@ -604,6 +770,8 @@ public class TimeAxisLabelHandler implements AxisLabelHandler
     public double[] getTickPositions( Axis1D axis )
     {
         List<TimeStamp> tickList = tickTimes( axis, axis.getSizePixels( ) );
+        if ( tickList == cachedPositionTimes ) return cachedPositions;
+
         double[] tickArray = new double[tickList.size( )];
         
         for ( int i = 0 ; i < tickList.size( ) ; i++ )
@@ -611,6 +779,9 @@ public class TimeAxisLabelHandler implements AxisLabelHandler
             tickArray[i] = fromTimeStamp( tickList.get( i ) );
         }
         
+        cachedPositionTimes = tickList;
+        cachedPositions = tickArray;
+
         return tickArray;
     }
     
@@ -41,8 +41,25 @@ public abstract class GLBuffer
 
     protected int elementSize; // 1, 2, 3, or 4
 
+    // after this many uploads the buffer is treated as frequently updated
+    // and GL_DYNAMIC_DRAW is used when the device buffer is next allocated
+    protected static final int DYNAMIC_UPLOAD_COUNT = 3;
+
     protected int glHandle;
+    // the number of bytes allocated for the device buffer
+    protected int glCapacity;
+    // true indicates that the entire buffer must be copied to the device
     protected boolean dirty;
+    // the range of bytes [dirtyStart,dirtyEnd) which must be copied to the device
+    protected int dirtyStart;
+    protected int dirtyEnd;
+
+    protected int usageHint;
+    protected boolean usageHintAuto;
+
+    // statistics about the data copied to the device
+    protected long uploadedBytes;
+    protected int uploadCount;
     
     protected ByteBuffer data;
     
@@ -54,7 +71,12 @@ public abstract class GLBuffer
         if ( elementSize > 4 || elementSize < 1 ) throw new IllegalArgumentException( "length must be 1, 2, 3, or 4" );
 
         this.glHandle = -1;
+        this.glCapacity = 0;
         this.dirty = true;
+        this.clearDirtyRange( );
+
+        this.usageHint = GL.GL_STATIC_DRAW;
+        this.usageHintAuto = true;
 
         this.elementSize = elementSize;
         
@@ -103,6 +125,67 @@ public abstract class GLBuffer
         dirty = true;
     }
 
+    /**
+     * Indicates that only the vertices in the range [startVertex,endVertex) have
+     * changed. Dirty ranges are merged until the next time the buffer is copied
+     * to the device, when only the merged range is uploaded.
+     */
+    public void makeDirty( int startVertex, int endVertex )
+    {
+        if ( endVertex <= startVertex ) return;
+
+        int bytesPerVertex = elementSize * getBytesPerElement( );
+        dirtyStart = Math.min( dirtyStart, startVertex * bytesPerVertex );
+        dirtyEnd = Math.max( dirtyEnd, endVertex * bytesPerVertex );
+    }
+
+    protected void clearDirtyRange( )
+    {
+        dirtyStart = Integer.MAX_VALUE;
+        dirtyEnd = 0;
+    }
+
+    /**
+     * Sets the usage hint passed to glBufferData (GL_STATIC_DRAW, GL_DYNAMIC_DRAW,
+     * or GL_STREAM_DRAW). If not set, GL_STATIC_DRAW is used until the buffer has
+     * been uploaded several times, then GL_DYNAMIC_DRAW.
+     */
+    public void setUsageHint( int usageHint )
+    {
+        lock.lock( );
+        try
+        {
+            if ( this.usageHint != usageHint ) this.dirty = true;
+            this.usageHint = usageHint;
+            this.usageHintAuto = false;
+        }
+        finally
+        {
+            lock.unlock( );
+        }
+    }
+
+    public int getUsageHint( )
+    {
+        return usageHint;
+    }
+
+    /**
+     * @return the total number of bytes copied to the device by this buffer
+     */
+    public long getUploadedBytes( )
+    {
+        return uploadedBytes;
+    }
+
+    /**
+     * @return the number of times data has been copied to the device by this buffer
+     */
+    public int getUploadCount( )
+    {
+        return uploadCount;
+    }
+
     public int getNumVertices( )
     {
         return data.limit( ) / elementSize / getBytesPerElement( );
@@ -179,11 +262,36 @@ public abstract class GLBuffer
 
             gl.glBindBuffer( GL.GL_ARRAY_BUFFER, glHandle );
 
-            if ( isDirty( ) )
+            int size = data.limit( );
+
+            if ( isDirty( ) || size > glCapacity )
             {
-                gl.glBufferData( GL.GL_ARRAY_BUFFER, data.limit( ), data.rewind( ), GL.GL_STATIC_DRAW );
-                dirty = false;
+                if ( usageHintAuto && uploadCount >= DYNAMIC_UPLOAD_COUNT ) usageHint = GL.GL_DYNAMIC_DRAW;
+
+                // allocate space for the whole host buffer so that it can grow up to its
+                // capacity without reallocating the device buffer, passing null orphans
+                // the old device buffer so this doesn't wait for draws using it to finish
+                glCapacity = data.capacity( );
+                gl.glBufferData( GL.GL_ARRAY_BUFFER, glCapacity, null, usageHint );
+                gl.glBufferSubData( GL.GL_ARRAY_BUFFER, 0, size, data.rewind( ) );
+
+                uploadedBytes += size;
+                uploadCount++;
             }
+            else if ( dirtyStart < dirtyEnd && dirtyStart < size )
+            {
+                int end = Math.min( dirtyEnd, size );
+
+                data.position( dirtyStart );
+                gl.glBufferSubData( GL.GL_ARRAY_BUFFER, dirtyStart, end - dirtyStart, data );
+                data.rewind( );
+
+                uploadedBytes += end - dirtyStart;
+                uploadCount++;
+            }
+
+            dirty = false;
+            clearDirtyRange( );
 
             return !isDirty( );
         }
@@ -202,6 +310,7 @@ public abstract class GLBuffer
             {
                 gl.glDeleteBuffers( 1, new int[] { glHandle }, 0 );
                 glHandle = -1;
+                glCapacity = 0;
             }
         }
         finally
@@ -228,6 +337,26 @@ public abstract class GLBuffer
         }
     }
 
+    /**
+     * Like {@link #mutate(Mutator)}, but indicates that the mutator only changes
+     * vertices in the range [startVertex,endVertex), so only that range is copied
+     * to the device.
+     */
+    public void mutate( Mutator mutator, int startVertex, int endVertex )
+    {
+        lock.lock( );
+        try
+        {
+            mutator.mutate( data, elementSize );
+            data.flip( );
+            makeDirty( startVertex, endVertex );
+        }
+        finally
+        {
+            lock.unlock( );
+        }
+    }
+
     public static interface Mutator
     {
         public void mutate( ByteBuffer data, int length );
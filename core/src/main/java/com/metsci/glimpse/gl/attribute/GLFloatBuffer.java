@@ -76,6 +76,32 @@ public class GLFloatBuffer extends GLBuffer
         }
     }
 
+    /**
+     * Like {@link #mutate(Mutator)}, but indicates that the mutator only changes
+     * vertices in the range [startVertex,endVertex), so only that range is copied
+     * to the device.
+     */
+    public void mutateRange( Mutator mutator, int startVertex, int endVertex )
+    {
+        lock.lock( );
+        try
+        {
+            data.clear( );
+            FloatBuffer floatData = data.asFloatBuffer( );
+
+            mutator.mutate( floatData, elementSize );
+
+            data.position( 0 );
+            data.limit( floatData.limit( ) * getBytesPerElement( ) );
+
+            makeDirty( startVertex, endVertex );
+        }
+        finally
+        {
+            lock.unlock( );
+        }
+    }
+
     public static interface Mutator
     {
         public void mutate( FloatBuffer data, int length );
@@ -26,6 +26,7 @@
  */
 package com.metsci.glimpse.gl.attribute;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 
 import com.metsci.glimpse.util.primitives.IntsModifiable;
@@ -40,6 +41,11 @@ public class GLFloatBuffer2D extends GLFloatBuffer
     protected QuadTreeInts xyIndex;
     protected boolean indexEnabled;
 
+    // a float view of the whole of data, used by xyIndex to read coordinates
+    // (recreated only when data is replaced by ensureCapacity)
+    protected FloatBuffer xyView;
+    protected ByteBuffer xyViewData;
+
     public GLFloatBuffer2D( int length, boolean indexEnabled )
     {
         super( length, 2 );
@@ -51,6 +57,25 @@ public class GLFloatBuffer2D extends GLFloatBuffer
         this( length, false );
     }
 
+    @Override
+    public void ensureCapacity( int length )
+    {
+        lock.lock();
+        try
+        {
+            ByteBuffer oldData = data;
+
+            super.ensureCapacity( length );
+
+            // the index reads from a view of the old buffer
+            if ( data != oldData && xyIndex != null ) createIndex();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
     protected void pruneIndex( int updateIndex )
     {
         lock.lock();
@@ -95,20 +120,7 @@ public class GLFloatBuffer2D extends GLFloatBuffer
             {
                 // mutators should optionally return a list of changed
                 // points to speed this up when only a few points change
-                xyIndex = new QuadTreeInts( MAX_BUCKET_SIZE )
-                {
-                    @Override
-                    protected final float x( int i )
-                    {
-                        return data.asFloatBuffer( ).get( i*2 );
-                    }
-
-                    @Override
-                    protected final float y( int i )
-                    {
-                        return data.asFloatBuffer( ).get( i*2+1 );
-                    }
-                };
+                xyIndex = new XyIndex( );
 
                   for ( int i = 0 ; i < getNumVertices( ) ;i++ )
                 {
@@ -142,20 +154,7 @@ public class GLFloatBuffer2D extends GLFloatBuffer
             
             // mutators should optionally return a list of changed
             // points to speed this up when only a few points change
-            xyIndex = new QuadTreeInts( MAX_BUCKET_SIZE )
-            {
-                @Override
-                protected final float x( int i )
-                {
-                    return data.asFloatBuffer( ).get( i*2 );
-                }
-
-                @Override
-                protected final float y( int i )
-                {
-                    return data.asFloatBuffer( ).get( i*2+1 );
-                }
-            };
+            xyIndex = new XyIndex( );
 
             for( int i = 0; i < getNumVertices( ); i++ )
             {
@@ -168,6 +167,20 @@ public class GLFloatBuffer2D extends GLFloatBuffer
         }
     }
 
+    protected FloatBuffer getXyView( )
+    {
+        if ( xyViewData != data )
+        {
+            // duplicate so that the view covers all of data regardless of its position and limit
+            ByteBuffer whole = data.duplicate( ).order( data.order( ) );
+            whole.clear( );
+            xyView = whole.asFloatBuffer( );
+            xyViewData = data;
+        }
+
+        return xyView;
+    }
+
     public boolean isIndexEnabled()
     {
         return indexEnabled;
@@ -234,14 +247,15 @@ public class GLFloatBuffer2D extends GLFloatBuffer
             
             mutator.mutate( floatData, elementSize );
             
-            updateIndex( mutator.getUpdateIndex( ) );
-            
             // the limit/position of floatData and data are independent
             // update data.limit() to reflect changes made to floatData
             data.position( 0 );
             data.limit( floatData.limit( ) * getBytesPerElement( ) );
-            
-            makeDirty();
+
+            updateIndex( mutator.getUpdateIndex( ) );
+
+            // only vertices at or after the update index have changed
+            makeDirty( mutator.getUpdateIndex( ), getNumVertices( ) );
         }
         finally
         {
@@ -274,6 +288,71 @@ public class GLFloatBuffer2D extends GLFloatBuffer
         }
     }
 
+    public void mutateRange( Mutator mutator, int startVertex, int endVertex )
+    {
+        lock.lock();
+        try
+        {
+            if ( xyIndex != null )
+            {
+                for ( int i = startVertex; i < Math.min( endVertex, getNumVertices( ) ); i++ )
+                {
+                    xyIndex.remove( i );
+                }
+            }
+
+            data.clear( );
+            FloatBuffer floatData = data.asFloatBuffer( );
+
+            mutator.mutate( floatData, elementSize );
+
+            data.position( 0 );
+            data.limit( floatData.limit( ) * getBytesPerElement( ) );
+
+            if ( xyIndex != null )
+            {
+                for ( int i = startVertex; i < Math.min( endVertex, getNumVertices( ) ); i++ )
+                {
+                    xyIndex.add( i );
+                }
+            }
+            else
+            {
+                createIndex();
+            }
+
+            makeDirty( startVertex, endVertex );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // reads coordinates with absolute gets from a cached view, rather than creating a view per read
+    protected class XyIndex extends QuadTreeInts
+    {
+        protected final FloatBuffer xys;
+
+        public XyIndex( )
+        {
+            super( MAX_BUCKET_SIZE );
+            this.xys = getXyView( );
+        }
+
+        @Override
+        protected final float x( int i )
+        {
+            return xys.get( i*2 );
+        }
+
+        @Override
+        protected final float y( int i )
+        {
+            return xys.get( i*2+1 );
+        }
+    }
+
     public static interface IndexedMutator extends Mutator
     {
         /**
@@ -27,6 +27,7 @@
 package com.metsci.glimpse.gl.shader;
 
 import static com.metsci.glimpse.gl.shader.GLShaderUtils.*;
+import static com.metsci.glimpse.util.logging.LoggerUtils.*;
 
 import java.util.logging.Logger;
 
@@ -171,10 +172,31 @@ public class Pipeline
             return true;
 
         isLinked = false;
-        logger.info( "Compiling " + toString() + "..." );
+        long start = System.nanoTime();
 
         glProgramHandle = gl.glCreateProgram();
 
+        // try to skip compilation entirely using a cached program binary
+        String binaryKey = null;
+        if( ShaderCache.isProgramBinarySupported( gl ) )
+        {
+            binaryKey = ShaderCache.getProgramKey( gl, geometryShader, vertexShader, fragmentShader );
+            if( ShaderCache.loadProgramBinary( gl, glProgramHandle, binaryKey ) )
+            {
+                logInfo( logger, "Loaded %s from program binary cache in %.1f ms.", toString(), ( System.nanoTime() - start ) / 1e6 );
+
+                // shaders may initialize arg values in preLink, which must happen whether or not
+                // the program was compiled (attribute bindings are already part of the binary)
+                if( !preLinkCached( gl ) )
+                    return false;
+
+                getShaderArgHandles( gl );
+                return true;
+            }
+        }
+
+        logger.info( "Compiling " + toString() + "..." );
+
         if( geometryShader != null )
         {
             if( !geometryShader.compileAndAttach( gl, glProgramHandle ) )
@@ -193,6 +215,9 @@ public class Pipeline
                 return false;
         }
 
+        if( binaryKey != null )
+            ShaderCache.prepareProgramBinary( gl, glProgramHandle );
+
         logger.info( "Linking " + toString() + "..." );
         gl.glLinkProgram( glProgramHandle );
 
@@ -203,21 +228,44 @@ public class Pipeline
         }
         else
         {
-            isLinked = true;
-
-            if( geometryShader != null )
-                geometryShader.getShaderArgHandles( gl, glProgramHandle );
+            long nanos = System.nanoTime() - start;
+            ShaderCache.recordCompile( nanos );
+            logInfo( logger, "Built %s from source in %.1f ms.", toString(), nanos / 1e6 );
 
-            if( vertexShader != null )
-                vertexShader.getShaderArgHandles( gl, glProgramHandle );
-
-            if( fragmentShader != null )
-                fragmentShader.getShaderArgHandles( gl, glProgramHandle );
+            if( binaryKey != null )
+                ShaderCache.storeProgramBinary( gl, glProgramHandle, binaryKey );
 
+            getShaderArgHandles( gl );
             return true;
         }
     }
 
+    private boolean preLinkCached( GL gl )
+    {
+        if( geometryShader != null && !geometryShader.preLink( gl, glProgramHandle ) )
+            return false;
+
+        if( vertexShader != null && !vertexShader.preLink( gl, glProgramHandle ) )
+            return false;
+
+        if( fragmentShader != null && !fragmentShader.preLink( gl, glProgramHandle ) )
+            return false;
+
+        return true;
+    }
+
+    private void getShaderArgHandles( GL gl )
+    {
+        if( geometryShader != null )
+            geometryShader.getShaderArgHandles( gl, glProgramHandle );
+
+        if( vertexShader != null )
+            vertexShader.getShaderArgHandles( gl, glProgramHandle );
+
+        if( fragmentShader != null )
+            fragmentShader.getShaderArgHandles( gl, glProgramHandle );
+    }
+
     public void dispose( GLContext context )
     {
         GL gl = context.getGL( );
@@ -32,7 +32,9 @@ import static com.metsci.glimpse.gl.shader.ShaderArgQualifier.*;
 import static java.util.logging.Level.INFO;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.media.opengl.GL;
@@ -61,9 +63,16 @@ public abstract class Shader
 
     private final ShaderSource[] sources;
     private final ShaderArg[] args;
+    private final Map<String, Integer> argIndices;
+    private final int[] uniformIndices;
+
+    // for args supplied by a UniformBlock, the block's arg and the version last copied from it
+    private final ShaderArg[] sharedArgs;
+    private final int[] sharedVersions;
 
     private int[] glShaderHandles;
     private int[] glArgHandles;
+    private int glProgramHandle;
 
     public static ShaderSource[] getSource( String... shaderFile )
     {
@@ -117,6 +126,25 @@ public abstract class Shader
         this.type = type;
         this.sources = source;
 
+        this.argIndices = new HashMap<String, Integer>();
+        int uniformCount = 0;
+        for( int i = 0; i < args.length; i++ )
+        {
+            argIndices.put( args[i].getName(), i );
+            if( args[i].getQual() == UNIFORM )
+                uniformCount++;
+        }
+
+        this.uniformIndices = new int[uniformCount];
+        for( int i = 0, j = 0; i < args.length; i++ )
+        {
+            if( args[i].getQual() == UNIFORM )
+                uniformIndices[j++] = i;
+        }
+
+        this.sharedArgs = new ShaderArg[args.length];
+        this.sharedVersions = new int[args.length];
+
         logShaderArgs( logger, INFO, args, toString() + ": " );
     }
 
@@ -135,12 +163,29 @@ public abstract class Shader
 
     protected ShaderArg getArg( String name )
     {
-        // TODO: Hello, Map!
-        for( int i = 0; i < args.length; i++ )
-            if( args[i].getName().contentEquals( name ) )
-                return args[i];
+        Integer index = argIndices.get( name );
+        return index == null ? null : args[index];
+    }
+
+    /**
+     * Takes the values of this shader's uniforms from the uniforms with the same
+     * names in the given block. Uniforms declared in the block after this call are
+     * not picked up.
+     */
+    public void addUniformBlock( UniformBlock block )
+    {
+        for( ShaderArg shared : block.getUniforms() )
+        {
+            Integer index = argIndices.get( shared.getName() );
+            if( index == null || args[index].getQual() != UNIFORM )
+                continue;
 
-        return null;
+            if( args[index].getType() != shared.getType() )
+                throw new IllegalArgumentException( "Uniform " + shared.getName() + " in " + toString() + " has type " + args[index].getType() + ", but " + shared.getType() + " in " + block );
+
+            sharedArgs[index] = shared;
+            sharedVersions[index] = shared.getVersion() - 1;
+        }
     }
 
     public String getName( )
@@ -153,9 +198,18 @@ public abstract class Shader
         return type;
     }
 
+    ShaderSource[] getSources( )
+    {
+        return sources;
+    }
+
     /**
      * Called right after the program has been compiled, but before it has been
-     * linked.
+     * linked. When the program is instead loaded from a cached program binary
+     * (see {@link ShaderCache}) it is called after the binary has been loaded,
+     * so the program is already linked: attribute locations bound here were
+     * captured in the binary when it was built, and arg values set here are
+     * applied as usual.
      *
      * @return false if any problems specific to this shader are found, true
      *         otherwise
@@ -222,11 +276,17 @@ public abstract class Shader
      */
     protected boolean getShaderArgHandles( GL gl, int glProgramHandle )
     {
+        this.glProgramHandle = glProgramHandle;
         glArgHandles = new int[args.length];
 
         for( int i = 0; i < args.length; i++ )
         {
             ShaderArg arg = args[i];
+
+            // a newly linked program has default uniform values, and may reuse the handle
+            // of an earlier program, so values must be sent again even if they are unchanged
+            arg.makeDirty();
+
             if( arg.getQual() == UNIFORM )
             {
                 glArgHandles[i] = gl.glGetUniformLocation( glProgramHandle, arg.getName() );
@@ -245,13 +305,24 @@ public abstract class Shader
      */
     protected void updateArgValues( GL gl )
     {
-        for( int i = 0; i < args.length; i++ )
+        // only uniforms whose values have changed since they were last sent
+        // to this program are actually sent
+        for( int j = 0; j < uniformIndices.length; j++ )
         {
-            ShaderArg arg = args[i];
-            if( arg.getQual() == UNIFORM )
+            int i = uniformIndices[j];
+
+            ShaderArg shared = sharedArgs[i];
+            if( shared != null )
             {
-                arg.update( gl, glArgHandles[i] );
+                int version = shared.getVersion();
+                if( version != sharedVersions[i] )
+                {
+                    args[i].setValue( shared );
+                    sharedVersions[i] = version;
+                }
             }
+
+            args[i].update( gl, glArgHandles[i], glProgramHandle );
         }
     }
 
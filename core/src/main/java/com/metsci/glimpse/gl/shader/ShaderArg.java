@@ -28,7 +28,9 @@ package com.metsci.glimpse.gl.shader;
 
 import static com.metsci.glimpse.util.logging.LoggerUtils.logFine;
 
+import java.util.Arrays;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.media.opengl.GL;
@@ -51,9 +53,20 @@ public class ShaderArg
     private final ShaderArgQualifier qual;
     private final ShaderArgInOut inout;
 
-    private Object lastPushedValue;
-    private Object currentValue;
-    private boolean dirty;
+    // the current value, stored unboxed: int and boolean values are kept in
+    // intValue, float values in floatValue, and vector/matrix values in arrayValue
+    private int intValue;
+    private float floatValue;
+    private float[] arrayValue;
+    private boolean hasValue;
+
+    // incremented whenever the value changes
+    private volatile int version;
+
+    // the program whose uniform this arg last updated, and whether the value
+    // has changed since then
+    private int pushedProgram;
+    private volatile boolean dirty;
 
     public ShaderArg( String name, ShaderArgType type, ShaderArgQualifier qual, ShaderArgInOut inout )
     {
@@ -95,15 +108,25 @@ public class ShaderArg
         dirty = true;
     }
 
-    public void setValue( Object val )
+    /**
+     * @return a counter which changes whenever the value of this arg changes
+     */
+    public int getVersion( )
+    {
+        return version;
+    }
+
+    public void setValue( int val )
     {
         lock.lock();
         try
         {
-            currentValue = val;
-            if( lastPushedValue != null )
-                if( !currentValue.equals( lastPushedValue ) )
-                    makeDirty();
+            if( hasValue && intValue == val && floatValue == val )
+                return;
+
+            intValue = val;
+            floatValue = val;
+            valueChanged();
         }
         finally
         {
@@ -111,17 +134,143 @@ public class ShaderArg
         }
     }
 
-    protected void update( GL gl, int glArgHandle )
+    public void setValue( float val )
     {
         lock.lock();
         try
         {
-            if( lastPushedValue != null )
-                if( currentValue.equals( lastPushedValue ) )
-                {
-                    dirty = false;
+            if( hasValue && floatValue == val && intValue == ( int ) val )
+                return;
+
+            intValue = ( int ) val;
+            floatValue = val;
+            valueChanged();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void setValue( boolean val )
+    {
+        setValue( val ? 1 : 0 );
+    }
+
+    /**
+     * Sets the value of a vector or matrix arg. The values are copied, so the
+     * array may be reused by the caller.
+     */
+    public void setValue( float[] val )
+    {
+        lock.lock();
+        try
+        {
+            if( hasValue && Arrays.equals( arrayValue, val ) )
+                return;
+
+            if( arrayValue == null || arrayValue.length != val.length )
+                arrayValue = new float[val.length];
+
+            System.arraycopy( val, 0, arrayValue, 0, val.length );
+            valueChanged();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the value from a boxed Number or Boolean, or a float[]. Prefer the
+     * typed setters, which avoid boxing.
+     */
+    public void setValue( Object val )
+    {
+        if( val instanceof Float || val instanceof Double )
+            setValue( ( (Number) val ).floatValue() );
+        else if( val instanceof Number )
+            setValue( ( (Number) val ).intValue() );
+        else if( val instanceof Boolean )
+            setValue( ( (Boolean) val ).booleanValue() );
+        else if( val instanceof float[] )
+            setValue( (float[]) val );
+        else
+            throw new IllegalArgumentException( "Unsupported value for " + toString() + ": " + val );
+    }
+
+    /**
+     * Copies the value of another arg, without boxing.
+     */
+    public void setValue( ShaderArg from )
+    {
+        float[] array;
+        int i;
+        float f;
+
+        from.lock.lock();
+        try
+        {
+            if( !from.hasValue )
+                return;
+
+            array = from.arrayValue == null ? null : from.arrayValue.clone();
+            i = from.intValue;
+            f = from.floatValue;
+        }
+        finally
+        {
+            from.lock.unlock();
+        }
+
+        if( array != null )
+        {
+            setValue( array );
+        }
+        else
+        {
+            lock.lock();
+            try
+            {
+                if( hasValue && intValue == i && floatValue == f )
                     return;
-                }
+
+                intValue = i;
+                floatValue = f;
+                valueChanged();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void valueChanged( )
+    {
+        hasValue = true;
+        version++;
+        makeDirty();
+    }
+
+    /**
+     * Sends the value to the uniform in the given program, if it has changed since
+     * it was last sent to that program.
+     */
+    protected void update( GL gl, int glArgHandle, int glProgramHandle )
+    {
+        // cheap check, without locking, for the common case of an unchanged value
+        if( !dirty && pushedProgram == glProgramHandle )
+            return;
+
+        lock.lock();
+        try
+        {
+            if( !hasValue )
+                return;
+
+            if( logger.isLoggable( Level.FINE ) )
+                logFine( logger, "Updating %s to %s.", toString(), getValueString() );
 
             switch( type )
             {
@@ -133,47 +282,37 @@ public class ShaderArg
                 case ISAMPLER_1D:
                 case USAMPLER_1D:
                 case INT:
-                {
-                    logFine( logger, "Updating %s to %s.", toString(), currentValue.toString() );
-                    gl.glUniform1i( glArgHandle, getIntValue() );
+                case BOOLEAN:
+                    gl.glUniform1i( glArgHandle, intValue );
                     break;
-                }
                 case FLOAT:
-                {
-                    logFine( logger, "Updating %s to %s.", toString(), currentValue.toString() );
-                    gl.glUniform1f( glArgHandle, getFloatValue() );
+                    gl.glUniform1f( glArgHandle, floatValue );
                     break;
-                }
-                case BOOLEAN:
-                {
-                    logFine( logger, "Updating %s to %s.", toString(), currentValue.toString() );
-                    gl.glUniform1i( glArgHandle, getBooleanValue() ? 1 : 0 );
-                    break;
-                }
                 case VEC2:
-                    gl.glUniform2fv( glArgHandle, 1, getFloatArrayValue(), 0 );
+                    gl.glUniform2fv( glArgHandle, 1, arrayValue, 0 );
                     break;
                 case VEC3:
-                    gl.glUniform3fv( glArgHandle, 1, getFloatArrayValue(), 0 );
+                    gl.glUniform3fv( glArgHandle, 1, arrayValue, 0 );
                     break;
                 case VEC4:
-                    gl.glUniform4fv( glArgHandle, 1, getFloatArrayValue(), 0 );
+                    gl.glUniform4fv( glArgHandle, 1, arrayValue, 0 );
                     break;
                 case MAT2:
-                    gl.glUniformMatrix2fv( glArgHandle, 1, false, getFloatArrayValue( ), 0 );
+                    gl.glUniformMatrix2fv( glArgHandle, 1, false, arrayValue, 0 );
                     break;
                 case MAT3:
-                    gl.glUniformMatrix3fv( glArgHandle, 1, false, getFloatArrayValue( ), 0 );
+                    gl.glUniformMatrix3fv( glArgHandle, 1, false, arrayValue, 0 );
                     break;
                 case MAT4:
-                    gl.glUniformMatrix4fv( glArgHandle, 1, false, getFloatArrayValue( ), 0 );
+                    gl.glUniformMatrix4fv( glArgHandle, 1, false, arrayValue, 0 );
                     break;
                 default:
                 {
                     throw new UnsupportedOperationException( "Unsupported type." );
                 }
             }
-            lastPushedValue = currentValue;
+
+            pushedProgram = glProgramHandle;
             dirty = false;
         }
         finally
@@ -181,27 +320,17 @@ public class ShaderArg
             lock.unlock();
         }
     }
-    private int getIntValue( )
-    {
-        return ( (Number) currentValue ).intValue();
-    }
-
-    private float getFloatValue( )
-    {
-        return ( (Number) currentValue ).floatValue();
-    }
 
-    private boolean getBooleanValue( )
+    private String getValueString( )
     {
-        return (Boolean) currentValue;
+        if( arrayValue != null )
+            return Arrays.toString( arrayValue );
+        else if( type == ShaderArgType.FLOAT )
+            return String.valueOf( floatValue );
+        else
+            return String.valueOf( intValue );
     }
 
-    private float[] getFloatArrayValue( )
-    {
-        return (float[]) currentValue;
-    }
-
-
     @Override
     public String toString( )
     {
@@ -0,0 +1,636 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.gl.shader;
+
+import static com.metsci.glimpse.util.logging.LoggerUtils.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.media.opengl.GL;
+
+/**
+ * Caches the results of the expensive steps in setting up a {@link Pipeline}, so
+ * that later launches of an application can skip them.
+ *
+ * <p>The {@link ShaderArg}s parsed from each {@link ShaderSource} are stored on disk,
+ * keyed by a hash of the source text, so the GLSL parser only runs the first time a
+ * given shader is seen. Parsed args are also kept in memory, so shaders which are
+ * constructed many times are only parsed once per launch.</p>
+ *
+ * <p>Optionally, linked program binaries can also be stored, keyed by a hash of all
+ * the shader sources in the pipeline and the OpenGL vendor, renderer, and version
+ * strings. This requires the GL_ARB_get_program_binary extension. The JOGL release
+ * Glimpse builds against does not expose its entry points, so they are looked up
+ * reflectively and program binaries are silently skipped when they are missing.</p>
+ *
+ * <p>The cache is enabled by default and lives in <code>~/.glimpse/shader-cache</code>.
+ * It can be disabled with the system property <code>glimpse.shaderCache=false</code>,
+ * and relocated with <code>glimpse.shaderCache.dir</code>. Program binaries are
+ * disabled by default, and can be enabled with
+ * <code>glimpse.shaderCache.programBinaries=true</code> or
+ * {@link #setProgramBinariesEnabled(boolean)}.</p>
+ *
+ * <p>Cache misses, hits, and the time spent parsing, compiling, and loading are
+ * tracked and summarized by {@link #getTimingReport()}.</p>
+ */
+public class ShaderCache
+{
+    private static final Logger logger = Logger.getLogger( ShaderCache.class.getName() );
+
+    public static final String ENABLED_PROPERTY = "glimpse.shaderCache";
+    public static final String DIRECTORY_PROPERTY = "glimpse.shaderCache.dir";
+    public static final String PROGRAM_BINARIES_PROPERTY = "glimpse.shaderCache.programBinaries";
+
+    public static final String PROGRAM_BINARY_EXTENSION = "GL_ARB_get_program_binary";
+
+    // constants from GL_ARB_get_program_binary
+    public static final int GL_PROGRAM_BINARY_RETRIEVABLE_HINT = 0x8257;
+    public static final int GL_PROGRAM_BINARY_LENGTH = 0x8741;
+
+    protected static final int ARGS_MAGIC = 0x47534141; // "GSAA"
+    protected static final int BINARY_MAGIC = 0x47535042; // "GSPB"
+    protected static final int VERSION = 1;
+
+    // increment whenever the GLSL arg grammar (GlslArgParser) changes, so that args
+    // parsed by an older version of the grammar are not reused
+    protected static final int ARGS_PARSER_VERSION = 1;
+
+    protected static final String ARGS_SUFFIX = ".args";
+    protected static final String BINARY_SUFFIX = ".bin";
+
+    private static volatile boolean enabled = !"false".equalsIgnoreCase( System.getProperty( ENABLED_PROPERTY ) );
+    private static volatile boolean programBinariesEnabled = Boolean.getBoolean( PROGRAM_BINARIES_PROPERTY );
+    private static volatile File directory;
+
+    // parsed args for each source hash, used as templates for new ShaderArgs
+    private static final Map<String, ShaderArg[]> argsByHash = new ConcurrentHashMap<String, ShaderArg[]>();
+
+    // GL_ARB_get_program_binary entry points, looked up on first use
+    private static volatile boolean binaryMethodsResolved;
+    private static Method glGetProgramBinary;
+    private static Method glProgramBinary;
+    private static Method glProgramParameteri;
+
+    private static final AtomicInteger argsMemoryHits = new AtomicInteger();
+    private static final AtomicInteger argsDiskHits = new AtomicInteger();
+    private static final AtomicInteger argsMisses = new AtomicInteger();
+    private static final AtomicLong argsParseNanos = new AtomicLong();
+    private static final AtomicLong argsLoadNanos = new AtomicLong();
+
+    private static final AtomicInteger binaryHits = new AtomicInteger();
+    private static final AtomicInteger programsCompiled = new AtomicInteger();
+    private static final AtomicLong binaryLoadNanos = new AtomicLong();
+    private static final AtomicLong compileNanos = new AtomicLong();
+
+    private ShaderCache( )
+    {
+    }
+
+    public static boolean isEnabled( )
+    {
+        return enabled;
+    }
+
+    public static void setEnabled( boolean enabled )
+    {
+        ShaderCache.enabled = enabled;
+    }
+
+    public static boolean isProgramBinariesEnabled( )
+    {
+        return programBinariesEnabled;
+    }
+
+    /**
+     * Enables persisting linked program binaries. Binaries are only used when the
+     * cache is enabled and the current context supports GL_ARB_get_program_binary.
+     */
+    public static void setProgramBinariesEnabled( boolean enabled )
+    {
+        ShaderCache.programBinariesEnabled = enabled;
+    }
+
+    public static void setCacheDirectory( File directory )
+    {
+        ShaderCache.directory = directory;
+    }
+
+    public static File getCacheDirectory( )
+    {
+        File dir = directory;
+        if( dir == null )
+        {
+            String override = System.getProperty( DIRECTORY_PROPERTY );
+            if( override != null )
+            {
+                dir = new File( override );
+            }
+            else
+            {
+                File home = new File( System.getProperty( "user.home" ) );
+                if( !home.canWrite() )
+                    home = new File( System.getProperty( "java.io.tmpdir" ) );
+
+                dir = new File( new File( home, ".glimpse" ), "shader-cache" );
+            }
+
+            directory = dir;
+        }
+
+        return dir;
+    }
+
+    /**
+     * Removes all cached args and program binaries, from memory and disk.
+     */
+    public static void clear( )
+    {
+        argsByHash.clear();
+
+        File[] files = getCacheDirectory().listFiles();
+        if( files == null )
+            return;
+
+        for( File file : files )
+        {
+            String name = file.getName();
+            if( name.endsWith( ARGS_SUFFIX ) || name.endsWith( BINARY_SUFFIX ) )
+                file.delete();
+        }
+    }
+
+    //////////////////////////////////////////////////////////////
+    ///                     Shader Args                        ///
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * @return new copies of the args previously stored for this source, or null if
+     *         there are none
+     */
+    public static List<ShaderArg> loadArgs( String source )
+    {
+        if( !enabled )
+            return null;
+
+        long start = System.nanoTime();
+        String hash = getArgsKey( source );
+
+        ShaderArg[] templates = argsByHash.get( hash );
+        if( templates != null )
+        {
+            argsMemoryHits.incrementAndGet();
+        }
+        else
+        {
+            templates = readArgs( new File( getCacheDirectory(), hash + ARGS_SUFFIX ) );
+            if( templates == null )
+                return null;
+
+            argsByHash.put( hash, templates );
+            argsDiskHits.incrementAndGet();
+        }
+
+        List<ShaderArg> args = copy( templates );
+        argsLoadNanos.addAndGet( System.nanoTime() - start );
+        return args;
+    }
+
+    /**
+     * Stores the args parsed from this source.
+     *
+     * @param parseNanos the time spent parsing, for the timing report
+     */
+    public static void storeArgs( String source, List<ShaderArg> args, long parseNanos )
+    {
+        argsMisses.incrementAndGet();
+        argsParseNanos.addAndGet( parseNanos );
+
+        if( !enabled )
+            return;
+
+        String hash = getArgsKey( source );
+        ShaderArg[] templates = copy( args.toArray( new ShaderArg[args.size()] ) ).toArray( new ShaderArg[args.size()] );
+        argsByHash.put( hash, templates );
+
+        try
+        {
+            File file = new File( getCacheDirectory(), hash + ARGS_SUFFIX );
+            File temp = createTempFile( file );
+
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ) ) );
+            try
+            {
+                out.writeInt( ARGS_MAGIC );
+                out.writeInt( VERSION );
+                out.writeInt( templates.length );
+                for( ShaderArg arg : templates )
+                {
+                    out.writeUTF( arg.getName() == null ? "" : arg.getName() );
+                    out.writeUTF( arg.getType() == null ? "" : arg.getType().name() );
+                    out.writeUTF( arg.getQual() == null ? "" : arg.getQual().name() );
+                    out.writeUTF( arg.getInOut() == null ? "" : arg.getInOut().name() );
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+
+            commit( temp, file );
+        }
+        catch( IOException e )
+        {
+            logWarning( logger, "Unable to cache shader args in %s.", e, getCacheDirectory() );
+        }
+    }
+
+    private static ShaderArg[] readArgs( File file )
+    {
+        if( !file.isFile() )
+            return null;
+
+        try
+        {
+            DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+            try
+            {
+                if( in.readInt() != ARGS_MAGIC || in.readInt() != VERSION )
+                    return null;
+
+                int count = in.readInt();
+                ShaderArg[] args = new ShaderArg[count];
+                for( int i = 0; i < count; i++ )
+                {
+                    String name = in.readUTF();
+                    String type = in.readUTF();
+                    String qual = in.readUTF();
+                    String inout = in.readUTF();
+
+                    args[i] = new ShaderArg( name.isEmpty() ? null : name,
+                                             type.isEmpty() ? null : ShaderArgType.valueOf( type ),
+                                             qual.isEmpty() ? null : ShaderArgQualifier.valueOf( qual ),
+                                             inout.isEmpty() ? null : ShaderArgInOut.valueOf( inout ) );
+                }
+
+                return args;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch( Exception e )
+        {
+            // a stale or corrupt entry just means we parse the source again
+            logWarning( logger, "Ignoring unreadable shader args cache file %s.", e, file );
+            return null;
+        }
+    }
+
+    private static List<ShaderArg> copy( ShaderArg[] args )
+    {
+        List<ShaderArg> copies = new ArrayList<ShaderArg>( args.length );
+        for( ShaderArg arg : args )
+            copies.add( new ShaderArg( arg.getName(), arg.getType(), arg.getQual(), arg.getInOut() ) );
+
+        return copies;
+    }
+
+    //////////////////////////////////////////////////////////////
+    ///                   Program Binaries                     ///
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * @return whether program binaries are enabled and supported by the current context
+     */
+    public static boolean isProgramBinarySupported( GL gl )
+    {
+        if( !enabled || !programBinariesEnabled )
+            return false;
+
+        if( !gl.isExtensionAvailable( PROGRAM_BINARY_EXTENSION ) )
+            return false;
+
+        resolveBinaryMethods( gl );
+        return glGetProgramBinary != null && glProgramBinary != null;
+    }
+
+    /**
+     * @return a key identifying the program built from these shaders on the current
+     *         OpenGL implementation (null shaders are ignored)
+     */
+    public static String getProgramKey( GL gl, Shader... shaders )
+    {
+        StringBuilder b = new StringBuilder();
+        b.append( gl.glGetString( GL.GL_VENDOR ) ).append( '\n' );
+        b.append( gl.glGetString( GL.GL_RENDERER ) ).append( '\n' );
+        b.append( gl.glGetString( GL.GL_VERSION ) ).append( '\n' );
+
+        for( Shader shader : shaders )
+        {
+            if( shader == null )
+                continue;
+
+            b.append( shader.getType() ).append( '\n' );
+            for( ShaderSource source : shader.getSources() )
+                b.append( source.getSource() ).append( '\n' );
+        }
+
+        return hash( b.toString() );
+    }
+
+    /**
+     * Must be called before the program is linked, so that the driver keeps its binary.
+     */
+    public static void prepareProgramBinary( GL gl, int glProgramHandle )
+    {
+        if( glProgramParameteri != null )
+            invoke( glProgramParameteri, gl, glProgramHandle, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL.GL_TRUE );
+    }
+
+    /**
+     * Attempts to load a previously stored binary into the program.
+     *
+     * @return true if the program was loaded and linked successfully
+     */
+    public static boolean loadProgramBinary( GL gl, int glProgramHandle, String key )
+    {
+        File file = new File( getCacheDirectory(), key + BINARY_SUFFIX );
+        if( !file.isFile() )
+            return false;
+
+        long start = System.nanoTime();
+        try
+        {
+            DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+            try
+            {
+                if( in.readInt() != BINARY_MAGIC || in.readInt() != VERSION )
+                    return false;
+
+                int format = in.readInt();
+                int length = in.readInt();
+                byte[] bytes = new byte[length];
+                in.readFully( bytes );
+
+                ByteBuffer binary = ByteBuffer.allocateDirect( length );
+                binary.put( bytes ).rewind();
+
+                if( !invoke( glProgramBinary, gl, glProgramHandle, format, binary, length ) )
+                    return false;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch( IOException e )
+        {
+            logWarning( logger, "Ignoring unreadable program binary cache file %s.", e, file );
+            return false;
+        }
+
+        // the driver may reject binaries, for example after a driver update
+        int[] status = new int[1];
+        gl.glGetProgramiv( glProgramHandle, GL.GL_LINK_STATUS, status, 0 );
+        if( status[0] != GL.GL_TRUE )
+        {
+            file.delete();
+            return false;
+        }
+
+        binaryHits.incrementAndGet();
+        binaryLoadNanos.addAndGet( System.nanoTime() - start );
+        return true;
+    }
+
+    /**
+     * Stores the binary of a successfully linked program.
+     */
+    public static void storeProgramBinary( GL gl, int glProgramHandle, String key )
+    {
+        int[] length = new int[1];
+        gl.glGetProgramiv( glProgramHandle, GL_PROGRAM_BINARY_LENGTH, length, 0 );
+        if( length[0] <= 0 )
+            return;
+
+        ByteBuffer binary = ByteBuffer.allocateDirect( length[0] );
+        IntBuffer actualLength = ByteBuffer.allocateDirect( 4 ).order( ByteOrder.nativeOrder() ).asIntBuffer();
+        IntBuffer format = ByteBuffer.allocateDirect( 4 ).order( ByteOrder.nativeOrder() ).asIntBuffer();
+
+        if( !invoke( glGetProgramBinary, gl, glProgramHandle, length[0], actualLength, format, binary ) )
+            return;
+
+        byte[] bytes = new byte[actualLength.get( 0 )];
+        binary.rewind();
+        binary.get( bytes );
+
+        try
+        {
+            File file = new File( getCacheDirectory(), key + BINARY_SUFFIX );
+            File temp = createTempFile( file );
+
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ) ) );
+            try
+            {
+                out.writeInt( BINARY_MAGIC );
+                out.writeInt( VERSION );
+                out.writeInt( format.get( 0 ) );
+                out.writeInt( bytes.length );
+                out.write( bytes );
+            }
+            finally
+            {
+                out.close();
+            }
+
+            commit( temp, file );
+        }
+        catch( IOException e )
+        {
+            logWarning( logger, "Unable to cache program binary in %s.", e, getCacheDirectory() );
+        }
+    }
+
+    private static synchronized void resolveBinaryMethods( GL gl )
+    {
+        if( binaryMethodsResolved )
+            return;
+
+        Class<?> c = gl.getClass();
+        glGetProgramBinary = findMethod( c, "glGetProgramBinary", int.class, int.class, IntBuffer.class, IntBuffer.class, Buffer.class );
+        glProgramBinary = findMethod( c, "glProgramBinary", int.class, int.class, Buffer.class, int.class );
+        glProgramParameteri = findMethod( c, "glProgramParameteri", int.class, int.class, int.class );
+
+        if( glGetProgramBinary == null || glProgramBinary == null )
+            logInfo( logger, "%s is available, but not exposed by %s. Program binaries will not be cached.", PROGRAM_BINARY_EXTENSION, c.getName() );
+
+        binaryMethodsResolved = true;
+    }
+
+    private static Method findMethod( Class<?> c, String name, Class<?>... parameterTypes )
+    {
+        try
+        {
+            return c.getMethod( name, parameterTypes );
+        }
+        catch( NoSuchMethodException e )
+        {
+            return null;
+        }
+    }
+
+    private static boolean invoke( Method method, GL gl, Object... args )
+    {
+        try
+        {
+            method.invoke( gl, args );
+            return true;
+        }
+        catch( Exception e )
+        {
+            logWarning( logger, "Call to %s failed.", e, method.getName() );
+            return false;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////
+    ///                      Statistics                        ///
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * Records the time taken to compile and link a program from source.
+     */
+    public static void recordCompile( long nanos )
+    {
+        programsCompiled.incrementAndGet();
+        compileNanos.addAndGet( nanos );
+    }
+
+    /**
+     * @return a summary of cache hits and misses, and of the time spent parsing shader
+     *         args and building programs since startup
+     */
+    public static String getTimingReport( )
+    {
+        StringBuilder b = new StringBuilder();
+        b.append( String.format( "Shader cache: %s (%s)%n", enabled ? "enabled" : "disabled", getCacheDirectory() ) );
+        b.append( String.format( "  args parsed:              %5d in %8.1f ms%n", argsMisses.get(), millis( argsParseNanos ) ) );
+        b.append( String.format( "  args loaded from cache:   %5d in %8.1f ms (%d from memory, %d from disk)%n", argsMemoryHits.get() + argsDiskHits.get(), millis( argsLoadNanos ), argsMemoryHits.get(), argsDiskHits.get() ) );
+        b.append( String.format( "  programs compiled:        %5d in %8.1f ms%n", programsCompiled.get(), millis( compileNanos ) ) );
+        b.append( String.format( "  programs from binaries:   %5d in %8.1f ms%n", binaryHits.get(), millis( binaryLoadNanos ) ) );
+        return b.toString();
+    }
+
+    public static void logTimingReport( )
+    {
+        logger.info( getTimingReport() );
+    }
+
+    private static double millis( AtomicLong nanos )
+    {
+        return nanos.get() / 1e6;
+    }
+
+    //////////////////////////////////////////////////////////////
+    ///                       Utilities                        ///
+    //////////////////////////////////////////////////////////////
+
+    // the key for args parsed from this source, which changes with the cache format and parser version
+    private static String getArgsKey( String source )
+    {
+        return hash( "args " + VERSION + " " + ARGS_PARSER_VERSION + "\n" + source );
+    }
+
+    private static String hash( String text )
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+            byte[] bytes = digest.digest( text.getBytes( "UTF-8" ) );
+
+            StringBuilder b = new StringBuilder( 2 * bytes.length );
+            for( byte v : bytes )
+                b.append( String.format( "%02x", v & 0xFF ) );
+
+            return b.toString();
+        }
+        catch( NoSuchAlgorithmException e )
+        {
+            throw new RuntimeException( e );
+        }
+        catch( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    // entries are written to a temporary file and then renamed, so that concurrent
+    // launches never see a partially written entry
+    private static File createTempFile( File file ) throws IOException
+    {
+        File dir = file.getParentFile();
+        if( !dir.isDirectory() && !dir.mkdirs() )
+            throw new IOException( "Unable to create directory " + dir );
+
+        return File.createTempFile( file.getName(), ".tmp", dir );
+    }
+
+    private static void commit( File temp, File file ) throws IOException
+    {
+        if( !temp.renameTo( file ) )
+        {
+            file.delete();
+            if( !temp.renameTo( file ) )
+            {
+                temp.delete();
+                throw new IOException( "Unable to rename " + temp + " to " + file );
+            }
+        }
+    }
+}
@@ -116,14 +116,28 @@ public class ShaderSource
         if( !containsMain() )
             return null;
 
+        String source = getSource();
+
+        // skip the parser if these args have been seen before
+        List<ShaderArg> cachedArgs = ShaderCache.loadArgs( source );
+        if( cachedArgs != null )
+        {
+            logger.log( Level.FINER, "Found " + cachedArgs.size() + " cached args." );
+            return cachedArgs;
+        }
+
         try
         {
+            long start = System.nanoTime();
+
             // parse out arguments
-            CharStream stream = new ANTLRStringStream( getSource() );
+            CharStream stream = new ANTLRStringStream( source );
             GlslArgLexer l = new GlslArgLexer( stream );
             GlslArgParser p = new GlslArgParser( new CommonTokenStream( l ) );
             List<ShaderArg> shaderArgs = p.shader().result;
 
+            ShaderCache.storeArgs( source, shaderArgs, System.nanoTime() - start );
+
             logger.log( Level.FINER, "Found " + shaderArgs.size() + " args." );
             if( shaderArgs.size() > 0 )
             {
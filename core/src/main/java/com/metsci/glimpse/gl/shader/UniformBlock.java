@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.gl.shader;
+
+import static com.metsci.glimpse.gl.shader.ShaderArgQualifier.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A named set of uniform values shared by many {@link Shader}s, such as axis
+ * bounds or a projection matrix.
+ *
+ * Values are set once on the block and are picked up by every Shader the block
+ * has been added to (see {@link Shader#addUniformBlock(UniformBlock)}). Each
+ * program is only sent a value when it has changed since that program last
+ * received it.
+ *
+ * This fills the role of a GLSL uniform buffer object, which requires newer
+ * GLSL and OpenGL bindings than Glimpse targets: shaders declare the shared
+ * uniforms as ordinary uniforms with matching names.
+ */
+public class UniformBlock
+{
+    private final String name;
+    private final Map<String, ShaderArg> args;
+
+    public UniformBlock( String name )
+    {
+        this.name = name;
+        this.args = Collections.synchronizedMap( new LinkedHashMap<String, ShaderArg>() );
+    }
+
+    public String getName( )
+    {
+        return name;
+    }
+
+    /**
+     * Declares a uniform in this block, or returns the existing uniform with that name.
+     */
+    public ShaderArg addUniform( String name, ShaderArgType type )
+    {
+        synchronized( args )
+        {
+            ShaderArg arg = args.get( name );
+            if( arg == null )
+            {
+                arg = new ShaderArg( name, type, UNIFORM, null );
+                args.put( name, arg );
+            }
+            else if( arg.getType() != type )
+            {
+                throw new IllegalArgumentException( "Uniform " + name + " in block " + this.name + " already has type " + arg.getType() );
+            }
+
+            return arg;
+        }
+    }
+
+    /**
+     * @return the uniform with this name, or null if none has been declared
+     */
+    public ShaderArg getUniform( String name )
+    {
+        return args.get( name );
+    }
+
+    public Collection<ShaderArg> getUniforms( )
+    {
+        synchronized( args )
+        {
+            return Collections.unmodifiableList( new ArrayList<ShaderArg>( args.values() ) );
+        }
+    }
+
+    @Override
+    public String toString( )
+    {
+        return "'UNIFORM BLOCK " + name + "'";
+    }
+}
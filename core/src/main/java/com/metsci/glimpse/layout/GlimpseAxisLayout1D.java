@@ -26,12 +26,17 @@
  */
 package com.metsci.glimpse.layout;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 import com.metsci.glimpse.axis.Axis1D;
 import com.metsci.glimpse.axis.Axis2D;
 import com.metsci.glimpse.axis.AxisNotSetException;
 import com.metsci.glimpse.axis.factory.AxisFactory1D;
 import com.metsci.glimpse.axis.factory.AxisFactory2D;
 import com.metsci.glimpse.axis.factory.DefaultAxisFactory1D;
+import com.metsci.glimpse.axis.listener.AxisListener1D;
 import com.metsci.glimpse.context.GlimpseBounds;
 import com.metsci.glimpse.context.GlimpseContext;
 import com.metsci.glimpse.context.GlimpseTarget;
@@ -57,12 +62,26 @@ public abstract class GlimpseAxisLayout1D extends GlimpseLayout
     protected boolean defaultSet = false;
     protected AxisFactory1D factory;
 
+    // axes handed out by this layout, which request a repaint when modified
+    protected Set<Axis1D> repaintAxes;
+    protected AxisListener1D repaintAxisListener;
+
     public GlimpseAxisLayout1D( GlimpseLayout parent, String name, Axis1D axis )
     {
         super( parent, name );
 
         this.axis = axis;
         this.cache = new GlimpseLayoutCache<Axis1D>( );
+
+        this.repaintAxes = Collections.newSetFromMap( new IdentityHashMap<Axis1D, Boolean>( ) );
+        this.repaintAxisListener = new AxisListener1D( )
+        {
+            @Override
+            public void axisUpdated( Axis1D axis )
+            {
+                requestRepaint( );
+            }
+        };
     }
 
     public GlimpseAxisLayout1D( GlimpseLayout parent, Axis1D axis )
@@ -114,6 +133,7 @@ public abstract class GlimpseAxisLayout1D extends GlimpseLayout
     public void clearCache( )
     {
         this.cache.clear( );
+        this.detachRepaintListener( );
 
         // descend recursively clearing caches
         // stop if a child has its' axis explicitly set
@@ -266,6 +286,8 @@ public abstract class GlimpseAxisLayout1D extends GlimpseLayout
             }
         }
 
+        attachRepaintListener( newAxis );
+
         return newAxis;
     }
 
@@ -273,4 +295,31 @@ public abstract class GlimpseAxisLayout1D extends GlimpseLayout
     {
         return getCachedAxis0( parent_axis, factory, context.getTargetStack( ) );
     }
+
+    // repaint the GlimpseCanvas displaying this layout whenever one of its axes changes
+    protected void attachRepaintListener( Axis1D axis )
+    {
+        if ( axis == null ) return;
+
+        synchronized ( repaintAxes )
+        {
+            if ( repaintAxes.add( axis ) )
+            {
+                axis.addAxisListener( repaintAxisListener );
+            }
+        }
+    }
+
+    protected void detachRepaintListener( )
+    {
+        synchronized ( repaintAxes )
+        {
+            for ( Axis1D axis : repaintAxes )
+            {
+                axis.removeAxisListener( repaintAxisListener );
+            }
+
+            repaintAxes.clear( );
+        }
+    }
 }
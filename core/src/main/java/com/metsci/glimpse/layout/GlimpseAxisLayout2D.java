@@ -26,11 +26,16 @@
  */
 package com.metsci.glimpse.layout;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 import com.metsci.glimpse.axis.Axis1D;
 import com.metsci.glimpse.axis.Axis2D;
 import com.metsci.glimpse.axis.AxisNotSetException;
 import com.metsci.glimpse.axis.factory.AxisFactory2D;
 import com.metsci.glimpse.axis.factory.DefaultAxisFactory2D;
+import com.metsci.glimpse.axis.listener.AxisListener1D;
 import com.metsci.glimpse.context.GlimpseBounds;
 import com.metsci.glimpse.context.GlimpseContext;
 import com.metsci.glimpse.context.GlimpseTarget;
@@ -51,12 +56,26 @@ public class GlimpseAxisLayout2D extends GlimpseLayout
     protected boolean defaultSet = false;
     protected AxisFactory2D factory;
 
+    // axes handed out by this layout, which request a repaint when modified
+    protected Set<Axis1D> repaintAxes;
+    protected AxisListener1D repaintAxisListener;
+
     public GlimpseAxisLayout2D( GlimpseLayout parent, String name, Axis2D axis )
     {
         super( parent, name );
 
         this.axis = axis;
         this.cache = new GlimpseLayoutCache<Axis2D>( );
+
+        this.repaintAxes = Collections.newSetFromMap( new IdentityHashMap<Axis1D, Boolean>( ) );
+        this.repaintAxisListener = new AxisListener1D( )
+        {
+            @Override
+            public void axisUpdated( Axis1D axis )
+            {
+                requestRepaint( );
+            }
+        };
     }
 
     public GlimpseAxisLayout2D( GlimpseLayout parent, Axis2D axis )
@@ -113,6 +132,7 @@ public class GlimpseAxisLayout2D extends GlimpseLayout
     public void clearCache( )
     {
         this.cache.clear( );
+        this.detachRepaintListener( );
 
         // descend recursively clearing caches
         // stop if a child has its' axis explicitly set
@@ -256,6 +276,12 @@ public class GlimpseAxisLayout2D extends GlimpseLayout
             }
         }
 
+        if ( newAxis != null )
+        {
+            attachRepaintListener( newAxis.getAxisX( ) );
+            attachRepaintListener( newAxis.getAxisY( ) );
+        }
+
         return newAxis;
     }
 
@@ -263,4 +289,31 @@ public class GlimpseAxisLayout2D extends GlimpseLayout
     {
         return getCachedAxis0( parent_axis, factory, context.getTargetStack( ) );
     }
+
+    // repaint the GlimpseCanvas displaying this layout whenever one of its axes changes
+    protected void attachRepaintListener( Axis1D axis )
+    {
+        if ( axis == null ) return;
+
+        synchronized ( repaintAxes )
+        {
+            if ( repaintAxes.add( axis ) )
+            {
+                axis.addAxisListener( repaintAxisListener );
+            }
+        }
+    }
+
+    protected void detachRepaintListener( )
+    {
+        synchronized ( repaintAxes )
+        {
+            for ( Axis1D axis : repaintAxes )
+            {
+                axis.removeAxisListener( repaintAxisListener );
+            }
+
+            repaintAxes.clear( );
+        }
+    }
 }
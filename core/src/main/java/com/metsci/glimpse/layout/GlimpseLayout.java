@@ -31,6 +31,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.locks.ReentrantLock;
 
 import com.metsci.glimpse.canvas.LayoutManager;
@@ -46,6 +47,8 @@ import com.metsci.glimpse.event.mouse.GlimpseMouseWheelListener;
 import com.metsci.glimpse.event.mouse.Mouseable;
 import com.metsci.glimpse.painter.base.GlimpsePainter;
 import com.metsci.glimpse.painter.base.GlimpsePainterCallback;
+import com.metsci.glimpse.support.repaint.RepaintListener;
+import com.metsci.glimpse.support.repaint.RepaintSource;
 import com.metsci.glimpse.support.settings.LookAndFeel;
 
 /**
@@ -65,7 +68,7 @@ import com.metsci.glimpse.support.settings.LookAndFeel;
  * @author ulman
  * @see GlimpseLayoutDelegate
  */
-public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
+public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable, RepaintSource
 {
     protected String name = "";
 
@@ -100,6 +103,12 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
     protected Collection<GlimpseMouseMotionListener> mouseMotionListenersUnmodifiable;
     protected Collection<GlimpseMouseWheelListener> mouseWheelListenersUnmodifiable;
 
+    // notified when this layout or any of its painters or child layouts change
+    protected Set<RepaintListener> repaintListeners;
+
+    // attached to painters and child layouts to forward their repaint requests
+    protected RepaintListener childRepaintListener;
+
     // flags indicating event handling and repaint behavior
     protected boolean isEventGenerator = true;
     protected boolean isEventConsumer = true;
@@ -123,6 +132,16 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
         this.mouseMotionListenersUnmodifiable = Collections.unmodifiableCollection( this.mouseMotionListeners );
         this.mouseWheelListenersUnmodifiable = Collections.unmodifiableCollection( this.mouseWheelListeners );
 
+        this.repaintListeners = new CopyOnWriteArraySet<RepaintListener>( );
+        this.childRepaintListener = new RepaintListener( )
+        {
+            @Override
+            public void repaintRequested( )
+            {
+                requestRepaint( );
+            }
+        };
+
         this.name = name;
 
         if ( parent != null )
@@ -208,6 +227,7 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
         {
             manager.removeLayout( layout );
             layoutDelegate.removeLayout( layout );
+            layout.removeRepaintListener( childRepaintListener );
             invalidateLayout( );
         }
         finally
@@ -221,6 +241,11 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
         lock.lock( );
         try
         {
+            for ( GlimpsePainter painter : layoutDelegate.getPainters( ) )
+            {
+                removeRepaintListener0( painter );
+            }
+
             manager.removeAllLayouts( );
             layoutDelegate.removeAll( );
             invalidateLayout( );
@@ -308,6 +333,7 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
         {
             manager.addLayout( layout, zOrder );
             layoutDelegate.addLayout( layout, callback, zOrder );
+            layout.addRepaintListener( childRepaintListener );
             invalidateLayout( );
         }
         finally
@@ -349,6 +375,7 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
         try
         {
             layoutDelegate.addPainter( painter, callback, zOrder );
+            if ( painter instanceof RepaintSource ) ( ( RepaintSource ) painter ).addRepaintListener( childRepaintListener );
             invalidateLayout( );
         }
         finally
@@ -363,6 +390,7 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
         try
         {
             layoutDelegate.removePainter( painter );
+            removeRepaintListener0( painter );
             invalidateLayout( );
         }
         finally
@@ -383,6 +411,42 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
         {
             lock.unlock( );
         }
+
+        requestRepaint( );
+    }
+
+    @Override
+    public void addRepaintListener( RepaintListener listener )
+    {
+        repaintListeners.add( listener );
+    }
+
+    @Override
+    public void removeRepaintListener( RepaintListener listener )
+    {
+        repaintListeners.remove( listener );
+    }
+
+    /**
+     * Notifies the parents of this GlimpseLayout (and ultimately the
+     * {@link com.metsci.glimpse.support.repaint.RepaintManager} of its GlimpseCanvas)
+     * that it needs to be repainted. Called automatically when the layout is invalidated
+     * and when any {@link RepaintSource} painter it contains changes.
+     */
+    public void requestRepaint( )
+    {
+        for ( RepaintListener listener : repaintListeners )
+        {
+            listener.repaintRequested( );
+        }
+    }
+
+    protected void removeRepaintListener0( GlimpsePainter painter )
+    {
+        if ( painter instanceof RepaintSource )
+        {
+            ( ( RepaintSource ) painter ).removeRepaintListener( childRepaintListener );
+        }
     }
 
     public GlimpseBounds layoutTo( GlimpseTargetStack stack )
@@ -839,6 +903,7 @@ public class GlimpseLayout implements GlimpsePainter, GlimpseTarget, Mouseable
     public void setVisible( boolean visible )
     {
         this.isVisible = visible;
+        this.requestRepaint( );
     }
 
     public boolean isVisible( )
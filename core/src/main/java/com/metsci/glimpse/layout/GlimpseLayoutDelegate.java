@@ -250,6 +250,11 @@ public class GlimpseLayoutDelegate implements ComponentWrapper, ContainerWrapper
         layoutChildren.remove( delegate );
     }
 
+    public List<GlimpsePainter> getPainters( )
+    {
+        return new ArrayList<GlimpsePainter>( memberMap.keySet( ) );
+    }
+
     public void removeAll( )
     {
         layoutChildren.clear( );
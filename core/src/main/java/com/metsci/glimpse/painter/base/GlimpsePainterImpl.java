@@ -26,6 +26,8 @@
  */
 package com.metsci.glimpse.painter.base;
 
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,9 +38,11 @@ import javax.media.opengl.glu.GLU;
 import com.metsci.glimpse.context.GlimpseBounds;
 import com.metsci.glimpse.context.GlimpseContext;
 import com.metsci.glimpse.gl.util.GLErrorUtils;
+import com.metsci.glimpse.support.repaint.RepaintListener;
+import com.metsci.glimpse.support.repaint.RepaintSource;
 import com.metsci.glimpse.support.settings.LookAndFeel;
 
-public abstract class GlimpsePainterImpl implements GlimpsePainter
+public abstract class GlimpsePainterImpl implements GlimpsePainter, RepaintSource
 {
     public static final Logger logger = Logger.getLogger( GlimpsePainterImpl.class.getName( ) );
 
@@ -51,6 +55,8 @@ public abstract class GlimpsePainterImpl implements GlimpsePainter
     protected boolean doErrorHandling = true;
     protected final String errorPrefix = "GL ERROR: " + getClass( ).getName( );
 
+    protected final Set<RepaintListener> repaintListeners = new CopyOnWriteArraySet<RepaintListener>( );
+
     protected abstract void paintTo( GlimpseContext context, GlimpseBounds bounds );
 
     public void setErrorHandling( boolean doErrorHandling )
@@ -62,6 +68,33 @@ public abstract class GlimpsePainterImpl implements GlimpsePainter
     public void setVisible( boolean show )
     {
         this.displayOn = show;
+        this.requestRepaint( );
+    }
+
+    @Override
+    public void addRepaintListener( RepaintListener listener )
+    {
+        this.repaintListeners.add( listener );
+    }
+
+    @Override
+    public void removeRepaintListener( RepaintListener listener )
+    {
+        this.repaintListeners.remove( listener );
+    }
+
+    /**
+     * Notifies the GlimpseLayouts containing this painter that its appearance has
+     * changed. Subclasses should call this whenever their data is modified, so that
+     * a demand driven {@link com.metsci.glimpse.support.repaint.RepaintManager}
+     * repaints the GlimpseCanvas displaying them.
+     */
+    protected void requestRepaint( )
+    {
+        for ( RepaintListener listener : this.repaintListeners )
+        {
+            listener.repaintRequested( );
+        }
     }
 
     @Override
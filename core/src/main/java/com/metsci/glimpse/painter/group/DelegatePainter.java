@@ -27,10 +27,14 @@
 package com.metsci.glimpse.painter.group;
 
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import com.metsci.glimpse.context.GlimpseContext;
 import com.metsci.glimpse.painter.base.GlimpsePainter;
+import com.metsci.glimpse.support.repaint.RepaintListener;
+import com.metsci.glimpse.support.repaint.RepaintSource;
 import com.metsci.glimpse.support.settings.LookAndFeel;
 
 /**
@@ -41,31 +45,85 @@ import com.metsci.glimpse.support.settings.LookAndFeel;
  *
  * @author ulman
  */
-public class DelegatePainter implements GlimpsePainter
+public class DelegatePainter implements GlimpsePainter, RepaintSource
 {
     private List<GlimpsePainter> painters;
 
+    private Set<RepaintListener> repaintListeners;
+    private RepaintListener delegateRepaintListener;
+
     private boolean isVisible = true;
     private boolean isDisposed = false;
 
     public DelegatePainter( )
     {
         this.painters = new CopyOnWriteArrayList<GlimpsePainter>( );
+        this.repaintListeners = new CopyOnWriteArraySet<RepaintListener>( );
+
+        this.delegateRepaintListener = new RepaintListener( )
+        {
+            @Override
+            public void repaintRequested( )
+            {
+                requestRepaint( );
+            }
+        };
     }
 
     public void addPainter( GlimpsePainter painter )
     {
         this.painters.add( painter );
+
+        if ( painter instanceof RepaintSource )
+        {
+            ( ( RepaintSource ) painter ).addRepaintListener( delegateRepaintListener );
+        }
+
+        this.requestRepaint( );
     }
 
     public void removePainter( GlimpsePainter painter )
     {
-        this.painters.remove( painter );
+        if ( this.painters.remove( painter ) && painter instanceof RepaintSource )
+        {
+            ( ( RepaintSource ) painter ).removeRepaintListener( delegateRepaintListener );
+        }
+
+        this.requestRepaint( );
     }
 
     public void removeAll( )
     {
+        for ( GlimpsePainter painter : painters )
+        {
+            if ( painter instanceof RepaintSource )
+            {
+                ( ( RepaintSource ) painter ).removeRepaintListener( delegateRepaintListener );
+            }
+        }
+
         this.painters.clear( );
+        this.requestRepaint( );
+    }
+
+    @Override
+    public void addRepaintListener( RepaintListener listener )
+    {
+        this.repaintListeners.add( listener );
+    }
+
+    @Override
+    public void removeRepaintListener( RepaintListener listener )
+    {
+        this.repaintListeners.remove( listener );
+    }
+
+    protected void requestRepaint( )
+    {
+        for ( RepaintListener listener : repaintListeners )
+        {
+            listener.repaintRequested( );
+        }
     }
 
     public boolean isVisible( )
@@ -76,6 +134,7 @@ public class DelegatePainter implements GlimpsePainter
     public void setVisible( boolean visible )
     {
         this.isVisible = visible;
+        this.requestRepaint( );
     }
 
     @Override
@@ -229,6 +229,7 @@ public class HistogramPainter extends GlimpseDataPainter2D
             }
 
             newData = true;
+            requestRepaint( );
         }
         finally
         {
@@ -254,6 +254,7 @@ public class StackedHistogramPainter extends GlimpseDataPainter2D
             }
 
             newData = true;
+            requestRepaint( );
         }
         finally
         {
@@ -124,6 +124,7 @@ public class XYLinePainter extends GlimpseDataPainter2D
             }
 
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -150,6 +151,7 @@ public class XYLinePainter extends GlimpseDataPainter2D
             }
 
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
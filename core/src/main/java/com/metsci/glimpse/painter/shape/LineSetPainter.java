@@ -169,6 +169,7 @@ public class LineSetPainter extends GlimpseDataPainter2D
             }
 
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
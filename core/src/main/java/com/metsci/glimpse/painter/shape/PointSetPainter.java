@@ -122,6 +122,7 @@ public class PointSetPainter extends GlimpseDataPainter2D
             }
 
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -34,21 +34,30 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.media.opengl.GL;
 import javax.media.opengl.GLContext;
+import javax.media.opengl.glu.GLU;
 
 import com.metsci.glimpse.axis.Axis2D;
 import com.metsci.glimpse.context.GlimpseBounds;
@@ -188,7 +197,18 @@ public class PolygonPainter extends GlimpsePainter2D
             (byte) 0x55, (byte) 0x55, (byte) 0x55 };
     //@formatter:on
 
-    protected PolygonTessellator tessellator;
+    // GLU tessellators are not thread safe, so each tessellation (on user threads calling
+    // addPolygon or on the tessellation workers) borrows one from this pool and returns it
+    // when done. Only as many as can be reused by the workers are kept between tessellations.
+    protected List<PolygonTessellator> idleTessellators;
+    protected int maxIdleTessellators;
+    protected boolean tessellatorsDisposed = false;
+
+    // tessellates polygons added with addPolygonAsync, created when first needed
+    protected ExecutorService tessellationExecutor;
+    protected int tessellationThreads;
+    // tessellated polygons waiting to be added to their groups
+    protected ConcurrentLinkedQueue<IdPolygon> pendingPolygons;
 
     protected int dataBufferSize = 0;
     protected FloatBuffer dataBuffer = null;
@@ -209,7 +229,19 @@ public class PolygonPainter extends GlimpsePainter2D
 
     public PolygonPainter( )
     {
-        this.tessellator = new PolygonTessellator( glu );
+        this( Runtime.getRuntime( ).availableProcessors( ) );
+    }
+
+    /**
+     * @param tessellationThreads the number of worker threads used to tessellate
+     *                            polygons added with the addPolygonAsync methods
+     */
+    public PolygonPainter( int tessellationThreads )
+    {
+        this.tessellationThreads = Math.max( 1, tessellationThreads );
+        this.pendingPolygons = new ConcurrentLinkedQueue<IdPolygon>( );
+        this.idleTessellators = new ArrayList<PolygonTessellator>( );
+        this.maxIdleTessellators = this.tessellationThreads + 1;
 
         this.groups = new LinkedHashMap<Integer, Group>( );
         this.updatedGroups = new LinkedHashSet<Group>( );
@@ -220,81 +252,157 @@ public class PolygonPainter extends GlimpsePainter2D
 
     public void addPolygon( int groupId, int polygonId, float[] dataX, float[] dataY, float z )
     {
-        this.updateLock.lock( );
-        try
-        {
-            addPolygon( groupId, new IdPolygon( groupId, polygonId, buildPolygon( dataX, dataY ), z ) );
-        }
-        finally
-        {
-            this.updateLock.unlock( );
-        }
+        // tessellation happens in the IdPolygon constructor, outside of updateLock
+        addPolygon( groupId, new IdPolygon( groupId, polygonId, buildPolygon( dataX, dataY ), z ) );
     }
 
     public void addPolygon( int groupId, int polygonId, Polygon geometry, float z )
     {
-        this.updateLock.lock( );
-        try
-        {
-            addPolygon( groupId, new IdPolygon( groupId, polygonId, geometry, z ) );
-
-        }
-        finally
-        {
-            this.updateLock.unlock( );
-        }
+        addPolygon( groupId, new IdPolygon( groupId, polygonId, geometry, z ) );
     }
 
     public void addPolygon( int groupId, int polygonId, Shape shape, float z )
     {
-        this.updateLock.lock( );
-        try
-        {
-            addPolygon( groupId, new IdPolygon( groupId, polygonId, buildPolygon( shape ), z ) );
-
-        }
-        finally
-        {
-            this.updateLock.unlock( );
-        }
+        addPolygon( groupId, new IdPolygon( groupId, polygonId, buildPolygon( shape ), z ) );
     }
 
     public void addPolygon( int groupId, int polygonId, long startTime, long endTime, float[] dataX, float[] dataY, float z )
     {
-        this.updateLock.lock( );
-        try
+        addPolygon( groupId, new IdPolygon( groupId, polygonId, startTime, endTime, buildPolygon( dataX, dataY ), z ) );
+    }
+
+    public void addPolygon( int groupId, int polygonId, long startTime, long endTime, Polygon geometry, float z )
+    {
+        addPolygon( groupId, new IdPolygon( groupId, polygonId, startTime, endTime, geometry, z ) );
+    }
+
+    public void addPolygon( int groupId, int polygonId, long startTime, long endTime, Shape shape, float z )
+    {
+        addPolygon( groupId, new IdPolygon( groupId, polygonId, startTime, endTime, buildPolygon( shape ), z ) );
+    }
+
+    /**
+     * Adds a polygon without waiting for it to be tessellated. Tessellation happens on a pool
+     * of worker threads and finished polygons are added to their group in batches the next
+     * time the painter is drawn, so bulk loads use multiple cores and never block the display
+     * thread. Polygons whose tessellation has not finished are not affected by calls to
+     * {@link #deletePolygon(int, int)}, {@link #clearGroup(int)}, {@link #deleteGroup(int)},
+     * or {@link #deleteAll()}. Wait on the returned Future before making those calls if
+     * that matters.
+     *
+     * @return a Future which completes once the polygon has been tessellated
+     */
+    public Future<?> addPolygonAsync( final int groupId, final int polygonId, final long startTime, final long endTime, final Polygon geometry, final float z )
+    {
+        return getTessellationExecutor( ).submit( new Runnable( )
         {
-            addPolygon( groupId, new IdPolygon( groupId, polygonId, startTime, endTime, buildPolygon( dataX, dataY ), z ) );
-        }
-        finally
+            @Override
+            public void run( )
+            {
+                addPolygonPending( new IdPolygon( groupId, polygonId, startTime, endTime, geometry, z ) );
+            }
+        } );
+    }
+
+    /**
+     * @see #addPolygonAsync(int, int, long, long, Polygon, float)
+     */
+    public Future<?> addPolygonAsync( final int groupId, final int polygonId, final long startTime, final long endTime, final float[] dataX, final float[] dataY, final float z )
+    {
+        return getTessellationExecutor( ).submit( new Runnable( )
         {
-            this.updateLock.unlock( );
-        }
+            @Override
+            public void run( )
+            {
+                addPolygonPending( new IdPolygon( groupId, polygonId, startTime, endTime, buildPolygon( dataX, dataY ), z ) );
+            }
+        } );
     }
 
-    public void addPolygon( int groupId, int polygonId, long startTime, long endTime, Polygon geometry, float z )
+    /**
+     * @see #addPolygonAsync(int, int, long, long, Polygon, float)
+     */
+    public Future<?> addPolygonAsync( int groupId, int polygonId, Polygon geometry, float z )
     {
-        this.updateLock.lock( );
-        try
+        return addPolygonAsync( groupId, polygonId, Long.MIN_VALUE, Long.MAX_VALUE, geometry, z );
+    }
+
+    /**
+     * @see #addPolygonAsync(int, int, long, long, Polygon, float)
+     */
+    public Future<?> addPolygonAsync( int groupId, int polygonId, float[] dataX, float[] dataY, float z )
+    {
+        return addPolygonAsync( groupId, polygonId, Long.MIN_VALUE, Long.MAX_VALUE, dataX, dataY, z );
+    }
+
+    protected synchronized ExecutorService getTessellationExecutor( )
+    {
+        if ( tessellationExecutor == null )
         {
-            addPolygon( groupId, new IdPolygon( groupId, polygonId, startTime, endTime, geometry, z ) );
+            final AtomicInteger threadCount = new AtomicInteger( );
+
+            tessellationExecutor = Executors.newFixedThreadPool( tessellationThreads, new ThreadFactory( )
+            {
+                @Override
+                public Thread newThread( Runnable runnable )
+                {
+                    Thread thread = new Thread( runnable );
+                    thread.setName( "polygon-tessellator-" + threadCount.incrementAndGet( ) );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            } );
         }
-        finally
+
+        return tessellationExecutor;
+    }
+
+    protected PolygonTessellator borrowTessellator( )
+    {
+        synchronized ( idleTessellators )
         {
-            this.updateLock.unlock( );
+            if ( !idleTessellators.isEmpty( ) )
+            {
+                return idleTessellators.remove( idleTessellators.size( ) - 1 );
+            }
         }
+
+        return new PolygonTessellator( new GLU( ) );
     }
 
-    public void addPolygon( int groupId, int polygonId, long startTime, long endTime, Shape shape, float z )
+    protected void returnTessellator( PolygonTessellator tessellator )
     {
-        this.updateLock.lock( );
-        try
+        synchronized ( idleTessellators )
         {
-            addPolygon( groupId, new IdPolygon( groupId, polygonId, startTime, endTime, buildPolygon( shape ), z ) );
+            if ( !tessellatorsDisposed && idleTessellators.size( ) < maxIdleTessellators )
+            {
+                idleTessellators.add( tessellator );
+                return;
+            }
         }
-        finally
+
+        tessellator.destroy( );
+    }
+
+    // called from tessellation worker threads, avoids contending for updateLock
+    protected void addPolygonPending( IdPolygon polygon )
+    {
+        this.pendingPolygons.add( polygon );
+        this.newData = true;
+        this.requestRepaint( );
+    }
+
+    // must be called while holding updateLock
+    protected void addPendingPolygons( )
+    {
+        IdPolygon polygon;
+        while ( ( polygon = pendingPolygons.poll( ) ) != null )
         {
-            this.updateLock.unlock( );
+            Group group = getOrCreateGroup( polygon.groupId );
+
+            group.addPolygon( polygon );
+
+            this.updatedGroups.add( group );
         }
     }
 
@@ -322,6 +430,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -344,6 +453,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.addAll( groups.values( ) );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -374,6 +484,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -392,6 +503,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -410,6 +522,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -428,6 +541,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -447,6 +561,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -465,6 +580,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -483,6 +599,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -502,6 +619,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -520,6 +638,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -538,6 +657,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -556,6 +676,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -571,6 +692,8 @@ public class PolygonPainter extends GlimpsePainter2D
         this.updateLock.lock( );
         try
         {
+            addPendingPolygons( );
+
             for ( Group group : groups.values( ) )
             {
                 group.deleteGroup( );
@@ -578,6 +701,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.addAll( groups.values( ) );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -594,6 +718,8 @@ public class PolygonPainter extends GlimpsePainter2D
         this.updateLock.lock( );
         try
         {
+            addPendingPolygons( );
+
             if ( !groups.containsKey( groupId ) ) return;
 
             Group group = groups.get( groupId );
@@ -602,6 +728,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -619,6 +746,8 @@ public class PolygonPainter extends GlimpsePainter2D
         this.updateLock.lock( );
         try
         {
+            addPendingPolygons( );
+
             if ( !groups.containsKey( groupId ) ) return;
 
             Group group = groups.get( groupId );
@@ -627,6 +756,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -639,12 +769,15 @@ public class PolygonPainter extends GlimpsePainter2D
         this.updateLock.lock( );
         try
         {
+            addPendingPolygons( );
+
             Group group = getOrCreateGroup( groupId );
 
             group.deletePolygon( polygonId );
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -663,6 +796,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
             this.updatedGroups.add( group );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -727,6 +861,13 @@ public class PolygonPainter extends GlimpsePainter2D
             this.updateLock.lock( );
             try
             {
+                // clear the flag before draining the queue, so that polygons queued by
+                // the worker threads after this point set it again and are not lost
+                this.newData = false;
+
+                // add polygons tessellated by the worker threads since the last update
+                addPendingPolygons( );
+
                 // loop through all Groups with updates
                 for ( Group group : updatedGroups )
                 {
@@ -770,7 +911,6 @@ public class PolygonPainter extends GlimpsePainter2D
                 }
 
                 this.updatedGroups.clear( );
-                this.newData = false;
             }
             finally
             {
@@ -1091,7 +1231,27 @@ public class PolygonPainter extends GlimpsePainter2D
             this.updateLock.unlock( );
         }
 
-        tessellator.destroy( );
+        synchronized ( this )
+        {
+            if ( tessellationExecutor != null )
+            {
+                tessellationExecutor.shutdownNow( );
+                tessellationExecutor = null;
+            }
+        }
+
+        synchronized ( idleTessellators )
+        {
+            for ( PolygonTessellator tessellator : idleTessellators )
+            {
+                tessellator.destroy( );
+            }
+
+            idleTessellators.clear( );
+
+            // tessellators still in use are destroyed when they are returned
+            tessellatorsDisposed = true;
+        }
     }
 
     /**
@@ -1253,6 +1413,7 @@ public class PolygonPainter extends GlimpsePainter2D
 
         protected float[] tessellate( )
         {
+            PolygonTessellator tessellator = borrowTessellator( );
             try
             {
                 SimpleVertexAccumulator accumulator = new SimpleVertexAccumulator( );
@@ -1264,6 +1425,10 @@ public class PolygonPainter extends GlimpsePainter2D
                 logWarning( logger, "Problem tessellating polygon.", e );
                 return new float[0];
             }
+            finally
+            {
+                returnTessellator( tessellator );
+            }
         }
 
         private PolygonPainter getOuterType( )
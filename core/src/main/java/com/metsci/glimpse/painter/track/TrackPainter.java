@@ -32,6 +32,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -50,11 +51,19 @@ import com.metsci.glimpse.axis.Axis1D;
 import com.metsci.glimpse.axis.Axis2D;
 import com.metsci.glimpse.context.GlimpseBounds;
 import com.metsci.glimpse.event.mouse.GlimpseMouseEvent;
+import com.metsci.glimpse.gl.shader.Pipeline;
+import com.metsci.glimpse.gl.shader.ShaderType;
 import com.metsci.glimpse.painter.base.GlimpseDataPainter2D;
 import com.metsci.glimpse.support.font.FontUtils;
 import com.metsci.glimpse.support.selection.SpatialSelectionAxisListener;
 import com.metsci.glimpse.support.selection.SpatialSelectionListener;
 import com.metsci.glimpse.support.selection.TemporalSelectionListener;
+import com.metsci.glimpse.support.shader.TrackTimeShader;
+import com.metsci.glimpse.support.shader.geometry.SimpleShader;
+import com.metsci.glimpse.util.primitives.FloatsArray;
+import com.metsci.glimpse.util.primitives.IntsArray;
+import com.metsci.glimpse.util.primitives.LongsArray;
+import com.metsci.glimpse.util.primitives.ObjectsArray;
 import com.metsci.glimpse.util.quadtree.QuadTreeXys;
 import com.sun.opengl.util.j2d.TextRenderer;
 
@@ -78,8 +87,12 @@ public class TrackPainter extends GlimpseDataPainter2D
     public static final int TRACK_LABEL_OFFSET_X = 8;
     public static final int TRACK_LABEL_OFFSET_Y = 8;
 
+    // some drivers render incorrectly when glMultiDrawArrays is given counts larger than 65535
+    public static final int MULTI_DRAW_MAX_COUNT = 60000;
+
     protected int dataBufferSize = 0;
     protected FloatBuffer dataBuffer = null;
+    protected FloatBuffer timeBuffer = null;
     protected ReentrantLock trackUpdateLock = null;
 
     // mapping from id to Track
@@ -92,6 +105,40 @@ public class TrackPainter extends GlimpseDataPainter2D
     protected Map<Integer, LoadedTrack> loadedTracks;
     // spatial index on Points
     protected QuadTreeXys<Point> spatialIndex;
+    // if true, track posits are stored in primitive arrays instead of as Point objects
+    protected boolean columnarStorage;
+
+    // if true, track vertex times are uploaded to the device and the time range is applied by a shader
+    protected boolean shaderTimeFilter;
+    protected TrackTimeShader timeShader;
+    protected Pipeline timePipeline;
+    protected int timeAttributeIndex = 1;
+    // true indicates that the time range uniforms must be updated
+    protected volatile boolean timeRangeUpdated = false;
+    // vertex times are uploaded relative to this time (see TrackTimeShader)
+    protected boolean timeEpochSet = false;
+    protected long timeEpoch;
+
+    // when shaderTimeFilter is true, all tracks share a single device buffer: the x/y values of
+    // all vertices followed by the time values of all vertices, each track occupies a contiguous
+    // range of vertices (reallocated at the end of the buffer when the track outgrows it)
+    protected boolean glSharedBufferInitialized = false;
+    protected int glSharedBufferHandle;
+    // the number of vertices which fit in the shared device buffer
+    protected int glSharedBufferCapacity;
+    // the number of vertices allocated to tracks (including abandoned ranges)
+    protected int glSharedBufferUsed;
+    // the number of vertices in abandoned ranges
+    protected int glSharedBufferWasted;
+    // true indicates all tracks must be reallocated and copied into a new shared device buffer
+    protected boolean glSharedBufferRelayout = false;
+
+    // tracks which share drawing attributes, drawn with a single glMultiDrawArrays call
+    private Collection<DrawGroup> lineGroups;
+    private Collection<DrawGroup> pointGroups;
+    // tracks with their own time range, drawn with the fixed function pipeline
+    private Collection<LoadedTrack> customRangeTracks;
+    private boolean drawGroupsDirty = true;
 
     // the overall start and end times set by displayTimeRange
     // when new tracks are created, they inherit these time bounds
@@ -101,9 +148,39 @@ public class TrackPainter extends GlimpseDataPainter2D
 
     protected Collection<TemporalSelectionListener<Point>> temporalSelectionListeners;
 
+    // the number of bytes of track vertex data copied to the device during the last call to paintTo
+    protected long uploadedBytes = 0;
+    // the total number of bytes of track vertex data copied to the device
+    protected long totalUploadedBytes = 0;
+
     private static final Font textFont = FontUtils.getDefaultBold( 12 );
     protected TextRenderer fontRenderer;
 
+    // the head points of all tracks are drawn from a single device buffer containing
+    // interleaved x, y, r, g, b, a values, one glDrawArrays call per head point size
+    protected static final int HEAD_POINT_FLOATS = 6;
+    protected boolean glHeadBufferInitialized = false;
+    protected int glHeadBufferHandle;
+    protected FloatBuffer headBuffer = null;
+    private FloatsArray headPointSizes = new FloatsArray( );
+    private IntsArray headPointFirsts = new IntsArray( );
+    private IntsArray headPointCounts = new IntsArray( );
+
+    // label leader lines depend on the axis bounds, so they are recalculated each frame
+    // and streamed to the device as interleaved x, y, r, g, b values
+    protected static final int LABEL_LINE_FLOATS = 5;
+    protected boolean glLabelLineBufferInitialized = false;
+    protected int glLabelLineBufferHandle;
+    protected FloatBuffer labelLineBuffer = null;
+    private int labelLineCount;
+
+    // tracks with labels, grouped by label color so the TextRenderer
+    // (which caches rendered glyphs) is flushed once per color
+    private Map<Color, List<LoadedTrack>> labelGroups = new HashMap<Color, List<LoadedTrack>>( );
+
+    // true indicates that the head point buffer and label groups must be rebuilt
+    private boolean headsDirty = true;
+
     public TrackPainter( )
     {
         this( false );
@@ -111,6 +188,57 @@ public class TrackPainter extends GlimpseDataPainter2D
 
     public TrackPainter( boolean enableSpatialIndex )
     {
+        this( enableSpatialIndex, false );
+    }
+
+    /**
+     * @param enableSpatialIndex if true, a {@link QuadTreeXys} of all Points is maintained
+     *                           to support the spatial query methods
+     * @param columnarStorage if true, the posits of each track are stored in primitive
+     *                        arrays (time, point id, and interleaved x/y) rather than as a
+     *                        list of Point objects. This greatly reduces heap usage and
+     *                        garbage collection overhead for very large tracks. If the
+     *                        spatial index is enabled, the Point instances are also kept
+     *                        (the index refers to them), so subclasses of Point passed to
+     *                        {@link #addPoints(int, List)} are preserved. Otherwise Points
+     *                        returned from {@link #getTrackHead(int)} and passed to
+     *                        {@link TemporalSelectionListener}s are reconstructed from the
+     *                        stored values, and subclasses are not preserved.
+     */
+    public TrackPainter( boolean enableSpatialIndex, boolean columnarStorage )
+    {
+        this( enableSpatialIndex, columnarStorage, false );
+    }
+
+    /**
+     * @param enableSpatialIndex if true, a {@link QuadTreeXys} of all Points is maintained
+     *                           to support the spatial query methods
+     * @param columnarStorage if true, the posits of each track are stored in primitive arrays
+     *                        (see {@link #TrackPainter(boolean, boolean)})
+     * @param shaderTimeFilter if true, the time stamp of each vertex is copied to the device
+     *                         along with its position and the time range set by
+     *                         {@link #displayTimeRange(long, long, long)} is applied by a
+     *                         shader. Changing the time range then costs a uniform update
+     *                         instead of per-track work, and all tracks with the same line
+     *                         or point settings are drawn with a single call. Tracks given
+     *                         their own time range via {@link #displayTimeRange(int, long, long, long)}
+     *                         are still drawn individually.
+     */
+    public TrackPainter( boolean enableSpatialIndex, boolean columnarStorage, boolean shaderTimeFilter )
+    {
+        this.columnarStorage = columnarStorage;
+        this.shaderTimeFilter = shaderTimeFilter;
+
+        if ( shaderTimeFilter )
+        {
+            this.timeShader = new TrackTimeShader( timeAttributeIndex );
+            this.timePipeline = new Pipeline( "track_time", null, timeShader, new SimpleShader( "track_time_shader", ShaderType.fragment, "shaders/track/track_time_shader.fs" ) );
+
+            this.lineGroups = new ArrayList<DrawGroup>( );
+            this.pointGroups = new ArrayList<DrawGroup>( );
+            this.customRangeTracks = new ArrayList<LoadedTrack>( );
+        }
+
         if ( enableSpatialIndex ) this.spatialIndex = new QuadTreeXys<Point>( QUAD_TREE_BIN_MAX );
 
         this.temporalSelectionListeners = new CopyOnWriteArrayList<TemporalSelectionListener<Point>>( );
@@ -120,7 +248,10 @@ public class TrackPainter extends GlimpseDataPainter2D
         this.loadedTracks = new HashMap<Integer, LoadedTrack>( );
         this.trackUpdateLock = new ReentrantLock( );
 
+        // TextRenderer caches rendered glyphs in a texture and batches the quads for
+        // each glyph into vertex arrays, which are flushed when the color changes
         this.fontRenderer = new TextRenderer( textFont );
+        this.fontRenderer.setUseVertexArrays( true );
     }
 
     public void addTemporalSelectionListener( TemporalSelectionListener<Point> listener )
@@ -149,6 +280,7 @@ public class TrackPainter extends GlimpseDataPainter2D
             {
                 if ( track != null )
                 {
+                    track.ensureTimeRange( );
                     trackHeads.add( track.getTrackHead( ) );
                 }
             }
@@ -170,6 +302,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             if ( track != null )
             {
+                track.ensureTimeRange( );
                 return track.getTrackHead( );
             }
             else
@@ -198,6 +331,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.addAll( tracks.values( ) );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -216,9 +350,9 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             if ( this.spatialIndex != null )
             {
-                for ( Point p : track.points )
+                for ( int i = 0; i < track.getSize( ); i++ )
                 {
-                    this.spatialIndex.remove( p );
+                    this.spatialIndex.remove( track.points.get( i ) );
                 }
             }
 
@@ -226,6 +360,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -244,9 +379,9 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             if ( this.spatialIndex != null )
             {
-                for ( Point p : track.points )
+                for ( int i = 0; i < track.getSize( ); i++ )
                 {
-                    this.spatialIndex.remove( p );
+                    this.spatialIndex.remove( track.points.get( i ) );
                 }
             }
 
@@ -254,6 +389,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -263,7 +399,29 @@ public class TrackPainter extends GlimpseDataPainter2D
 
     public void addPoint( int trackId, int pointId, double x, double y, long time )
     {
-        addPoint( trackId, new Point( trackId, pointId, x, y, time ) );
+        // with columnar storage and no spatial index, no Point object is needed
+        if ( columnarStorage && spatialIndex == null )
+        {
+            this.trackUpdateLock.lock( );
+            try
+            {
+                Track track = getOrCreateTrack( trackId );
+
+                track.add( pointId, ( float ) x, ( float ) y, time );
+
+                this.updatedTracks.add( track );
+                this.newData = true;
+                this.requestRepaint( );
+            }
+            finally
+            {
+                this.trackUpdateLock.unlock( );
+            }
+        }
+        else
+        {
+            addPoint( trackId, new Point( trackId, pointId, x, y, time ) );
+        }
     }
 
     public void addPoints( int trackId, List<Point> points )
@@ -277,6 +435,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -300,6 +459,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -318,6 +478,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -341,6 +502,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -359,6 +521,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -377,6 +540,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -400,6 +564,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -418,6 +583,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -436,6 +602,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -454,6 +621,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -472,6 +640,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -491,6 +660,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -514,6 +684,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -537,6 +708,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -555,6 +727,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -574,6 +747,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -592,6 +766,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -625,10 +800,12 @@ public class TrackPainter extends GlimpseDataPainter2D
         {
             Track track = getOrCreateTrack( trackId );
 
+            track.customTimeRange = true;
             track.setTimeRange( startPoint, endPoint, selectedPoint );
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -650,13 +827,41 @@ public class TrackPainter extends GlimpseDataPainter2D
         this.trackUpdateLock.lock( );
         try
         {
-            for ( Track track : tracks.values( ) )
+            if ( shaderTimeFilter )
             {
-                track.setTimeRange( startTimeRange, endTimeRange, selectedTimeRange );
+                // the shader determines which vertices are drawn, so only tracks which
+                // need their head point (or their own time range drawn) are updated now
+                boolean notify = !temporalSelectionListeners.isEmpty( );
+
+                for ( Track track : tracks.values( ) )
+                {
+                    if ( notify || track.headPointOn || track.labelOn || track.customTimeRange )
+                    {
+                        track.customTimeRange = false;
+                        track.setTimeRange( startTimeRange, endTimeRange, selectedTimeRange );
+                        this.updatedTracks.add( track );
+                    }
+                    else
+                    {
+                        track.deferTimeRange( startTimeRange, endTimeRange, selectedTimeRange );
+                    }
+                }
+
+                this.timeRangeUpdated = true;
+            }
+            else
+            {
+                for ( Track track : tracks.values( ) )
+                {
+                    track.customTimeRange = false;
+                    track.setTimeRange( startTimeRange, endTimeRange, selectedTimeRange );
+                }
+
+                this.updatedTracks.addAll( tracks.values( ) );
             }
 
-            this.updatedTracks.addAll( tracks.values( ) );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -852,6 +1057,27 @@ public class TrackPainter extends GlimpseDataPainter2D
         }
     }
 
+    /**
+     * Returns the number of bytes of track vertex data copied from the host to the device
+     * during the most recent call to paintTo. When new posits are appended (or arrive slightly
+     * out of order) only the modified portion of each track is copied, so this is usually
+     * much smaller than the total size of the tracks.
+     *
+     * @return bytes uploaded to the device during the last paint
+     */
+    public long getUploadedBytes( )
+    {
+        return uploadedBytes;
+    }
+
+    /**
+     * @return total bytes of track vertex data uploaded to the device by this painter
+     */
+    public long getTotalUploadedBytes( )
+    {
+        return totalUploadedBytes;
+    }
+
     /**
      * Reclaims direct host memory used to move track vertices between the host and device.
      * By default, this memory is never reclaimed because it is slow to allocate. However,
@@ -864,6 +1090,7 @@ public class TrackPainter extends GlimpseDataPainter2D
         try
         {
             this.dataBuffer = null;
+            this.timeBuffer = null;
             this.dataBufferSize = 0;
         }
         finally
@@ -934,6 +1161,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
             this.updatedTracks.add( track );
             this.newData = true;
+            this.requestRepaint( );
         }
         finally
         {
@@ -962,6 +1190,7 @@ public class TrackPainter extends GlimpseDataPainter2D
         {
             dataBufferSize = needed;
             dataBuffer = ByteBuffer.allocateDirect( needed * 2 * 4 ).order( ByteOrder.nativeOrder( ) ).asFloatBuffer( );
+            if ( shaderTimeFilter ) timeBuffer = ByteBuffer.allocateDirect( needed * 2 * 4 ).order( ByteOrder.nativeOrder( ) ).asFloatBuffer( );
         }
     }
 
@@ -992,6 +1221,8 @@ public class TrackPainter extends GlimpseDataPainter2D
         int width = bounds.getWidth( );
         int height = bounds.getHeight( );
 
+        this.uploadedBytes = 0;
+
         if ( this.newData )
         {
             this.trackUpdateLock.lock( );
@@ -1005,6 +1236,7 @@ public class TrackPainter extends GlimpseDataPainter2D
                     if ( track.isDeletePending( ) || track.isClearPending( ) )
                     {
                         LoadedTrack loaded = getOrCreateLoadedTrack( id, track );
+                        if ( loaded.glBufferShared ) glSharedBufferWasted += loaded.glBufferMaxSize;
                         loaded.dispose( gl );
                         loadedTracks.remove( id );
 
@@ -1017,12 +1249,18 @@ public class TrackPainter extends GlimpseDataPainter2D
                         }
                     }
 
+                    track.ensureTimeRange( );
+
                     LoadedTrack loaded = getOrCreateLoadedTrack( id, track );
                     loaded.loadSettings( track );
 
                     int trackSize = track.getSize( );
 
-                    if ( track.isDataInserted( ) )
+                    if ( shaderTimeFilter )
+                    {
+                        if ( track.isDataInserted( ) ) loadSharedTrack( gl, track, loaded );
+                    }
+                    else if ( track.isDataInserted( ) )
                     {
                         if ( !loaded.glBufferInitialized || loaded.glBufferMaxSize < trackSize )
                         {
@@ -1058,6 +1296,8 @@ public class TrackPainter extends GlimpseDataPainter2D
                             // copy data from the host buffer into the device buffer
                             gl.glBindBuffer( GL.GL_ARRAY_BUFFER, loaded.glBufferHandle );
                             gl.glBufferData( GL.GL_ARRAY_BUFFER, loaded.glBufferMaxSize * 2 * BYTES_PER_FLOAT, dataBuffer.rewind( ), GL.GL_DYNAMIC_DRAW );
+
+                            this.uploadedBytes += loaded.glBufferMaxSize * 2 * BYTES_PER_FLOAT;
                         }
                         else
                         {
@@ -1074,14 +1314,25 @@ public class TrackPainter extends GlimpseDataPainter2D
                             // update the device buffer with the new data
                             gl.glBindBuffer( GL.GL_ARRAY_BUFFER, loaded.glBufferHandle );
                             gl.glBufferSubData( GL.GL_ARRAY_BUFFER, insertOffset * 2 * BYTES_PER_FLOAT, insertCount * 2 * BYTES_PER_FLOAT, dataBuffer.rewind( ) );
+
+                            this.uploadedBytes += insertCount * 2 * BYTES_PER_FLOAT;
                         }
                     }
 
                     track.reset( );
                 }
 
+                if ( shaderTimeFilter )
+                {
+                    if ( glSharedBufferRelayout || glSharedBufferWasted > glSharedBufferUsed / 2 ) relayoutSharedBuffer( gl );
+                    if ( !updatedTracks.isEmpty( ) ) drawGroupsDirty = true;
+                }
+
+                if ( !updatedTracks.isEmpty( ) ) headsDirty = true;
+
                 this.updatedTracks.clear( );
                 this.newData = false;
+                this.totalUploadedBytes += this.uploadedBytes;
             }
             finally
             {
@@ -1095,75 +1346,47 @@ public class TrackPainter extends GlimpseDataPainter2D
 
         gl.glEnableClientState( GL.GL_VERTEX_ARRAY );
 
-        boolean labelOn = false;
-
-        for ( LoadedTrack loaded : loadedTracks.values( ) )
+        if ( shaderTimeFilter )
         {
-            if ( !loaded.glBufferInitialized ) continue;
-
-            int glOffset = loaded.glSelectedOffset;
-            int glSize = loaded.glSelectedSize;
-
-            gl.glBindBuffer( GL.GL_ARRAY_BUFFER, loaded.glBufferHandle );
-            gl.glVertexPointer( 2, GL.GL_FLOAT, 0, 0 );
-
-            if ( loaded.linesOn )
+            paintSharedTracks( gl );
+        }
+        else
+        {
+            for ( LoadedTrack loaded : loadedTracks.values( ) )
             {
-                gl.glColor4fv( loaded.lineColor, 0 );
-                gl.glLineWidth( loaded.lineWidth );
-
-                if ( loaded.stippleOn )
-                {
-                    gl.glEnable( GL.GL_LINE_STIPPLE );
-                    gl.glLineStipple( loaded.stippleFactor, loaded.stipplePattern );
-                }
+                if ( !loaded.glBufferInitialized ) continue;
 
-                gl.glDrawArrays( GL.GL_LINE_STRIP, glOffset, glSize );
+                gl.glBindBuffer( GL.GL_ARRAY_BUFFER, loaded.glBufferHandle );
+                gl.glVertexPointer( 2, GL.GL_FLOAT, 0, 0 );
 
-                if ( loaded.stippleOn )
-                {
-                    gl.glDisable( GL.GL_LINE_STIPPLE );
-                }
+                paintTrack( gl, loaded, loaded.glSelectedOffset, loaded.glSelectedSize );
             }
+        }
 
-            if ( loaded.pointsOn )
-            {
-                gl.glColor4fv( loaded.pointColor, 0 );
-                gl.glPointSize( loaded.pointSize );
-                gl.glDrawArrays( GL.GL_POINTS, glOffset, glSize );
-            }
+        if ( headsDirty )
+        {
+            loadHeads( gl );
+            headsDirty = false;
+        }
 
-            if ( loaded.headPointOn )
-            {
-                gl.glColor4fv( loaded.headPointColor, 0 );
-                gl.glPointSize( loaded.headPointSize );
-                gl.glBegin( GL.GL_POINTS );
-                try
-                {
-                    gl.glVertex2d( loaded.headPosX, loaded.headPosY );
-                }
-                finally
-                {
-                    gl.glEnd( );
-                }
-            }
+        paintHeadPoints( gl );
 
-            if ( loaded.labelOn ) labelOn = true;
-        }
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, 0 );
 
-        // don't bother iterating through all the tracks again if none have labels turned on
-        if ( labelOn && fontRenderer != null )
+        // don't bother with labels if none are turned on
+        if ( !labelGroups.isEmpty( ) && fontRenderer != null )
         {
             fontRenderer.beginRendering( width, height );
             try
             {
-                for ( LoadedTrack loaded : loadedTracks.values( ) )
+                for ( Map.Entry<Color, List<LoadedTrack>> entry : labelGroups.entrySet( ) )
                 {
-                    if ( loaded.labelOn && loaded.label != null )
+                    fontRenderer.setColor( entry.getKey( ) );
+
+                    for ( LoadedTrack loaded : entry.getValue( ) )
                     {
                         int posX = axis.getAxisX( ).valueToScreenPixel( loaded.headPosX );
                         int posY = axis.getAxisY( ).valueToScreenPixel( loaded.headPosY );
-                        fontRenderer.setColor( loaded.labelColor );
                         fontRenderer.draw( loaded.label, posX + TRACK_LABEL_OFFSET_X, posY + TRACK_LABEL_OFFSET_Y );
                     }
                 }
@@ -1179,159 +1402,599 @@ public class TrackPainter extends GlimpseDataPainter2D
             gl.glMatrixMode( GL.GL_MODELVIEW );
             gl.glLoadIdentity( );
 
-            for ( LoadedTrack loaded : loadedTracks.values( ) )
+            paintLabelLines( gl, axis );
+        }
+    }
+
+    // rebuilds the head point device buffer and the label groups from the loaded tracks
+    private void loadHeads( GL gl )
+    {
+        labelGroups.clear( );
+        headPointSizes.n = 0;
+        headPointFirsts.n = 0;
+        headPointCounts.n = 0;
+
+        // group head points by size (there are usually very few distinct sizes)
+        Map<Float, FloatsArray> headPoints = new HashMap<Float, FloatsArray>( );
+        int headPointCount = 0;
+
+        for ( LoadedTrack loaded : loadedTracks.values( ) )
+        {
+            if ( !loaded.glBufferInitialized ) continue;
+
+            if ( loaded.headPointOn )
             {
-                if ( loaded.labelOn && loaded.labelLineOn && loaded.label != null )
+                FloatsArray group = headPoints.get( loaded.headPointSize );
+                if ( group == null )
                 {
-                    int posX = axis.getAxisX( ).valueToScreenPixel( loaded.headPosX );
-                    int posY = axis.getAxisY( ).valueToScreenPixel( loaded.headPosY );
+                    group = new FloatsArray( );
+                    headPoints.put( loaded.headPointSize, group );
+                }
 
-                    gl.glColor3fv( loaded.labelLineColor, 0 );
-                    gl.glBegin( GL.GL_LINES );
-                    try
-                    {
-                        gl.glVertex2i( posX, posY );
-                        gl.glVertex2i( posX + TRACK_LABEL_OFFSET_X, posY + TRACK_LABEL_OFFSET_Y );
-                    }
-                    finally
-                    {
-                        gl.glEnd( );
-                    }
+                group.append( ( float ) loaded.headPosX );
+                group.append( ( float ) loaded.headPosY );
+                group.append( loaded.headPointColor );
+                headPointCount++;
+            }
+
+            if ( loaded.labelOn && loaded.label != null )
+            {
+                List<LoadedTrack> group = labelGroups.get( loaded.labelColor );
+                if ( group == null )
+                {
+                    group = new ArrayList<LoadedTrack>( );
+                    labelGroups.put( loaded.labelColor, group );
                 }
+
+                group.add( loaded );
             }
         }
+
+        if ( headPointCount == 0 ) return;
+
+        int needed = headPointCount * HEAD_POINT_FLOATS;
+        if ( headBuffer == null || headBuffer.capacity( ) < needed )
+        {
+            headBuffer = ByteBuffer.allocateDirect( needed * BYTES_PER_FLOAT ).order( ByteOrder.nativeOrder( ) ).asFloatBuffer( );
+        }
+
+        headBuffer.rewind( );
+
+        int first = 0;
+        for ( Map.Entry<Float, FloatsArray> entry : headPoints.entrySet( ) )
+        {
+            FloatsArray group = entry.getValue( );
+            int count = group.n / HEAD_POINT_FLOATS;
+
+            headBuffer.put( group.a, 0, group.n );
+            headPointSizes.append( entry.getKey( ) );
+            headPointFirsts.append( first );
+            headPointCounts.append( count );
+
+            first += count;
+        }
+
+        if ( !glHeadBufferInitialized )
+        {
+            int[] bufferHandle = new int[1];
+            gl.glGenBuffers( 1, bufferHandle, 0 );
+            glHeadBufferHandle = bufferHandle[0];
+            glHeadBufferInitialized = true;
+        }
+
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, glHeadBufferHandle );
+        gl.glBufferData( GL.GL_ARRAY_BUFFER, needed * BYTES_PER_FLOAT, headBuffer.rewind( ), GL.GL_DYNAMIC_DRAW );
     }
 
-    @Override
-    public void dispose( GLContext context )
+    private void paintHeadPoints( GL gl )
     {
-        GL gl = context.getGL( );
+        if ( headPointSizes.n == 0 ) return;
 
-        this.trackUpdateLock.lock( );
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, glHeadBufferHandle );
+        gl.glEnableClientState( GL.GL_COLOR_ARRAY );
         try
         {
-            for ( LoadedTrack track : loadedTracks.values( ) )
+            gl.glVertexPointer( 2, GL.GL_FLOAT, HEAD_POINT_FLOATS * BYTES_PER_FLOAT, 0 );
+            gl.glColorPointer( 4, GL.GL_FLOAT, HEAD_POINT_FLOATS * BYTES_PER_FLOAT, 2 * BYTES_PER_FLOAT );
+
+            for ( int i = 0; i < headPointSizes.n; i++ )
             {
-                track.dispose( gl );
+                gl.glPointSize( headPointSizes.a[i] );
+                gl.glDrawArrays( GL.GL_POINTS, headPointFirsts.a[i], headPointCounts.a[i] );
             }
         }
         finally
         {
-            this.trackUpdateLock.unlock( );
+            gl.glDisableClientState( GL.GL_COLOR_ARRAY );
         }
+    }
 
-        if ( fontRenderer != null )
+    // draws the label leader lines in screen pixel coordinates
+    private void paintLabelLines( GL gl, Axis2D axis )
+    {
+        labelLineCount = 0;
+        for ( List<LoadedTrack> group : labelGroups.values( ) )
         {
-            fontRenderer.dispose( );
-            fontRenderer = null;
+            for ( LoadedTrack loaded : group )
+            {
+                if ( loaded.labelLineOn ) labelLineCount++;
+            }
         }
-    }
-
-    ////////////////////////////////////////
-    ///// Internal Data Structures     /////
-    ///// not intended for use outside /////
-    ///// of TrackPainter              /////
-    ////////////////////////////////////////
 
-    // A Track modified only on the gl display() thread
-    // (so no locking is required when calling its methods
-    // and accessing its data)
-    private static class LoadedTrack
-    {
-        // the unique identifier of the track
-        int trackId;
+        if ( labelLineCount == 0 ) return;
 
-        // track display attributes
-        float[] lineColor = new float[4];
-        float lineWidth;
-        boolean linesOn;
+        int needed = labelLineCount * 2 * LABEL_LINE_FLOATS;
+        if ( labelLineBuffer == null || labelLineBuffer.capacity( ) < needed )
+        {
+            labelLineBuffer = ByteBuffer.allocateDirect( needed * BYTES_PER_FLOAT ).order( ByteOrder.nativeOrder( ) ).asFloatBuffer( );
+        }
 
-        float[] pointColor = new float[4];
-        float pointSize;
-        boolean pointsOn;
+        labelLineBuffer.rewind( );
 
-        int stippleFactor;
-        short stipplePattern;
-        boolean stippleOn;
+        Axis1D axisX = axis.getAxisX( );
+        Axis1D axisY = axis.getAxisY( );
 
-        String label;
-        boolean labelOn;
-        double headPosX;
-        double headPosY;
-        Color labelColor;
+        for ( List<LoadedTrack> group : labelGroups.values( ) )
+        {
+            for ( LoadedTrack loaded : group )
+            {
+                if ( !loaded.labelLineOn ) continue;
 
-        float[] labelLineColor = new float[4];
-        boolean labelLineOn;
+                int posX = axisX.valueToScreenPixel( loaded.headPosX );
+                int posY = axisY.valueToScreenPixel( loaded.headPosY );
+                float[] color = loaded.labelLineColor;
 
-        float headPointSize;
-        float[] headPointColor = new float[4];
-        boolean headPointOn;
+                labelLineBuffer.put( posX ).put( posY ).put( color, 0, 3 );
+                labelLineBuffer.put( posX + TRACK_LABEL_OFFSET_X ).put( posY + TRACK_LABEL_OFFSET_Y ).put( color, 0, 3 );
+            }
+        }
 
-        boolean glBufferInitialized = false;
-        // a reference to the device buffer for this track
-        int glBufferHandle;
-        // the maximum allocated size of the device buffer for this track
-        int glBufferMaxSize;
-        // the currently used size of the device buffer for this track
-        int glBufferCurrentSize;
+        if ( !glLabelLineBufferInitialized )
+        {
+            int[] bufferHandle = new int[1];
+            gl.glGenBuffers( 1, bufferHandle, 0 );
+            glLabelLineBufferHandle = bufferHandle[0];
+            glLabelLineBufferInitialized = true;
+        }
 
-        // the offset into the device buffer to begin displaying track vertices
-        int glSelectedOffset;
-        // the number of bytes from the device buffer to display
-        int glSelectedSize;
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, glLabelLineBufferHandle );
+        gl.glBufferData( GL.GL_ARRAY_BUFFER, needed * BYTES_PER_FLOAT, labelLineBuffer.rewind( ), GL.GL_STREAM_DRAW );
 
-        public LoadedTrack( Track track )
+        gl.glEnableClientState( GL.GL_VERTEX_ARRAY );
+        gl.glEnableClientState( GL.GL_COLOR_ARRAY );
+        try
         {
-            this.trackId = track.trackId;
-            this.loadSettings( track );
+            gl.glVertexPointer( 2, GL.GL_FLOAT, LABEL_LINE_FLOATS * BYTES_PER_FLOAT, 0 );
+            gl.glColorPointer( 3, GL.GL_FLOAT, LABEL_LINE_FLOATS * BYTES_PER_FLOAT, 2 * BYTES_PER_FLOAT );
+            gl.glDrawArrays( GL.GL_LINES, 0, labelLineCount * 2 );
         }
-
-        public void loadSettings( Track track )
+        finally
         {
+            gl.glDisableClientState( GL.GL_COLOR_ARRAY );
+        }
 
-            this.glSelectedSize = track.selectedSize;
-            this.glSelectedOffset = track.selectedOffset;
-
-            this.copyColor( this.lineColor, track.lineColor );
-            this.copyColor( this.pointColor, track.pointColor );
-
-            this.lineWidth = track.lineWidth;
-            this.pointSize = track.pointSize;
-
-            this.pointsOn = track.pointsOn;
-            this.linesOn = track.linesOn;
-            this.stippleOn = track.stippleOn;
-
-            this.stippleFactor = track.stippleFactor;
-            this.stipplePattern = track.stipplePattern;
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, 0 );
+    }
 
-            this.glBufferCurrentSize = track.getSize( );
+    private void paintTrack( GL gl, LoadedTrack loaded, int glOffset, int glSize )
+    {
+        if ( loaded.linesOn )
+        {
+            gl.glColor4fv( loaded.lineColor, 0 );
+            gl.glLineWidth( loaded.lineWidth );
 
-            if ( glBufferCurrentSize == 0 || track.selectedSize == 0 || track.trackHead == null )
+            if ( loaded.stippleOn )
             {
-                this.headPointOn = false;
-                this.labelOn = false;
+                gl.glEnable( GL.GL_LINE_STIPPLE );
+                gl.glLineStipple( loaded.stippleFactor, loaded.stipplePattern );
             }
-            else
-            {
-                this.copyColor( this.labelLineColor, track.labelLineColor );
-                this.labelLineOn = track.labelLineOn;
 
-                this.copyColor( this.headPointColor, track.headPointColor );
-                this.headPointSize = track.headPointSize;
-                this.headPointOn = track.headPointOn;
+            gl.glDrawArrays( GL.GL_LINE_STRIP, glOffset, glSize );
 
-                this.label = track.label;
-                this.labelOn = track.labelOn;
-                this.headPosX = track.headPosX;
-                this.headPosY = track.headPosY;
-                this.labelColor = track.labelColor;
+            if ( loaded.stippleOn )
+            {
+                gl.glDisable( GL.GL_LINE_STIPPLE );
             }
         }
 
-        protected void copyColor( float[] to, float[] from )
+        if ( loaded.pointsOn )
         {
-            to[0] = from[0];
+            gl.glColor4fv( loaded.pointColor, 0 );
+            gl.glPointSize( loaded.pointSize );
+            gl.glDrawArrays( GL.GL_POINTS, glOffset, glSize );
+        }
+    }
+
+    // draws the lines and points of all tracks from the shared device buffer
+    private void paintSharedTracks( GL gl )
+    {
+        if ( !glSharedBufferInitialized ) return;
+
+        if ( drawGroupsDirty )
+        {
+            buildDrawGroups( );
+            drawGroupsDirty = false;
+        }
+
+        if ( timeRangeUpdated )
+        {
+            timeRangeUpdated = false;
+            timeShader.setTimeRange( startTimeRange.getTime( ), endTimeRange.getTime( ), timeEpoch );
+        }
+
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, glSharedBufferHandle );
+        gl.glVertexPointer( 2, GL.GL_FLOAT, 0, 0 );
+
+        timePipeline.beginUse( gl );
+        try
+        {
+            gl.glEnableVertexAttribArray( timeAttributeIndex );
+            gl.glVertexAttribPointer( timeAttributeIndex, 2, GL.GL_FLOAT, false, 0, glSharedBufferCapacity * 2 * BYTES_PER_FLOAT );
+
+            for ( DrawGroup group : lineGroups )
+            {
+                gl.glColor4fv( group.color, 0 );
+                gl.glLineWidth( group.size );
+
+                if ( group.stippleOn )
+                {
+                    gl.glEnable( GL.GL_LINE_STIPPLE );
+                    gl.glLineStipple( group.stippleFactor, group.stipplePattern );
+                }
+
+                gl.glMultiDrawArrays( GL.GL_LINE_STRIP, group.firsts.a, 0, group.counts.a, 0, group.firsts.n );
+
+                if ( group.stippleOn )
+                {
+                    gl.glDisable( GL.GL_LINE_STIPPLE );
+                }
+            }
+
+            for ( DrawGroup group : pointGroups )
+            {
+                gl.glColor4fv( group.color, 0 );
+                gl.glPointSize( group.size );
+                gl.glMultiDrawArrays( GL.GL_POINTS, group.firsts.a, 0, group.counts.a, 0, group.firsts.n );
+            }
+        }
+        finally
+        {
+            gl.glDisableVertexAttribArray( timeAttributeIndex );
+            timePipeline.endUse( gl );
+        }
+
+        for ( LoadedTrack loaded : customRangeTracks )
+        {
+            paintTrack( gl, loaded, loaded.glBufferOffset + loaded.glSelectedOffset, loaded.glSelectedSize );
+        }
+    }
+
+    // groups tracks in the shared device buffer by their drawing attributes
+    private void buildDrawGroups( )
+    {
+        lineGroups.clear( );
+        pointGroups.clear( );
+        customRangeTracks.clear( );
+
+        Map<DrawGroup, DrawGroup> lineGroupMap = new HashMap<DrawGroup, DrawGroup>( );
+        Map<DrawGroup, DrawGroup> pointGroupMap = new HashMap<DrawGroup, DrawGroup>( );
+        DrawGroup key = new DrawGroup( );
+
+        for ( LoadedTrack loaded : loadedTracks.values( ) )
+        {
+            if ( !loaded.glBufferInitialized || loaded.glBufferCurrentSize == 0 ) continue;
+
+            if ( loaded.customTimeRange )
+            {
+                customRangeTracks.add( loaded );
+                continue;
+            }
+
+            if ( loaded.linesOn )
+            {
+                key.setLineStyle( loaded );
+                DrawGroup group = lineGroupMap.get( key );
+                if ( group == null )
+                {
+                    group = new DrawGroup( );
+                    group.setLineStyle( loaded );
+                    lineGroupMap.put( group, group );
+                    lineGroups.add( group );
+                }
+
+                // consecutive pieces of a line strip must share a vertex
+                group.addRange( loaded.glBufferOffset, loaded.glBufferCurrentSize, 1 );
+            }
+
+            if ( loaded.pointsOn )
+            {
+                key.setPointStyle( loaded );
+                DrawGroup group = pointGroupMap.get( key );
+                if ( group == null )
+                {
+                    group = new DrawGroup( );
+                    group.setPointStyle( loaded );
+                    pointGroupMap.put( group, group );
+                    pointGroups.add( group );
+                }
+
+                group.addRange( loaded.glBufferOffset, loaded.glBufferCurrentSize, 0 );
+            }
+        }
+    }
+
+    // copies new track data into the track's range of the shared device buffer, allocating
+    // a new range if the track has outgrown its current range
+    private void loadSharedTrack( GL gl, Track track, LoadedTrack loaded )
+    {
+        int trackSize = track.getSize( );
+
+        if ( !timeEpochSet && trackSize > 0 )
+        {
+            timeEpoch = track.points.getTime( 0 );
+            timeEpochSet = true;
+            timeRangeUpdated = true;
+        }
+
+        if ( !loaded.glBufferInitialized || loaded.glBufferMaxSize < trackSize )
+        {
+            // the same growth policy as individual track buffers
+            if ( loaded.glBufferInitialized )
+            {
+                glSharedBufferWasted += loaded.glBufferMaxSize;
+                loaded.glBufferMaxSize = Math.max( ( int ) ( loaded.glBufferMaxSize * 1.5 ), trackSize );
+            }
+            else
+            {
+                loaded.glBufferMaxSize = trackSize;
+            }
+
+            loaded.glBufferInitialized = true;
+            loaded.glBufferShared = true;
+
+            if ( !glSharedBufferInitialized || glSharedBufferUsed + loaded.glBufferMaxSize > glSharedBufferCapacity )
+            {
+                // the whole shared buffer will be reallocated and all tracks copied into it
+                glSharedBufferRelayout = true;
+            }
+
+            if ( !glSharedBufferRelayout )
+            {
+                loaded.glBufferOffset = glSharedBufferUsed;
+                glSharedBufferUsed += loaded.glBufferMaxSize;
+
+                loadSharedRange( gl, track, loaded, 0, trackSize );
+            }
+        }
+        else if ( !glSharedBufferRelayout )
+        {
+            loadSharedRange( gl, track, loaded, track.getInsertOffset( ), trackSize );
+        }
+    }
+
+    // copies track vertices [from,to) into the shared device buffer
+    private void loadSharedRange( GL gl, Track track, LoadedTrack loaded, int from, int to )
+    {
+        int count = to - from;
+        if ( count <= 0 ) return;
+
+        ensureDataBufferSize( count );
+
+        dataBuffer.rewind( );
+        track.loadIntoBuffer( dataBuffer, from, to );
+
+        timeBuffer.rewind( );
+        track.points.loadTimesIntoBuffer( timeBuffer, from, to, timeEpoch );
+
+        int vertex = loaded.glBufferOffset + from;
+
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, glSharedBufferHandle );
+        gl.glBufferSubData( GL.GL_ARRAY_BUFFER, vertex * 2 * BYTES_PER_FLOAT, count * 2 * BYTES_PER_FLOAT, dataBuffer.rewind( ) );
+        gl.glBufferSubData( GL.GL_ARRAY_BUFFER, ( glSharedBufferCapacity + vertex ) * 2 * BYTES_PER_FLOAT, count * 2 * BYTES_PER_FLOAT, timeBuffer.rewind( ) );
+
+        this.uploadedBytes += count * 4 * BYTES_PER_FLOAT;
+    }
+
+    // allocates a new shared device buffer and copies all tracks into it (compacting
+    // out any abandoned ranges)
+    private void relayoutSharedBuffer( GL gl )
+    {
+        int needed = 0;
+        for ( LoadedTrack loaded : loadedTracks.values( ) )
+        {
+            if ( loaded.glBufferShared ) needed += loaded.glBufferMaxSize;
+        }
+
+        if ( glSharedBufferInitialized )
+        {
+            gl.glDeleteBuffers( 1, new int[] { glSharedBufferHandle }, 0 );
+        }
+
+        int[] bufferHandle = new int[1];
+        gl.glGenBuffers( 1, bufferHandle, 0 );
+        glSharedBufferHandle = bufferHandle[0];
+        glSharedBufferInitialized = true;
+
+        glSharedBufferCapacity = Math.max( ( int ) ( needed * 1.5 ), TRACK_SIZE_ESTIMATE );
+        glSharedBufferUsed = 0;
+        glSharedBufferWasted = 0;
+        glSharedBufferRelayout = false;
+
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, glSharedBufferHandle );
+        gl.glBufferData( GL.GL_ARRAY_BUFFER, glSharedBufferCapacity * 4 * BYTES_PER_FLOAT, null, GL.GL_DYNAMIC_DRAW );
+
+        for ( LoadedTrack loaded : loadedTracks.values( ) )
+        {
+            if ( !loaded.glBufferShared ) continue;
+
+            loaded.glBufferOffset = glSharedBufferUsed;
+            glSharedBufferUsed += loaded.glBufferMaxSize;
+
+            Track track = tracks.get( loaded.trackId );
+            if ( track != null ) loadSharedRange( gl, track, loaded, 0, track.getSize( ) );
+        }
+    }
+
+    @Override
+    public void dispose( GLContext context )
+    {
+        GL gl = context.getGL( );
+
+        this.trackUpdateLock.lock( );
+        try
+        {
+            for ( LoadedTrack track : loadedTracks.values( ) )
+            {
+                track.dispose( gl );
+            }
+
+            if ( glSharedBufferInitialized )
+            {
+                gl.glDeleteBuffers( 1, new int[] { glSharedBufferHandle }, 0 );
+                glSharedBufferInitialized = false;
+            }
+
+            if ( glHeadBufferInitialized )
+            {
+                gl.glDeleteBuffers( 1, new int[] { glHeadBufferHandle }, 0 );
+                glHeadBufferInitialized = false;
+            }
+
+            if ( glLabelLineBufferInitialized )
+            {
+                gl.glDeleteBuffers( 1, new int[] { glLabelLineBufferHandle }, 0 );
+                glLabelLineBufferInitialized = false;
+            }
+        }
+        finally
+        {
+            this.trackUpdateLock.unlock( );
+        }
+
+        if ( timePipeline != null )
+        {
+            timePipeline.dispose( context );
+        }
+
+        if ( fontRenderer != null )
+        {
+            fontRenderer.dispose( );
+            fontRenderer = null;
+        }
+    }
+
+    ////////////////////////////////////////
+    ///// Internal Data Structures     /////
+    ///// not intended for use outside /////
+    ///// of TrackPainter              /////
+    ////////////////////////////////////////
+
+    // A Track modified only on the gl display() thread
+    // (so no locking is required when calling its methods
+    // and accessing its data)
+    private static class LoadedTrack
+    {
+        // the unique identifier of the track
+        int trackId;
+
+        // track display attributes
+        float[] lineColor = new float[4];
+        float lineWidth;
+        boolean linesOn;
+
+        float[] pointColor = new float[4];
+        float pointSize;
+        boolean pointsOn;
+
+        int stippleFactor;
+        short stipplePattern;
+        boolean stippleOn;
+
+        String label;
+        boolean labelOn;
+        double headPosX;
+        double headPosY;
+        Color labelColor;
+
+        float[] labelLineColor = new float[4];
+        boolean labelLineOn;
+
+        float headPointSize;
+        float[] headPointColor = new float[4];
+        boolean headPointOn;
+
+        boolean glBufferInitialized = false;
+        // if true, the track occupies a range of the painter's shared device buffer
+        boolean glBufferShared = false;
+        // the offset of the track's first vertex in the shared device buffer
+        int glBufferOffset;
+        // a reference to the device buffer for this track
+        int glBufferHandle;
+        // the maximum allocated size of the device buffer for this track
+        int glBufferMaxSize;
+        // the currently used size of the device buffer for this track
+        int glBufferCurrentSize;
+
+        // the offset into the device buffer to begin displaying track vertices
+        int glSelectedOffset;
+        // the number of bytes from the device buffer to display
+        int glSelectedSize;
+        // if true, the track has a different time range than the rest of the tracks
+        boolean customTimeRange;
+
+        public LoadedTrack( Track track )
+        {
+            this.trackId = track.trackId;
+            this.loadSettings( track );
+        }
+
+        public void loadSettings( Track track )
+        {
+
+            this.glSelectedSize = track.selectedSize;
+            this.glSelectedOffset = track.selectedOffset;
+            this.customTimeRange = track.customTimeRange;
+
+            this.copyColor( this.lineColor, track.lineColor );
+            this.copyColor( this.pointColor, track.pointColor );
+
+            this.lineWidth = track.lineWidth;
+            this.pointSize = track.pointSize;
+
+            this.pointsOn = track.pointsOn;
+            this.linesOn = track.linesOn;
+            this.stippleOn = track.stippleOn;
+
+            this.stippleFactor = track.stippleFactor;
+            this.stipplePattern = track.stipplePattern;
+
+            this.glBufferCurrentSize = track.getSize( );
+
+            if ( glBufferCurrentSize == 0 || track.selectedSize == 0 || track.trackHead == null )
+            {
+                this.headPointOn = false;
+                this.labelOn = false;
+            }
+            else
+            {
+                this.copyColor( this.labelLineColor, track.labelLineColor );
+                this.labelLineOn = track.labelLineOn;
+
+                this.copyColor( this.headPointColor, track.headPointColor );
+                this.headPointSize = track.headPointSize;
+                this.headPointOn = track.headPointOn;
+
+                this.label = track.label;
+                this.labelOn = track.labelOn;
+                this.headPosX = track.headPosX;
+                this.headPosY = track.headPosY;
+                this.labelColor = track.labelColor;
+            }
+        }
+
+        protected void copyColor( float[] to, float[] from )
+        {
+            to[0] = from[0];
             to[1] = from[1];
             to[2] = from[2];
             to[3] = from[3];
@@ -1356,7 +2019,7 @@ public class TrackPainter extends GlimpseDataPainter2D
 
         public void dispose( GL gl )
         {
-            if ( glBufferInitialized )
+            if ( glBufferInitialized && !glBufferShared )
             {
                 gl.glDeleteBuffers( 1, new int[] { glBufferHandle }, 0 );
             }
@@ -1371,7 +2034,7 @@ public class TrackPainter extends GlimpseDataPainter2D
         // the unique identifier of the track
         int trackId;
         // the points making up the track
-        List<Point> points;
+        PointStore points;
         // the lowest index of the last change made to the track
         // when the track data is copied to a device buffer, all
         // data from here to the end of the track must be copied
@@ -1392,6 +2055,12 @@ public class TrackPainter extends GlimpseDataPainter2D
         Point selectionEnd;
         Point selectionCurrent;
 
+        // if true, the time range was set for this track individually
+        boolean customTimeRange = false;
+        // if true, the selection has changed but selectedOffset, selectedSize,
+        // and trackHead have not been recalculated
+        boolean selectionStale = false;
+
         Point trackHead;
 
         // track display attributes
@@ -1421,7 +2090,16 @@ public class TrackPainter extends GlimpseDataPainter2D
         public Track( int trackId )
         {
             this.trackId = trackId;
-            this.points = new ArrayList<Point>( TRACK_SIZE_ESTIMATE );
+
+            if ( columnarStorage )
+            {
+                // the spatial index holds Point instances, which must be removed by identity
+                this.points = new ColumnarPointStore( trackId, TRACK_SIZE_ESTIMATE, spatialIndex != null );
+            }
+            else
+            {
+                this.points = new ListPointStore( trackId, TRACK_SIZE_ESTIMATE );
+            }
         }
 
         public void setTimeRange( Point startPoint, Point endPoint, Point selectedPoint )
@@ -1433,8 +2111,25 @@ public class TrackPainter extends GlimpseDataPainter2D
             checkTimeRange( );
         }
 
+        // sets the time range without recalculating the selected points until they are needed
+        public void deferTimeRange( Point startPoint, Point endPoint, Point selectedPoint )
+        {
+            selectionStart = startPoint;
+            selectionEnd = endPoint;
+            selectionCurrent = selectedPoint;
+
+            selectionStale = true;
+        }
+
+        public void ensureTimeRange( )
+        {
+            if ( selectionStale ) checkTimeRange( );
+        }
+
         public void checkTimeRange( )
         {
+            selectionStale = false;
+
             if ( selectionStart == null || selectionEnd == null || selectionCurrent == null ) return;
 
             int startIndex = firstIndexAfter( selectionStart );
@@ -1460,7 +2155,17 @@ public class TrackPainter extends GlimpseDataPainter2D
                 if ( selectedIndex > endIndex ) selectedIndex = endIndex;
                 if ( selectedIndex < startIndex ) selectedIndex = startIndex;
                 
-                trackHead = points.get( selectedIndex );
+                // reuse the previous head if it has not changed (avoids reconstructing
+                // a Point on every call when using columnar storage)
+                if ( previousTrackHead != null && points.matches( selectedIndex, previousTrackHead ) )
+                {
+                    trackHead = previousTrackHead;
+                }
+                else
+                {
+                    trackHead = points.get( selectedIndex );
+                }
+
                 headPosX = trackHead.getX( );
                 headPosY = trackHead.getY( );
 
@@ -1476,226 +2181,684 @@ public class TrackPainter extends GlimpseDataPainter2D
             headPointColor[3] = a;
         }
 
-        public void setHeadPointSize( float size )
+        public void setHeadPointSize( float size )
+        {
+            headPointSize = size;
+        }
+
+        public void setShowHeadPoint( boolean show )
+        {
+            headPointOn = show;
+        }
+
+        public void setPointColor( float r, float g, float b, float a )
+        {
+            pointColor[0] = r;
+            pointColor[1] = g;
+            pointColor[2] = b;
+            pointColor[3] = a;
+        }
+
+        public void setPointSize( float size )
+        {
+            pointSize = size;
+        }
+
+        public void setShowPoints( boolean show )
+        {
+            pointsOn = show;
+        }
+
+        public void setLineColor( float r, float g, float b, float a )
+        {
+            lineColor[0] = r;
+            lineColor[1] = g;
+            lineColor[2] = b;
+            lineColor[3] = a;
+        }
+
+        public void setLineWidth( float width )
+        {
+            lineWidth = width;
+        }
+
+        public void setShowLines( boolean show )
+        {
+            linesOn = show;
+        }
+
+        public void setTrackStipple( boolean activate )
+        {
+            this.stippleOn = activate;
+        }
+
+        public void setTrackStipple( int stippleFactor, short stipplePattern )
+        {
+            this.stippleFactor = stippleFactor;
+            this.stipplePattern = stipplePattern;
+        }
+
+        public void setLabelColor( float r, float g, float b, float a )
+        {
+            labelColor = new Color( r, g, b, a );
+        }
+
+        public void setLabelLineColor( float r, float g, float b, float a )
+        {
+            labelLineColor[0] = r;
+            labelLineColor[1] = g;
+            labelLineColor[2] = b;
+            labelLineColor[3] = a;
+        }
+
+        public void setShowLabelLine( boolean show )
+        {
+            labelLineOn = show;
+        }
+
+        public void setLabel( String label )
+        {
+            this.label = label;
+        }
+
+        public void setShowLabel( boolean show )
+        {
+            this.labelOn = show;
+        }
+
+        public void add( List<Point> _points )
+        {
+            if ( _points == null || _points.size( ) == 0 ) return;
+
+            List<Point> sortedPoints = new ArrayList<Point>( _points );
+            Collections.sort( sortedPoints );
+
+            // add the point to the temporal and spatial indexes
+            int index = points.add( sortedPoints );
+
+            if ( spatialIndex != null )
+            {
+                for ( Point point : _points )
+                    spatialIndex.add( point );
+            }
+
+            // determine if the new point resides inside the selected time range
+            checkTimeRange( );
+
+            // set flag indicating this track contains new data, only points
+            // after the first new point need to be copied to the device
+            if ( !dataInserted || index < insertIndex )
+            {
+                insertIndex = index;
+                dataInserted = true;
+            }
+        }
+
+        public void add( Point point )
+        {
+            // add the point to the temporal and spatial indexes
+            int index = points.add( point );
+            if ( spatialIndex != null ) spatialIndex.add( point );
+
+            // determine if the new point resides inside the selected time range
+            checkTimeRange( );
+
+            // set flag indicating this track contains new data
+            if ( !dataInserted || index < insertIndex )
+            {
+                insertIndex = index;
+                dataInserted = true;
+            }
+        }
+
+        public void add( int pointId, float x, float y, long time )
+        {
+            // add the point to the temporal index (callers must ensure
+            // that there is no spatial index, since no Point is created)
+            int index = points.add( pointId, x, y, time );
+
+            // determine if the new point resides inside the selected time range
+            checkTimeRange( );
+
+            // set flag indicating this track contains new data
+            if ( !dataInserted || index < insertIndex )
+            {
+                insertIndex = index;
+                dataInserted = true;
+            }
+        }
+
+        public void delete( )
+        {
+            deletePending = true;
+            clear( );
+        }
+
+        public void clear( )
+        {
+            clearPending = true;
+
+            dataInserted = false;
+            trackHead = null;
+            points.clear( );
+
+            checkTimeRange( );
+        }
+
+        public int firstIndexAfter( Point point )
+        {
+            return points.firstIndexAfter( point );
+        }
+
+        public int firstIndexBefore( Point point )
+        {
+            return points.firstIndexBefore( point );
+        }
+
+        public boolean isDataInserted( )
+        {
+            return dataInserted;
+        }
+
+        public boolean isDeletePending( )
+        {
+            return deletePending;
+        }
+
+        public boolean isClearPending( )
+        {
+            return clearPending;
+        }
+
+        public int getInsertCount( )
+        {
+            return getSize( ) - getInsertOffset( );
+        }
+
+        public int getInsertOffset( )
+        {
+            return insertIndex;
+        }
+
+        public void reset( )
+        {
+            dataInserted = false;
+            clearPending = false;
+            deletePending = false;
+        }
+
+        public int getSize( )
         {
-            headPointSize = size;
+            return points.size( );
         }
 
-        public void setShowHeadPoint( boolean show )
+        public Point getTrackHead( )
         {
-            headPointOn = show;
+            return trackHead;
         }
 
-        public void setPointColor( float r, float g, float b, float a )
+        public void loadIntoBuffer( FloatBuffer buffer, int offset, int size )
         {
-            pointColor[0] = r;
-            pointColor[1] = g;
-            pointColor[2] = b;
-            pointColor[3] = a;
+            points.loadIntoBuffer( buffer, offset, size );
         }
 
-        public void setPointSize( float size )
+        @Override
+        public boolean equals( Object o )
         {
-            pointSize = size;
+            if ( o == null ) return false;
+            if ( o == this ) return true;
+            if ( o.getClass( ) != this.getClass( ) ) return false;
+            Track p = ( Track ) o;
+            return p.trackId == trackId;
         }
 
-        public void setShowPoints( boolean show )
+        @Override
+        public int hashCode( )
         {
-            pointsOn = show;
+            final int prime = 227;
+            return prime + trackId;
         }
+    }
 
-        public void setLineColor( float r, float g, float b, float a )
+    // Time ordered storage for the points of a single Track. Points are ordered
+    // using Point.compareTo( ), all methods should be called while holding
+    // trackUpdateLock
+    private static abstract class PointStore
+    {
+        public abstract int size( );
+
+        public abstract Point get( int index );
+
+        public abstract long getTime( int index );
+
+        // true if the point at index is known to be the given point
+        public abstract boolean matches( int index, Point point );
+
+        public abstract int firstIndexAfter( Point point );
+
+        public abstract int firstIndexBefore( Point point );
+
+        // returns the index at which the point was inserted
+        public abstract int add( Point point );
+
+        // returns the index at which the point was inserted
+        public abstract int add( int pointId, float x, float y, long time );
+
+        // sortedPoints must be sorted, returns the lowest index modified
+        public abstract int add( List<Point> sortedPoints );
+
+        public abstract void clear( );
+
+        // copies x/y pairs for points [offset,size) into buffer
+        public abstract void loadIntoBuffer( FloatBuffer buffer, int offset, int size );
+
+        // copies times for points [offset,size) into buffer, in the form expected by TrackTimeShader
+        public void loadTimesIntoBuffer( FloatBuffer buffer, int offset, int size, long epoch )
         {
-            lineColor[0] = r;
-            lineColor[1] = g;
-            lineColor[2] = b;
-            lineColor[3] = a;
+            for ( int i = offset; i < size; i++ )
+            {
+                long time = getTime( i );
+                buffer.put( TrackTimeShader.timeHigh( time, epoch ) ).put( TrackTimeShader.timeLow( time, epoch ) );
+            }
         }
+    }
 
-        public void setLineWidth( float width )
+    // Stores the Point objects provided by the user
+    private static class ListPointStore extends PointStore
+    {
+        int trackId;
+
+        List<Point> points;
+
+        public ListPointStore( int trackId, int initialCapacity )
         {
-            lineWidth = width;
+            this.trackId = trackId;
+            this.points = new ArrayList<Point>( initialCapacity );
         }
 
-        public void setShowLines( boolean show )
+        @Override
+        public int size( )
         {
-            linesOn = show;
+            return points.size( );
         }
 
-        public void setTrackStipple( boolean activate )
+        @Override
+        public Point get( int index )
         {
-            this.stippleOn = activate;
+            return points.get( index );
         }
 
-        public void setTrackStipple( int stippleFactor, short stipplePattern )
+        @Override
+        public long getTime( int index )
         {
-            this.stippleFactor = stippleFactor;
-            this.stipplePattern = stipplePattern;
+            return points.get( index ).time;
         }
 
-        public void setLabelColor( float r, float g, float b, float a )
+        @Override
+        public boolean matches( int index, Point point )
         {
-            labelColor = new Color( r, g, b, a );
+            return points.get( index ) == point;
         }
 
-        public void setLabelLineColor( float r, float g, float b, float a )
+        @Override
+        public int firstIndexAfter( Point point )
         {
-            labelLineColor[0] = r;
-            labelLineColor[1] = g;
-            labelLineColor[2] = b;
-            labelLineColor[3] = a;
+            int index = Collections.binarySearch( points, point );
+            if ( index < 0 ) index = - ( index + 1 );
+            return index;
         }
 
-        public void setShowLabelLine( boolean show )
+        @Override
+        public int firstIndexBefore( Point point )
         {
-            labelLineOn = show;
+            int index = Collections.binarySearch( points, point );
+            if ( index < 0 ) index = - ( index + 1 ) - 1;
+            return index;
         }
 
-        public void setLabel( String label )
+        @Override
+        public int add( Point point )
         {
-            this.label = label;
+            int index = firstIndexAfter( point );
+            points.add( index, point );
+            return index;
         }
 
-        public void setShowLabel( boolean show )
+        @Override
+        public int add( int pointId, float x, float y, long time )
         {
-            this.labelOn = show;
+            return add( new Point( trackId, pointId, x, y, time ) );
         }
 
-        public void add( List<Point> _points )
+        @Override
+        public int add( List<Point> sortedPoints )
         {
-            if ( _points == null || _points.size( ) == 0 ) return;
-
-            List<Point> sortedPoints = new ArrayList<Point>( _points );
-            Collections.sort( sortedPoints );
-            Point firstPoint = sortedPoints.get( 0 );
+            int firstIndex = firstIndexAfter( sortedPoints.get( 0 ) );
 
-            // add the point to the temporal and spatial indexes
-            int index = firstIndexAfter( firstPoint );
-
-            if ( index == points.size( ) )
+            if ( firstIndex == points.size( ) )
             {
-                points.addAll( index, sortedPoints );
+                points.addAll( sortedPoints );
             }
             else
             {
-                for ( Point point : sortedPoints )
+                // merge the new points with the existing points after firstIndex,
+                // points before firstIndex are not touched
+                List<Point> tail = points.subList( firstIndex, points.size( ) );
+                List<Point> merged = new ArrayList<Point>( tail.size( ) + sortedPoints.size( ) );
+
+                int i = 0;
+                int j = 0;
+                while ( i < tail.size( ) || j < sortedPoints.size( ) )
                 {
-                    index = firstIndexAfter( firstPoint );
-                    points.add( index, point );
+                    if ( j == sortedPoints.size( ) || ( i < tail.size( ) && tail.get( i ).compareTo( sortedPoints.get( j ) ) <= 0 ) )
+                    {
+                        merged.add( tail.get( i++ ) );
+                    }
+                    else
+                    {
+                        merged.add( sortedPoints.get( j++ ) );
+                    }
                 }
+
+                tail.clear( );
+                points.addAll( merged );
             }
 
-            if ( spatialIndex != null )
+            return firstIndex;
+        }
+
+        @Override
+        public void clear( )
+        {
+            points.clear( );
+        }
+
+        @Override
+        public void loadIntoBuffer( FloatBuffer buffer, int offset, int size )
+        {
+            for ( int i = offset; i < size; i++ )
             {
-                for ( Point point : _points )
-                    spatialIndex.add( point );
+                points.get( i ).loadIntoBuffer( buffer );
             }
+        }
+    }
 
-            // determine if the new point resides inside the selected time range
-            checkTimeRange( );
+    // Stores point attributes in parallel primitive arrays. Appending a point
+    // later than all existing points is amortized constant time, and a batch
+    // of late-arriving points is merged into the existing points in a single
+    // pass over the affected tail of the arrays.
+    private static class ColumnarPointStore extends PointStore
+    {
+        int trackId;
 
-            // set flag indicating this track contains new data
-            insertIndex = 0;
-            dataInserted = true;
+        LongsArray times;
+        IntsArray pointIds;
+        // interleaved x/y values, in the same layout as the device buffer
+        FloatsArray xys;
+        // the Point instances which were added, or null if they are not kept
+        ObjectsArray instances;
+
+        public ColumnarPointStore( int trackId, int initialCapacity, boolean keepInstances )
+        {
+            this.trackId = trackId;
+            this.times = new LongsArray( initialCapacity );
+            this.pointIds = new IntsArray( initialCapacity );
+            this.xys = new FloatsArray( initialCapacity * 2 );
+            if ( keepInstances ) this.instances = new ObjectsArray( initialCapacity );
         }
 
-        public void add( Point point )
+        @Override
+        public int size( )
         {
-            // add the point to the temporal and spatial indexes
-            int index = firstIndexAfter( point );
-            points.add( index, point );
-            if ( spatialIndex != null ) spatialIndex.add( point );
+            return times.n;
+        }
 
-            // determine if the new point resides inside the selected time range
-            checkTimeRange( );
+        @Override
+        public Point get( int index )
+        {
+            if ( instances != null ) return ( Point ) instances.a[index];
 
-            // set flag indicating this track contains new data
-            if ( !dataInserted || index < insertIndex )
-            {
-                insertIndex = index;
-                dataInserted = true;
-            }
+            return new Point( trackId, pointIds.a[index], xys.a[2 * index], xys.a[2 * index + 1], times.a[index] );
         }
 
-        public void delete( )
+        @Override
+        public long getTime( int index )
         {
-            deletePending = true;
-            clear( );
+            return times.a[index];
         }
 
-        public void clear( )
+        @Override
+        public boolean matches( int index, Point point )
         {
-            clearPending = true;
+            if ( instances != null ) return instances.a[index] == point;
 
-            dataInserted = false;
-            trackHead = null;
-            points.clear( );
+            return compare( index, point.time, point.trackId, point.pointId ) == 0;
+        }
 
-            checkTimeRange( );
+        // compares the point at index to the given point using the same ordering as Point.compareTo( )
+        protected int compare( int index, long time, int otherTrackId, int pointId )
+        {
+            long t = times.a[index];
+            if ( t < time ) return -1;
+            if ( t > time ) return 1;
+
+            if ( trackId < otherTrackId ) return -1;
+            if ( trackId > otherTrackId ) return 1;
+
+            int id = pointIds.a[index];
+            if ( id < pointId ) return -1;
+            if ( id > pointId ) return 1;
+
+            return 0;
+        }
+
+        // same contract as Collections.binarySearch( )
+        protected int binarySearch( long time, int otherTrackId, int pointId )
+        {
+            int low = 0;
+            int high = times.n - 1;
+
+            while ( low <= high )
+            {
+                int mid = ( low + high ) >>> 1;
+                int c = compare( mid, time, otherTrackId, pointId );
+
+                if ( c < 0 )
+                {
+                    low = mid + 1;
+                }
+                else if ( c > 0 )
+                {
+                    high = mid - 1;
+                }
+                else
+                {
+                    return mid;
+                }
+            }
+
+            return - ( low + 1 );
         }
 
+        @Override
         public int firstIndexAfter( Point point )
         {
-            int index = Collections.binarySearch( points, point );
+            int index = binarySearch( point.time, point.trackId, point.pointId );
             if ( index < 0 ) index = - ( index + 1 );
             return index;
         }
 
+        @Override
         public int firstIndexBefore( Point point )
         {
-            int index = Collections.binarySearch( points, point );
+            int index = binarySearch( point.time, point.trackId, point.pointId );
             if ( index < 0 ) index = - ( index + 1 ) - 1;
             return index;
         }
 
-        public boolean isDataInserted( )
+        @Override
+        public int add( Point point )
         {
-            return dataInserted;
+            return add( point.pointId, point.x, point.y, point.time, point );
         }
 
-        public boolean isDeletePending( )
+        @Override
+        public int add( int pointId, float x, float y, long time )
         {
-            return deletePending;
+            Point instance = null;
+            if ( instances != null ) instance = new Point( trackId, pointId, x, y, time );
+
+            return add( pointId, x, y, time, instance );
         }
 
-        public boolean isClearPending( )
+        protected int add( int pointId, float x, float y, long time, Point instance )
         {
-            return clearPending;
+            int n = times.n;
+
+            // fast path: the new point is later than all existing points
+            if ( n == 0 || compare( n - 1, time, trackId, pointId ) < 0 )
+            {
+                times.append( time );
+                pointIds.append( pointId );
+                xys.prepForAppend( 2 );
+                xys.a[2 * n] = x;
+                xys.a[2 * n + 1] = y;
+                if ( instances != null ) instances.append( instance );
+                return n;
+            }
+
+            int index = binarySearch( time, trackId, pointId );
+            if ( index < 0 ) index = - ( index + 1 );
+
+            times.insert( index, time );
+            pointIds.insert( index, pointId );
+            xys.prepForInsert( 2 * index, 2 );
+            xys.a[2 * index] = x;
+            xys.a[2 * index + 1] = y;
+            if ( instances != null ) instances.insert( index, instance );
+            return index;
         }
 
-        public int getInsertCount( )
+        @Override
+        public int add( List<Point> sortedPoints )
         {
-            return getSize( ) - getInsertOffset( );
+            int n = times.n;
+            int m = sortedPoints.size( );
+
+            int firstIndex = firstIndexAfter( sortedPoints.get( 0 ) );
+
+            times.prepForAppend( m );
+            pointIds.prepForAppend( m );
+            xys.prepForAppend( 2 * m );
+            if ( instances != null ) instances.prepForAppend( m );
+
+            long[] t = times.a;
+            int[] ids = pointIds.a;
+            float[] xy = xys.a;
+            Object[] inst = instances == null ? null : instances.a;
+
+            // merge from the back, moving existing points at or after firstIndex
+            // toward the end of the arrays and filling the gaps with new points
+            int i = n - 1;
+            int j = m - 1;
+            int k = n + m - 1;
+
+            while ( j >= 0 )
+            {
+                Point p = sortedPoints.get( j );
+
+                if ( i >= firstIndex && compare( i, p.time, trackId, p.pointId ) > 0 )
+                {
+                    t[k] = t[i];
+                    ids[k] = ids[i];
+                    xy[2 * k] = xy[2 * i];
+                    xy[2 * k + 1] = xy[2 * i + 1];
+                    if ( inst != null ) inst[k] = inst[i];
+                    i--;
+                }
+                else
+                {
+                    t[k] = p.time;
+                    ids[k] = p.pointId;
+                    xy[2 * k] = p.x;
+                    xy[2 * k + 1] = p.y;
+                    if ( inst != null ) inst[k] = p;
+                    j--;
+                }
+
+                k--;
+            }
+
+            return firstIndex;
         }
 
-        public int getInsertOffset( )
+        @Override
+        public void clear( )
         {
-            return insertIndex;
+            times.n = 0;
+            pointIds.n = 0;
+            xys.n = 0;
+
+            if ( instances != null )
+            {
+                Arrays.fill( instances.a, 0, instances.n, null );
+                instances.n = 0;
+            }
         }
 
-        public void reset( )
+        @Override
+        public void loadIntoBuffer( FloatBuffer buffer, int offset, int size )
         {
-            dataInserted = false;
-            clearPending = false;
-            deletePending = false;
+            if ( size > offset ) buffer.put( xys.a, 2 * offset, 2 * ( size - offset ) );
         }
+    }
 
-        public int getSize( )
+    // A set of track vertex ranges in the shared device buffer which are drawn
+    // with the same attributes. Also used as a key to look up groups by attributes.
+    private static class DrawGroup
+    {
+        float[] color = new float[4];
+        // line width or point size
+        float size;
+        boolean stippleOn;
+        int stippleFactor;
+        short stipplePattern;
+
+        IntsArray firsts = new IntsArray( );
+        IntsArray counts = new IntsArray( );
+
+        public void setLineStyle( LoadedTrack loaded )
         {
-            return points.size( );
+            System.arraycopy( loaded.lineColor, 0, color, 0, 4 );
+            size = loaded.lineWidth;
+            stippleOn = loaded.stippleOn;
+            stippleFactor = stippleOn ? loaded.stippleFactor : 0;
+            stipplePattern = stippleOn ? loaded.stipplePattern : 0;
         }
 
-        public Point getTrackHead( )
+        public void setPointStyle( LoadedTrack loaded )
         {
-            return trackHead;
+            System.arraycopy( loaded.pointColor, 0, color, 0, 4 );
+            size = loaded.pointSize;
+            stippleOn = false;
+            stippleFactor = 0;
+            stipplePattern = 0;
         }
 
-        public void loadIntoBuffer( FloatBuffer buffer, int offset, int size )
+        // adds the vertex range [first,first+count), split into pieces no longer than
+        // MULTI_DRAW_MAX_COUNT which share overlap vertices with the previous piece
+        public void addRange( int first, int count, int overlap )
         {
-            for ( int i = offset; i < size; i++ )
+            int end = first + count;
+            while ( end - first > MULTI_DRAW_MAX_COUNT )
             {
-                points.get( i ).loadIntoBuffer( buffer );
+                firsts.append( first );
+                counts.append( MULTI_DRAW_MAX_COUNT );
+                first += MULTI_DRAW_MAX_COUNT - overlap;
             }
+
+            firsts.append( first );
+            counts.append( end - first );
         }
 
         @Override
@@ -1704,15 +2867,20 @@ public class TrackPainter extends GlimpseDataPainter2D
             if ( o == null ) return false;
             if ( o == this ) return true;
             if ( o.getClass( ) != this.getClass( ) ) return false;
-            Track p = ( Track ) o;
-            return p.trackId == trackId;
+            DrawGroup g = ( DrawGroup ) o;
+            return Arrays.equals( g.color, color ) && g.size == size && g.stippleOn == stippleOn && g.stippleFactor == stippleFactor && g.stipplePattern == stipplePattern;
         }
 
         @Override
         public int hashCode( )
         {
             final int prime = 227;
-            return prime + trackId;
+            int result = 1;
+            result = prime * result + Arrays.hashCode( color );
+            result = prime * result + Float.floatToIntBits( size );
+            result = prime * result + stippleFactor;
+            result = prime * result + stipplePattern;
+            return result;
         }
     }
 }
@@ -37,7 +37,6 @@ import com.metsci.glimpse.axis.Axis1D;
 import com.metsci.glimpse.plot.timeline.data.Epoch;
 import com.metsci.glimpse.plot.timeline.data.EventConstraint;
 import com.metsci.glimpse.plot.timeline.data.TimeSpan;
-import com.metsci.glimpse.support.atlas.TextureAtlas;
 import com.metsci.glimpse.support.atlas.support.ImageData;
 import com.metsci.glimpse.support.color.GlimpseColor;
 import com.metsci.glimpse.util.units.time.TimeStamp;
@@ -194,7 +193,38 @@ public class Event
         this.constraints.remove( constraint );
     }
 
+    /**
+     * Draws this Event on its own.
+     *
+     * @deprecated {@link EventPainter} no longer calls this method. It adds all visible Events
+     *             to a single {@link EventBatch} with
+     *             {@link #paint(EventBatch, Axis1D, EventPainter, Event, int, int, int, int)}
+     *             and draws them together, so subclasses which customize painting should override
+     *             that method instead. This adapter draws a batch containing only this Event.
+     */
+    @Deprecated
     public void paint( GL gl, Axis1D axis, EventPainter painter, Event next, int width, int height, int sizeMin, int sizeMax )
+    {
+        EventBatch batch = new EventBatch( painter.isHorizontal( ) );
+        try
+        {
+            batch.clear( axis.getMin( ) );
+            paint( batch, axis, painter, next, width, height, sizeMin, sizeMax );
+            batch.draw( gl, axis, painter.getTextureAtlas( ), painter.getTextRenderer( ), width, height );
+        }
+        finally
+        {
+            batch.dispose( gl );
+        }
+    }
+
+    /**
+     * Adds the shapes, icon, and label for this Event to the batch, which {@link EventPainter}
+     * draws once all visible Events have been added.
+     *
+     * @param next the following Event in the same row, or null if this is the last one
+     */
+    public void paint( EventBatch batch, Axis1D axis, EventPainter painter, Event next, int width, int height, int sizeMin, int sizeMax )
     {
         int size = sizeMax - sizeMin;
         double sizeCenter = sizeMin + size / 2.0;
@@ -235,85 +265,22 @@ public class Event
         double nextStartValue = next != null ? epoch.fromTimeStamp( next.getStartTime( ) ) : axis.getMax( );
         int nextStartPixel = next != null ? axis.valueToScreenPixel( nextStartValue ) : width;
 
+        float[] background = backgroundColor != null ? backgroundColor : painter.getBackgroundColor( );
+        float[] border = borderColor != null ? borderColor : painter.getBorderColor( );
+
         if ( painter.isHorizontal( ) )
         {   
             if ( !offEdgeMin && !offEdgeMax )
             {
-                if ( showBackground )
-                {
-                    GlimpseColor.glColor( gl, backgroundColor != null ? backgroundColor : painter.getBackgroundColor( ) );
-                    gl.glBegin( GL.GL_QUADS );
-                    try
-                    {
-                        gl.glVertex2d( timeMin, sizeMin );
-                        gl.glVertex2d( timeMin, sizeMax );
-                        gl.glVertex2d( timeMax, sizeMax );
-                        gl.glVertex2d( timeMax, sizeMin );
-                    }
-                    finally
-                    {
-                        gl.glEnd( );
-                    }
-                }
-    
-                if ( showBorder )
-                {
-                    GlimpseColor.glColor( gl, borderColor != null ? borderColor : painter.getBorderColor( ) );
-                    gl.glLineWidth( borderThickness );
-                    gl.glBegin( GL.GL_LINE_LOOP );
-                    try
-                    {
-                        gl.glVertex2d( timeMin, sizeMin );
-                        gl.glVertex2d( timeMin, sizeMax );
-                        gl.glVertex2d( timeMax, sizeMax );
-                        gl.glVertex2d( timeMax, sizeMin );
-                    }
-                    finally
-                    {
-                        gl.glEnd( );
-                    }
-                }
+                if ( showBackground ) batch.addQuad( timeMin, sizeMin, timeMax, sizeMax, background );
+                if ( showBorder ) batch.addQuadBorder( timeMin, sizeMin, timeMax, sizeMax, borderThickness, border );
             }
             else
             {
-                if ( showBackground )
-                {
-                    GlimpseColor.glColor( gl, backgroundColor != null ? backgroundColor : painter.getBackgroundColor( ) );
-                    gl.glBegin( GL.GL_POLYGON );
-                    try
-                    {
-                        gl.glVertex2d( arrowBaseMin, sizeMax );
-                        gl.glVertex2d( arrowBaseMax, sizeMax );
-                        gl.glVertex2d( timeMax, sizeCenter );
-                        gl.glVertex2d( arrowBaseMax, sizeMin );
-                        gl.glVertex2d( arrowBaseMin, sizeMin );
-                        gl.glVertex2d( timeMin, sizeCenter );
-                    }
-                    finally
-                    {
-                        gl.glEnd( );
-                    }
-                }
-                
-                if ( showBorder )
-                {
-                    GlimpseColor.glColor( gl, borderColor != null ? borderColor : painter.getBorderColor( ) );
-                    gl.glLineWidth( borderThickness );
-                    gl.glBegin( GL.GL_LINE_LOOP );
-                    try
-                    {
-                        gl.glVertex2d( arrowBaseMin, sizeMax );
-                        gl.glVertex2d( arrowBaseMax, sizeMax );
-                        gl.glVertex2d( timeMax, sizeCenter );
-                        gl.glVertex2d( arrowBaseMax, sizeMin );
-                        gl.glVertex2d( arrowBaseMin, sizeMin );
-                        gl.glVertex2d( timeMin, sizeCenter );
-                    }
-                    finally
-                    {
-                        gl.glEnd( );
-                    }
-                }
+                double[] arrow = new double[] { arrowBaseMin, sizeMax, arrowBaseMax, sizeMax, timeMax, sizeCenter, arrowBaseMax, sizeMin, arrowBaseMin, sizeMin, timeMin, sizeCenter };
+
+                if ( showBackground ) batch.addPolygon( arrow, background );
+                if ( showBorder ) batch.addPolygonBorder( arrow, borderThickness, border );
             }
 
             isIconVisible = isIconVisible( size, buffer, remainingSpaceX, pixelX, nextStartPixel );
@@ -324,19 +291,10 @@ public class Event
                 iconStartTime = epoch.toTimeStamp( valueX );
                 iconEndTime = iconStartTime.add( size / axis.getPixelsPerValue( ) );
 
-                TextureAtlas atlas = painter.getTextureAtlas( );
-                atlas.beginRendering( );
-                try
-                {
-                    ImageData iconData = atlas.getImageData( iconId );
-                    double iconScale = size / ( double ) iconData.getHeight( );
+                ImageData iconData = painter.getTextureAtlas( ).getImageData( iconId );
+                double iconScale = size / ( double ) iconData.getHeight( );
 
-                    atlas.drawImageAxisX( gl, iconId, axis, valueX, sizeMin, iconScale, iconScale, 0, iconData.getHeight( ) );
-                }
-                finally
-                {
-                    atlas.endRendering( );
-                }
+                batch.addIcon( iconId, valueX, sizeMin, iconScale );
 
                 remainingSpaceX -= size + buffer;
                 pixelX += size + buffer;
@@ -353,70 +311,38 @@ public class Event
                 textStartTime = epoch.toTimeStamp( valueX );
                 textEndTime = textStartTime.add( bounds.getWidth( ) / axis.getPixelsPerValue( ) );
 
+                float[] color;
+
                 // use this event's text color if it has been set
                 if ( textColor != null )
                 {
-                    GlimpseColor.setColor( textRenderer, textColor );
+                    color = textColor;
                 }
                 // otherwise, use the default no background color if the background is not showing
                 // and if a color has not been explicitly set for the EventPainter
                 else if ( !painter.textColorSet && !showBackground )
                 {
-                    GlimpseColor.setColor( textRenderer, painter.textColorNoBackground );
+                    color = painter.textColorNoBackground;
                 }
                 // otherwise use the EventPainter's default text color
                 else
                 {
-                    GlimpseColor.setColor( textRenderer, painter.textColor );
+                    color = painter.textColor;
                 }
                 
-                textRenderer.beginRendering( width, height );
-                try
-                {
-                    int pixelY = ( int ) ( size / 2.0 - bounds.getHeight( ) * 0.3 + sizeMin );
-                    textRenderer.draw( name, pixelX, pixelY );
+                int pixelY = ( int ) ( size / 2.0 - bounds.getHeight( ) * 0.3 + sizeMin );
+                batch.addLabel( name, pixelX, pixelY, color );
 
-                    remainingSpaceX -= bounds.getWidth( ) + buffer;
-                    pixelX += bounds.getWidth( ) + buffer;
-                }
-                finally
-                {
-                    textRenderer.endRendering( );
-                }
+                remainingSpaceX -= bounds.getWidth( ) + buffer;
+                pixelX += bounds.getWidth( ) + buffer;
             }
         }
         else
         {
             //TODO handle drawing text and icons in HORIZONTAL orientation
 
-            GlimpseColor.glColor( gl, backgroundColor != null ? backgroundColor : painter.getBackgroundColor( ) );
-            gl.glBegin( GL.GL_QUADS );
-            try
-            {
-                gl.glVertex2d( sizeMin, timeMin );
-                gl.glVertex2d( sizeMax, timeMin );
-                gl.glVertex2d( sizeMax, timeMax );
-                gl.glVertex2d( sizeMin, timeMax );
-            }
-            finally
-            {
-                gl.glEnd( );
-            }
-
-            GlimpseColor.glColor( gl, borderColor != null ? borderColor : painter.getBorderColor( ) );
-            gl.glLineWidth( borderThickness );
-            gl.glBegin( GL.GL_LINE_LOOP );
-            try
-            {
-                gl.glVertex2d( sizeMin, timeMin );
-                gl.glVertex2d( sizeMax, timeMin );
-                gl.glVertex2d( sizeMax, timeMax );
-                gl.glVertex2d( sizeMin, timeMax );
-            }
-            finally
-            {
-                gl.glEnd( );
-            }
+            batch.addQuad( sizeMin, timeMin, sizeMax, timeMax, background );
+            batch.addQuadBorder( sizeMin, timeMin, sizeMax, timeMax, borderThickness, border );
         }
     }
 
@@ -795,6 +721,11 @@ public class Event
         return new Event( time );
     }
 
+    public static Event createDummyEvent( TimeStamp startTime, TimeStamp endTime )
+    {
+        return new Event( null, null, startTime, endTime );
+    }
+
     public static Comparator<Event> getStartTimeComparator( )
     {
         return new Comparator<Event>( )
@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.plot.timeline.event;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.media.opengl.GL;
+
+import com.metsci.glimpse.axis.Axis1D;
+import com.metsci.glimpse.gl.attribute.GLFloatBuffer;
+import com.metsci.glimpse.gl.attribute.GLFloatBuffer.Mutator;
+import com.metsci.glimpse.gl.attribute.GLVertexAttribute;
+import com.metsci.glimpse.support.atlas.TextureAtlas;
+import com.metsci.glimpse.support.color.GlimpseColor;
+import com.metsci.glimpse.util.primitives.DoublesArray;
+import com.metsci.glimpse.util.primitives.FloatsArray;
+import com.metsci.glimpse.util.primitives.IntsArray;
+import com.sun.opengl.util.j2d.TextRenderer;
+
+/**
+ * Accumulates the shapes, icons, and labels for all the visible {@link Event}s
+ * painted by an {@link EventPainter}, then draws them together.
+ *
+ * Event backgrounds are drawn as triangles and borders as line segments from shared
+ * vertex buffers, with a single glDrawArrays call for the backgrounds and one call
+ * per distinct border thickness. Icons are drawn between a single pair of
+ * TextureAtlas begin/end calls and labels between a single pair of TextRenderer
+ * begin/end calls.
+ *
+ * Coordinates along the time axis are stored relative to the axis minimum, so that
+ * float vertex coordinates keep their precision when the axis is far from the epoch.
+ */
+public class EventBatch
+{
+    protected static final int FLOATS_PER_VERTEX = 2;
+    protected static final int FLOATS_PER_COLOR = 4;
+
+    protected boolean isHorizontal;
+
+    // value along the time axis which vertex coordinates are relative to
+    protected double origin;
+
+    // GL_TRIANGLES vertices and colors for event backgrounds
+    protected FloatsArray fillVertices;
+    protected FloatsArray fillColors;
+
+    // GL_LINES vertices and colors for event borders, keyed by line thickness
+    protected Map<Float, Lines> borders;
+
+    // icon ids, with axis x position, pixel y position, and scale for each icon
+    protected List<Object> iconIds;
+    protected DoublesArray iconValues;
+
+    // label text, with pixel x and y position for each label
+    protected List<String> labels;
+    protected List<float[]> labelColors;
+    protected IntsArray labelPixels;
+
+    protected GLFloatBuffer vertexBuffer;
+    protected GLFloatBuffer colorBuffer;
+
+    protected static class Lines
+    {
+        FloatsArray vertices = new FloatsArray( );
+        FloatsArray colors = new FloatsArray( );
+    }
+
+    public EventBatch( boolean isHorizontal )
+    {
+        this.isHorizontal = isHorizontal;
+
+        this.fillVertices = new FloatsArray( );
+        this.fillColors = new FloatsArray( );
+        this.borders = new LinkedHashMap<Float, Lines>( );
+
+        this.iconIds = new ArrayList<Object>( );
+        this.iconValues = new DoublesArray( );
+
+        this.labels = new ArrayList<String>( );
+        this.labelColors = new ArrayList<float[]>( );
+        this.labelPixels = new IntsArray( );
+    }
+
+    /**
+     * Removes all shapes, icons, and labels from the batch. Coordinates added after this
+     * call will be stored relative to the provided time axis value.
+     */
+    public void clear( double origin )
+    {
+        this.origin = origin;
+
+        this.fillVertices.n = 0;
+        this.fillColors.n = 0;
+
+        for ( Lines lines : this.borders.values( ) )
+        {
+            lines.vertices.n = 0;
+            lines.colors.n = 0;
+        }
+
+        this.iconIds.clear( );
+        this.iconValues.n = 0;
+
+        this.labels.clear( );
+        this.labelColors.clear( );
+        this.labelPixels.n = 0;
+    }
+
+    public boolean isHorizontal( )
+    {
+        return this.isHorizontal;
+    }
+
+    /**
+     * Adds a filled axis aligned rectangle. For horizontal plots, x coordinates are time
+     * axis values and y coordinates are pixels. For vertical plots, the reverse is true.
+     */
+    public void addQuad( double x1, double y1, double x2, double y2, float[] color )
+    {
+        addFillVertex( x1, y1, color );
+        addFillVertex( x1, y2, color );
+        addFillVertex( x2, y2, color );
+
+        addFillVertex( x2, y2, color );
+        addFillVertex( x2, y1, color );
+        addFillVertex( x1, y1, color );
+    }
+
+    /**
+     * Adds the outline of an axis aligned rectangle.
+     *
+     * @see #addQuad(double, double, double, double, float[])
+     */
+    public void addQuadBorder( double x1, double y1, double x2, double y2, float thickness, float[] color )
+    {
+        Lines lines = getLines( thickness );
+        addLine( lines, x1, y1, x1, y2, color );
+        addLine( lines, x1, y2, x2, y2, color );
+        addLine( lines, x2, y2, x2, y1, color );
+        addLine( lines, x2, y1, x1, y1, color );
+    }
+
+    /**
+     * Adds a filled convex polygon.
+     *
+     * @param xy interleaved x and y coordinates of the polygon vertices
+     * @see #addQuad(double, double, double, double, float[])
+     */
+    public void addPolygon( double[] xy, float[] color )
+    {
+        int count = xy.length / 2;
+        for ( int i = 1; i < count - 1; i++ )
+        {
+            addFillVertex( xy[0], xy[1], color );
+            addFillVertex( xy[2 * i], xy[2 * i + 1], color );
+            addFillVertex( xy[2 * i + 2], xy[2 * i + 3], color );
+        }
+    }
+
+    /**
+     * Adds the outline of a polygon.
+     *
+     * @param xy interleaved x and y coordinates of the polygon vertices
+     * @see #addQuad(double, double, double, double, float[])
+     */
+    public void addPolygonBorder( double[] xy, float thickness, float[] color )
+    {
+        Lines lines = getLines( thickness );
+        int count = xy.length / 2;
+        for ( int i = 0; i < count; i++ )
+        {
+            int j = ( i + 1 ) % count;
+            addLine( lines, xy[2 * i], xy[2 * i + 1], xy[2 * j], xy[2 * j + 1], color );
+        }
+    }
+
+    /**
+     * Adds a TextureAtlas icon, drawn as by
+     * {@link TextureAtlas#drawImageAxisX(GL, Object, Axis1D, double, double, double, double, int, int)}
+     * with a center of (0, icon height).
+     */
+    public void addIcon( Object iconId, double valueX, double pixelY, double scale )
+    {
+        this.iconIds.add( iconId );
+        this.iconValues.append( valueX );
+        this.iconValues.append( pixelY );
+        this.iconValues.append( scale );
+    }
+
+    /**
+     * Adds a text label at the given pixel coordinates.
+     */
+    public void addLabel( String text, int pixelX, int pixelY, float[] color )
+    {
+        this.labels.add( text );
+        this.labelColors.add( color );
+        this.labelPixels.append( pixelX );
+        this.labelPixels.append( pixelY );
+    }
+
+    /**
+     * Draws the contents of the batch. Must be called with the projection set up by
+     * {@link com.metsci.glimpse.painter.base.GlimpseDataPainter1D}.
+     */
+    public void draw( GL gl, Axis1D axis, TextureAtlas atlas, TextRenderer textRenderer, int width, int height )
+    {
+        drawShapes( gl, axis, width, height );
+        drawIcons( gl, axis, atlas );
+        drawLabels( textRenderer, width, height );
+    }
+
+    public void dispose( GL gl )
+    {
+        if ( this.vertexBuffer != null ) this.vertexBuffer.dispose( gl );
+        if ( this.colorBuffer != null ) this.colorBuffer.dispose( gl );
+
+        this.vertexBuffer = null;
+        this.colorBuffer = null;
+    }
+
+    protected void drawShapes( GL gl, Axis1D axis, int width, int height )
+    {
+        int fillCount = this.fillVertices.n / FLOATS_PER_VERTEX;
+
+        int vertexCount = fillCount;
+        for ( Lines lines : this.borders.values( ) )
+        {
+            vertexCount += lines.vertices.n / FLOATS_PER_VERTEX;
+        }
+
+        if ( vertexCount == 0 ) return;
+
+        uploadShapes( vertexCount );
+
+        // vertex coordinates are relative to the origin, so adjust the projection to match
+        gl.glMatrixMode( GL.GL_PROJECTION );
+        gl.glPushMatrix( );
+        try
+        {
+            gl.glLoadIdentity( );
+
+            double min = axis.getMin( ) - this.origin;
+            double max = axis.getMax( ) - this.origin;
+            if ( this.isHorizontal )
+            {
+                gl.glOrtho( min, max, 0, height, -1, 1 );
+            }
+            else
+            {
+                gl.glOrtho( 0, width, min, max, -1, 1 );
+            }
+
+            this.vertexBuffer.bind( GLVertexAttribute.ATTRIB_POSITION_2D, gl );
+            this.colorBuffer.bind( GLVertexAttribute.ATTRIB_COLOR_4D, gl );
+            try
+            {
+                if ( fillCount > 0 ) gl.glDrawArrays( GL.GL_TRIANGLES, 0, fillCount );
+
+                int first = fillCount;
+                for ( Map.Entry<Float, Lines> entry : this.borders.entrySet( ) )
+                {
+                    int count = entry.getValue( ).vertices.n / FLOATS_PER_VERTEX;
+                    if ( count == 0 ) continue;
+
+                    gl.glLineWidth( entry.getKey( ) );
+                    gl.glDrawArrays( GL.GL_LINES, first, count );
+                    first += count;
+                }
+            }
+            finally
+            {
+                this.vertexBuffer.unbind( gl );
+                this.colorBuffer.unbind( gl );
+            }
+        }
+        finally
+        {
+            gl.glPopMatrix( );
+        }
+    }
+
+    protected void uploadShapes( int vertexCount )
+    {
+        if ( this.vertexBuffer == null )
+        {
+            this.vertexBuffer = new GLFloatBuffer( vertexCount, FLOATS_PER_VERTEX );
+            this.colorBuffer = new GLFloatBuffer( vertexCount, FLOATS_PER_COLOR );
+            this.vertexBuffer.setUsageHint( GL.GL_STREAM_DRAW );
+            this.colorBuffer.setUsageHint( GL.GL_STREAM_DRAW );
+        }
+        else if ( this.vertexBuffer.getMaxVertices( ) < vertexCount )
+        {
+            // grow geometrically to avoid reallocating every time a few events are added
+            int capacity = Math.max( vertexCount, this.vertexBuffer.getMaxVertices( ) * 2 );
+            this.vertexBuffer.ensureCapacity( capacity );
+            this.colorBuffer.ensureCapacity( capacity );
+        }
+
+        this.vertexBuffer.mutate( new Mutator( )
+        {
+            @Override
+            public void mutate( FloatBuffer data, int length )
+            {
+                data.put( fillVertices.a, 0, fillVertices.n );
+                for ( Lines lines : borders.values( ) )
+                {
+                    data.put( lines.vertices.a, 0, lines.vertices.n );
+                }
+                data.flip( );
+            }
+        } );
+
+        this.colorBuffer.mutate( new Mutator( )
+        {
+            @Override
+            public void mutate( FloatBuffer data, int length )
+            {
+                data.put( fillColors.a, 0, fillColors.n );
+                for ( Lines lines : borders.values( ) )
+                {
+                    data.put( lines.colors.a, 0, lines.colors.n );
+                }
+                data.flip( );
+            }
+        } );
+    }
+
+    protected void drawIcons( GL gl, Axis1D axis, TextureAtlas atlas )
+    {
+        int count = this.iconIds.size( );
+        if ( count == 0 ) return;
+
+        double[] values = this.iconValues.a;
+
+        atlas.beginRendering( );
+        try
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                Object iconId = this.iconIds.get( i );
+                int iconHeight = atlas.getImageData( iconId ).getHeight( );
+                double scale = values[3 * i + 2];
+                atlas.drawImageAxisX( gl, iconId, axis, values[3 * i], values[3 * i + 1], scale, scale, 0, iconHeight );
+            }
+        }
+        finally
+        {
+            atlas.endRendering( );
+        }
+    }
+
+    protected void drawLabels( TextRenderer textRenderer, int width, int height )
+    {
+        int count = this.labels.size( );
+        if ( count == 0 ) return;
+
+        int[] pixels = this.labelPixels.a;
+
+        textRenderer.beginRendering( width, height );
+        try
+        {
+            float[] currentColor = null;
+            for ( int i = 0; i < count; i++ )
+            {
+                // changing the color flushes the TextRenderer, so only do so when necessary
+                float[] color = this.labelColors.get( i );
+                if ( color != currentColor )
+                {
+                    GlimpseColor.setColor( textRenderer, color );
+                    currentColor = color;
+                }
+
+                textRenderer.draw( this.labels.get( i ), pixels[2 * i], pixels[2 * i + 1] );
+            }
+        }
+        finally
+        {
+            textRenderer.endRendering( );
+        }
+    }
+
+    protected Lines getLines( float thickness )
+    {
+        Lines lines = this.borders.get( thickness );
+        if ( lines == null )
+        {
+            lines = new Lines( );
+            this.borders.put( thickness, lines );
+        }
+        return lines;
+    }
+
+    protected void addLine( Lines lines, double x1, double y1, double x2, double y2, float[] color )
+    {
+        addVertex( lines.vertices, lines.colors, x1, y1, color );
+        addVertex( lines.vertices, lines.colors, x2, y2, color );
+    }
+
+    protected void addFillVertex( double x, double y, float[] color )
+    {
+        addVertex( this.fillVertices, this.fillColors, x, y, color );
+    }
+
+    protected void addVertex( FloatsArray vertices, FloatsArray colors, double x, double y, float[] color )
+    {
+        if ( this.isHorizontal )
+        {
+            vertices.append( ( float ) ( x - this.origin ) );
+            vertices.append( ( float ) y );
+        }
+        else
+        {
+            vertices.append( ( float ) x );
+            vertices.append( ( float ) ( y - this.origin ) );
+        }
+
+        colors.append( color[0] );
+        colors.append( color[1] );
+        colors.append( color[2] );
+        colors.append( color.length > 3 ? color[3] : 1.0f );
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.plot.timeline.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.metsci.glimpse.plot.timeline.data.Epoch;
+
+/**
+ * Index of the Events in a single row of an {@link EventPainter}, supporting fast
+ * queries for the events which overlap a time range.
+ *
+ * Events are stored in primitive arrays sorted by start time, with a tree of maximum
+ * end times over those arrays (an implicit interval tree). Queries visit only the
+ * subtrees which can contain overlapping events, and return events in start time order.
+ *
+ * Additions and removals are queued and applied together, with a single merge, the
+ * next time the index is queried. Event times must not change while an event is in
+ * the index.
+ */
+class EventIntervalIndex
+{
+    protected Epoch epoch;
+
+    // events sorted by start time, and their start and end times relative to the epoch
+    protected Event[] events;
+    protected double[] starts;
+    protected double[] ends;
+    protected int size;
+
+    // maxEnds[1] is the maximum end time of all events, the children of node i are
+    // 2i and 2i+1, and leaf i is at index leafCount + i
+    protected double[] maxEnds;
+    protected int leafCount;
+
+    protected Set<Event> pendingAdds;
+    protected Set<Event> pendingRemoves;
+
+    public EventIntervalIndex( Epoch epoch )
+    {
+        this.epoch = epoch;
+
+        this.events = new Event[0];
+        this.starts = new double[0];
+        this.ends = new double[0];
+        this.maxEnds = new double[2];
+        this.leafCount = 1;
+        this.maxEnds[1] = Double.NEGATIVE_INFINITY;
+
+        this.pendingAdds = new LinkedHashSet<Event>( );
+        this.pendingRemoves = new HashSet<Event>( );
+    }
+
+    public void add( Event event )
+    {
+        this.pendingAdds.add( event );
+    }
+
+    public void remove( Event event )
+    {
+        // an event added since the last update is not in the arrays yet
+        if ( !this.pendingAdds.remove( event ) )
+        {
+            this.pendingRemoves.add( event );
+        }
+    }
+
+    public int size( )
+    {
+        update( );
+        return this.size;
+    }
+
+    public boolean isEmpty( )
+    {
+        return size( ) == 0;
+    }
+
+    public Event get( int index )
+    {
+        update( );
+        return this.events[index];
+    }
+
+    public List<Event> getEvents( )
+    {
+        update( );
+        return new ArrayList<Event>( Arrays.asList( this.events ).subList( 0, this.size ) );
+    }
+
+    /**
+     * Appends, in start time order, the events which begin before max and end after min.
+     *
+     * @param min the earliest end time of returned events, relative to the epoch
+     * @param includeMin whether events ending exactly at min are returned
+     * @param max the latest start time of returned events, relative to the epoch
+     * @param includeMax whether events starting exactly at max are returned
+     */
+    public void query( double min, boolean includeMin, double max, boolean includeMax, Collection<Event> results )
+    {
+        update( );
+
+        // only events in [0,limit) start early enough
+        int limit = includeMax ? upperBound( max ) : lowerBound( max );
+        if ( limit == 0 ) return;
+
+        query( 1, 0, this.leafCount, limit, min, includeMin, results );
+    }
+
+    public List<Event> query( double min, boolean includeMin, double max, boolean includeMax )
+    {
+        List<Event> results = new ArrayList<Event>( );
+        query( min, includeMin, max, includeMax, results );
+        return results;
+    }
+
+    /**
+     * @return the events which overlap the given event (excluding events which only touch it
+     *         at their start or end time)
+     */
+    public List<Event> getOverlappingEvents( Event event )
+    {
+        double start = this.epoch.fromTimeStamp( event.getStartTime( ) );
+        double end = this.epoch.fromTimeStamp( event.getEndTime( ) );
+        return query( start, false, end, false );
+    }
+
+    /**
+     * @return whether any event overlaps the given event (excluding events which only touch it
+     *         at their start or end time)
+     */
+    public boolean hasOverlappingEvents( Event event )
+    {
+        update( );
+
+        double start = this.epoch.fromTimeStamp( event.getStartTime( ) );
+        double end = this.epoch.fromTimeStamp( event.getEndTime( ) );
+
+        int limit = lowerBound( end );
+        if ( limit == 0 ) return false;
+
+        return hasOverlap( 1, 0, this.leafCount, limit, start );
+    }
+
+    protected boolean hasOverlap( int node, int nodeStart, int nodeEnd, int limit, double min )
+    {
+        if ( nodeStart >= limit || this.maxEnds[node] <= min ) return false;
+
+        // every event in this node starts early enough, so the max end time is enough to decide
+        if ( nodeEnd <= limit ) return true;
+
+        int nodeMid = ( nodeStart + nodeEnd ) >>> 1;
+        return hasOverlap( 2 * node, nodeStart, nodeMid, limit, min ) || hasOverlap( 2 * node + 1, nodeMid, nodeEnd, limit, min );
+    }
+
+    protected void query( int node, int nodeStart, int nodeEnd, int limit, double min, boolean includeMin, Collection<Event> results )
+    {
+        if ( nodeStart >= limit ) return;
+
+        double maxEnd = this.maxEnds[node];
+        if ( maxEnd < min || ( maxEnd == min && !includeMin ) ) return;
+
+        if ( nodeEnd - nodeStart == 1 )
+        {
+            results.add( this.events[nodeStart] );
+        }
+        else
+        {
+            int nodeMid = ( nodeStart + nodeEnd ) >>> 1;
+            query( 2 * node, nodeStart, nodeMid, limit, min, includeMin, results );
+            query( 2 * node + 1, nodeMid, nodeEnd, limit, min, includeMin, results );
+        }
+    }
+
+    // index of the first event starting at or after time
+    protected int lowerBound( double time )
+    {
+        int low = 0;
+        int high = this.size;
+        while ( low < high )
+        {
+            int mid = ( low + high ) >>> 1;
+            if ( this.starts[mid] < time ) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // index of the first event starting after time
+    protected int upperBound( double time )
+    {
+        int low = 0;
+        int high = this.size;
+        while ( low < high )
+        {
+            int mid = ( low + high ) >>> 1;
+            if ( this.starts[mid] <= time ) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    protected void update( )
+    {
+        if ( this.pendingAdds.isEmpty( ) && this.pendingRemoves.isEmpty( ) ) return;
+
+        // sort the new events by start time
+        int addCount = this.pendingAdds.size( );
+        Event[] adds = this.pendingAdds.toArray( new Event[addCount] );
+        Arrays.sort( adds, Event.getStartTimeComparator( ) );
+
+        double[] addStarts = new double[addCount];
+        for ( int i = 0; i < addCount; i++ )
+        {
+            addStarts[i] = this.epoch.fromTimeStamp( adds[i].getStartTime( ) );
+        }
+
+        // merge the surviving existing events with the new events
+        int capacity = this.size + addCount;
+        Event[] newEvents = new Event[capacity];
+        double[] newStarts = new double[capacity];
+        double[] newEnds = new double[capacity];
+
+        int n = 0;
+        int j = 0;
+        for ( int i = 0; i <= this.size; i++ )
+        {
+            double start = i < this.size ? this.starts[i] : Double.POSITIVE_INFINITY;
+
+            while ( j < addCount && addStarts[j] <= start )
+            {
+                newEvents[n] = adds[j];
+                newStarts[n] = addStarts[j];
+                newEnds[n] = this.epoch.fromTimeStamp( adds[j].getEndTime( ) );
+                n++;
+                j++;
+            }
+
+            if ( i == this.size ) break;
+
+            // drop removed events, and events being re-added (which may have new times)
+            Event event = this.events[i];
+            if ( this.pendingRemoves.contains( event ) || this.pendingAdds.contains( event ) ) continue;
+
+            newEvents[n] = event;
+            newStarts[n] = this.starts[i];
+            newEnds[n] = this.ends[i];
+            n++;
+        }
+
+        this.events = newEvents;
+        this.starts = newStarts;
+        this.ends = newEnds;
+        this.size = n;
+
+        this.pendingAdds.clear( );
+        this.pendingRemoves.clear( );
+
+        buildTree( );
+    }
+
+    protected void buildTree( )
+    {
+        int leafCount = 1;
+        while ( leafCount < this.size )
+            leafCount *= 2;
+
+        double[] maxEnds = new double[2 * leafCount];
+        for ( int i = 0; i < leafCount; i++ )
+        {
+            maxEnds[leafCount + i] = i < this.size ? this.ends[i] : Double.NEGATIVE_INFINITY;
+        }
+
+        for ( int i = leafCount - 1; i > 0; i-- )
+        {
+            maxEnds[i] = Math.max( maxEnds[2 * i], maxEnds[2 * i + 1] );
+        }
+
+        this.leafCount = leafCount;
+        this.maxEnds = maxEnds;
+    }
+}
@@ -34,6 +34,8 @@ import static com.metsci.glimpse.plot.timeline.data.EventSelection.Location.Star
 
 import java.awt.Font;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -41,14 +43,11 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableSet;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 import javax.media.opengl.GL;
+import javax.media.opengl.GLContext;
 
-import com.google.common.collect.Sets;
 import com.metsci.glimpse.axis.Axis1D;
 import com.metsci.glimpse.context.GlimpseBounds;
 import com.metsci.glimpse.event.mouse.GlimpseMouseEvent;
@@ -92,6 +91,8 @@ public class EventPainter extends GlimpseDataPainter1D
     protected TextRenderer textRenderer;
     protected boolean fontSet = false;
 
+    protected EventBatch batch;
+
     protected volatile Font newFont = null;
     protected volatile boolean antialias = false;
 
@@ -107,61 +108,53 @@ public class EventPainter extends GlimpseDataPainter1D
     protected class Row
     {
         int index;
-        NavigableSet<Event> startTimes;
-        NavigableSet<Event> endTimes;
-        NavigableSet<Event> visibleEvents;
+        EventIntervalIndex events;
+        List<Event> visibleEvents;
 
         public Row( int index )
         {
             this.index = index;
-            this.visibleEvents = new TreeSet<Event>( Event.getStartTimeComparator( ) );
-            this.startTimes = new TreeSet<Event>( Event.getStartTimeComparator( ) );
-            this.endTimes = new TreeSet<Event>( Event.getEndTimeComparator( ) );
+            this.visibleEvents = new ArrayList<Event>( );
+            this.events = new EventIntervalIndex( epoch );
         }
 
         public void addEvent( Event event )
         {
-            this.startTimes.add( event );
-            this.endTimes.add( event );
+            this.events.add( event );
             rowMap.put( event.getId( ), this );
         }
 
         public void removeEvent( Event event )
         {
-            this.startTimes.remove( event );
-            this.endTimes.remove( event );
+            this.events.remove( event );
             rowMap.remove( event.getId( ) );
         }
 
-        public void calculateVisibleEvents( Event minTimestamp, Event maxTimestamp )
+        public void calculateVisibleEvents( double min, double max )
         {
-            // all Events whose end time is greater than the axis min
-            NavigableSet<Event> endAfterMinSet = endTimes.tailSet( minTimestamp, true );
-
-            // all Events whose start time is less than the axis max
-            NavigableSet<Event> startBeforeMaxSet = startTimes.headSet( maxTimestamp, true );
-
-            // the visible events are the intersection of the above two sets
+            // all Events which end after the axis min and start before the axis max
             visibleEvents.clear( );
-            visibleEvents.addAll( endAfterMinSet );
-            visibleEvents.retainAll( startBeforeMaxSet );
+            events.query( min, true, max, true, visibleEvents );
         }
 
-        public Set<Event> getOverlappingEvents( Event event )
+        public List<Event> getOverlappingEvents( Event event )
         {
-            SortedSet<Event> s1 = startTimes.headSet( Event.createDummyEvent( event.getEndTime( ) ), false );
-            SortedSet<Event> s2 = endTimes.tailSet( Event.createDummyEvent( event.getStartTime( ) ), false );
-            return Sets.intersection( s1, s2 );
+            return events.getOverlappingEvents( event );
+        }
+
+        public boolean hasOverlappingEvents( Event event )
+        {
+            return events.hasOverlappingEvents( event );
         }
 
         public boolean isEmpty( )
         {
-            return startTimes.isEmpty( );
+            return events.isEmpty( );
         }
 
         public int size( )
         {
-            return startTimes.size( );
+            return events.size( );
         }
 
         public int getIndex( )
@@ -271,6 +264,34 @@ public class EventPainter extends GlimpseDataPainter1D
         }
     }
 
+    /**
+     * Adds many Events at once. If overlapping events are being stacked, all rows are
+     * repacked in a single pass, which is much faster than adding the Events one at a time.
+     * Null elements are ignored.
+     */
+    public void addEvents( Collection<Event> events )
+    {
+        for ( Event event : events )
+        {
+            if ( event != null ) this.eventMap.put( event.getId( ), event );
+        }
+
+        if ( shouldStack )
+        {
+            stackRows0( );
+        }
+        else
+        {
+            for ( Event event : events )
+            {
+                if ( event != null ) this.addEvent0( event );
+            }
+        }
+
+        this.visibleEventsDirty = true;
+        this.plot.updateSize( );
+    }
+
     public Event removeEvent( Object id )
     {
         Event event = this.eventMap.remove( id );
@@ -328,10 +349,6 @@ public class EventPainter extends GlimpseDataPainter1D
             double bufferX = PICK_BUFFER_PIXELS / axis.getPixelsPerValue( );
 
             TimeStamp time = epoch.toTimeStamp( valueX );
-            TimeStamp timeStart = epoch.toTimeStamp( valueX - bufferX );
-            TimeStamp timeEnd = epoch.toTimeStamp( valueX + bufferX );
-            Event eventStart = Event.createDummyEvent( timeStart );
-            Event eventEnd = Event.createDummyEvent( timeEnd );
 
             int rowIndex = ( int ) Math.floor( valueY / ( double ) ( getRowSize( ) + getBufferSize( ) ) );
             rowIndex = rows.size( ) - 1 - rowIndex;
@@ -339,10 +356,7 @@ public class EventPainter extends GlimpseDataPainter1D
             if ( rowIndex >= 0 && rowIndex < rows.size( ) )
             {
                 Row row = rows.get( rowIndex );
-                SortedSet<Event> s1 = row.startTimes.headSet( eventEnd );
-                SortedSet<Event> s2 = row.endTimes.tailSet( eventStart );
-
-                Set<Event> events = Sets.intersection( s1, s2 );
+                List<Event> events = row.events.query( valueX - bufferX, true, valueX + bufferX, false );
                 Set<EventSelection> eventSelections = createEventSelection( axis, events, time );
                 return eventSelections;
             }
@@ -351,7 +365,7 @@ public class EventPainter extends GlimpseDataPainter1D
         return Collections.emptySet( );
     }
 
-    protected Set<EventSelection> createEventSelection( Axis1D axis, Set<Event> events, TimeStamp clickTime )
+    protected Set<EventSelection> createEventSelection( Axis1D axis, Collection<Event> events, TimeStamp clickTime )
     {
         Set<EventSelection> set = new HashSet<EventSelection>( );
 
@@ -397,15 +411,24 @@ public class EventPainter extends GlimpseDataPainter1D
 
     protected void stackRows0( )
     {
-        Map<Object, Row> newMap = new HashMap<Object, Row>( );
-        newMap.putAll( rowMap );
-
         rows.clear( );
         rowMap.clear( );
 
-        for ( Event event : eventMap.values( ) )
+        // assign every event a row in a single pass over the events in start time order
+        Event[] events = eventMap.values( ).toArray( new Event[eventMap.size( )] );
+        Arrays.sort( events, Event.getStartTimeComparator( ) );
+
+        int[] eventRows = new int[events.length];
+        int rowCount = new EventRowPacker( ).pack( epoch, events, eventRows );
+
+        for ( int i = 0; i < rowCount; i++ )
+        {
+            rows.add( new Row( i ) );
+        }
+
+        for ( int i = 0; i < events.length; i++ )
         {
-            addEvent0( event );
+            rows.get( eventRows[i] ).addEvent( events[i] );
         }
     }
 
@@ -424,7 +447,8 @@ public class EventPainter extends GlimpseDataPainter1D
 
     void moveEvent0( Event event, TimeStamp newStartTime, TimeStamp newEndTime )
     {
-        Event eventOld = Event.createDummyEvent( event );
+        TimeStamp oldStartTime = event.getStartTime( );
+        TimeStamp oldEndTime = event.getEndTime( );
 
         // remove the event from its current row
         // *but don't shift events yet*
@@ -436,11 +460,30 @@ public class EventPainter extends GlimpseDataPainter1D
         // add the moved version of the event back in
         // (which might land it on a different row if it
         //  has been moved over top of another event)
-        addEvent0( event );
+        Row newRow = addEvent0( event );
+
+        // now shift events to fill the space left by moving the event
+        // (if the event stayed in the same row, only the parts of its old
+        //  time span which it no longer covers have been vacated)
+        if ( newRow != oldRow )
+        {
+            shiftEvents0( Event.createDummyEvent( oldStartTime, oldEndTime ), oldRow );
+        }
+        else
+        {
+            if ( oldStartTime.isBefore( newStartTime ) )
+            {
+                TimeStamp vacatedEnd = oldEndTime.isBefore( newStartTime ) ? oldEndTime : newStartTime;
+                shiftEvents0( Event.createDummyEvent( oldStartTime, vacatedEnd ), oldRow );
+            }
+
+            if ( oldEndTime.isAfter( newEndTime ) )
+            {
+                TimeStamp vacatedStart = oldStartTime.isAfter( newEndTime ) ? oldStartTime : newEndTime;
+                shiftEvents0( Event.createDummyEvent( vacatedStart, oldEndTime ), oldRow );
+            }
+        }
 
-        // now shift events to fill the space left
-        // by moving the event
-        shiftEvents0( eventOld, oldRow );
         clearEmptyRows0( );
 
         this.visibleEventsDirty = true;
@@ -494,7 +537,7 @@ public class EventPainter extends GlimpseDataPainter1D
 
     protected void moveEventIfRoom0( Event event, Row fromRow, Row toRow )
     {
-        if ( toRow.getOverlappingEvents( event ).isEmpty( ) )
+        if ( !toRow.hasOverlappingEvents( event ) )
         {
             fromRow.removeEvent( event );
             toRow.addEvent( event );
@@ -513,7 +556,7 @@ public class EventPainter extends GlimpseDataPainter1D
             {
                 Row candidate = rows.get( i );
 
-                if ( candidate.getOverlappingEvents( event ).isEmpty( ) )
+                if ( !candidate.hasOverlappingEvents( event ) )
                 {
                     row = candidate;
                     break;
@@ -539,14 +582,13 @@ public class EventPainter extends GlimpseDataPainter1D
 
     protected void calculateVisibleEvents( double min, double max )
     {
-        Event minTimestamp = Event.createDummyEvent( epoch.toTimeStamp( min ) );
-        Event maxTimestamp = Event.createDummyEvent( epoch.toTimeStamp( max ) );
-
         for ( Row row : rows )
         {
-            row.calculateVisibleEvents( minTimestamp, maxTimestamp );
+            row.calculateVisibleEvents( min, max );
         }
 
+        this.prevMin = min;
+        this.prevMax = max;
         this.visibleEventsDirty = false;
     }
 
@@ -576,18 +618,21 @@ public class EventPainter extends GlimpseDataPainter1D
         int sizeMin = buffer;
         int sizeMax = buffer + rowSize;
 
+        if ( batch == null ) batch = new EventBatch( isHorizontal );
+        batch.clear( axis.getMin( ) );
+
         int size = rows.size( );
         for ( int i = 0; i < size; i++ )
         {
             Row row = rows.get( i );
 
             Event prev = null;
-            NavigableSet<Event> set = row.visibleEvents;
-            for ( Event event : set )
+            List<Event> list = row.visibleEvents;
+            for ( Event event : list )
             {
                 if ( prev != null )
                 {
-                    prev.paint( gl, axis, this, event, width, height, sizeMin, sizeMax );
+                    prev.paint( batch, axis, this, event, width, height, sizeMin, sizeMax );
                 }
 
                 prev = event;
@@ -596,12 +641,24 @@ public class EventPainter extends GlimpseDataPainter1D
             // paint last event
             if ( prev != null )
             {
-                prev.paint( gl, axis, this, null, width, height, sizeMin, sizeMax );
+                prev.paint( batch, axis, this, null, width, height, sizeMin, sizeMax );
             }
 
             sizeMin = sizeMax + buffer;
             sizeMax = sizeMax + buffer + rowSize;
         }
+
+        batch.draw( gl, axis, atlas, textRenderer, width, height );
+    }
+
+    @Override
+    public void dispose( GLContext context )
+    {
+        if ( textRenderer != null ) textRenderer.dispose( );
+        textRenderer = null;
+
+        if ( batch != null ) batch.dispose( context.getGL( ) );
+        batch = null;
     }
 
     @Override
@@ -31,6 +31,7 @@ import static com.metsci.glimpse.plot.timeline.data.EventSelection.Location.End;
 import static com.metsci.glimpse.plot.timeline.data.EventSelection.Location.Start;
 
 import java.awt.Font;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -566,6 +567,21 @@ public class EventPlotInfo implements TimePlotInfo
         this.eventPainter.addEvent( event );
     }
 
+    /**
+     * Adds many Events at once. When overlapping events are stacked, this is much
+     * faster than calling {@link #addEvent(Event)} for each Event. Null elements
+     * are ignored.
+     */
+    public void addEvents( Collection<Event> events )
+    {
+        for ( Event event : events )
+        {
+            if ( event != null ) event.setEventPlotInfo( this );
+        }
+
+        this.eventPainter.addEvents( events );
+    }
+
     public void removeEvent( Event event )
     {
         event.setEventPlotInfo( null );
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.plot.timeline.event;
+
+import java.util.Arrays;
+
+import com.metsci.glimpse.plot.timeline.data.Epoch;
+
+/**
+ * Assigns Events to rows so that no two Events in the same row overlap, using
+ * greedy interval coloring.
+ *
+ * Events are visited in start time order. Each Event is placed in the lowest
+ * numbered row whose last Event has already ended, or in a new row if every row
+ * is still occupied. This uses the minimum possible number of rows and runs in
+ * O(n log n) time, using a pair of primitive binary heaps: one of occupied rows
+ * ordered by the end time of their last Event, and one of free rows ordered by
+ * row index.
+ */
+class EventRowPacker
+{
+    protected double[] rowEnds;
+
+    protected int[] busy;
+    protected int busyCount;
+
+    protected int[] free;
+    protected int freeCount;
+
+    protected int rowCount;
+
+    public EventRowPacker( )
+    {
+        this.rowEnds = new double[16];
+        this.busy = new int[16];
+        this.free = new int[16];
+    }
+
+    /**
+     * @param epoch used to convert Event times to doubles
+     * @param events Events sorted by start time
+     * @param rows filled with the row index of each Event
+     * @return the number of rows used
+     */
+    public int pack( Epoch epoch, Event[] events, int[] rows )
+    {
+        this.busyCount = 0;
+        this.freeCount = 0;
+        this.rowCount = 0;
+
+        for ( int i = 0; i < events.length; i++ )
+        {
+            Event event = events[i];
+            double start = epoch.fromTimeStamp( event.getStartTime( ) );
+            double end = epoch.fromTimeStamp( event.getEndTime( ) );
+
+            // release every row whose last event ends at or before this one starts
+            while ( this.busyCount > 0 && this.rowEnds[this.busy[0]] <= start )
+            {
+                pushFree( popBusy( ) );
+            }
+
+            int row = this.freeCount > 0 ? popFree( ) : newRow( );
+            this.rowEnds[row] = end;
+            pushBusy( row );
+
+            rows[i] = row;
+        }
+
+        return this.rowCount;
+    }
+
+    protected int newRow( )
+    {
+        int row = this.rowCount++;
+
+        if ( this.rowCount > this.rowEnds.length )
+        {
+            int capacity = this.rowEnds.length * 2;
+            this.rowEnds = Arrays.copyOf( this.rowEnds, capacity );
+            this.busy = Arrays.copyOf( this.busy, capacity );
+            this.free = Arrays.copyOf( this.free, capacity );
+        }
+
+        return row;
+    }
+
+    protected void pushBusy( int row )
+    {
+        int[] heap = this.busy;
+        int i = this.busyCount++;
+        double end = this.rowEnds[row];
+
+        while ( i > 0 )
+        {
+            int parent = ( i - 1 ) >>> 1;
+            if ( this.rowEnds[heap[parent]] <= end ) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+
+        heap[i] = row;
+    }
+
+    protected int popBusy( )
+    {
+        int[] heap = this.busy;
+        int top = heap[0];
+        int row = heap[--this.busyCount];
+        double end = this.rowEnds[row];
+
+        int i = 0;
+        while ( true )
+        {
+            int child = 2 * i + 1;
+            if ( child >= this.busyCount ) break;
+            if ( child + 1 < this.busyCount && this.rowEnds[heap[child + 1]] < this.rowEnds[heap[child]] ) child++;
+            if ( end <= this.rowEnds[heap[child]] ) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        heap[i] = row;
+        return top;
+    }
+
+    protected void pushFree( int row )
+    {
+        int[] heap = this.free;
+        int i = this.freeCount++;
+
+        while ( i > 0 )
+        {
+            int parent = ( i - 1 ) >>> 1;
+            if ( heap[parent] <= row ) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+
+        heap[i] = row;
+    }
+
+    protected int popFree( )
+    {
+        int[] heap = this.free;
+        int top = heap[0];
+        int row = heap[--this.freeCount];
+
+        int i = 0;
+        while ( true )
+        {
+            int child = 2 * i + 1;
+            if ( child >= this.freeCount ) break;
+            if ( child + 1 < this.freeCount && heap[child + 1] < heap[child] ) child++;
+            if ( row <= heap[child] ) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        heap[i] = row;
+        return top;
+    }
+}
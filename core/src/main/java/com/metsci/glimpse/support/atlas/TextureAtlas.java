@@ -50,6 +50,7 @@ import java.awt.Image;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -754,10 +755,34 @@ public class TextureAtlas
         // reset the transform
         g.setTransform( transform );
 
+        // remember which pixels were drawn so that icons can be hit tested without reading back the texture
+        imageData.setAlphaMask( readAlphaMask( x, y, width, height ) );
+
         // Mark this region of the TextureRenderer as dirty
         getBackingStore( ).markDirty( rect.x( ), rect.y( ), rect.w( ), rect.h( ) );
     }
 
+    // reads the alpha channel of a region of the backing store, flipping rows so that row 0 is the bottom of the image
+    private BitSet readAlphaMask( int x, int y, int width, int height )
+    {
+        Image image = getBackingStore( ).getImage( );
+        if ( !( image instanceof BufferedImage ) || width <= 0 || height <= 0 ) return null;
+
+        int[] argb = ( ( BufferedImage ) image ).getRGB( x, y, width, height, null, 0, width );
+
+        BitSet mask = new BitSet( width * height );
+        for ( int row = 0; row < height; row++ )
+        {
+            int flippedRow = height - 1 - row;
+            for ( int col = 0; col < width; col++ )
+            {
+                if ( ( argb[row * width + col] >>> 24 ) != 0 ) mask.set( flippedRow * width + col );
+            }
+        }
+
+        return mask;
+    }
+
     private void updateTextureCoordinates( TextureRenderer backingStore, Rect rect, ImageDataInternal imageData, int width, int height )
     {
         // save the image texture coordinates for easy access off the OpenGL thread
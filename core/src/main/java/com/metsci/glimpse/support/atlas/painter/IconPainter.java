@@ -71,6 +71,9 @@ import com.metsci.glimpse.support.atlas.shader.TextureAtlasIconShaderVertex;
 import com.metsci.glimpse.support.atlas.support.ImageData;
 import com.metsci.glimpse.support.atlas.support.TextureAtlasUpdateListener;
 import com.metsci.glimpse.support.selection.SpatialSelectionListener;
+import com.metsci.glimpse.util.primitives.FloatsArray;
+import com.metsci.glimpse.util.primitives.Ints;
+import com.metsci.glimpse.util.quadtree.QuadTreeInts;
 import com.sun.opengl.util.BufferUtil;
 import com.sun.opengl.util.texture.TextureCoords;
 
@@ -80,19 +83,12 @@ import com.sun.opengl.util.texture.TextureCoords;
  *
  * @author ulman
  */
-//TODO: GLFloatBuffer dirties the entire array whenever a change is made, this means that
-//      the addition of a single icon to the group causes the entire group to be pushed
-//      to VRAM again. Either GLFloatBuffer needs to be smarter and use glSubBuffer or we
-//      need to do things manually with FloatBuffers.
-//
-//TODO: Picking could also be done without OpenGL using the quadtree that GLFloatBuffer2D
-//      provides. However, this might be slower and take up more memory with lots of icons.
-//      It also doesn't easily handle not picking on transparent parts of icons.
-//
-//TODO: The problem with the current color-based picking approach is that it really only handles
+//TODO: The problem with the color-based picking approach is that it really only handles
 //      picks at one location at a time (we could draw to a larger offscreen buffer,
 //      or draw multiple times for each pick/click, not sure which would be faster).
 //      Most of the complications spring from the possibility of painter retargeting.
+//      PickMode.Cpu avoids these problems by hit testing icons against a quadtree of
+//      icon positions and the alpha masks recorded by the TextureAtlas.
 public class IconPainter extends GlimpseDataPainter2D
 {
     private static final Logger logger = Logger.getLogger( IconPainter.class.getName( ) );
@@ -104,6 +100,24 @@ public class IconPainter extends GlimpseDataPainter2D
     private static final int WIDTH_BUFFER = 5;
     private static final int HEIGHT_BUFFER = 5;
 
+    private static final int PICK_INDEX_BUCKET_SIZE = 500;
+
+    /**
+     * Determines how icons under the mouse are found when picking is enabled.
+     * <p>
+     * FrameBuffer draws the icons near the mouse into a small offscreen buffer with
+     * color-coded ids during each paint and reads the pixels back.
+     * <p>
+     * Cpu hit tests a quadtree of icon positions against the alpha mask of each icon's
+     * image, so picks do not touch OpenGL, are resolved as soon as the mouse moves, and
+     * can be made for any location, rectangle or lasso. It keeps an extra copy of the icon
+     * positions in memory.
+     */
+    public enum PickMode
+    {
+        FrameBuffer, Cpu;
+    }
+
     protected int initialGroupSize;
 
     // shader fields
@@ -136,6 +150,10 @@ public class IconPainter extends GlimpseDataPainter2D
     protected Collection<PickResult> pickResults;
     protected List<SpatialSelectionListener<PickResult>> pickListeners;
     protected Executor pickNotificationThread;
+    protected PickMode pickMode = PickMode.FrameBuffer;
+
+    // icons are also scaled on the cpu side when hit testing (read by picking threads)
+    protected volatile float globalScale = 1.0f;
 
     protected ReentrantLock lock;
 
@@ -194,6 +212,38 @@ public class IconPainter extends GlimpseDataPainter2D
         }
     }
 
+    public PickMode getPickMode( )
+    {
+        this.lock.lock( );
+        try
+        {
+            return this.pickMode;
+        }
+        finally
+        {
+            this.lock.unlock( );
+        }
+    }
+
+    /**
+     * Sets the method used to find icons under the mouse when picking is enabled.
+     *
+     * @see PickMode
+     */
+    public void setPickMode( PickMode mode )
+    {
+        this.lock.lock( );
+        try
+        {
+            this.pickMode = mode;
+            this.pickMouseEvent = null;
+        }
+        finally
+        {
+            this.lock.unlock( );
+        }
+    }
+
     /**
      * Enables or disables picking support. If enabled, registered
      * SpatialSelectionListener will be notified when the mouse is near an icon.
@@ -221,7 +271,14 @@ public class IconPainter extends GlimpseDataPainter2D
                 @Override
                 public void mouseMoved( GlimpseMouseEvent e )
                 {
-                    pickMouseEvent = e;
+                    if ( getPickMode( ) == PickMode.Cpu )
+                    {
+                        notifySpatialSelectionListeners( pickPoint( e ) );
+                    }
+                    else
+                    {
+                        pickMouseEvent = e;
+                    }
                 }
             };
 
@@ -265,6 +322,7 @@ public class IconPainter extends GlimpseDataPainter2D
     public void setGlobalScale( float scale )
     {
         this.geometryShader.setGlobalScale( scale );
+        this.globalScale = scale;
     }
 
     /**
@@ -576,7 +634,7 @@ public class IconPainter extends GlimpseDataPainter2D
             // dispose of any buffers queued for deletion
             disposeOldBuffers( gl );
 
-            if ( this.pickSupportEnabled )
+            if ( this.pickSupportEnabled && this.pickMode == PickMode.FrameBuffer )
             {
                 // allocate the offscreen pick buffer if it does not exist
                 if ( this.pickFrameBuffer == null )
@@ -748,6 +806,232 @@ public class IconPainter extends GlimpseDataPainter2D
         notifySpatialSelectionListeners( pickedIcons );
     }
 
+    /**
+     * Finds the icons under a mouse location without using OpenGL.
+     *
+     * @see #pickPoint( Axis2D, int, int )
+     */
+    public Set<PickResult> pickPoint( GlimpseMouseEvent e )
+    {
+        Axis2D axis = e.getAxis2D( );
+        if ( axis == null ) return new HashSet<PickResult>( );
+
+        int height = axis.getAxisY( ).getSizePixels( );
+        return pickPoint( axis, e.getX( ), height - e.getY( ), e.getTargetStack( ) );
+    }
+
+    /**
+     * Finds the visible icons with a non-transparent pixel within a few pixels of a location, using
+     * the same neighborhood as frame buffer picking. Icons are located with a quadtree of icon
+     * positions and tested against the alpha mask of their image in the TextureAtlas, so
+     * this may be called from any thread and does not wait for the next frame. Icons are only
+     * found once they have been painted at least once.
+     *
+     * @param axis the axis the icons are painted on
+     * @param pixelX pixels from the left edge of the axis
+     * @param pixelY pixels from the bottom edge of the axis
+     * @return the picked icons, with null target stacks
+     */
+    public Set<PickResult> pickPoint( Axis2D axis, int pixelX, int pixelY )
+    {
+        return pickPoint( axis, pixelX, pixelY, null );
+    }
+
+    protected Set<PickResult> pickPoint( Axis2D axis, int pixelX, int pixelY, GlimpseTargetStack stack )
+    {
+        this.lock.lock( );
+        try
+        {
+            Set<PickResult> results = new HashSet<PickResult>( );
+
+            Axis1D axisX = axis.getAxisX( );
+            Axis1D axisY = axis.getAxisY( );
+
+            double x = axisX.screenPixelToValue( pixelX + 0.5 );
+            double y = axisY.screenPixelToValue( pixelY + 0.5 );
+
+            for ( IconGroup group : this.iconGroupMap.values( ) )
+            {
+                if ( !group.isVisible( ) ) continue;
+
+                // no icon further than this from the location can reach it
+                double reach = group.getMaxRadius( ) * Math.abs( this.globalScale );
+                double rangeX = ( reach + WIDTH_BUFFER + 1 ) / axisX.getPixelsPerValue( );
+                double rangeY = ( reach + HEIGHT_BUFFER + 1 ) / axisY.getPixelsPerValue( );
+
+                Ints candidates = group.getPickIndex( ).search( ( float ) ( x - rangeX ), ( float ) ( x + rangeX ), ( float ) ( y - rangeY ), ( float ) ( y + rangeY ) );
+
+                Map<Object, ImageData> imageDataCache = new HashMap<Object, ImageData>( );
+                for ( int i = 0; i < candidates.n( ); i++ )
+                {
+                    int index = candidates.v( i );
+
+                    ImageData imageData = getImageData( group, index, imageDataCache );
+                    if ( imageData == null ) continue;
+
+                    if ( hitTest( group, index, imageData, axisX, axisY, pixelX, pixelY ) )
+                    {
+                        results.add( new PickResult( group.getId( ), group.getIconId( index ), index, stack ) );
+                    }
+                }
+            }
+
+            return results;
+        }
+        finally
+        {
+            this.lock.unlock( );
+        }
+    }
+
+    /**
+     * Finds the visible icons whose position lies inside a rectangle in axis coordinates.
+     * Like {@link #pickPoint( Axis2D, int, int )} this does not use OpenGL.
+     *
+     * @return the selected icons, with null target stacks
+     */
+    public Set<PickResult> pickRectangle( double minX, double maxX, double minY, double maxY )
+    {
+        this.lock.lock( );
+        try
+        {
+            Set<PickResult> results = new HashSet<PickResult>( );
+
+            for ( IconGroup group : this.iconGroupMap.values( ) )
+            {
+                if ( !group.isVisible( ) ) continue;
+
+                Ints candidates = group.getPickIndex( ).search( ( float ) minX, ( float ) maxX, ( float ) minY, ( float ) maxY );
+                for ( int i = 0; i < candidates.n( ); i++ )
+                {
+                    int index = candidates.v( i );
+                    results.add( new PickResult( group.getId( ), group.getIconId( index ), index, null ) );
+                }
+            }
+
+            return results;
+        }
+        finally
+        {
+            this.lock.unlock( );
+        }
+    }
+
+    /**
+     * Finds the visible icons whose position lies inside a lasso polygon in axis coordinates.
+     * The polygon is implicitly closed and may be self-intersecting (even-odd rule).
+     *
+     * @return the selected icons, with null target stacks
+     */
+    public Set<PickResult> pickLasso( double[] lassoX, double[] lassoY )
+    {
+        if ( lassoX.length != lassoY.length ) throw new IllegalArgumentException( String.format( "Size of lassoX and lassoY arrays must be identical. Found: %d and %d.", lassoX.length, lassoY.length ) );
+
+        this.lock.lock( );
+        try
+        {
+            Set<PickResult> results = new HashSet<PickResult>( );
+            if ( lassoX.length < 3 ) return results;
+
+            double minX = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for ( int i = 0; i < lassoX.length; i++ )
+            {
+                minX = Math.min( minX, lassoX[i] );
+                maxX = Math.max( maxX, lassoX[i] );
+                minY = Math.min( minY, lassoY[i] );
+                maxY = Math.max( maxY, lassoY[i] );
+            }
+
+            for ( IconGroup group : this.iconGroupMap.values( ) )
+            {
+                if ( !group.isVisible( ) ) continue;
+
+                float[] placements = group.placements.a;
+
+                Ints candidates = group.getPickIndex( ).search( ( float ) minX, ( float ) maxX, ( float ) minY, ( float ) maxY );
+                for ( int i = 0; i < candidates.n( ); i++ )
+                {
+                    int index = candidates.v( i );
+                    if ( !containsPoint( lassoX, lassoY, placements[index * 4], placements[index * 4 + 1] ) ) continue;
+
+                    results.add( new PickResult( group.getId( ), group.getIconId( index ), index, null ) );
+                }
+            }
+
+            return results;
+        }
+        finally
+        {
+            this.lock.unlock( );
+        }
+    }
+
+    protected ImageData getImageData( IconGroup group, int index, Map<Object, ImageData> cache )
+    {
+        Object iconId = group.getIconId( index );
+
+        ImageData imageData = cache.get( iconId );
+        if ( imageData == null && !cache.containsKey( iconId ) )
+        {
+            // the image may have been deleted from the atlas since the icon was added
+            imageData = group.getAtlas( ).isImageLoaded( iconId ) ? group.getAtlas( ).getImageData( iconId ) : null;
+            cache.put( iconId, imageData );
+        }
+
+        return imageData;
+    }
+
+    // checks the pixels around ( pixelX, pixelY ) against the icon's alpha mask,
+    // undoing the rotation and scaling applied by the geometry shader
+    protected boolean hitTest( IconGroup group, int index, ImageData imageData, Axis1D axisX, Axis1D axisY, int pixelX, int pixelY )
+    {
+        float[] placements = group.placements.a;
+        float rotation = placements[index * 4 + 2];
+        double scale = this.globalScale * placements[index * 4 + 3];
+        if ( scale == 0 ) return false;
+
+        double iconX = axisX.valueToScreenPixelUnits( placements[index * 4] );
+        double iconY = axisY.valueToScreenPixelUnits( placements[index * 4 + 1] );
+
+        double cos = Math.cos( rotation );
+        double sin = Math.sin( rotation );
+
+        int centerX = imageData.getCenterX( );
+        int centerY = imageData.getCenterY( );
+
+        for ( int dy = -HEIGHT_BUFFER; dy <= HEIGHT_BUFFER; dy++ )
+        {
+            for ( int dx = -WIDTH_BUFFER; dx <= WIDTH_BUFFER; dx++ )
+            {
+                double offsetX = pixelX + dx + 0.5 - iconX;
+                double offsetY = pixelY + dy + 0.5 - iconY;
+
+                double imageX = ( offsetX * cos + offsetY * sin ) / scale + centerX;
+                double imageY = ( offsetY * cos - offsetX * sin ) / scale + centerY;
+
+                if ( imageData.isOpaque( ( int ) Math.floor( imageX ), ( int ) Math.floor( imageY ) ) ) return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected static boolean containsPoint( double[] polyX, double[] polyY, double x, double y )
+    {
+        boolean inside = false;
+        for ( int i = 0, j = polyX.length - 1; i < polyX.length; j = i++ )
+        {
+            if ( ( polyY[i] > y ) != ( polyY[j] > y ) && x < ( polyX[j] - polyX[i] ) * ( y - polyY[i] ) / ( polyY[j] - polyY[i] ) + polyX[i] )
+            {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
     // set the frame buffer background to transparent (which we will interpret
     // as no icon picked)
     protected void resetPickFrameBuffer( GLContext glContext )
@@ -989,13 +1273,14 @@ public class IconPainter extends GlimpseDataPainter2D
             final TextureCoords texData = imageData.getTextureCoordinates( );
 
             addPlacementValues( group );
+            group.updateMaxRadius( imageData, currentSize - size, currentSize );
 
             for ( int i = 0; i < size; i++ )
             {
                 group.iconIds.add( iconId );
             }
 
-            group.pixelCoordsValues.mutate( new Mutator( )
+            group.pixelCoordsValues.mutateRange( new Mutator( )
             {
                 @Override
                 public void mutate( FloatBuffer data, int length )
@@ -1016,9 +1301,9 @@ public class IconPainter extends GlimpseDataPainter2D
                         data.put( offsetY );
                     }
                 }
-            } );
+            }, currentSize - size, currentSize );
 
-            group.texCoordsValues.mutate( new Mutator( )
+            group.texCoordsValues.mutateRange( new Mutator( )
             {
                 @Override
                 public void mutate( FloatBuffer data, int length )
@@ -1033,7 +1318,7 @@ public class IconPainter extends GlimpseDataPainter2D
                         data.put( texData.bottom( ) );
                     }
                 }
-            } );
+            }, currentSize - size, currentSize );
 
             group.pickColorValues.mutate( new GLByteBuffer.Mutator( )
             {
@@ -1060,7 +1345,7 @@ public class IconPainter extends GlimpseDataPainter2D
                         data.put( r ).put( g ).put( b );
                     }
                 }
-            } );
+            }, currentSize - size, currentSize );
         }
     }
 
@@ -1093,7 +1378,7 @@ public class IconPainter extends GlimpseDataPainter2D
 
         public void addPlacementValues( final IconGroup group )
         {
-            group.iconPlacementValues.mutate( new Mutator( )
+            group.iconPlacementValues.mutateRange( new Mutator( )
             {
                 @Override
                 public void mutate( FloatBuffer data, int length )
@@ -1109,8 +1394,10 @@ public class IconPainter extends GlimpseDataPainter2D
                         data.put( rotation[i] );
                         data.put( scale[i] );
                     }
+
+                    group.recordPlacements( data, currentSize - size, size );
                 }
-            } );
+            }, group.getCurrentSize( ) - size, group.getCurrentSize( ) );
         }
     }
 
@@ -1136,7 +1423,7 @@ public class IconPainter extends GlimpseDataPainter2D
 
         public void addPlacementValues( final IconGroup group )
         {
-            group.iconPlacementValues.mutate( new Mutator( )
+            group.iconPlacementValues.mutateRange( new Mutator( )
             {
                 @Override
                 public void mutate( FloatBuffer data, int length )
@@ -1146,8 +1433,10 @@ public class IconPainter extends GlimpseDataPainter2D
                     data.limit( currentSize * length );
                     data.position( ( currentSize - size ) * length );
                     data.put( positions, 0, size * length );
+
+                    group.recordPlacements( data, currentSize - size, size );
                 }
-            } );
+            }, group.getCurrentSize( ) - size, group.getCurrentSize( ) );
         }
     }
 
@@ -1172,7 +1461,7 @@ public class IconPainter extends GlimpseDataPainter2D
 
         public void addPlacementValues( final IconGroup group )
         {
-            group.iconPlacementValues.mutate( new Mutator( )
+            group.iconPlacementValues.mutateRange( new Mutator( )
             {
                 @Override
                 public void mutate( FloatBuffer data, int length )
@@ -1187,8 +1476,10 @@ public class IconPainter extends GlimpseDataPainter2D
                     positions.position( offset );
                     data.put( positions );
                     positions.limit( limit );
+
+                    group.recordPlacements( data, currentSize - vertexCount, vertexCount );
                 }
-            } );
+            }, group.getCurrentSize( ) - vertexCount, group.getCurrentSize( ) );
         }
     }
 
@@ -1212,6 +1503,13 @@ public class IconPainter extends GlimpseDataPainter2D
 
         private Collection<AddIcons> addQueue;
 
+        // cpu copy of the x/y/rotation/scale of each icon, used for picking
+        private FloatsArray placements;
+        // furthest any pixel of an icon reaches from its position, in pixels before global scaling
+        private float maxRadius;
+        // built the first time a cpu pick is made
+        private IconIndex pickIndex;
+
         public IconGroup( Object id, TextureAtlas atlas, int initialIconSpace )
         {
             this.id = id;
@@ -1228,6 +1526,8 @@ public class IconPainter extends GlimpseDataPainter2D
 
             this.addQueue = new LinkedList<AddIcons>( );
 
+            this.placements = new FloatsArray( initialIconSpace * 4 );
+
             this.currentSize = 0;
             this.maxSize = initialIconSpace;
         }
@@ -1302,6 +1602,45 @@ public class IconPainter extends GlimpseDataPainter2D
             addIcons( iconId, new float[] { positionX }, new float[] { positionY }, new float[] { rotation }, new float[]{ scale } );
         }
 
+        public void recordPlacements( FloatBuffer data, int first, int count )
+        {
+            FloatBuffer view = data.duplicate( );
+            view.limit( ( first + count ) * 4 );
+            view.position( first * 4 );
+            this.placements.append( view, count * 4 );
+        }
+
+        public void updateMaxRadius( ImageData imageData, int first, int last )
+        {
+            // distance from the icon position to the furthest corner of the image (with buffer)
+            float left = imageData.getCenterX( ) + imageData.getBufferX( );
+            float bottom = imageData.getCenterY( ) + imageData.getBufferY( );
+            float right = imageData.getBufferedWidth( ) - left;
+            float top = imageData.getBufferedHeight( ) - bottom;
+            float radius = ( float ) Math.sqrt( Math.max( left * left, right * right ) + Math.max( bottom * bottom, top * top ) );
+
+            for ( int i = first; i < last; i++ )
+            {
+                this.maxRadius = Math.max( this.maxRadius, radius * Math.abs( this.placements.a[i * 4 + 3] ) );
+            }
+        }
+
+        public float getMaxRadius( )
+        {
+            return this.maxRadius;
+        }
+
+        public QuadTreeInts getPickIndex( )
+        {
+            if ( this.pickIndex == null )
+            {
+                this.pickIndex = new IconIndex( this.placements );
+            }
+
+            this.pickIndex.update( );
+            return this.pickIndex;
+        }
+
         public void addQueuedIcons( )
         {
             for ( AddIcons addIcons : addQueue )
@@ -1400,4 +1739,41 @@ public class IconPainter extends GlimpseDataPainter2D
             oldBuffers.add( this.pickColorValues );
         }
     }
+
+    // indexes icon positions by reading them out of an IconGroup's placement array
+    private static final class IconIndex extends QuadTreeInts
+    {
+        private final FloatsArray placements;
+        private int size;
+
+        public IconIndex( FloatsArray placements )
+        {
+            super( PICK_INDEX_BUCKET_SIZE );
+            this.placements = placements;
+        }
+
+        // adds any icons placed since the last update (icons are never removed from a group)
+        public void update( )
+        {
+            int newSize = this.placements.n / 4;
+            for ( int i = this.size; i < newSize; i++ )
+            {
+                add( i );
+            }
+
+            this.size = newSize;
+        }
+
+        @Override
+        protected float x( int i )
+        {
+            return this.placements.a[i * 4];
+        }
+
+        @Override
+        protected float y( int i )
+        {
+            return this.placements.a[i * 4 + 1];
+        }
+    }
 }
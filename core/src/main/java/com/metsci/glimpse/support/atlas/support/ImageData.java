@@ -102,4 +102,17 @@ public class ImageData
     {
         return delegate.getTextureCoordinates( );
     }
+
+    /**
+     * Indicates whether the given pixel of the image was drawn with non-zero alpha. Pixel
+     * coordinates are relative to the lower left of the image and do not include the buffer.
+     * If the atlas could not record the alpha of the image, every pixel inside the image
+     * is reported as opaque.
+     *
+     * @return false if the pixel is transparent or outside the image
+     */
+    public final boolean isOpaque( int x, int y )
+    {
+        return delegate.isOpaque( x, y );
+    }
 }
@@ -26,6 +26,8 @@
  */
 package com.metsci.glimpse.support.atlas.support;
 
+import java.util.BitSet;
+
 import com.sun.opengl.util.texture.TextureCoords;
 
 /**
@@ -60,6 +62,11 @@ public class ImageDataInternal
     private int sizeY;
 
     private TextureCoords texCoords;
+
+    // one bit per pixel (not including buffer), rows from the bottom of the image,
+    // set where the pixel is not fully transparent; null if unknown. Written on the
+    // GL thread and read by picking threads, and never modified once published
+    private volatile BitSet alphaMask;
     
     private boolean delete = false; // whether the texture is no longer needed
     
@@ -142,6 +149,19 @@ public class ImageDataInternal
         return texCoords;
     }
 
+    public void setAlphaMask( BitSet alphaMask )
+    {
+        this.alphaMask = alphaMask;
+    }
+
+    public boolean isOpaque( int x, int y )
+    {
+        if ( x < 0 || x >= sizeX || y < 0 || y >= sizeY ) return false;
+
+        BitSet mask = alphaMask;
+        return mask == null || mask.get( y * sizeX + x );
+    }
+
     public boolean isMarkedForDelete( )
     {
         return delete;
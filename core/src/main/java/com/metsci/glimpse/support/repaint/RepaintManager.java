@@ -28,7 +28,13 @@ package com.metsci.glimpse.support.repaint;
 
 import static com.metsci.glimpse.util.logging.LoggerUtils.logWarning;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
@@ -39,7 +45,13 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
+import com.metsci.glimpse.axis.Axis1D;
+import com.metsci.glimpse.axis.Axis2D;
+import com.metsci.glimpse.axis.listener.AxisListener1D;
 import com.metsci.glimpse.canvas.GlimpseCanvas;
+import com.metsci.glimpse.context.GlimpseBounds;
+import com.metsci.glimpse.context.GlimpseTarget;
+import com.metsci.glimpse.layout.GlimpseLayout;
 
 /**
  * Manages repainting of an arbitrary number of
@@ -48,6 +60,17 @@ import com.metsci.glimpse.canvas.GlimpseCanvas;
  * and attach all {@link com.metsci.glimpse.canvas.GlimpseCanvas}
  * which it creates to that single {@code RepaintManager}.
  *
+ * By default every canvas is repainted every {@link #DELAY} milliseconds. In
+ * demand driven mode (see {@link #setDemandDriven(boolean)}) a canvas is only
+ * repainted when it has been marked dirty or when its size has changed. Any
+ * number of requests between frames result in a single repaint.
+ *
+ * A canvas is marked dirty when one of its {@link com.metsci.glimpse.layout.GlimpseLayout}s
+ * reports a change through {@link RepaintListener}: layouts report being invalidated,
+ * changes to the axes they provide, and repaint requests from their painters
+ * (see {@link com.metsci.glimpse.painter.base.GlimpsePainterImpl#requestRepaint()}).
+ * It may also be marked dirty explicitly with {@link #requestRepaint(GlimpseCanvas)}
+ * or by an axis registered with {@link #repaintOnAxisUpdate(GlimpseCanvas, Axis1D)}.
  *
  * @author ulman
  */
@@ -75,6 +98,14 @@ public class RepaintManager
 
     protected Set<GlimpseCanvas> canvasList;
 
+    // if true, only canvases which are dirty or have changed size are repainted
+    protected volatile boolean demandDriven;
+    // canvases which have been marked dirty since they were last painted
+    protected Set<GlimpseCanvas> dirtyCanvases;
+    protected Map<GlimpseCanvas, FrameStats> frameStats;
+    // marks each canvas dirty when its top level layouts request a repaint
+    protected Map<GlimpseCanvas, CanvasRepaintListener> canvasListeners;
+
     public RepaintManager( GlimpseCanvas canvas )
     {
         this( );
@@ -85,6 +116,9 @@ public class RepaintManager
     public RepaintManager( )
     {
         this.canvasList = new CopyOnWriteArraySet<GlimpseCanvas>( );
+        this.dirtyCanvases = Collections.newSetFromMap( new ConcurrentHashMap<GlimpseCanvas, Boolean>( ) );
+        this.frameStats = new ConcurrentHashMap<GlimpseCanvas, FrameStats>( );
+        this.canvasListeners = new ConcurrentHashMap<GlimpseCanvas, CanvasRepaintListener>( );
 
         this.started = false;
         this.shutdown = false;
@@ -112,6 +146,9 @@ public class RepaintManager
         try
         {
             this.canvasList.add( canvas );
+            this.frameStats.put( canvas, new FrameStats( ) );
+            this.canvasListeners.put( canvas, new CanvasRepaintListener( canvas ) );
+            this.dirtyCanvases.add( canvas );
         }
         finally
         {
@@ -125,6 +162,11 @@ public class RepaintManager
         try
         {
             this.canvasList.remove( canvas );
+            this.frameStats.remove( canvas );
+            this.dirtyCanvases.remove( canvas );
+
+            CanvasRepaintListener listener = this.canvasListeners.remove( canvas );
+            if ( listener != null ) listener.detachLayouts( );
         }
         finally
         {
@@ -132,6 +174,136 @@ public class RepaintManager
         }
     }
     
+    /**
+     * Demand driven mode is off by default. When it is turned on, a change is only drawn once
+     * something marks its canvas dirty. The built in painters, layouts, and axis layouts do so
+     * automatically, but custom painters must call
+     * {@link com.metsci.glimpse.painter.base.GlimpsePainterImpl#requestRepaint()} when their
+     * data changes (or the application must call {@link #requestRepaint(GlimpseCanvas)}),
+     * otherwise the canvas will keep showing the old data.
+     *
+     * @param demandDriven if true, canvases are only repainted when they have been marked
+     *                     dirty or their size has changed, otherwise every canvas is
+     *                     repainted every frame
+     */
+    public void setDemandDriven( boolean demandDriven )
+    {
+        this.demandDriven = demandDriven;
+        this.requestRepaint( );
+    }
+
+    public boolean isDemandDriven( )
+    {
+        return demandDriven;
+    }
+
+    /**
+     * Marks the canvas dirty, so that it is repainted on the next frame. Has no effect
+     * unless the RepaintManager is demand driven (every canvas is repainted every frame).
+     */
+    public void requestRepaint( GlimpseCanvas canvas )
+    {
+        if ( canvasList.contains( canvas ) ) dirtyCanvases.add( canvas );
+    }
+
+    /**
+     * Marks all canvases dirty.
+     */
+    public void requestRepaint( )
+    {
+        dirtyCanvases.addAll( canvasList );
+    }
+
+    /**
+     * Marks the canvas dirty whenever the axis is updated.
+     *
+     * @return the listener added to the axis, which may be removed to stop the updates
+     */
+    public AxisListener1D repaintOnAxisUpdate( final GlimpseCanvas canvas, Axis1D axis )
+    {
+        AxisListener1D listener = new AxisListener1D( )
+        {
+            @Override
+            public void axisUpdated( Axis1D axis )
+            {
+                requestRepaint( canvas );
+            }
+        };
+
+        axis.addAxisListener( listener );
+
+        return listener;
+    }
+
+    /**
+     * Marks the canvas dirty whenever either dimension of the axis is updated.
+     */
+    public void repaintOnAxisUpdate( GlimpseCanvas canvas, Axis2D axis )
+    {
+        repaintOnAxisUpdate( canvas, axis.getAxisX( ) );
+        repaintOnAxisUpdate( canvas, axis.getAxisY( ) );
+    }
+
+    /**
+     * @return paint timing statistics for the canvas, or null if it is not managed by this RepaintManager
+     */
+    public FrameStats getFrameStats( GlimpseCanvas canvas )
+    {
+        return frameStats.get( canvas );
+    }
+
+    /**
+     * @return whether any canvas will be painted by the next call to {@link #paintCanvases()}
+     */
+    protected boolean isRepaintPending( )
+    {
+        if ( !demandDriven || !dirtyCanvases.isEmpty( ) ) return true;
+
+        for ( GlimpseCanvas canvas : canvasList )
+        {
+            FrameStats stats = frameStats.get( canvas );
+            if ( stats == null || stats.isResized( canvas.getTargetBounds( ) ) ) return true;
+
+            CanvasRepaintListener listener = canvasListeners.get( canvas );
+            if ( listener != null && listener.isLayoutListChanged( ) ) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Paints each managed canvas which needs repainting, must be called on the
+     * thread appropriate for the windowing toolkit.
+     */
+    protected void paintCanvases( )
+    {
+        for ( GlimpseCanvas canvas : canvasList )
+        {
+            FrameStats stats = frameStats.get( canvas );
+            GlimpseBounds bounds = canvas.getTargetBounds( );
+
+            // removing the canvas from the dirty set before painting ensures
+            // requests made during the paint trigger another frame
+            boolean dirty = dirtyCanvases.remove( canvas );
+
+            // newly added layouts have not been painted yet
+            CanvasRepaintListener listener = canvasListeners.get( canvas );
+            if ( listener != null && listener.attachLayouts( ) ) dirty = true;
+
+            if ( demandDriven && !dirty && stats != null && !stats.isResized( bounds ) )
+            {
+                stats.frameSkipped( );
+                continue;
+            }
+
+            long start = System.nanoTime( );
+
+            canvas.paint( );
+
+            if ( stats != null ) stats.framePainted( System.nanoTime( ) - start, bounds );
+        }
+    }
+
     public void shutdown( )
     {
         lock.lock( );
@@ -240,10 +412,7 @@ public class RepaintManager
                     lock.unlock( );
                 }
 
-                for ( GlimpseCanvas canvas : canvasList )
-                {
-                    canvas.paint( );
-                }
+                paintCanvases( );
             }
             catch ( Exception e )
             {
@@ -251,4 +420,173 @@ public class RepaintManager
             }
         }
     }
+
+    /**
+     * Listens to the top level GlimpseLayouts of a single canvas and marks the canvas dirty
+     * when any of them requests a repaint.
+     */
+    protected class CanvasRepaintListener implements RepaintListener
+    {
+        protected GlimpseCanvas canvas;
+        protected Set<GlimpseLayout> layouts;
+
+        public CanvasRepaintListener( GlimpseCanvas canvas )
+        {
+            this.canvas = canvas;
+            this.layouts = Collections.newSetFromMap( new IdentityHashMap<GlimpseLayout, Boolean>( ) );
+        }
+
+        @Override
+        public void repaintRequested( )
+        {
+            requestRepaint( canvas );
+        }
+
+        /**
+         * Attaches to layouts which have been added to the canvas and detaches from those which
+         * have been removed. Reads the canvas layout list, so must be called on the thread
+         * appropriate for the windowing toolkit.
+         *
+         * @return true if any layouts were added or removed
+         */
+        protected synchronized boolean attachLayouts( )
+        {
+            List<GlimpseTarget> children = canvas.getTargetChildren( );
+            Set<GlimpseLayout> current = Collections.newSetFromMap( new IdentityHashMap<GlimpseLayout, Boolean>( ) );
+            boolean changed = false;
+
+            for ( GlimpseTarget target : children )
+            {
+                if ( target instanceof GlimpseLayout )
+                {
+                    GlimpseLayout layout = ( GlimpseLayout ) target;
+                    current.add( layout );
+
+                    if ( layouts.add( layout ) )
+                    {
+                        layout.addRepaintListener( this );
+                        changed = true;
+                    }
+                }
+            }
+
+            Iterator<GlimpseLayout> iter = layouts.iterator( );
+            while ( iter.hasNext( ) )
+            {
+                GlimpseLayout layout = iter.next( );
+                if ( !current.contains( layout ) )
+                {
+                    layout.removeRepaintListener( this );
+                    iter.remove( );
+                    changed = true;
+                }
+            }
+
+            return changed;
+        }
+
+        /**
+         * A cheap check, safe to call off the toolkit thread, for whether layouts have been added
+         * to or removed from the canvas since the last call to {@link #attachLayouts()}.
+         */
+        protected synchronized boolean isLayoutListChanged( )
+        {
+            return canvas.getTargetChildren( ).size( ) != layouts.size( );
+        }
+
+        protected synchronized void detachLayouts( )
+        {
+            for ( GlimpseLayout layout : layouts )
+            {
+                layout.removeRepaintListener( this );
+            }
+
+            layouts.clear( );
+        }
+    }
+
+    /**
+     * Paint timing statistics for a single canvas.
+     */
+    public static class FrameStats
+    {
+        protected long paintedFrames;
+        protected long skippedFrames;
+        protected long totalPaintNanos;
+        protected long maxPaintNanos;
+        protected long lastPaintNanos;
+
+        protected int lastWidth = -1;
+        protected int lastHeight = -1;
+
+        protected synchronized void framePainted( long nanos, GlimpseBounds bounds )
+        {
+            paintedFrames++;
+            totalPaintNanos += nanos;
+            maxPaintNanos = Math.max( maxPaintNanos, nanos );
+            lastPaintNanos = nanos;
+
+            if ( bounds != null )
+            {
+                lastWidth = bounds.getWidth( );
+                lastHeight = bounds.getHeight( );
+            }
+        }
+
+        protected synchronized void frameSkipped( )
+        {
+            skippedFrames++;
+        }
+
+        protected synchronized boolean isResized( GlimpseBounds bounds )
+        {
+            return bounds != null && ( bounds.getWidth( ) != lastWidth || bounds.getHeight( ) != lastHeight );
+        }
+
+        /**
+         * @return the number of times the canvas has been painted
+         */
+        public synchronized long getPaintedFrames( )
+        {
+            return paintedFrames;
+        }
+
+        /**
+         * @return the number of frames in which the canvas was idle and not painted
+         */
+        public synchronized long getSkippedFrames( )
+        {
+            return skippedFrames;
+        }
+
+        public synchronized double getAveragePaintMillis( )
+        {
+            return paintedFrames == 0 ? 0 : totalPaintNanos / ( double ) paintedFrames / 1e6;
+        }
+
+        public synchronized double getMaxPaintMillis( )
+        {
+            return maxPaintNanos / 1e6;
+        }
+
+        public synchronized double getLastPaintMillis( )
+        {
+            return lastPaintNanos / 1e6;
+        }
+
+        public synchronized void reset( )
+        {
+            paintedFrames = 0;
+            skippedFrames = 0;
+            totalPaintNanos = 0;
+            maxPaintNanos = 0;
+            lastPaintNanos = 0;
+        }
+
+        @Override
+        public synchronized String toString( )
+        {
+            return String.format( "painted: %d skipped: %d avg: %.2f ms max: %.2f ms", paintedFrames, skippedFrames, getAveragePaintMillis( ), getMaxPaintMillis( ) );
+        }
+    }
 }
@@ -95,14 +95,14 @@ public class SwingRepaintManager extends RepaintManager
                     lock.unlock( );
                 }
 
+                // avoid waking the toolkit thread when no canvas needs painting
+                if ( !isRepaintPending( ) ) return;
+
                 SwingUtilities.invokeAndWait( new Runnable( )
                 {
                     public void run( )
                     {
-                        for ( GlimpseCanvas canvas : canvasList )
-                        {
-                            canvas.paint( );
-                        }
+                        paintCanvases( );
                     }
                 } );
             }
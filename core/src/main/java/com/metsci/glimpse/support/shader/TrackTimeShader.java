@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.support.shader;
+
+import javax.media.opengl.GL;
+
+import com.metsci.glimpse.gl.shader.Shader;
+import com.metsci.glimpse.gl.shader.ShaderArg;
+import com.metsci.glimpse.gl.shader.ShaderType;
+
+/**
+ * Vertex shader wrapper for {@link com.metsci.glimpse.painter.track.TrackPainter}. Hides
+ * track vertices whose time stamps fall outside a selected time window, so that changing
+ * the time window requires only a uniform update rather than recalculating which vertices
+ * of each track should be drawn.
+ *
+ * <p>Time stamps are longs, which cannot be represented exactly in single precision. Each
+ * time is therefore provided to the shader relative to an epoch and split into a high part
+ * (a multiple of 2^20 time units) and a low part (the remainder). Both parts are exactly
+ * representable for times within 2^43 units of the epoch.</p>
+ */
+public class TrackTimeShader extends Shader
+{
+    public static final int TIME_SPLIT_BITS = 20;
+    public static final long TIME_SPLIT_MASK = ( 1L << TIME_SPLIT_BITS ) - 1;
+    public static final long MAX_TIME_OFFSET = 1L << 43;
+
+    protected ShaderArg startTimeArg;
+    protected ShaderArg endTimeArg;
+
+    protected int timeAttributeIndex;
+
+    public TrackTimeShader( int timeAttributeIndex )
+    {
+        super( "track_time_shader", ShaderType.vertex, "shaders/track/track_time_shader.vs" );
+
+        this.timeAttributeIndex = timeAttributeIndex;
+
+        this.startTimeArg = getArg( "startTime" );
+        this.endTimeArg = getArg( "endTime" );
+
+        this.setTimeRange( Long.MIN_VALUE, Long.MAX_VALUE, 0 );
+    }
+
+    /**
+     * Sets the time window (inclusive on both ends) outside of which vertices are not drawn.
+     *
+     * @param startTime the start of the time window
+     * @param endTime the end of the time window
+     * @param epoch the time which vertex time stamps are relative to
+     */
+    public void setTimeRange( long startTime, long endTime, long epoch )
+    {
+        this.startTimeArg.setValue( new float[] { timeHigh( startTime, epoch ), timeLow( startTime, epoch ) } );
+        this.endTimeArg.setValue( new float[] { timeHigh( endTime, epoch ), timeLow( endTime, epoch ) } );
+    }
+
+    /**
+     * @return the high part of the time, relative to the epoch, as provided to the shader
+     */
+    public static float timeHigh( long time, long epoch )
+    {
+        return ( float ) ( timeOffset( time, epoch ) >> TIME_SPLIT_BITS );
+    }
+
+    /**
+     * @return the low part of the time, relative to the epoch, as provided to the shader
+     */
+    public static float timeLow( long time, long epoch )
+    {
+        return ( float ) ( timeOffset( time, epoch ) & TIME_SPLIT_MASK );
+    }
+
+    // the offset of time from epoch, clamped to +/- MAX_TIME_OFFSET (without overflowing)
+    protected static long timeOffset( long time, long epoch )
+    {
+        if ( time <= epoch - MAX_TIME_OFFSET ) return -MAX_TIME_OFFSET;
+        if ( time >= epoch + MAX_TIME_OFFSET ) return MAX_TIME_OFFSET;
+        return time - epoch;
+    }
+
+    @Override
+    public boolean preLink( GL gl, int glProgramHandle )
+    {
+        gl.glBindAttribLocation( glProgramHandle, timeAttributeIndex, "vertexTime" );
+        return true;
+    }
+
+    @Override
+    public void preDisplay( GL gl )
+    {
+    }
+
+    @Override
+    public void postDisplay( GL gl )
+    {
+    }
+}
@@ -77,16 +77,26 @@ public class ColorTextureProjected2D extends FloatTextureProjected2D
     }
 
     @Override
-    protected Buffer prepare_setPixelStore( GL gl, int i )
+    protected Buffer prepare_setPixelStore( GL gl, int startX, int startY )
     {
         gl.glPixelStorei( GL.GL_UNPACK_ALIGNMENT, 1 );
-        gl.glPixelStorei( GL.GL_UNPACK_SKIP_PIXELS, texStartsX[i] );
+        gl.glPixelStorei( GL.GL_UNPACK_SKIP_PIXELS, startX );
         gl.glPixelStorei( GL.GL_UNPACK_ROW_LENGTH, dataSizeX );
 
         // for some reason, the following does not work:
-        //gl.glPixelStorei( GL.GL_UNPACK_SKIP_ROWS, texStartsY[i] );
+        //gl.glPixelStorei( GL.GL_UNPACK_SKIP_ROWS, startY );
         // however, skipping rows manually using data.position works
-        return data.asFloatBuffer( ).position( texStartsY[i] * dataSizeX * FLOATS_PER_PIXEL );
+        return data.asFloatBuffer( ).position( startY * dataSizeX * FLOATS_PER_PIXEL );
+    }
+
+    @Override
+    protected boolean prepare_setSubData( GL gl, int i, int startX, int startY, int sizeX, int sizeY )
+    {
+        Buffer positionedBuffer = prepare_setPixelStore( gl, startX, startY );
+
+        gl.glTexSubImage2D( GL.GL_TEXTURE_2D, 0, startX - texStartsX[i], startY - texStartsY[i], sizeX, sizeY, GL.GL_RGBA, GL.GL_FLOAT, positionedBuffer );
+
+        return true;
     }
 
     @Override
@@ -58,15 +58,30 @@ public class FloatTextureProjected2D extends TextureProjected2D
     }
 
     protected Buffer prepare_setPixelStore( GL gl, int i )
+    {
+        return prepare_setPixelStore( gl, texStartsX[i], texStartsY[i] );
+    }
+
+    protected Buffer prepare_setPixelStore( GL gl, int startX, int startY )
     {
         gl.glPixelStorei( GL.GL_UNPACK_ALIGNMENT, 1 );
-        gl.glPixelStorei( GL.GL_UNPACK_SKIP_PIXELS, texStartsX[i] );
+        gl.glPixelStorei( GL.GL_UNPACK_SKIP_PIXELS, startX );
         gl.glPixelStorei( GL.GL_UNPACK_ROW_LENGTH, dataSizeX );
 
         // for some reason, the following does not work:
-        //gl.glPixelStorei( GL.GL_UNPACK_SKIP_ROWS, texStartsY[i] );
+        //gl.glPixelStorei( GL.GL_UNPACK_SKIP_ROWS, startY );
         // however, skipping rows manually using data.position works
-        return data.asFloatBuffer( ).position( texStartsY[i] * dataSizeX );
+        return data.asFloatBuffer( ).position( startY * dataSizeX );
+    }
+
+    @Override
+    protected boolean prepare_setSubData( GL gl, int i, int startX, int startY, int sizeX, int sizeY )
+    {
+        Buffer positionedBuffer = prepare_setPixelStore( gl, startX, startY );
+
+        gl.glTexSubImage2D( GL.GL_TEXTURE_2D, 0, startX - texStartsX[i], startY - texStartsY[i], sizeX, sizeY, GL.GL_LUMINANCE, GL.GL_FLOAT, positionedBuffer );
+
+        return true;
     }
 
     @Override
@@ -157,6 +172,27 @@ public class FloatTextureProjected2D extends TextureProjected2D
         }
     }
 
+    /**
+     * Like {@link #mutate(MutatorFloat2D)}, but indicates that the mutator only changes
+     * data in the region [minX,maxX) x [minY,maxY), so only that region is copied to the
+     * device. This makes frequent small updates (for example, adding rows to a waterfall
+     * display) much cheaper for large textures.
+     */
+    public void mutate( MutatorFloat2D mutator, int minX, int minY, int maxX, int maxY )
+    {
+        lock.lock( );
+        try
+        {
+            data.rewind( );
+            mutator.mutate( data.asFloatBuffer( ), dataSizeX, dataSizeY );
+            makeDirty( minX, minY, maxX, maxY );
+        }
+        finally
+        {
+            lock.unlock( );
+        }
+    }
+
     public static interface MutatorFloat2D
     {
         public void mutate( FloatBuffer data, int dataSizeX, int dataSizeY );
@@ -97,6 +97,13 @@ public abstract class TextureProjected2D implements DrawableTexture
 
     protected boolean projectionDirty;
 
+    // the region [dirtyMinX,dirtyMaxX) x [dirtyMinY,dirtyMaxY) of data indices which
+    // must be copied to the device (when dirty is false and the region is not empty)
+    protected int dirtyMinX;
+    protected int dirtyMinY;
+    protected int dirtyMaxX;
+    protected int dirtyMaxY;
+
     protected int dataSizeX;
     protected int dataSizeY;
 
@@ -108,10 +115,23 @@ public abstract class TextureProjected2D implements DrawableTexture
         this.dataSizeX = dataSizeX;
         this.dataSizeY = dataSizeY;
         this.data = newByteBuffer( );
+
+        this.clearDirtyRegion( );
     }
 
     protected abstract void prepare_setData( GL gl );
 
+    /**
+     * Copies the data in the region [startX,startX+sizeX) x [startY,startY+sizeY) into
+     * the ith texture, which is bound and has already been loaded by {@link #prepare_setData(GL)}.
+     *
+     * @return false if partial updates are not supported, in which case all data is reloaded
+     */
+    protected boolean prepare_setSubData( GL gl, int i, int startX, int startY, int sizeX, int sizeY )
+    {
+        return false;
+    }
+
     protected abstract int getRequiredCapacityBytes( );
 
     protected abstract float getData( int index );
@@ -172,10 +192,45 @@ public abstract class TextureProjected2D implements DrawableTexture
         this.dirty = true;
     }
 
+    /**
+     * Indicates that only the data in the region [minX,maxX) x [minY,maxY) has changed.
+     * Dirty regions are merged until the next time the texture is prepared, when only
+     * the parts of the merged region which fall in each physical texture are copied to
+     * the device.
+     */
+    public void makeDirty( int minX, int minY, int maxX, int maxY )
+    {
+        lock.lock( );
+        try
+        {
+            dirtyMinX = Math.min( dirtyMinX, Math.max( minX, 0 ) );
+            dirtyMinY = Math.min( dirtyMinY, Math.max( minY, 0 ) );
+            dirtyMaxX = Math.max( dirtyMaxX, Math.min( maxX, dataSizeX ) );
+            dirtyMaxY = Math.max( dirtyMaxY, Math.min( maxY, dataSizeY ) );
+        }
+        finally
+        {
+            lock.unlock( );
+        }
+    }
+
+    protected boolean isRegionDirty( )
+    {
+        return dirtyMinX < dirtyMaxX && dirtyMinY < dirtyMaxY;
+    }
+
+    protected void clearDirtyRegion( )
+    {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = 0;
+        dirtyMaxY = 0;
+    }
+
     @Override
     public boolean isDirty( )
     {
-        return dirty || projectionDirty;
+        return dirty || projectionDirty || isRegionDirty( );
     }
 
     @Override
@@ -220,6 +275,12 @@ public abstract class TextureProjected2D implements DrawableTexture
             {
                 prepare_setData( gl );
                 dirty = false;
+                clearDirtyRegion( );
+            }
+            else if ( glAllocated && isRegionDirty( ) )
+            {
+                if ( !prepare_setDataRegion( gl ) ) prepare_setData( gl );
+                clearDirtyRegion( );
             }
 
             if ( glAllocated && projectionDirty )
@@ -355,6 +416,35 @@ public abstract class TextureProjected2D implements DrawableTexture
         makeProjectionDirty( );
     }
 
+    // copies the dirty region into each physical texture it overlaps
+    protected boolean prepare_setDataRegion( GL gl )
+    {
+        try
+        {
+            for ( int i = 0; i < numTextures; i++ )
+            {
+                int startX = Math.max( dirtyMinX, texStartsX[i] );
+                int startY = Math.max( dirtyMinY, texStartsY[i] );
+                int endX = Math.min( dirtyMaxX, texStartsX[i] + texSizesX[i] );
+                int endY = Math.min( dirtyMaxY, texStartsY[i] + texSizesY[i] );
+
+                if ( startX >= endX || startY >= endY ) continue;
+
+                gl.glBindTexture( getGLTextureDim( NUM_DIMENSIONS ), textureHandles[i] );
+
+                if ( !prepare_setSubData( gl, i, startX, startY, endX - startX, endY - startY ) ) return false;
+            }
+
+            return true;
+        }
+        finally
+        {
+            gl.glPixelStorei( GL.GL_UNPACK_SKIP_PIXELS, 0 );
+            gl.glPixelStorei( GL.GL_UNPACK_SKIP_ROWS, 0 );
+            gl.glPixelStorei( GL.GL_UNPACK_ROW_LENGTH, 0 );
+        }
+    }
+
     public static int getMaxGLTextureSize( GL gl )
     {
         int[] result = new int[1];
@@ -0,0 +1,12 @@
+#version 120
+
+varying float inWindow;
+
+void main( )
+{
+    // line segments with an end outside the time window interpolate
+    // to values less than one and are not drawn
+    if ( inWindow < 0.999 ) discard;
+
+    gl_FragColor = gl_Color;
+}
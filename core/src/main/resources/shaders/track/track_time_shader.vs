@@ -0,0 +1,23 @@
+#version 120
+
+// the selected time window, each time is split into high and low
+// parts so that it can be represented exactly in single precision
+uniform vec2 startTime;
+uniform vec2 endTime;
+
+// the time of the vertex, split the same way
+attribute vec2 vertexTime;
+
+// 1.0 if the vertex falls inside the time window, 0.0 otherwise
+varying float inWindow;
+
+void main( )
+{
+    bool afterStart = vertexTime.x > startTime.x || ( vertexTime.x == startTime.x && vertexTime.y >= startTime.y );
+    bool beforeEnd = vertexTime.x < endTime.x || ( vertexTime.x == endTime.x && vertexTime.y <= endTime.y );
+
+    inWindow = ( afterStart && beforeEnd ) ? 1.0 : 0.0;
+
+    gl_FrontColor = gl_Color;
+    gl_Position = gl_ModelViewProjectionMatrix * gl_Vertex;
+}
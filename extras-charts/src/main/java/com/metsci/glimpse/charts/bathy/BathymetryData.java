@@ -26,27 +26,50 @@
  */
 package com.metsci.glimpse.charts.bathy;
 
-import java.io.BufferedReader;
+import static com.metsci.glimpse.util.logging.LoggerUtils.logWarning;
+
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.Comparator;
-import java.util.NavigableSet;
-import java.util.TreeSet;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.logging.Logger;
 
 import com.metsci.glimpse.axis.Axis2D;
-import com.metsci.glimpse.support.projection.Projection;
 import com.metsci.glimpse.support.projection.LatLonProjection;
+import com.metsci.glimpse.support.projection.Projection;
 import com.metsci.glimpse.support.texture.FloatTextureProjected2D;
+import com.metsci.glimpse.support.texture.FloatTextureProjected2D.MutatorFloat2D;
 import com.metsci.glimpse.util.geo.LatLonGeo;
 import com.metsci.glimpse.util.geo.projection.GeoProjection;
+import com.metsci.glimpse.util.primitives.FloatsArray;
 import com.metsci.glimpse.util.vector.Vector2d;
 
 /**
+ * A regular grid of depths, read from text data with one sample per line of the form:
+ * <pre>longitude latitude depth</pre>
+ *
+ * The input is parsed directly from bytes into primitive arrays, and the grid is stored as a single
+ * FloatBuffer in the layout used by {@link FloatTextureProjected2D}. Because parsing large grids still
+ * takes a while, a grid can also be saved to (and memory mapped from) a simple binary cache file,
+ * see {@link #load(File, File, GeoProjection)}.
+ *
  * @author ulman
  */
 public class BathymetryData
 {
+    private static final Logger logger = Logger.getLogger( BathymetryData.class.getName( ) );
+
+    public static final int CACHE_MAGIC = 0x42415448;
+    public static final int CACHE_VERSION = 1;
+    public static final int CACHE_HEADER_BYTES = 48;
+
     protected double widthStep;
     protected double heightStep;
 
@@ -58,6 +81,10 @@ public class BathymetryData
 
     protected GeoProjection projection;
 
+    // depths indexed by y * imageWidth + x
+    protected FloatBuffer grid;
+
+    // built from the grid the first time getData( ) is called
     protected double[][] data;
 
     public BathymetryData( InputStream in, GeoProjection projection ) throws IOException
@@ -67,127 +94,462 @@ public class BathymetryData
         read( in, projection );
     }
 
-    private static class Row
+    protected BathymetryData( GeoProjection projection )
+    {
+        this.projection = projection;
+    }
+
+    /**
+     * Loads bathymetry data from a text file, using a binary cache file when it is at least as
+     * new as the text file. Otherwise the text file is parsed and the cache file is rewritten.
+     *
+     * @param cacheFile the binary cache, or null to always parse the text file
+     */
+    public static BathymetryData load( File file, File cacheFile, GeoProjection projection ) throws IOException
+    {
+        if ( cacheFile != null && cacheFile.isFile( ) && cacheFile.lastModified( ) >= file.lastModified( ) )
+        {
+            try
+            {
+                return readCache( cacheFile, projection );
+            }
+            catch ( IOException e )
+            {
+                logWarning( logger, "Unable to read bathymetry cache file %s, parsing %s instead.", e, cacheFile, file );
+            }
+        }
+
+        BathymetryData bathymetryData = new BathymetryData( new FileInputStream( file ), projection );
+
+        if ( cacheFile != null )
+        {
+            try
+            {
+                bathymetryData.writeCache( cacheFile );
+            }
+            catch ( IOException e )
+            {
+                logWarning( logger, "Unable to write bathymetry cache file %s.", e, cacheFile );
+            }
+        }
+
+        return bathymetryData;
+    }
+
+    /**
+     * Memory maps a grid written by {@link #writeCache(File)}.
+     */
+    public static BathymetryData readCache( File cacheFile, GeoProjection projection ) throws IOException
     {
-        public float centerLat;
-        public float centerLon;
-        public float depth;
+        RandomAccessFile file = new RandomAccessFile( cacheFile, "r" );
+        try
+        {
+            FileChannel channel = file.getChannel( );
+
+            ByteBuffer header = channel.map( MapMode.READ_ONLY, 0, CACHE_HEADER_BYTES );
+            if ( header.getInt( ) != CACHE_MAGIC ) throw new IOException( "Not a bathymetry cache file: " + cacheFile );
+            if ( header.getInt( ) != CACHE_VERSION ) throw new IOException( "Unsupported bathymetry cache file version: " + cacheFile );
+
+            BathymetryData bathymetryData = new BathymetryData( projection );
+            bathymetryData.imageWidth = header.getInt( );
+            bathymetryData.imageHeight = header.getInt( );
+            bathymetryData.startLon = header.getDouble( );
+            bathymetryData.startLat = header.getDouble( );
+            bathymetryData.widthStep = header.getDouble( );
+            bathymetryData.heightStep = header.getDouble( );
+
+            long gridBytes = 4L * bathymetryData.imageWidth * bathymetryData.imageHeight;
+            if ( channel.size( ) < CACHE_HEADER_BYTES + gridBytes ) throw new IOException( "Truncated bathymetry cache file: " + cacheFile );
 
-        public Row( float centerLat, float centerLon, float depth )
+            // the mapping remains valid after the file is closed
+            bathymetryData.grid = channel.map( MapMode.READ_ONLY, CACHE_HEADER_BYTES, gridBytes ).asFloatBuffer( );
+
+            return bathymetryData;
+        }
+        finally
         {
-            this.centerLat = centerLat;
-            this.centerLon = centerLon;
-            this.depth = depth;
+            file.close( );
+        }
+    }
+
+    public void writeCache( File cacheFile ) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile( cacheFile, "rw" );
+        try
+        {
+            file.setLength( 0 );
+
+            FileChannel channel = file.getChannel( );
+
+            ByteBuffer header = ByteBuffer.allocate( CACHE_HEADER_BYTES );
+            header.putInt( CACHE_MAGIC );
+            header.putInt( CACHE_VERSION );
+            header.putInt( imageWidth );
+            header.putInt( imageHeight );
+            header.putDouble( startLon );
+            header.putDouble( startLat );
+            header.putDouble( widthStep );
+            header.putDouble( heightStep );
+            header.flip( );
+            while ( header.hasRemaining( ) )
+                channel.write( header );
+
+            FloatBuffer values = getGrid( );
+            ByteBuffer block = ByteBuffer.allocate( 64 * 1024 );
+            FloatBuffer blockFloats = block.asFloatBuffer( );
+            while ( values.hasRemaining( ) )
+            {
+                int count = Math.min( values.remaining( ), blockFloats.capacity( ) );
+
+                FloatBuffer chunk = values.slice( );
+                chunk.limit( count );
+                blockFloats.clear( );
+                blockFloats.put( chunk );
+                values.position( values.position( ) + count );
+
+                block.clear( );
+                block.limit( count * 4 );
+                while ( block.hasRemaining( ) )
+                    channel.write( block );
+            }
+        }
+        finally
+        {
+            file.close( );
         }
     }
 
     protected void read( InputStream in, GeoProjection tp ) throws IOException
     {
-        BufferedReader reader = new BufferedReader( new InputStreamReader( in ) );
+        // read lines of the form: longitude latitude depth
+        FloatsArray lons = new FloatsArray( );
+        FloatsArray lats = new FloatsArray( );
+        FloatsArray depths = new FloatsArray( );
+
+        GridAxis lonAxis = new GridAxis( );
+        GridAxis latAxis = new GridAxis( );
 
-        // create a sorted set to store all the rows from the data input file of the form:
-        // latitude longitude depth
-        NavigableSet<Row> rows = new TreeSet<Row>( new Comparator<Row>( )
+        SampleReader reader = new SampleReader( in );
+        try
         {
-            @Override
-            public int compare( Row o1, Row o2 )
+            float[] sample = new float[3];
+            while ( reader.next( sample ) )
             {
-                int latComparison = Double.compare( o1.centerLat, o2.centerLat );
-                return ( latComparison != 0 ? latComparison : Double.compare( o1.centerLon, o2.centerLon ) );
+                float lon = sample[0];
+                float lat = sample[1];
+
+                lons.append( lon );
+                lats.append( lat );
+                depths.append( sample[2] );
+
+                lonAxis.add( lon );
+                latAxis.add( lat );
             }
-        } );
+        }
+        finally
+        {
+            in.close( );
+        }
 
-        // read lines from the input stream into the set
-        String line = null;
+        int n = lons.n;
 
-        while ( ( line = reader.readLine( ) ) != null )
+        // the grid spacing detected while reading is only trusted if every row and column is occupied,
+        // otherwise the image size is the number of unique values, as for an irregular grid
+        imageWidth = lonAxis.getSize( );
+        imageHeight = latAxis.getSize( );
+
+        if ( !lonAxis.isRegular( lons.a, n ) ) imageWidth = countUnique( lons.a, n );
+        if ( !latAxis.isRegular( lats.a, n ) ) imageHeight = countUnique( lats.a, n );
+
+        // the average step size moving along latitude and longitude
+        widthStep = ( lonAxis.max - lonAxis.min ) / ( imageWidth - 1 );
+        heightStep = ( latAxis.max - latAxis.min ) / ( imageHeight - 1 );
+
+        // find the lat and lon of the starting corner
+        startLon = lonAxis.min - 0.5 * widthStep;
+        startLat = latAxis.min - 0.5 * heightStep;
+
+        float[] values = new float[imageWidth * imageHeight];
+
+        // fill in reverse, so that the first sample for a cell wins if the input contains duplicates
+        for ( int i = n - 1; i >= 0; i-- )
         {
-            if ( line.trim( ).isEmpty( ) ) continue;
+            int x = ( int ) Math.floor( ( lons.a[i] - startLon ) / widthStep );
+            int y = ( int ) Math.floor( ( lats.a[i] - startLat ) / heightStep );
+
+            if ( x < 0 ) x = 0;
+            if ( x >= imageWidth ) x = imageWidth - 1;
+
+            if ( y < 0 ) y = 0;
+            if ( y >= imageHeight ) y = imageHeight - 1;
+
+            values[y * imageWidth + x] = depths.a[i];
+        }
 
-            String[] tokens = line.trim( ).split( "[ ]+" );
+        grid = FloatBuffer.wrap( values );
+    }
 
-            float lon = Float.parseFloat( tokens[0] );
-            float lat = Float.parseFloat( tokens[1] );
-            float depth = Float.parseFloat( tokens[2] );
+    protected static int countUnique( float[] values, int n )
+    {
+        float[] sorted = Arrays.copyOf( values, n );
+        Arrays.sort( sorted );
 
-            rows.add( new Row( lat, lon, depth ) );
+        int count = n > 0 ? 1 : 0;
+        for ( int i = 1; i < n; i++ )
+        {
+            if ( Float.compare( sorted[i], sorted[i - 1] ) != 0 ) count++;
         }
 
-        // create a set with only unique latitudes (in sorted order)
-        NavigableSet<Row> uniqueLatitudes = new TreeSet<Row>( new Comparator<Row>( )
+        return count;
+    }
+
+    /**
+     * Tracks the range of the values along one axis of the grid, and the smallest step between
+     * consecutive distinct values, which is the grid spacing if the samples lie on a regular grid.
+     */
+    protected static class GridAxis
+    {
+        protected float min = Float.POSITIVE_INFINITY;
+        protected float max = Float.NEGATIVE_INFINITY;
+        protected float step = Float.POSITIVE_INFINITY;
+        protected float prev = Float.NaN;
+
+        public void add( float v )
         {
-            @Override
-            public int compare( Row o1, Row o2 )
+            if ( v < min ) min = v;
+            if ( v > max ) max = v;
+
+            float delta = Math.abs( v - prev );
+            if ( delta > 0 && delta < step ) step = delta;
+
+            prev = v;
+        }
+
+        public int getSize( )
+        {
+            if ( max <= min || Float.isInfinite( step ) ) return 1;
+
+            return ( int ) Math.round( ( max - min ) / ( double ) step ) + 1;
+        }
+
+        /**
+         * @return whether every value lies close to the center of a cell, and every cell contains a value
+         */
+        public boolean isRegular( float[] values, int n )
+        {
+            int size = getSize( );
+            if ( size == 1 ) return max <= min;
+
+            double cellSize = ( max - min ) / ( double ) ( size - 1 );
+            double start = min - 0.5 * cellSize;
+
+            BitSet occupied = new BitSet( size );
+            for ( int i = 0; i < n; i++ )
             {
-                return Double.compare( o1.centerLat, o2.centerLat );
+                double cell = ( values[i] - start ) / cellSize;
+                int index = ( int ) Math.floor( cell );
+
+                if ( index < 0 || index >= size || Math.abs( cell - index - 0.5 ) > 0.25 ) return false;
+
+                occupied.set( index );
             }
-        } );
 
-        // create a set with only unique longitudes (in sorted order)
-        NavigableSet<Row> uniqueLongitudes = new TreeSet<Row>( new Comparator<Row>( )
+            return occupied.cardinality( ) == size;
+        }
+    }
+
+    /**
+     * Parses whitespace separated samples directly from bytes, without creating
+     * a String for each line or token.
+     */
+    protected static class SampleReader
+    {
+        private static final double[] POW10 = new double[23];
+
+        static
         {
-            @Override
-            public int compare( Row o1, Row o2 )
+            POW10[0] = 1;
+            for ( int i = 1; i < POW10.length; i++ )
+                POW10[i] = POW10[i - 1] * 10;
+        }
+
+        protected InputStream in;
+        protected byte[] buffer;
+        protected int position;
+        protected int limit;
+        protected int line;
+
+        public SampleReader( InputStream in )
+        {
+            this.in = in;
+            this.buffer = new byte[64 * 1024];
+        }
+
+        /**
+         * Reads the first three values on the next non-empty line. Any further values on the line are ignored.
+         *
+         * @return false if the end of the stream was reached
+         */
+        public boolean next( float[] sample ) throws IOException
+        {
+            while ( true )
             {
-                return Double.compare( o1.centerLon, o2.centerLon );
+                line++;
+
+                int count = 0;
+                int b;
+                while ( ( b = skipSpaces( ) ) != -1 && b != '\n' )
+                {
+                    if ( count < sample.length )
+                        sample[count] = parseToken( );
+                    else
+                        skipToken( );
+
+                    count++;
+                }
+
+                // consume the newline
+                if ( b != -1 ) position++;
+
+                if ( count >= sample.length ) return true;
+                if ( count > 0 ) throw new IOException( String.format( "Expected %d values on line %d, found %d.", sample.length, line, count ) );
+                if ( b == -1 ) return false;
             }
-        } );
+        }
 
-        uniqueLatitudes.addAll( rows );
-        uniqueLongitudes.addAll( rows );
+        // returns the next byte which is not whitespace (other than a newline) without consuming it
+        protected int skipSpaces( ) throws IOException
+        {
+            while ( true )
+            {
+                if ( position == limit && !fill( ) ) return -1;
+
+                byte b = buffer[position];
+                if ( b == '\n' ) return b;
+                if ( b > ' ' ) return b;
 
-        // retrieve the number of unique latitudes and longitudes from the sets
-        imageHeight = uniqueLatitudes.size( );
-        imageWidth = uniqueLongitudes.size( );
+                position++;
+            }
+        }
 
-        // calculate the average step size moving along latitude and longitude
-        widthStep = 0;
-        Row prevRow = null;
-        for ( Row row : uniqueLongitudes )
+        protected void skipToken( ) throws IOException
         {
-            if ( prevRow != null )
+            while ( ( position < limit || fill( ) ) && buffer[position] > ' ' )
             {
-                widthStep += row.centerLon - prevRow.centerLon;
+                position++;
             }
-
-            prevRow = row;
         }
-        widthStep = widthStep / ( uniqueLongitudes.size( ) - 1 );
 
-        heightStep = 0;
-        prevRow = null;
-        for ( Row row : uniqueLatitudes )
+        protected float parseToken( ) throws IOException
         {
-            if ( prevRow != null )
+            // make sure the whole token is in the buffer (fill( ) may move it)
+            int length = 0;
+            while ( true )
             {
-                heightStep += row.centerLat - prevRow.centerLat;
+                if ( position + length == limit )
+                {
+                    if ( !fill( ) ) break;
+                    continue;
+                }
+
+                if ( buffer[position + length] <= ' ' ) break;
+                length++;
             }
 
-            prevRow = row;
+            int start = position;
+            position += length;
+
+            return parseFloat( buffer, start, position );
         }
-        heightStep = heightStep / ( uniqueLatitudes.size( ) - 1 );
 
-        // find the lat and lon of the starting corner
-        startLon = uniqueLongitudes.first( ).centerLon - 0.5 * widthStep;
-        startLat = uniqueLatitudes.first( ).centerLat - 0.5 * heightStep;
+        // compacts the unconsumed bytes to the front of the buffer and reads more, returns false at the end of the stream
+        protected boolean fill( ) throws IOException
+        {
+            int remaining = limit - position;
 
-        data = new double[imageWidth][imageHeight];
+            if ( remaining == buffer.length ) buffer = Arrays.copyOf( buffer, buffer.length * 2 );
 
-        for ( Row row : rows )
+            System.arraycopy( buffer, position, buffer, 0, remaining );
+            position = 0;
+            limit = remaining;
+
+            int count = in.read( buffer, limit, buffer.length - limit );
+            if ( count <= 0 ) return false;
+
+            limit += count;
+            return true;
+        }
+
+        protected float parseFloat( byte[] bytes, int start, int end ) throws IOException
         {
-            int x = ( int ) Math.floor( ( row.centerLon - startLon ) / widthStep );
-            int y = ( int ) Math.floor( ( row.centerLat - startLat ) / heightStep );
+            int i = start;
+            boolean negative = false;
 
-            if ( x < 0 ) x = 0;
-            if ( x >= imageWidth ) x = imageWidth - 1;
+            if ( i < end && ( bytes[i] == '-' || bytes[i] == '+' ) )
+            {
+                negative = bytes[i] == '-';
+                i++;
+            }
 
-            if ( y < 0 ) y = 0;
-            if ( y >= imageHeight ) y = imageHeight - 1;
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = 0;
+            boolean fraction = false;
 
-            data[x][y] = row.depth;
+            for ( ; i < end; i++ )
+            {
+                byte b = bytes[i];
+
+                if ( b >= '0' && b <= '9' )
+                {
+                    mantissa = mantissa * 10 + ( b - '0' );
+                    digits++;
+                    if ( fraction ) fractionDigits++;
+                }
+                else if ( b == '.' && !fraction )
+                {
+                    fraction = true;
+                }
+                else
+                {
+                    break;
+                }
+            }
+
+            // exponents and long values are rare, leave them to the slow path
+            if ( i == end && digits > 0 && digits <= 15 && fractionDigits < POW10.length )
+            {
+                double value = mantissa / POW10[fractionDigits];
+                return ( float ) ( negative ? -value : value );
+            }
+
+            String token = new String( bytes, start, end - start, "US-ASCII" );
+            try
+            {
+                return Float.parseFloat( token );
+            }
+            catch ( NumberFormatException e )
+            {
+                throw new IOException( String.format( "Unable to parse value \"%s\" on line %d.", token, line ) );
+            }
         }
     }
 
+    /**
+     * @return a read-only view of the depths, indexed by y * imageWidth + x
+     */
+    public FloatBuffer getGrid( )
+    {
+        FloatBuffer view = grid.asReadOnlyBuffer( );
+        view.rewind( );
+        return view;
+    }
+
+    public float getDepth( int x, int y )
+    {
+        return grid.get( y * imageWidth + x );
+    }
+
     public FloatTextureProjected2D getTexture( )
     {
         // create an OpenGL texture wrapper object
@@ -196,7 +558,15 @@ public class BathymetryData
         Projection projection = getProjection( );
 
         texture.setProjection( projection );
-        texture.setData( data );
+        texture.mutate( new MutatorFloat2D( )
+        {
+            @Override
+            public void mutate( FloatBuffer data, int dataSizeX, int dataSizeY )
+            {
+                data.clear( );
+                data.put( getGrid( ) );
+            }
+        } );
 
         return texture;
     }
@@ -280,8 +650,25 @@ public class BathymetryData
         return Math.max( swCorner.getY( ), neCorner.getY( ) );
     }
 
-    public double[][] getData( )
+    /**
+     * @return the depths as a double[imageWidth][imageHeight] array, which is created on the first call
+     */
+    public synchronized double[][] getData( )
     {
+        if ( data == null )
+        {
+            data = new double[imageWidth][imageHeight];
+
+            FloatBuffer values = getGrid( );
+            for ( int y = 0; y < imageHeight; y++ )
+            {
+                for ( int x = 0; x < imageWidth; x++ )
+                {
+                    data[x][y] = values.get( );
+                }
+            }
+        }
+
         return data;
     }
 }
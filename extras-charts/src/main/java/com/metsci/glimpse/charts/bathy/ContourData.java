@@ -26,46 +26,457 @@
  */
 package com.metsci.glimpse.charts.bathy;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.metsci.glimpse.util.geo.LatLonGeo;
 import com.metsci.glimpse.util.geo.projection.GeoProjection;
+import com.metsci.glimpse.util.primitives.DoublesArray;
+import com.metsci.glimpse.util.vector.Vector2d;
 
 /**
+ * Computes contour lines from bathymetry data using {@link Conrec}.<p>
+ *
+ * The grid is split into square tiles which are contoured concurrently. The line segments from all
+ * tiles are then joined into polylines for each contour level (also concurrently, one task per level).
+ * Adjacent tiles compute identical crossing points along their shared edges, so contours which cross
+ * tile boundaries are stitched back together. Each vertex is projected only once.<p>
+ *
+ * Polylines can be simplified for zoomed out views, see {@link #simplify(double)} and
+ * {@link ContourPainter#ContourPainter(ContourData, double[])}.
+ *
  * @author ulman
  */
 public class ContourData
 {
-    private RecordVertices contours;
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    private static final AtomicInteger threadCount = new AtomicInteger( );
+
+    protected ContourLines[] lines;
 
     public ContourData( BathymetryData bathymetryData, GeoProjection tp, double[] levels )
+    {
+        this( bathymetryData, tp, levels, Runtime.getRuntime( ).availableProcessors( ) );
+    }
+
+    /**
+     * @param threads the number of threads used to compute the contours
+     */
+    public ContourData( BathymetryData bathymetryData, GeoProjection tp, double[] levels, int threads )
+    {
+        ExecutorService executor = newContourExecutor( threads );
+        try
+        {
+            this.lines = contour( bathymetryData, tp, levels, executor, DEFAULT_TILE_SIZE );
+        }
+        finally
+        {
+            executor.shutdown( );
+        }
+    }
+
+    /**
+     * @param executor runs the contouring tasks, it is not shut down
+     * @param tileSize the width and height, in grid cells, of each contouring task
+     */
+    public ContourData( BathymetryData bathymetryData, GeoProjection tp, double[] levels, ExecutorService executor, int tileSize )
+    {
+        this.lines = contour( bathymetryData, tp, levels, executor, tileSize );
+    }
+
+    protected ContourData( ContourLines[] lines )
+    {
+        this.lines = lines;
+    }
+
+    public static ExecutorService newContourExecutor( int threads )
+    {
+        return Executors.newFixedThreadPool( Math.max( 1, threads ), new ThreadFactory( )
+        {
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable );
+                thread.setName( "contour-" + threadCount.incrementAndGet( ) );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+    }
+
+    protected ContourLines[] contour( BathymetryData bathymetryData, final GeoProjection tp, final double[] levels, ExecutorService executor, int tileSize )
     {
         // sort the levels array
         Arrays.sort( levels );
 
-        contours = new RecordVertices( tp );
+        if ( levels.length == 0 ) return new ContourLines[0];
+
+        final double[][] bathyData = bathymetryData.getData( );
+        final double[] longitudes = getLongitudes( bathymetryData );
+        final double[] latitudes = getLatitudes( bathymetryData );
+        int sizeX = bathyData.length;
+        int sizeY = bathyData[0].length;
 
         try
         {
-            Conrec contourCalculator = new Conrec( contours );
-            double[][] bathyData = bathymetryData.getData( );
-            int sizeX = bathyData.length;
-            int sizeY = bathyData[0].length;
-            contourCalculator.contour( bathyData, 0, sizeX - 1, 0, sizeY - 1, getLongitudes( bathymetryData ), getLatitudes( bathymetryData ), levels.length, levels );
+            // contour each tile of grid cells, collecting the line segments for each level separately
+            List<Future<DoublesArray[]>> tileFutures = new ArrayList<Future<DoublesArray[]>>( );
+            for ( int j0 = 0; j0 < sizeY - 1; j0 += tileSize )
+            {
+                for ( int i0 = 0; i0 < sizeX - 1; i0 += tileSize )
+                {
+                    final int ilb = i0;
+                    final int jlb = j0;
+                    final int iub = Math.min( i0 + tileSize, sizeX - 1 );
+                    final int jub = Math.min( j0 + tileSize, sizeY - 1 );
+
+                    tileFutures.add( executor.submit( new Callable<DoublesArray[]>( )
+                    {
+                        @Override
+                        public DoublesArray[] call( ) throws Exception
+                        {
+                            SegmentRecorder recorder = new SegmentRecorder( levels );
+                            new Conrec( recorder ).contour( bathyData, ilb, iub, jlb, jub, longitudes, latitudes, levels.length, levels );
+                            return recorder.segments;
+                        }
+                    } ) );
+                }
+            }
+
+            final DoublesArray[] segments = new DoublesArray[levels.length];
+            for ( int k = 0; k < levels.length; k++ )
+            {
+                segments[k] = new DoublesArray( );
+            }
+
+            for ( Future<DoublesArray[]> future : tileFutures )
+            {
+                DoublesArray[] tileSegments = future.get( );
+                for ( int k = 0; k < levels.length; k++ )
+                {
+                    segments[k].append( tileSegments[k] );
+                }
+            }
+
+            // join the segments for each level into polylines
+            List<Future<ContourLines>> levelFutures = new ArrayList<Future<ContourLines>>( );
+            for ( int k = 0; k < levels.length; k++ )
+            {
+                final int level = k;
+
+                levelFutures.add( executor.submit( new Callable<ContourLines>( )
+                {
+                    @Override
+                    public ContourLines call( ) throws Exception
+                    {
+                        ContourLines result = stitch( levels[level], segments[level], tp );
+                        segments[level] = null;
+                        return result;
+                    }
+                } ) );
+            }
+
+            ContourLines[] lines = new ContourLines[levels.length];
+            for ( int k = 0; k < levels.length; k++ )
+            {
+                lines[k] = levelFutures.get( k ).get( );
+            }
+
+            return lines;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new RuntimeException( "Interrupted while computing contours.", e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new RuntimeException( "Unable to compute contours.", e.getCause( ) );
+        }
+    }
+
+    /**
+     * Records the segments emitted by Conrec as x1, y1, x2, y2 quadruples, one array per level.
+     */
+    protected static class SegmentRecorder implements Render
+    {
+        protected double[] levels;
+        protected DoublesArray[] segments;
+
+        public SegmentRecorder( double[] levels )
+        {
+            this.levels = levels;
+            this.segments = new DoublesArray[levels.length];
+
+            for ( int k = 0; k < levels.length; k++ )
+            {
+                segments[k] = new DoublesArray( );
+            }
+        }
+
+        @Override
+        public void drawContour( double startX, double startY, double endX, double endY, double contourLevel )
+        {
+            // Conrec passes the level values themselves, so they can be found exactly
+            DoublesArray array = segments[Arrays.binarySearch( levels, contourLevel )];
+
+            array.append( startX );
+            array.append( startY );
+            array.append( endX );
+            array.append( endY );
+        }
+    }
+
+    /**
+     * Joins line segments which share endpoints into polylines, and projects their vertices.
+     * Polylines end wherever a vertex is not shared by exactly two segments.
+     *
+     * @param segments x1, y1, x2, y2 quadruples, in degrees of longitude and latitude
+     */
+    protected static ContourLines stitch( double level, DoublesArray segments, GeoProjection projection )
+    {
+        int numSegments = segments.n / 4;
+
+        // assign an id to each distinct endpoint
+        VertexIndex vertices = new VertexIndex( 2 * numSegments );
+        int[] segmentStart = new int[numSegments];
+        int[] segmentEnd = new int[numSegments];
+
+        for ( int s = 0; s < numSegments; s++ )
+        {
+            segmentStart[s] = vertices.getId( segments.a[4 * s], segments.a[4 * s + 1] );
+            segmentEnd[s] = vertices.getId( segments.a[4 * s + 2], segments.a[4 * s + 3] );
+        }
+
+        int numVertices = vertices.size( );
+
+        // build the list of segments touching each vertex, ignoring degenerate segments
+        int[] degree = new int[numVertices];
+        for ( int s = 0; s < numSegments; s++ )
+        {
+            if ( segmentStart[s] == segmentEnd[s] ) continue;
+
+            degree[segmentStart[s]]++;
+            degree[segmentEnd[s]]++;
+        }
+
+        int[] firstIncident = new int[numVertices + 1];
+        for ( int v = 0; v < numVertices; v++ )
+        {
+            firstIncident[v + 1] = firstIncident[v] + degree[v];
+        }
+
+        int[] incident = new int[firstIncident[numVertices]];
+        int[] fill = Arrays.copyOf( firstIncident, numVertices );
+        for ( int s = 0; s < numSegments; s++ )
+        {
+            if ( segmentStart[s] == segmentEnd[s] ) continue;
+
+            incident[fill[segmentStart[s]]++] = s;
+            incident[fill[segmentEnd[s]]++] = s;
+        }
+
+        // project each vertex once
+        float[] projectedX = new float[numVertices];
+        float[] projectedY = new float[numVertices];
+        for ( int v = 0; v < numVertices; v++ )
+        {
+            Vector2d vertex = projection.project( LatLonGeo.fromDeg( vertices.getY( v ), vertices.getX( v ) ) );
+            projectedX[v] = ( float ) vertex.getX( );
+            projectedY[v] = ( float ) vertex.getY( );
+        }
+
+        ContourLines lines = new ContourLines( level );
+        boolean[] used = new boolean[numSegments];
+
+        // open polylines start at vertices which are not shared by exactly two segments
+        for ( int v = 0; v < numVertices; v++ )
+        {
+            if ( degree[v] == 2 ) continue;
+
+            for ( int i = firstIncident[v]; i < firstIncident[v + 1]; i++ )
+            {
+                if ( !used[incident[i]] ) walk( v, incident[i], lines, segmentStart, segmentEnd, degree, firstIncident, incident, used, projectedX, projectedY );
+            }
+        }
+
+        // everything left forms closed loops
+        for ( int s = 0; s < numSegments; s++ )
+        {
+            if ( !used[s] && segmentStart[s] != segmentEnd[s] ) walk( segmentStart[s], s, lines, segmentStart, segmentEnd, degree, firstIncident, incident, used, projectedX, projectedY );
+        }
+
+        return lines;
+    }
+
+    protected static void walk( int v, int s, ContourLines lines, int[] segmentStart, int[] segmentEnd, int[] degree, int[] firstIncident, int[] incident, boolean[] used, float[] projectedX, float[] projectedY )
+    {
+        lines.startLine( );
+        lines.addVertex( projectedX[v], projectedY[v] );
+
+        while ( true )
+        {
+            used[s] = true;
+
+            int w = segmentStart[s] == v ? segmentEnd[s] : segmentStart[s];
+            lines.addVertex( projectedX[w], projectedY[w] );
+
+            if ( degree[w] != 2 ) return;
+
+            int next = incident[firstIncident[w]] == s ? incident[firstIncident[w] + 1] : incident[firstIncident[w]];
+
+            // back at the start of a closed loop
+            if ( used[next] ) return;
+
+            v = w;
+            s = next;
+        }
+    }
+
+    /**
+     * An open addressing hash table assigning consecutive ids to distinct points.
+     */
+    protected static class VertexIndex
+    {
+        protected double[] xs;
+        protected double[] ys;
+        protected int[] table;
+        protected int size;
+
+        public VertexIndex( int expectedSize )
+        {
+            int capacity = Integer.highestOneBit( Math.max( 16, expectedSize ) * 2 - 1 ) * 2;
+
+            xs = new double[expectedSize];
+            ys = new double[expectedSize];
+            table = new int[capacity];
+            Arrays.fill( table, -1 );
+        }
+
+        public int size( )
+        {
+            return size;
+        }
+
+        public double getX( int id )
+        {
+            return xs[id];
+        }
+
+        public double getY( int id )
+        {
+            return ys[id];
+        }
+
+        public int getId( double x, double y )
+        {
+            // normalize negative zero, so that it matches positive zero
+            x += 0.0;
+            y += 0.0;
+
+            long bits = Double.doubleToLongBits( x ) * 31 + Double.doubleToLongBits( y );
+            int hash = ( int ) ( bits ^ ( bits >>> 32 ) );
+            hash ^= ( hash >>> 16 );
+
+            int mask = table.length - 1;
+            for ( int slot = hash & mask;; slot = ( slot + 1 ) & mask )
+            {
+                int id = table[slot];
+
+                if ( id < 0 )
+                {
+                    if ( size == xs.length )
+                    {
+                        xs = Arrays.copyOf( xs, Math.max( 16, 2 * size ) );
+                        ys = Arrays.copyOf( ys, xs.length );
+                    }
+
+                    xs[size] = x;
+                    ys[size] = y;
+                    table[slot] = size;
+                    return size++;
+                }
+
+                if ( xs[id] == x && ys[id] == y ) return id;
+            }
+        }
+    }
+
+    /**
+     * @return a copy of these contours with each polyline simplified to within the given
+     *         tolerance (in projected units), see {@link ContourLines#simplify(double)}
+     */
+    public ContourData simplify( double tolerance )
+    {
+        ContourLines[] simplified = new ContourLines[lines.length];
+        for ( int k = 0; k < lines.length; k++ )
+        {
+            simplified[k] = lines[k].simplify( tolerance );
         }
-        catch ( Exception e1 )
+
+        return new ContourData( simplified );
+    }
+
+    public int getLevelCount( )
+    {
+        return lines.length;
+    }
+
+    public ContourLines getLines( int levelIndex )
+    {
+        return lines[levelIndex];
+    }
+
+    public int getSegmentCount( )
+    {
+        int count = 0;
+        for ( ContourLines level : lines )
         {
-            e1.printStackTrace( );
+            count += level.getSegmentCount( );
         }
+
+        return count;
     }
 
+    /**
+     * @return the x coordinates of the endpoints of every contour line segment, in the form expected by GL_LINES
+     */
     public float[] getCoordsX( )
     {
-        return contours.getCoordsX( );
+        float[] coordsX = new float[2 * getSegmentCount( )];
+        float[] coordsY = new float[coordsX.length];
+        appendSegments( coordsX, coordsY );
+        return coordsX;
     }
 
+    /**
+     * @return the y coordinates of the endpoints of every contour line segment, in the form expected by GL_LINES
+     */
     public float[] getCoordsY( )
     {
-        return contours.getCoordsY( );
+        float[] coordsX = new float[2 * getSegmentCount( )];
+        float[] coordsY = new float[coordsX.length];
+        appendSegments( coordsX, coordsY );
+        return coordsY;
+    }
+
+    protected void appendSegments( float[] coordsX, float[] coordsY )
+    {
+        int offset = 0;
+        for ( ContourLines level : lines )
+        {
+            level.appendSegments( coordsX, coordsY, offset );
+            offset += 2 * level.getSegmentCount( );
+        }
     }
 
     protected double[] getLatitudes( BathymetryData bathymetryDataSet )
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.charts.bathy;
+
+import com.metsci.glimpse.util.primitives.FloatsArray;
+import com.metsci.glimpse.util.primitives.IntsArray;
+
+/**
+ * The contour lines for a single contour level, stored as polylines in projected coordinates.
+ * The vertices of all polylines are stored back to back, and polyline i contains the vertices
+ * with indices in [getLineStart( i ), getLineEnd( i )).
+ *
+ * @see ContourData
+ */
+public class ContourLines
+{
+    protected double level;
+
+    protected FloatsArray xs;
+    protected FloatsArray ys;
+
+    // index of the first vertex of each polyline
+    protected IntsArray starts;
+
+    public ContourLines( double level )
+    {
+        this.level = level;
+        this.xs = new FloatsArray( );
+        this.ys = new FloatsArray( );
+        this.starts = new IntsArray( );
+    }
+
+    public double getLevel( )
+    {
+        return level;
+    }
+
+    public int getLineCount( )
+    {
+        return starts.n;
+    }
+
+    public int getLineStart( int line )
+    {
+        return starts.a[line];
+    }
+
+    public int getLineEnd( int line )
+    {
+        return line + 1 < starts.n ? starts.a[line + 1] : xs.n;
+    }
+
+    public int getVertexCount( )
+    {
+        return xs.n;
+    }
+
+    public float getX( int vertex )
+    {
+        return xs.a[vertex];
+    }
+
+    public float getY( int vertex )
+    {
+        return ys.a[vertex];
+    }
+
+    /**
+     * @return the number of line segments in all polylines
+     */
+    public int getSegmentCount( )
+    {
+        return xs.n - starts.n;
+    }
+
+    public void startLine( )
+    {
+        starts.append( xs.n );
+    }
+
+    public void addVertex( float x, float y )
+    {
+        xs.append( x );
+        ys.append( y );
+    }
+
+    /**
+     * Appends the endpoints of every line segment, in the form expected by GL_LINES.
+     */
+    public void appendSegments( float[] segmentsX, float[] segmentsY, int offset )
+    {
+        for ( int line = 0; line < starts.n; line++ )
+        {
+            int end = getLineEnd( line );
+            for ( int i = starts.a[line] + 1; i < end; i++ )
+            {
+                segmentsX[offset] = xs.a[i - 1];
+                segmentsY[offset] = ys.a[i - 1];
+                offset++;
+
+                segmentsX[offset] = xs.a[i];
+                segmentsY[offset] = ys.a[i];
+                offset++;
+            }
+        }
+    }
+
+    /**
+     * Simplifies each polyline using the Douglas-Peucker algorithm: vertices are removed as long as
+     * the simplified line stays within the given distance (in projected units) of the original.
+     * The endpoints of each polyline are always kept, so closed contours remain closed.
+     */
+    public ContourLines simplify( double tolerance )
+    {
+        ContourLines simplified = new ContourLines( level );
+
+        boolean[] keep = new boolean[xs.n];
+        IntsArray stack = new IntsArray( );
+        double toleranceSquared = tolerance * tolerance;
+
+        for ( int line = 0; line < starts.n; line++ )
+        {
+            int start = starts.a[line];
+            int last = getLineEnd( line ) - 1;
+
+            keep[start] = true;
+            keep[last] = true;
+
+            stack.append( start );
+            stack.append( last );
+
+            while ( stack.n > 0 )
+            {
+                int b = stack.a[--stack.n];
+                int a = stack.a[--stack.n];
+
+                int farthest = -1;
+                double farthestDistance = toleranceSquared;
+
+                for ( int i = a + 1; i < b; i++ )
+                {
+                    double distance = distanceSquared( i, a, b );
+                    if ( distance > farthestDistance )
+                    {
+                        farthest = i;
+                        farthestDistance = distance;
+                    }
+                }
+
+                if ( farthest >= 0 )
+                {
+                    keep[farthest] = true;
+
+                    stack.append( a );
+                    stack.append( farthest );
+                    stack.append( farthest );
+                    stack.append( b );
+                }
+            }
+
+            simplified.startLine( );
+            for ( int i = start; i <= last; i++ )
+            {
+                if ( keep[i] ) simplified.addVertex( xs.a[i], ys.a[i] );
+            }
+        }
+
+        return simplified;
+    }
+
+    // squared distance from vertex i to the segment between vertices a and b
+    protected double distanceSquared( int i, int a, int b )
+    {
+        double ax = xs.a[a];
+        double ay = ys.a[a];
+        double dx = xs.a[b] - ax;
+        double dy = ys.a[b] - ay;
+        double px = xs.a[i] - ax;
+        double py = ys.a[i] - ay;
+
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared > 0 ? ( px * dx + py * dy ) / lengthSquared : 0;
+        if ( t < 0 ) t = 0;
+        if ( t > 1 ) t = 1;
+
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+
+        return ex * ex + ey * ey;
+    }
+}
@@ -27,6 +27,7 @@
 package com.metsci.glimpse.charts.bathy;
 
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 
 import javax.media.opengl.GL;
 import javax.media.opengl.GLContext;
@@ -38,6 +39,12 @@ import com.metsci.glimpse.painter.base.GlimpsePainter2D;
 import com.sun.opengl.util.BufferUtil;
 
 /**
+ * Draws contour lines computed by {@link ContourData}.<p>
+ *
+ * Optionally, simplified versions of the contours can be provided for zoomed out views. The
+ * simplified version with the largest tolerance which is still smaller than
+ * {@link #setLodPixelTolerance(float)} screen pixels is drawn.
+ *
  * @author ulman
  */
 public class ContourPainter extends GlimpsePainter2D
@@ -54,11 +61,40 @@ public class ContourPainter extends GlimpsePainter2D
     protected FloatBuffer dataBuffer;
     protected int totalPointCount;
 
+    // simplified versions of the contours, in order of increasing tolerance
+    protected double[] lodTolerances;
+    protected FloatBuffer[] lodBuffers;
+    protected int[] lodPointCounts;
+    protected float lodPixelTolerance = 0.5f;
+
     public ContourPainter( ContourData data )
     {
         this( data.getCoordsX( ), data.getCoordsY( ) );
     }
 
+    /**
+     * @param lodTolerances the tolerances, in projected units, of the simplified versions of
+     *        the contours used when zoomed out (see {@link ContourData#simplify(double)})
+     */
+    public ContourPainter( ContourData data, double[] lodTolerances )
+    {
+        this( data );
+
+        this.lodTolerances = lodTolerances.clone( );
+        Arrays.sort( this.lodTolerances );
+
+        int lodCount = this.lodTolerances.length;
+        this.lodBuffers = new FloatBuffer[lodCount];
+        this.lodPointCounts = new int[lodCount];
+
+        for ( int i = 0; i < lodCount; i++ )
+        {
+            ContourData simplified = data.simplify( this.lodTolerances[i] );
+            this.lodPointCounts[i] = 2 * simplified.getSegmentCount( );
+            this.lodBuffers[i] = toBuffer( simplified.getCoordsX( ), simplified.getCoordsY( ), this.lodPointCounts[i] );
+        }
+    }
+
     public ContourPainter( float[] coordsX, float[] coordsY )
     {
         this.coordsX = coordsX;
@@ -66,12 +102,49 @@ public class ContourPainter extends GlimpsePainter2D
 
         int size = Math.min( coordsX.length, coordsY.length );
         this.totalPointCount = size;
-        this.dataBuffer = BufferUtil.newFloatBuffer( size * 2 );
+        this.dataBuffer = toBuffer( coordsX, coordsY, size );
+
+        this.lodTolerances = new double[0];
+        this.lodBuffers = new FloatBuffer[0];
+        this.lodPointCounts = new int[0];
+    }
+
+    protected static FloatBuffer toBuffer( float[] coordsX, float[] coordsY, int size )
+    {
+        FloatBuffer buffer = BufferUtil.newFloatBuffer( size * 2 );
 
         for ( int i = 0; i < size; i++ )
         {
-            this.dataBuffer.put( coordsX[i] ).put( coordsY[i] );
+            buffer.put( coordsX[i] ).put( coordsY[i] );
         }
+
+        return buffer;
+    }
+
+    /**
+     * Sets how far, in pixels, drawn contours may stray from the full resolution contours. Larger
+     * values allow coarser simplified versions to be drawn. Has no effect unless simplified versions
+     * were provided when the painter was constructed.
+     */
+    public void setLodPixelTolerance( float pixels )
+    {
+        this.lodPixelTolerance = pixels;
+    }
+
+    // returns 0 for the full resolution contours, or i + 1 for the simplified version i
+    protected int chooseLod( GlimpseBounds bounds, Axis2D axis )
+    {
+        double unitsPerPixelX = ( axis.getMaxX( ) - axis.getMinX( ) ) / Math.max( 1, bounds.getWidth( ) );
+        double unitsPerPixelY = ( axis.getMaxY( ) - axis.getMinY( ) ) / Math.max( 1, bounds.getHeight( ) );
+        double tolerance = Math.min( unitsPerPixelX, unitsPerPixelY ) * lodPixelTolerance;
+
+        int lod = 0;
+        for ( int i = 0; i < lodTolerances.length; i++ )
+        {
+            if ( lodTolerances[i] <= tolerance ) lod = i + 1;
+        }
+
+        return lod;
     }
 
     @Override
@@ -81,20 +154,28 @@ public class ContourPainter extends GlimpsePainter2D
 
         if ( !initialized )
         {
-            bufferHandle = new int[1];
-            gl.glGenBuffers( 1, bufferHandle, 0 );
-
-            gl.glBindBuffer( GL.GL_ARRAY_BUFFER, bufferHandle[0] );
+            bufferHandle = new int[1 + lodBuffers.length];
+            gl.glGenBuffers( bufferHandle.length, bufferHandle, 0 );
 
             // copy data from the host memory buffer to the device
+            gl.glBindBuffer( GL.GL_ARRAY_BUFFER, bufferHandle[0] );
             gl.glBufferData( GL.GL_ARRAY_BUFFER, totalPointCount * 2 * BYTES_PER_FLOAT, dataBuffer.rewind( ), GL.GL_STATIC_DRAW );
 
+            for ( int i = 0; i < lodBuffers.length; i++ )
+            {
+                gl.glBindBuffer( GL.GL_ARRAY_BUFFER, bufferHandle[i + 1] );
+                gl.glBufferData( GL.GL_ARRAY_BUFFER, lodPointCounts[i] * 2 * BYTES_PER_FLOAT, lodBuffers[i].rewind( ), GL.GL_STATIC_DRAW );
+            }
+
             glHandleError( gl );
 
             initialized = true;
         }
 
-        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, bufferHandle[0] );
+        int lod = chooseLod( bounds, axis );
+        int pointCount = lod == 0 ? totalPointCount : lodPointCounts[lod - 1];
+
+        gl.glBindBuffer( GL.GL_ARRAY_BUFFER, bufferHandle[lod] );
         gl.glVertexPointer( 2, GL.GL_FLOAT, 0, 0 );
         gl.glEnableClientState( GL.GL_VERTEX_ARRAY );
 
@@ -109,7 +190,7 @@ public class ContourPainter extends GlimpsePainter2D
         gl.glBlendFunc( GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA );
         gl.glEnable( GL.GL_BLEND );
 
-        gl.glDrawArrays( GL.GL_LINES, 0, totalPointCount );
+        gl.glDrawArrays( GL.GL_LINES, 0, pointCount );
 
         gl.glDisable( GL.GL_BLEND );
         gl.glDisable( GL.GL_LINE_SMOOTH );
@@ -135,7 +216,7 @@ public class ContourPainter extends GlimpsePainter2D
     {
         if ( initialized )
         {
-            context.getGL( ).glDeleteBuffers( 1, bufferHandle, 0 );
+            context.getGL( ).glDeleteBuffers( bufferHandle.length, bufferHandle, 0 );
         }
     }
 }
@@ -26,7 +26,9 @@
  */
 package com.metsci.glimpse.charts.vector.painter;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -40,6 +42,7 @@ import com.metsci.glimpse.charts.vector.display.ContentHandler;
 import com.metsci.glimpse.charts.vector.display.GeoContext;
 import com.metsci.glimpse.charts.vector.display.Skin;
 import com.metsci.glimpse.charts.vector.parser.GeoReader;
+import com.metsci.glimpse.charts.vector.parser.IndexedGeoReader;
 import com.metsci.glimpse.charts.vector.parser.objects.GeoObject;
 import com.metsci.glimpse.context.GlimpseBounds;
 import com.metsci.glimpse.context.GlimpseContext;
@@ -53,6 +56,7 @@ import com.metsci.glimpse.painter.track.TrackPainter;
 import com.metsci.glimpse.support.settings.LookAndFeel;
 import com.metsci.glimpse.util.geo.LatLonGeo;
 import com.metsci.glimpse.util.geo.projection.GeoProjection;
+import com.metsci.glimpse.util.primitives.IntsArray;
 
 
 /**
@@ -104,6 +108,21 @@ public class EncChartPainter<V extends GeoObject> extends GlimpsePainter2D
 
     private DelegatePainter delegate;
 
+    /**
+     * Source of enc objects which are loaded on demand as they come into view.
+     */
+    private IndexedGeoReader<V> indexedReader;
+    /**
+     * Indexes of the objects from indexedReader which have already been added.
+     */
+    private BitSet indexedLoaded;
+    /**
+     * Fraction of the view width and height also loaded on each side of the view.
+     */
+    private double indexedPadding = 0.25;
+    private double[] indexedLoadedBox;
+    private final Object indexedLock = new Object( );
+
 
     public EncChartPainter( GeoProjection projection, Skin<V> skin )
     {
@@ -172,6 +191,8 @@ public class EncChartPainter<V extends GeoObject> extends GlimpsePainter2D
         double viewLevel = determineViewLevel( axis );
         annotationPainters.setPainterVisibilityAtViewLevel( viewLevel );
 
+        loadIndexedObjects( axis );
+
         delegate.paintTo( context );
 //        super.paintTo( context );
     }
@@ -186,6 +207,43 @@ public class EncChartPainter<V extends GeoObject> extends GlimpsePainter2D
         {
             skin.reset( );
         }
+
+        synchronized ( indexedLock )
+        {
+            if ( indexedLoaded != null ) indexedLoaded.clear( );
+            indexedLoadedBox = null;
+        }
+    }
+
+    /**
+     * Draws the objects in an indexed chart file. Rather than decoding the whole file, only
+     * objects whose bounding box intersects the current view (plus padding) are loaded. More
+     * are loaded as the view pans; objects are never unloaded, except by {@link #clearAll()}.
+     * Loaded objects are shown or hidden by zoom level exactly as objects added with
+     * {@link #addENCObject(GeoObject)} are: the index's scale minimum is not used, because
+     * it is the raw ScaleMinimum attribute, and most content handlers ignore it.
+     */
+    public void setIndexedReader( IndexedGeoReader<V> reader )
+    {
+        synchronized ( indexedLock )
+        {
+            this.indexedReader = reader;
+            this.indexedLoaded = reader == null ? null : new BitSet( reader.size( ) );
+            this.indexedLoadedBox = null;
+        }
+    }
+
+    public IndexedGeoReader<V> getIndexedReader( )
+    {
+        return indexedReader;
+    }
+
+    /**
+     * @param padding fraction of the view width and height to load beyond each edge of the view
+     */
+    public void setIndexedPadding( double padding )
+    {
+        this.indexedPadding = padding;
     }
 
     public void changeSkins( Iterator<V> encIterator, List<Skin<V>> skins ) throws Exception
@@ -252,6 +310,68 @@ public class EncChartPainter<V extends GeoObject> extends GlimpsePainter2D
         this.zoomAdjustDisplay = enable;
     }
 
+    private void loadIndexedObjects( Axis2D axis )
+    {
+        synchronized ( indexedLock )
+        {
+            if ( indexedReader == null ) return;
+
+            double minX = axis.getAxisX( ).getMin( );
+            double maxX = axis.getAxisX( ).getMax( );
+            double minY = axis.getAxisY( ).getMin( );
+            double maxY = axis.getAxisY( ).getMax( );
+            double padX = ( maxX - minX ) * indexedPadding;
+            double padY = ( maxY - minY ) * indexedPadding;
+
+            double[] box = new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+            includeCorner( box, minX - padX, minY - padY );
+            includeCorner( box, minX - padX, maxY + padY );
+            includeCorner( box, maxX + padX, minY - padY );
+            includeCorner( box, maxX + padX, maxY + padY );
+
+            // nothing new can come into view unless the view leaves the padded box already loaded
+            if ( indexedLoadedBox != null && containsView( indexedLoadedBox, axis ) ) return;
+
+            IntsArray indexes = indexedReader.query( box[0], box[1], box[2], box[3] );
+            try
+            {
+                for ( int i = 0; i < indexes.n; i++ )
+                {
+                    int index = indexes.a[i];
+                    if ( indexedLoaded.get( index ) ) continue;
+
+                    addENCObject( indexedReader.get( index ) );
+                    indexedLoaded.set( index );
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( e );
+            }
+
+            indexedLoadedBox = box;
+        }
+    }
+
+    private void includeCorner( double[] box, double x, double y )
+    {
+        LatLonGeo latLon = projection.unproject( x, y );
+        box[0] = Math.min( box[0], latLon.getLonDeg( ) );
+        box[1] = Math.min( box[1], latLon.getLatDeg( ) );
+        box[2] = Math.max( box[2], latLon.getLonDeg( ) );
+        box[3] = Math.max( box[3], latLon.getLatDeg( ) );
+    }
+
+    private boolean containsView( double[] box, Axis2D axis )
+    {
+        double[] view = new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        includeCorner( view, axis.getAxisX( ).getMin( ), axis.getAxisY( ).getMin( ) );
+        includeCorner( view, axis.getAxisX( ).getMin( ), axis.getAxisY( ).getMax( ) );
+        includeCorner( view, axis.getAxisX( ).getMax( ), axis.getAxisY( ).getMin( ) );
+        includeCorner( view, axis.getAxisX( ).getMax( ), axis.getAxisY( ).getMax( ) );
+        return view[0] >= box[0] && view[1] >= box[1] && view[2] <= box[2] && view[3] <= box[3];
+    }
+
     private double determineViewLevel( Axis2D axis )
     {
         if ( !zoomAdjustDisplay )
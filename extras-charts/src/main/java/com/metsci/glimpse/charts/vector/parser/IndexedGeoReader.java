@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.charts.vector.parser;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.metsci.glimpse.charts.vector.iteration.DNCObjectLoader;
+import com.metsci.glimpse.charts.vector.iteration.ENCObjectLoader;
+import com.metsci.glimpse.charts.vector.iteration.GeoFilterableRecordList;
+import com.metsci.glimpse.charts.vector.iteration.GeoRecordListForStream;
+import com.metsci.glimpse.charts.vector.iteration.StreamToGeoObjectConverter;
+import com.metsci.glimpse.charts.vector.iteration.UncheckedIOException;
+import com.metsci.glimpse.charts.vector.parser.objects.DNCObject;
+import com.metsci.glimpse.charts.vector.parser.objects.ENCObject;
+import com.metsci.glimpse.charts.vector.parser.objects.GeoObject;
+import com.metsci.glimpse.util.primitives.IntsArray;
+
+
+/**
+ * Random access reader for chart files written by {@link IndexedGeoWriter}.
+ *
+ * The file is memory mapped and only its index (feature type, lon/lat bounding
+ * box, scale minimum and byte range of each object) is read up front. Objects
+ * are decoded from the mapped bytes each time they are requested, so callers
+ * that only need the features inside a view never pay for the rest of the chart.
+ *
+ * File layout (big endian):
+ * <pre>
+ *   header:  int magic, int version, int count, int entrySize, long indexOffset
+ *   data:    objects in the format written by ENCObject/DNCObject.write
+ *   index:   per object: int featureOrdinal, int scaleMin,
+ *            double minLon, double minLat, double maxLon, double maxLat,
+ *            long offset, int length
+ * </pre>
+ *
+ * @see IndexedGeoWriter
+ */
+public class IndexedGeoReader<V extends GeoObject> implements GeoReader<V> {
+
+    public static final int MAGIC = 0x47454F49;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+    public static final int ENTRY_SIZE = 52;
+
+    /**
+     * Value stored in the index for objects without a scale minimum attribute.
+     */
+    public static final int NO_SCALE_MIN = Integer.MIN_VALUE;
+
+    /**
+     * Number of cells along each axis of the spatial lookup grid.
+     */
+    private static final int GRID_SIZE = 64;
+
+    private final StreamToGeoObjectConverter<V> loader;
+    private final ByteBuffer buffer;
+
+    private final int count;
+    private final int[] featureOrdinals;
+    private final int[] scaleMins;
+    private final double[] bounds;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private double gridMinLon;
+    private double gridMinLat;
+    private double gridCellLon;
+    private double gridCellLat;
+    private int[] cellStarts;
+    private int[] cellObjects;
+    private int[] unbinnedObjects;
+
+    private final int[] queryStamps;
+    private int queryStamp;
+
+    public static IndexedGeoReader<ENCObject> createENCReader(File file) throws IOException {
+        return new IndexedGeoReader<ENCObject>(new ENCObjectLoader(), file);
+    }
+
+    public static IndexedGeoReader<DNCObject> createDNCReader(File file) throws IOException {
+        return new IndexedGeoReader<DNCObject>(new DNCObjectLoader(), file);
+    }
+
+    public IndexedGeoReader(StreamToGeoObjectConverter<V> loader, File file) throws IOException {
+        this.loader = loader;
+        this.buffer = map(file);
+
+        int magic = buffer.getInt(0);
+        if (magic != MAGIC)
+            throw new IOException("Not an indexed chart file: " + file);
+
+        int version = buffer.getInt(4);
+        if (version != VERSION)
+            throw new IOException("Unsupported indexed chart file version " + version + "; expecting value " + VERSION);
+
+        int entrySize = buffer.getInt(12);
+        if (entrySize != ENTRY_SIZE)
+            throw new IOException("Unexpected index entry size " + entrySize + "; expecting value " + ENTRY_SIZE);
+
+        count = buffer.getInt(8);
+        featureOrdinals = new int[count];
+        scaleMins = new int[count];
+        bounds = new double[4 * count];
+        offsets = new long[count];
+        lengths = new int[count];
+
+        int position = (int) buffer.getLong(16);
+        for (int i = 0; i < count; i++) {
+            featureOrdinals[i] = buffer.getInt(position);
+            scaleMins[i] = buffer.getInt(position + 4);
+            bounds[4 * i] = buffer.getDouble(position + 8);
+            bounds[4 * i + 1] = buffer.getDouble(position + 16);
+            bounds[4 * i + 2] = buffer.getDouble(position + 24);
+            bounds[4 * i + 3] = buffer.getDouble(position + 32);
+            offsets[i] = buffer.getLong(position + 40);
+            lengths[i] = buffer.getInt(position + 48);
+            position += ENTRY_SIZE;
+        }
+
+        queryStamps = new int[count];
+        buildGrid();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the ordinal of the object's {@link com.metsci.glimpse.charts.vector.parser.objects.GeoFeatureType}
+     */
+    public int getFeatureOrdinal(int index) {
+        return featureOrdinals[index];
+    }
+
+    /**
+     * @return the object's scale minimum attribute, or null if it has none
+     */
+    public Integer getScaleMin(int index) {
+        int scaleMin = scaleMins[index];
+        return scaleMin == NO_SCALE_MIN ? null : Integer.valueOf(scaleMin);
+    }
+
+    public double getMinLon(int index) { return bounds[4 * index]; }
+    public double getMinLat(int index) { return bounds[4 * index + 1]; }
+    public double getMaxLon(int index) { return bounds[4 * index + 2]; }
+    public double getMaxLat(int index) { return bounds[4 * index + 3]; }
+
+    /**
+     * Decodes a single object from the mapped file.
+     */
+    public V get(int index) throws IOException {
+        ByteBuffer slice = buffer.duplicate();
+        int start = (int) offsets[index];
+        slice.limit(start + lengths[index]);
+        slice.position(start);
+        return loader.readNext(new DataInputStream(new ByteBufferInputStream(slice)));
+    }
+
+    /**
+     * Finds the objects whose bounding box intersects the given lon/lat box.
+     * Objects without any coordinates always match.
+     *
+     * @return object indexes in file order
+     */
+    public IntsArray query(double minLon, double minLat, double maxLon, double maxLat) {
+        return query(minLon, minLat, maxLon, maxLat, NO_SCALE_MIN);
+    }
+
+    /**
+     * Finds the objects whose bounding box intersects the given lon/lat box and
+     * whose scale minimum is either absent or strictly greater than minScale.
+     * Objects without any coordinates always match the box.
+     *
+     * @return object indexes in file order
+     */
+    public synchronized IntsArray query(double minLon, double minLat, double maxLon, double maxLat, int minScale) {
+        IntsArray result = new IntsArray();
+        int stamp = nextQueryStamp();
+
+        for (int i = 0; i < unbinnedObjects.length; i++) {
+            int index = unbinnedObjects[i];
+            if (matches(index, minLon, minLat, maxLon, maxLat, minScale)) result.append(index);
+        }
+
+        if (cellStarts != null) {
+            int x0 = cellX(minLon), x1 = cellX(maxLon);
+            int y0 = cellY(minLat), y1 = cellY(maxLat);
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    int cell = y * GRID_SIZE + x;
+                    for (int j = cellStarts[cell]; j < cellStarts[cell + 1]; j++) {
+                        int index = cellObjects[j];
+                        if (queryStamps[index] == stamp) continue;
+                        queryStamps[index] = stamp;
+                        if (matches(index, minLon, minLat, maxLon, maxLat, minScale)) result.append(index);
+                    }
+                }
+            }
+        }
+
+        Arrays.sort(result.a, 0, result.n);
+        return result;
+    }
+
+    /**
+     * Decodes the objects at the given indexes.
+     */
+    public List<V> get(IntsArray indexes) throws IOException {
+        List<V> objects = new ArrayList<V>(indexes.n);
+        for (int i = 0; i < indexes.n; i++) {
+            objects.add(get(indexes.a[i]));
+        }
+        return objects;
+    }
+
+    /**
+     * Decodes every object in the file; filtering needs the complete list.
+     */
+    @Override
+    public GeoFilterableRecordList<V> getGeoFilterableRecordList() {
+        return new GeoRecordListForStream<V>(new ArrayList<V>(getCollection()));
+    }
+
+    /**
+     * @return a view which decodes each object as it is accessed
+     */
+    @Override
+    public Collection<V> getCollection() {
+        return Collections.unmodifiableList(new AbstractList<V>() {
+            @Override
+            public V get(int index) {
+                try {
+                    return IndexedGeoReader.this.get(index);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        });
+    }
+
+    private boolean matches(int index, double minLon, double minLat, double maxLon, double maxLat, int minScale) {
+        int scaleMin = scaleMins[index];
+        if (scaleMin != NO_SCALE_MIN && scaleMin <= minScale) return false;
+
+        int b = 4 * index;
+        if (Double.isNaN(bounds[b])) return true;
+        return bounds[b] <= maxLon && bounds[b + 2] >= minLon && bounds[b + 1] <= maxLat && bounds[b + 3] >= minLat;
+    }
+
+    private int nextQueryStamp() {
+        queryStamp++;
+        if (queryStamp == 0) {
+            Arrays.fill(queryStamps, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+
+    /**
+     * Bins each object into the cells of a uniform grid over the extent of the chart. Objects
+     * without coordinates, or that would cover most of the grid, are kept in a separate list
+     * and checked by every query.
+     */
+    private void buildGrid() {
+        double minLon = Double.POSITIVE_INFINITY, minLat = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            int b = 4 * i;
+            if (Double.isNaN(bounds[b])) continue;
+            minLon = Math.min(minLon, bounds[b]);
+            minLat = Math.min(minLat, bounds[b + 1]);
+            maxLon = Math.max(maxLon, bounds[b + 2]);
+            maxLat = Math.max(maxLat, bounds[b + 3]);
+        }
+
+        if (minLon > maxLon) {
+            unbinnedObjects = new int[count];
+            for (int i = 0; i < count; i++) unbinnedObjects[i] = i;
+            return;
+        }
+
+        gridMinLon = minLon;
+        gridMinLat = minLat;
+        gridCellLon = Math.max(maxLon - minLon, 1e-9) / GRID_SIZE;
+        gridCellLat = Math.max(maxLat - minLat, 1e-9) / GRID_SIZE;
+
+        int maxCellsPerObject = GRID_SIZE * GRID_SIZE / 4;
+        IntsArray unbinned = new IntsArray();
+        cellStarts = new int[GRID_SIZE * GRID_SIZE + 1];
+
+        // first pass counts the objects in each cell, second pass fills them in
+        for (int i = 0; i < count; i++) {
+            int b = 4 * i;
+            if (Double.isNaN(bounds[b])) continue;
+            int x0 = cellX(bounds[b]), x1 = cellX(bounds[b + 2]);
+            int y0 = cellY(bounds[b + 1]), y1 = cellY(bounds[b + 3]);
+            if ((x1 - x0 + 1) * (y1 - y0 + 1) > maxCellsPerObject) continue;
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    cellStarts[y * GRID_SIZE + x + 1]++;
+                }
+            }
+        }
+
+        for (int c = 0; c < GRID_SIZE * GRID_SIZE; c++) {
+            cellStarts[c + 1] += cellStarts[c];
+        }
+
+        int[] fill = Arrays.copyOf(cellStarts, GRID_SIZE * GRID_SIZE);
+        cellObjects = new int[cellStarts[GRID_SIZE * GRID_SIZE]];
+        for (int i = 0; i < count; i++) {
+            int b = 4 * i;
+            if (Double.isNaN(bounds[b])) {
+                unbinned.append(i);
+                continue;
+            }
+            int x0 = cellX(bounds[b]), x1 = cellX(bounds[b + 2]);
+            int y0 = cellY(bounds[b + 1]), y1 = cellY(bounds[b + 3]);
+            if ((x1 - x0 + 1) * (y1 - y0 + 1) > maxCellsPerObject) {
+                unbinned.append(i);
+                continue;
+            }
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    cellObjects[fill[y * GRID_SIZE + x]++] = i;
+                }
+            }
+        }
+
+        unbinnedObjects = unbinned.copyOf();
+    }
+
+    private int cellX(double lon) {
+        int x = (int) Math.floor((lon - gridMinLon) / gridCellLon);
+        return Math.max(0, Math.min(GRID_SIZE - 1, x));
+    }
+
+    private int cellY(double lat) {
+        int y = (int) Math.floor((lat - gridMinLat) / gridCellLat);
+        return Math.max(0, Math.min(GRID_SIZE - 1, y));
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Indexed chart file too large to map: " + file);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) return -1;
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.charts.vector.parser;
+
+import static com.metsci.glimpse.charts.vector.parser.IndexedGeoReader.ENTRY_SIZE;
+import static com.metsci.glimpse.charts.vector.parser.IndexedGeoReader.HEADER_SIZE;
+import static com.metsci.glimpse.charts.vector.parser.IndexedGeoReader.MAGIC;
+import static com.metsci.glimpse.charts.vector.parser.IndexedGeoReader.NO_SCALE_MIN;
+import static com.metsci.glimpse.charts.vector.parser.IndexedGeoReader.VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import com.metsci.glimpse.charts.vector.iteration.DNCObjectLoader;
+import com.metsci.glimpse.charts.vector.iteration.ENCObjectLoader;
+import com.metsci.glimpse.charts.vector.iteration.StreamToGeoObjectConverter;
+import com.metsci.glimpse.charts.vector.parser.attributes.GeoIntAttribute;
+import com.metsci.glimpse.charts.vector.parser.autogen.ENCAttributeType;
+import com.metsci.glimpse.charts.vector.parser.objects.DNCObject;
+import com.metsci.glimpse.charts.vector.parser.objects.ENCObject;
+import com.metsci.glimpse.charts.vector.parser.objects.GeoAttributeType;
+import com.metsci.glimpse.charts.vector.parser.objects.GeoObject;
+import com.metsci.glimpse.charts.vector.parser.objects.GeoShape;
+import com.metsci.glimpse.util.io.StreamOpener;
+import com.metsci.glimpse.util.primitives.DoublesArray;
+import com.metsci.glimpse.util.primitives.IntsArray;
+import com.metsci.glimpse.util.primitives.LongsArray;
+
+
+/**
+ * Converts the sequential files read by {@link MetsciGeoReader} into the indexed
+ * format read by {@link IndexedGeoReader}. Object records are copied byte for byte;
+ * the writer only decodes each object once to compute its index entry.
+ */
+public class IndexedGeoWriter<V extends GeoObject> {
+
+    private final StreamToGeoObjectConverter<V> loader;
+    private final GeoAttributeType scaleMinAttribute;
+
+    public static IndexedGeoWriter<ENCObject> createENCWriter() {
+        return new IndexedGeoWriter<ENCObject>(new ENCObjectLoader(), ENCAttributeType.ScaleMinimum);
+    }
+
+    public static IndexedGeoWriter<DNCObject> createDNCWriter() {
+        return new IndexedGeoWriter<DNCObject>(new DNCObjectLoader(), null);
+    }
+
+    /**
+     * @param scaleMinAttribute integer attribute recorded as each object's scale minimum, may be null
+     */
+    public IndexedGeoWriter(StreamToGeoObjectConverter<V> loader, GeoAttributeType scaleMinAttribute) {
+        this.loader = loader;
+        this.scaleMinAttribute = scaleMinAttribute;
+    }
+
+    public void write(String resourceName, File outFile) throws IOException {
+        InputStream in = StreamOpener.fileThenResource.openForRead(resourceName);
+        try {
+            write(in, outFile);
+        } finally {
+            in.close();
+        }
+    }
+
+    public void write(InputStream in, File outFile) throws IOException {
+        FileOutputStream fout = new FileOutputStream(outFile);
+        try {
+            BufferedOutputStream bout = new BufferedOutputStream(fout);
+            bout.write(new byte[HEADER_SIZE]);
+
+            CopyingInputStream copy = new CopyingInputStream(new BufferedInputStream(in), bout);
+            DataInputStream dis = new DataInputStream(copy);
+
+            IntsArray featureOrdinals = new IntsArray();
+            IntsArray scaleMins = new IntsArray();
+            DoublesArray bounds = new DoublesArray();
+            LongsArray offsets = new LongsArray();
+            IntsArray lengths = new IntsArray();
+
+            double[] box = new double[4];
+            while (dis.available() > 0) {
+                long start = HEADER_SIZE + copy.count;
+                V geo = loader.readNext(dis);
+
+                featureOrdinals.append(geo.getGeoFeatureType().ordinal());
+                scaleMins.append(getScaleMin(geo));
+                computeBounds(geo, box);
+                bounds.append(box);
+                offsets.append(start);
+                lengths.append((int) (HEADER_SIZE + copy.count - start));
+            }
+
+            long indexOffset = HEADER_SIZE + copy.count;
+            DataOutputStream dout = new DataOutputStream(bout);
+            for (int i = 0; i < featureOrdinals.n; i++) {
+                dout.writeInt(featureOrdinals.a[i]);
+                dout.writeInt(scaleMins.a[i]);
+                for (int j = 0; j < 4; j++) {
+                    dout.writeDouble(bounds.a[4 * i + j]);
+                }
+                dout.writeLong(offsets.a[i]);
+                dout.writeInt(lengths.a[i]);
+            }
+            dout.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(featureOrdinals.n);
+            header.putInt(ENTRY_SIZE);
+            header.putLong(indexOffset);
+            header.flip();
+            fout.getChannel().write(header, 0);
+        } finally {
+            fout.close();
+        }
+    }
+
+    private int getScaleMin(V geo) {
+        if (scaleMinAttribute == null) return NO_SCALE_MIN;
+
+        GeoIntAttribute attribute = geo.getGeoIntAttribute(scaleMinAttribute);
+        if (attribute == null || attribute.isNullValued()) return NO_SCALE_MIN;
+
+        return attribute.getAttributeValue();
+    }
+
+    /**
+     * Fills box with minLon, minLat, maxLon, maxLat over all shapes, or NaNs if the object has no vertexes.
+     */
+    private static void computeBounds(GeoObject geo, double[] box) {
+        double minLon = Double.POSITIVE_INFINITY, minLat = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+
+        for (GeoShape shape : geo.getGeoShapes()) {
+            double[] vertexes = shape.getRawVertexArray();
+            int pointSize = shape.getPointSize();
+            if (vertexes == null || pointSize < 2) continue;
+
+            for (int i = 0; i + 1 < vertexes.length; i += pointSize) {
+                double lon = vertexes[i];
+                double lat = vertexes[i + 1];
+                if (lon < minLon) minLon = lon;
+                if (lon > maxLon) maxLon = lon;
+                if (lat < minLat) minLat = lat;
+                if (lat > maxLat) maxLat = lat;
+            }
+        }
+
+        if (minLon > maxLon) {
+            minLon = minLat = maxLon = maxLat = Double.NaN;
+        }
+
+        box[0] = minLon;
+        box[1] = minLat;
+        box[2] = maxLon;
+        box[3] = maxLat;
+    }
+
+    /**
+     * Copies every byte read from the source to the destination, and counts them.
+     */
+    private static class CopyingInputStream extends InputStream {
+
+        private final InputStream in;
+        private final OutputStream out;
+        private long count;
+
+        public CopyingInputStream(InputStream in, OutputStream out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                out.write(b);
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                out.write(b, off, n);
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: IndexedGeoWriter [enc|dnc] <input file> <output file>");
+            return;
+        }
+
+        IndexedGeoWriter<?> writer = "dnc".equalsIgnoreCase(args[0]) ? createDNCWriter() : createENCWriter();
+        writer.write(args[1], new File(args[2]));
+    }
+}
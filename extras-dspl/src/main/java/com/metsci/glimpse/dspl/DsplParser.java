@@ -39,6 +39,7 @@ import com.metsci.glimpse.dspl.parser.CsvParser;
 import com.metsci.glimpse.dspl.parser.ExtendedCsvParser;
 import com.metsci.glimpse.dspl.parser.TableParser;
 import com.metsci.glimpse.dspl.parser.WildcardCsvParser;
+import com.metsci.glimpse.dspl.parser.util.DsplCacheHelper.ValidationMode;
 import com.metsci.glimpse.dspl.schema.Concept;
 import com.metsci.glimpse.dspl.schema.DataSet;
 import com.metsci.glimpse.dspl.schema.DataSet.Import;
@@ -56,6 +57,8 @@ public class DsplParser
     protected boolean failOnError = true;
     protected boolean noNetworkMode = true;
     protected boolean cacheMode = false;
+    protected int parseThreads = 1;
+    protected ValidationMode cacheValidationMode = ValidationMode.FINGERPRINT;
 
     protected File cacheLocation = null;
 
@@ -89,6 +92,36 @@ public class DsplParser
         cacheMode = mode;
     }
 
+    public int getParseThreads( )
+    {
+        return parseThreads;
+    }
+
+    /**
+     * Sets the number of threads used to parse each csv table file. With more than one
+     * thread, files are split into large chunks on line boundaries and the chunks are
+     * parsed concurrently. Defaults to 1, which parses files line by line.
+     */
+    public void setParseThreads( int threads )
+    {
+        parseThreads = Math.max( 1, threads );
+    }
+
+    public ValidationMode getCacheValidationMode( )
+    {
+        return cacheValidationMode;
+    }
+
+    /**
+     * Sets how cached tables are checked against their source data files. Defaults to
+     * {@link ValidationMode#FINGERPRINT}, which avoids reading the full source data on
+     * every load. {@link ValidationMode#MD5} hashes the full source data.
+     */
+    public void setCacheValidationMode( ValidationMode mode )
+    {
+        cacheValidationMode = mode;
+    }
+
     public void setCacheDirectory( String directory )
     {
         cacheLocation = new File( directory );
@@ -29,10 +29,15 @@ package com.metsci.glimpse.dspl.parser;
 import static com.metsci.glimpse.dspl.parser.util.ParserUtils.*;
 import static com.metsci.glimpse.util.GeneralUtils.*;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
@@ -45,11 +50,16 @@ import java.util.TreeSet;
 import javax.xml.bind.JAXBException;
 
 import com.metsci.glimpse.dspl.parser.SimpleBinaryParser.HeaderInformation;
+import com.metsci.glimpse.dspl.parser.column.BufferInternStringTableColumn;
+import com.metsci.glimpse.dspl.parser.column.BufferStringTableColumn;
+import com.metsci.glimpse.dspl.parser.column.BufferTableColumn;
 import com.metsci.glimpse.dspl.parser.column.CompactInternStringTableColumn;
 import com.metsci.glimpse.dspl.parser.column.CompactStringTableColumn;
 import com.metsci.glimpse.dspl.parser.column.SimpleTableColumn;
 import com.metsci.glimpse.dspl.parser.column.SliceColumnType;
 import com.metsci.glimpse.dspl.parser.column.TableColumn;
+import com.metsci.glimpse.dspl.parser.table.LazySliceTableData;
+import com.metsci.glimpse.dspl.parser.table.LazySliceTableData.ColumnLoader;
 import com.metsci.glimpse.dspl.parser.table.PropertyTableData;
 import com.metsci.glimpse.dspl.parser.table.SimplePropertyTableData;
 import com.metsci.glimpse.dspl.parser.table.SimpleSliceTableData;
@@ -67,13 +77,36 @@ import com.metsci.glimpse.dspl.util.DsplHelper;
 import com.metsci.glimpse.util.io.datapipe.ReadableDataChannel;
 import com.metsci.glimpse.util.io.datapipe.WritableDataChannel;
 
-public class ColumnBinaryParser implements TableParser, TableWriter
+/**
+ * Reads and writes tables in a simple column oriented binary format, used by
+ * {@link com.metsci.glimpse.dspl.parser.util.DsplCacheHelper} for cached data.<p>
+ *
+ * Two versions of the format exist. Version 1 (identified by {@link #MAGIC}) stores the
+ * columns back to back, and is read into heap arrays. Version 2 (identified by {@link #MAGIC_MAPPED})
+ * records the offset and length of every column in the header and starts each column on an
+ * 8 byte boundary. When a version 2 table is read from a file, each column is memory mapped
+ * and exposed through TableColumns backed directly by the mapped buffers, so opening a table
+ * costs almost nothing regardless of its size. Both versions can always be read, and
+ * {@link #setWriteVersion(int)} controls which one is written.<p>
+ *
+ * Version 2 slice tables read from a file can also be projected onto a subset of their columns
+ * (see {@link ProjectingTableParser}). The remaining columns are only decoded when first accessed.
+ */
+public class ColumnBinaryParser implements ProjectingTableParser, TableWriter
 {
     public static final int MAGIC = 0x1234CDEF;
+    public static final int MAGIC_MAPPED = 0x1234CDF0;
     public static final String ENCODING = "UTF-8";
 
+    public static final int CHUNKED_VERSION = 1;
+    public static final int MAPPED_VERSION = 2;
+
+    // alignment, in bytes, of each column in a version 2 file
+    public static final int ALIGNMENT = 8;
+
     protected SimpleParserFactory factory;
     protected byte[] buffer;
+    protected int writeVersion = MAPPED_VERSION;
 
     public ColumnBinaryParser( )
     {
@@ -86,15 +119,25 @@ public class ColumnBinaryParser implements TableParser, TableWriter
         return new SimpleParserFactory( );
     }
 
+    public int getWriteVersion( )
+    {
+        return writeVersion;
+    }
+
+    /**
+     * @param version either {@link #CHUNKED_VERSION} or {@link #MAPPED_VERSION} (the default)
+     */
+    public void setWriteVersion( int version )
+    {
+        writeVersion = version;
+    }
+
     public void write( Slice slice, SliceTableData data, WritableByteChannel byteChannel ) throws IOException, DsplException, JAXBException
     {
         WritableDataChannel dataChannel = new WritableDataChannel( byteChannel );
 
         try
         {
-            // each .bin file must start with the correct magic number identifier
-            dataChannel.writeInt( MAGIC );
-
             Collection<String> dimensionConceptIds = data.getDimensionColumnIds( );
             Collection<String> metricConceptIds = data.getMetricColumnIds( );
 
@@ -127,6 +170,15 @@ public class ColumnBinaryParser implements TableParser, TableWriter
                 }
             }
 
+            if ( writeVersion >= MAPPED_VERSION )
+            {
+                writeMapped( columnList, numRows, dataChannel );
+                return;
+            }
+
+            // each .bin file must start with the correct magic number identifier
+            dataChannel.writeInt( MAGIC );
+
             // write the number of rows and columns in the data set
             dataChannel.writeInt( numColumns );
             dataChannel.writeInt( numRows );
@@ -177,9 +229,6 @@ public class ColumnBinaryParser implements TableParser, TableWriter
 
         try
         {
-            // each .bin file must start with the correct magic number identifier
-            dataChannel.writeInt( MAGIC );
-
             Collection<String> conceptIds = data.getColumnIds( );
 
             // count the number of columns to write out
@@ -200,6 +249,15 @@ public class ColumnBinaryParser implements TableParser, TableWriter
                 }
             }
 
+            if ( writeVersion >= MAPPED_VERSION )
+            {
+                writeMapped( columnList, numRows, dataChannel );
+                return;
+            }
+
+            // each .bin file must start with the correct magic number identifier
+            dataChannel.writeInt( MAGIC );
+
             // write the number of rows and columns in the data set
             dataChannel.writeInt( numColumns );
             dataChannel.writeInt( numRows );
@@ -283,7 +341,7 @@ public class ColumnBinaryParser implements TableParser, TableWriter
     @Override
     public PropertyTableData parse( Concept concept, InputStream stream ) throws IOException, JAXBException, DsplException
     {
-        return parse( concept, Channels.newChannel( stream ) );
+        return parse( concept, toChannel( stream ) );
     }
 
     @Override
@@ -295,49 +353,16 @@ public class ColumnBinaryParser implements TableParser, TableWriter
         {
             BinaryTableParserInfo info = newParserInfo( concept, dataChannel );
 
-            Concept[] concepts = info.getConcepts( );
             Column[] columns = info.getColumns( );
-            DataType[] types = info.getDataTypes( );
             int numRows = info.getNumRows( );
 
             Map<String, TableColumn> map = new HashMap<String, TableColumn>( );
 
             for ( int i = 0; i < info.getNumColumns( ); i++ )
             {
-                DataType type = types[i];
                 Column column = columns[i];
-                Concept columnConcept = concepts[i];
-                String columnFormat = column.getFormat( );
 
-                TableColumn columnData = null;
-
-                switch ( type )
-                {
-                case STRING:
-                    if ( columnFormat != null && columnFormat.contentEquals( "intern" ) )
-                        columnData = readInternStringArray( dataChannel, column, columnConcept, new String[numRows] );
-                    else
-                        columnData = readStringArray( dataChannel, column, columnConcept, new String[numRows] );
-                    break;
-
-                case FLOAT:
-                    columnData = new SimpleTableColumn( column, columnConcept, type, dataChannel.readFloatArray( new float[numRows] ), numRows );
-                    break;
-                case INTEGER:
-                    columnData = new SimpleTableColumn( column, columnConcept, type, dataChannel.readIntArray( new int[numRows] ), numRows );
-                    break;
-                case BOOLEAN:
-                    columnData = new SimpleTableColumn( column, columnConcept, type, dataChannel.readBooleanArray( new boolean[numRows] ), numRows );
-                    break;
-                case DATE:
-                    columnData = new SimpleTableColumn( column, columnConcept, type, dataChannel.readLongArray( new long[numRows] ), numRows );
-                    break;
-                case CONCEPT:
-                    columnData = readStringArray( dataChannel, column, columnConcept, new String[numRows] );
-                    break;
-                default:
-                    throw new DsplException( "Unknown Type %s provided for Column %s.", type, info.getColumnIds( )[i] );
-                }
+                TableColumn columnData = readColumn( byteChannel, dataChannel, info, i );
 
                 map.put( column.getId( ), columnData );
             }
@@ -355,7 +380,7 @@ public class ColumnBinaryParser implements TableParser, TableWriter
     @Override
     public SliceTableData parse( Slice slice, InputStream stream ) throws IOException, JAXBException, DsplException
     {
-        return parse( slice, Channels.newChannel( stream ) );
+        return parse( slice, toChannel( stream ) );
     }
 
     @Override
@@ -367,76 +392,470 @@ public class ColumnBinaryParser implements TableParser, TableWriter
         {
             BinaryTableParserInfo info = newParserInfo( slice, dataChannel );
 
-            Concept[] concepts = info.getConcepts( );
+            return readSliceTable( slice, byteChannel, dataChannel, info );
+        }
+        finally
+        {
+            dataChannel.close( );
+        }
+    }
+
+    protected SliceTableData readSliceTable( Slice slice, ReadableByteChannel byteChannel, ReadableDataChannel dataChannel, BinaryTableParserInfo info ) throws IOException, JAXBException, DsplException
+    {
+        Column[] columns = info.getColumns( );
+        SliceColumnType[] sliceColumnTypes = info.getSliceColumnTypes( );
+        int numRows = info.getNumRows( );
+
+        Map<String, TableColumn> dimensionMap = new HashMap<String, TableColumn>( );
+        Map<String, TableColumn> metricMap = new HashMap<String, TableColumn>( );
+        Map<String, TableColumn> map = null;
+
+        for ( int i = 0; i < info.getNumColumns( ); i++ )
+        {
+            Column column = columns[i];
+            SliceColumnType sliceType = sliceColumnTypes[i];
+
+            switch ( sliceType )
+            {
+            case Dimension:
+                map = dimensionMap;
+                break;
+            case Metric:
+                map = metricMap;
+                break;
+            }
+
+            TableColumn columnData = readColumn( byteChannel, dataChannel, info, i );
+
+            map.put( column.getId( ), columnData );
+        }
+
+        dimensionMap.putAll( getConstantTableColumns( slice, info, factory, SliceColumnType.Dimension, numRows ) );
+        metricMap.putAll( getConstantTableColumns( slice, info, factory, SliceColumnType.Metric, numRows ) );
+
+        return new SimpleSliceTableData( slice, dimensionMap, metricMap );
+    }
+
+    @Override
+    public SliceTableData parse( Slice slice, InputStream stream, Collection<String> columnIds ) throws IOException, JAXBException, DsplException
+    {
+        return parse( slice, toChannel( stream ), columnIds );
+    }
+
+    @Override
+    public SliceTableData parse( Slice slice, ReadableByteChannel byteChannel, Collection<String> columnIds ) throws IOException, JAXBException, DsplException
+    {
+        ReadableDataChannel dataChannel = new ReadableDataChannel( byteChannel );
+
+        try
+        {
+            final BinaryTableParserInfo info = newParserInfo( slice, dataChannel );
+            MappedHeaderInformation header = info.getMappedHeader( );
+
+            // columns can only be skipped and loaded later if their offsets are known and the file can be mapped
+            if ( header == null || ! ( byteChannel instanceof FileChannel ) )
+            {
+                return readSliceTable( slice, byteChannel, dataChannel, info );
+            }
+
+            FileChannel fileChannel = ( FileChannel ) byteChannel;
+            long tableLength = fileChannel.size( ) - header.getBase( );
+
+            if ( tableLength > Integer.MAX_VALUE )
+            {
+                return readSliceTable( slice, byteChannel, dataChannel, info );
+            }
+
+            // mapping the whole table is cheap, and the mapping remains valid after the channel is closed
+            final ByteBuffer table = fileChannel.map( MapMode.READ_ONLY, header.getBase( ), tableLength );
+
             Column[] columns = info.getColumns( );
-            DataType[] types = info.getDataTypes( );
             SliceColumnType[] sliceColumnTypes = info.getSliceColumnTypes( );
             int numRows = info.getNumRows( );
 
+            final Map<String, Integer> indexById = new HashMap<String, Integer>( );
+            List<String> dimensionIds = new ArrayList<String>( );
+            List<String> metricIds = new ArrayList<String>( );
             Map<String, TableColumn> dimensionMap = new HashMap<String, TableColumn>( );
             Map<String, TableColumn> metricMap = new HashMap<String, TableColumn>( );
-            Map<String, TableColumn> map = null;
 
             for ( int i = 0; i < info.getNumColumns( ); i++ )
             {
-                DataType type = types[i];
-                Column column = columns[i];
-                Concept columnConcept = concepts[i];
-                SliceColumnType sliceType = sliceColumnTypes[i];
-                String columnFormat = column.getFormat( );
+                String id = columns[i].getId( );
+                indexById.put( id, i );
 
-                switch ( sliceType )
+                boolean dimension = sliceColumnTypes[i] == SliceColumnType.Dimension;
+                ( dimension ? dimensionIds : metricIds ).add( id );
+
+                if ( columnIds.contains( id ) )
                 {
-                case Dimension:
-                    map = dimensionMap;
-                    break;
-                case Metric:
-                    map = metricMap;
-                    break;
+                    ( dimension ? dimensionMap : metricMap ).put( id, readMappedColumn( sliceSection( table, header, i ), info, i ) );
                 }
+            }
 
-                TableColumn columnData = null;
+            Map<String, TableColumn> dimensionConstants = getConstantTableColumns( slice, info, factory, SliceColumnType.Dimension, numRows );
+            Map<String, TableColumn> metricConstants = getConstantTableColumns( slice, info, factory, SliceColumnType.Metric, numRows );
+            dimensionIds.addAll( dimensionConstants.keySet( ) );
+            metricIds.addAll( metricConstants.keySet( ) );
+            dimensionMap.putAll( dimensionConstants );
+            metricMap.putAll( metricConstants );
 
-                switch ( type )
+            final MappedHeaderInformation mappedHeader = header;
+            return new LazySliceTableData( slice, numRows, dimensionIds, metricIds, dimensionMap, metricMap, new ColumnLoader( )
+            {
+                @Override
+                public TableColumn loadColumn( String columnId ) throws IOException, DsplException
                 {
-                case STRING:
-                    if ( columnFormat != null && columnFormat.contentEquals( "intern" ) )
-                        columnData = readInternStringArray( dataChannel, column, columnConcept, new String[numRows] );
-                    else
-                        columnData = readStringArray( dataChannel, column, columnConcept, new String[numRows] );
-                    break;
-
-                case FLOAT:
-                    columnData = new SimpleTableColumn( column, columnConcept, type, dataChannel.readFloatArray( new float[numRows] ), numRows );
-                    break;
-                case INTEGER:
-                    columnData = new SimpleTableColumn( column, columnConcept, type, dataChannel.readIntArray( new int[numRows] ), numRows );
-                    break;
-                case BOOLEAN:
-                    columnData = new SimpleTableColumn( column, columnConcept, type, dataChannel.readBooleanArray( new boolean[numRows] ), numRows );
-                    break;
-                case DATE:
-                    columnData = new SimpleTableColumn( column, columnConcept, type, dataChannel.readLongArray( new long[numRows] ), numRows );
-                    break;
-                case CONCEPT:
-                    columnData = readStringArray( dataChannel, column, columnConcept, new String[numRows] );
-                    break;
-                default:
-                    throw new DsplException( "Unknown Type %s provided for Column %s.", type, info.getColumnIds( )[i] );
+                    int i = indexById.get( columnId );
+                    return readMappedColumn( sliceSection( table, mappedHeader, i ), info, i );
                 }
+            } );
+        }
+        finally
+        {
+            dataChannel.close( );
+        }
+    }
 
-                map.put( column.getId( ), columnData );
+    protected ByteBuffer sliceSection( ByteBuffer table, MappedHeaderInformation header, int i )
+    {
+        ByteBuffer section = table.duplicate( );
+        section.limit( ( int ) ( header.getOffset( i ) + header.getLength( i ) ) );
+        section.position( ( int ) header.getOffset( i ) );
+        return section.slice( );
+    }
+
+    protected TableColumn readColumn( ReadableByteChannel byteChannel, ReadableDataChannel dataChannel, BinaryTableParserInfo info, int i ) throws IOException, DsplException
+    {
+        if ( info.getMappedHeader( ) != null )
+        {
+            return readMappedColumn( byteChannel, dataChannel, info, i );
+        }
+
+        DataType type = info.getDataTypes( )[i];
+        Column column = info.getColumns( )[i];
+        Concept columnConcept = info.getConcepts( )[i];
+        String columnFormat = column.getFormat( );
+        int numRows = info.getNumRows( );
+
+        switch ( type )
+        {
+        case STRING:
+            if ( columnFormat != null && columnFormat.contentEquals( "intern" ) )
+                return readInternStringArray( dataChannel, column, columnConcept, new String[numRows] );
+            else
+                return readStringArray( dataChannel, column, columnConcept, new String[numRows] );
+        case FLOAT:
+            return new SimpleTableColumn( column, columnConcept, type, dataChannel.readFloatArray( new float[numRows] ), numRows );
+        case INTEGER:
+            return new SimpleTableColumn( column, columnConcept, type, dataChannel.readIntArray( new int[numRows] ), numRows );
+        case BOOLEAN:
+            return new SimpleTableColumn( column, columnConcept, type, dataChannel.readBooleanArray( new boolean[numRows] ), numRows );
+        case DATE:
+            return new SimpleTableColumn( column, columnConcept, type, dataChannel.readLongArray( new long[numRows] ), numRows );
+        case CONCEPT:
+            return readStringArray( dataChannel, column, columnConcept, new String[numRows] );
+        default:
+            throw new DsplException( "Unknown Type %s provided for Column %s.", type, info.getColumnIds( )[i] );
+        }
+    }
+
+    protected TableColumn readMappedColumn( ReadableByteChannel byteChannel, ReadableDataChannel dataChannel, BinaryTableParserInfo info, int i ) throws IOException, DsplException
+    {
+        return readMappedColumn( readSection( byteChannel, dataChannel, info.getMappedHeader( ), i ), info, i );
+    }
+
+    protected TableColumn readMappedColumn( ByteBuffer section, BinaryTableParserInfo info, int i ) throws IOException, DsplException
+    {
+        DataType type = info.getDataTypes( )[i];
+        Column column = info.getColumns( )[i];
+        Concept columnConcept = info.getConcepts( )[i];
+        String columnFormat = column.getFormat( );
+        int numRows = info.getNumRows( );
+
+        switch ( type )
+        {
+        case STRING:
+            if ( columnFormat != null && columnFormat.contentEquals( "intern" ) )
+                return readMappedInternStringArray( section, column, columnConcept, numRows );
+            else
+                return new BufferStringTableColumn( column, columnConcept, type, section, numRows );
+        case FLOAT:
+        case INTEGER:
+        case BOOLEAN:
+        case DATE:
+            return new BufferTableColumn( column, columnConcept, type, section, numRows );
+        case CONCEPT:
+            return new BufferStringTableColumn( column, columnConcept, type, section, numRows );
+        default:
+            throw new DsplException( "Unknown Type %s provided for Column %s.", type, info.getColumnIds( )[i] );
+        }
+    }
+
+    /**
+     * Maps the bytes of a column from a version 2 table. If the table is not being read from
+     * a file, the column is instead read sequentially into a heap buffer.
+     */
+    protected ByteBuffer readSection( ReadableByteChannel byteChannel, ReadableDataChannel dataChannel, MappedHeaderInformation header, int i ) throws IOException
+    {
+        long offset = header.getOffset( i );
+        long length = header.getLength( i );
+
+        if ( byteChannel instanceof FileChannel )
+        {
+            return ( ( FileChannel ) byteChannel ).map( MapMode.READ_ONLY, header.getBase( ) + offset, length );
+        }
+
+        // skip the padding (and any columns which were not read) before this column
+        byte[] skipped = new byte[( int ) Math.min( offset - header.position, buffer.length )];
+        while ( header.position < offset )
+        {
+            int count = ( int ) Math.min( offset - header.position, skipped.length );
+            dataChannel.readByteArray( count == skipped.length ? skipped : new byte[count] );
+            header.position += count;
+        }
+
+        byte[] bytes = new byte[( int ) length];
+        dataChannel.readByteArray( bytes );
+        header.position += length;
+
+        return ByteBuffer.wrap( bytes );
+    }
+
+    protected TableColumn readMappedInternStringArray( ByteBuffer section, Column column, Concept concept, int numRows ) throws IOException
+    {
+        // the row indices come first, followed by the unique strings
+        int stringsStart = numRows * 4;
+        int nUnique = section.getInt( stringsStart );
+        int bytesStart = stringsStart + 4 + ( nUnique + 1 ) * 4;
+
+        String[] uniqueStrings = new String[nUnique];
+        for ( int i = 0; i < nUnique; i++ )
+        {
+            int start = section.getInt( stringsStart + 4 + i * 4 );
+            int end = section.getInt( stringsStart + 4 + ( i + 1 ) * 4 );
+
+            byte[] data = new byte[end - start];
+            for ( int j = 0; j < data.length; j++ )
+            {
+                data[j] = section.get( bytesStart + start + j );
             }
 
-            dimensionMap.putAll( getConstantTableColumns( slice, info, factory, SliceColumnType.Dimension, numRows ) );
-            metricMap.putAll( getConstantTableColumns( slice, info, factory, SliceColumnType.Metric, numRows ) );
+            uniqueStrings[i] = new String( data, ENCODING ).intern( );
+        }
+
+        ByteBuffer indexByRow = section.duplicate( );
+        indexByRow.limit( stringsStart );
 
-            return new SimpleSliceTableData( slice, dimensionMap, metricMap );
+        return new BufferInternStringTableColumn( column, concept, numRows, uniqueStrings, indexByRow.slice( ) );
+    }
+
+    /**
+     * Writes a version 2 table: a header holding the column ids and the offset and length of each
+     * column, followed by the columns, each of which starts on an {@link #ALIGNMENT} byte boundary.
+     */
+    protected void writeMapped( List<TableColumn> columnList, int numRows, WritableDataChannel dataChannel ) throws IOException, DsplException
+    {
+        int numColumns = columnList.size( );
+
+        List<byte[]> ids = new ArrayList<byte[]>( numColumns );
+        List<ColumnSection> sections = new ArrayList<ColumnSection>( numColumns );
+        long headerSize = 16;
+
+        for ( TableColumn column : columnList )
+        {
+            byte[] id = column.getColumn( ).getId( ).getBytes( ENCODING );
+            ids.add( id );
+            sections.add( newColumnSection( column ) );
+            headerSize += 4 + id.length + 16;
         }
-        finally
+
+        long[] offsets = new long[numColumns];
+        long position = align( headerSize );
+        for ( int i = 0; i < numColumns; i++ )
         {
-            dataChannel.close( );
+            offsets[i] = position;
+            position = align( position + sections.get( i ).getLength( ) );
         }
+
+        dataChannel.writeInt( MAGIC_MAPPED );
+        dataChannel.writeInt( MAPPED_VERSION );
+        dataChannel.writeInt( numColumns );
+        dataChannel.writeInt( numRows );
+
+        for ( byte[] id : ids )
+        {
+            dataChannel.writeInt( id.length );
+            dataChannel.writeByteArray( id );
+        }
+
+        for ( int i = 0; i < numColumns; i++ )
+        {
+            dataChannel.writeLong( offsets[i] );
+            dataChannel.writeLong( sections.get( i ).getLength( ) );
+        }
+
+        position = headerSize;
+        for ( int i = 0; i < numColumns; i++ )
+        {
+            dataChannel.writeByteArray( new byte[( int ) ( offsets[i] - position )] );
+
+            ColumnSection section = sections.get( i );
+            section.write( dataChannel );
+            position = offsets[i] + section.getLength( );
+        }
+    }
+
+    protected static long align( long position )
+    {
+        return ( position + ALIGNMENT - 1 ) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * The bytes of one column in a version 2 table. The length must be known
+     * before anything is written, so that the header can hold column offsets.
+     */
+    protected static abstract class ColumnSection
+    {
+        public abstract long getLength( );
+
+        public abstract void write( WritableDataChannel dataChannel ) throws IOException;
+    }
+
+    protected ColumnSection newColumnSection( final TableColumn column ) throws IOException, DsplException
+    {
+        final int size = column.getSize( );
+        String columnFormat = column.getColumn( ).getFormat( );
+
+        switch ( column.getType( ) )
+        {
+        case STRING:
+            if ( columnFormat != null && columnFormat.contentEquals( "intern" ) )
+                return newInternStringSection( column.getStringData( ) );
+            else
+                return newStringSection( column.getStringData( ) );
+        case FLOAT:
+            return new ColumnSection( )
+            {
+                public long getLength( )
+                {
+                    return size * 4L;
+                }
+
+                public void write( WritableDataChannel dataChannel ) throws IOException
+                {
+                    dataChannel.writeFloatArray( column.getFloatData( ) );
+                }
+            };
+        case INTEGER:
+            return new ColumnSection( )
+            {
+                public long getLength( )
+                {
+                    return size * 4L;
+                }
+
+                public void write( WritableDataChannel dataChannel ) throws IOException
+                {
+                    dataChannel.writeIntArray( column.getIntegerData( ) );
+                }
+            };
+        case BOOLEAN:
+            return new ColumnSection( )
+            {
+                public long getLength( )
+                {
+                    return size;
+                }
+
+                public void write( WritableDataChannel dataChannel ) throws IOException
+                {
+                    dataChannel.writeBooleanArray( column.getBooleanData( ) );
+                }
+            };
+        case DATE:
+            return new ColumnSection( )
+            {
+                public long getLength( )
+                {
+                    return size * 8L;
+                }
+
+                public void write( WritableDataChannel dataChannel ) throws IOException
+                {
+                    dataChannel.writeLongArray( column.getDateData( ) );
+                }
+            };
+        case CONCEPT:
+            return newStringSection( column.getStringData( ) );
+        default:
+            throw new DsplException( "Unknown Type %s provided.", column.getType( ) );
+        }
+    }
+
+    // size + 1 byte offsets, followed by the UTF-8 bytes of all the strings (null strings are written as empty)
+    protected ColumnSection newStringSection( String[] array ) throws IOException
+    {
+        final byte[][] encodings = new byte[array.length][];
+        final int[] stringOffsets = new int[array.length + 1];
+
+        for ( int i = 0; i < array.length; i++ )
+        {
+            encodings[i] = array[i] == null ? new byte[0] : array[i].getBytes( ENCODING );
+            stringOffsets[i + 1] = stringOffsets[i] + encodings[i].length;
+        }
+
+        return new ColumnSection( )
+        {
+            public long getLength( )
+            {
+                return stringOffsets.length * 4L + stringOffsets[encodings.length];
+            }
+
+            public void write( WritableDataChannel dataChannel ) throws IOException
+            {
+                dataChannel.writeIntArray( stringOffsets );
+
+                for ( byte[] encoding : encodings )
+                {
+                    dataChannel.writeByteArray( encoding );
+                }
+            }
+        };
+    }
+
+    // size row indices (-1 for null), then the number of unique strings, followed by a string section holding them
+    protected ColumnSection newInternStringSection( String[] array ) throws IOException
+    {
+        TreeSet<String> unique = newTreeSet( );
+        for ( String string : array )
+            if ( string != null ) unique.add( string );
+
+        Map<String, Integer> map = newLinkedHashMap( );
+        for ( String string : unique )
+            map.put( string, map.size( ) );
+
+        final int[] index = new int[array.length];
+        for ( int i = 0; i < array.length; i++ )
+            index[i] = array[i] == null ? -1 : map.get( array[i] );
+
+        final int nUnique = map.size( );
+        final ColumnSection strings = newStringSection( map.keySet( ).toArray( new String[nUnique] ) );
+
+        return new ColumnSection( )
+        {
+            public long getLength( )
+            {
+                return index.length * 4L + 4 + strings.getLength( );
+            }
+
+            public void write( WritableDataChannel dataChannel ) throws IOException
+            {
+                dataChannel.writeIntArray( index );
+                dataChannel.writeInt( nUnique );
+                strings.write( dataChannel );
+            }
+        };
     }
 
     @Override
@@ -445,11 +864,32 @@ public class ColumnBinaryParser implements TableParser, TableWriter
         return false;
     }
 
+    // use the FileChannel of file streams, so version 2 tables can be mapped
+    protected ReadableByteChannel toChannel( InputStream stream )
+    {
+        if ( stream instanceof FileInputStream )
+        {
+            return ( ( FileInputStream ) stream ).getChannel( );
+        }
+        else
+        {
+            return Channels.newChannel( stream );
+        }
+    }
+
     protected HeaderInformation parseFirstLine( ReadableDataChannel dataChannel ) throws IOException, JAXBException, DsplException
     {
+        // offsets in a version 2 table are relative to its first byte
+        Channel channel = dataChannel.getChannel( );
+        long base = channel instanceof FileChannel ? ( ( FileChannel ) channel ).position( ) : 0;
+
         int magic = dataChannel.readInt( );
 
-        if ( magic != MAGIC )
+        if ( magic == MAGIC_MAPPED )
+        {
+            return parseMappedHeader( dataChannel, base );
+        }
+        else if ( magic != MAGIC )
         {
             throw new DsplException( "File does not contain proper header code: %s", Integer.toHexString( MAGIC ) );
         }
@@ -467,6 +907,75 @@ public class ColumnBinaryParser implements TableParser, TableWriter
         return new HeaderInformation( numColumns, numRowsPerColumn, headerStrings );
     }
 
+    protected MappedHeaderInformation parseMappedHeader( ReadableDataChannel dataChannel, long base ) throws IOException, DsplException
+    {
+        int version = dataChannel.readInt( );
+
+        if ( version != MAPPED_VERSION )
+        {
+            throw new DsplException( "Unsupported binary table version: %d", version );
+        }
+
+        int numColumns = dataChannel.readInt( );
+        int numRowsPerColumn = dataChannel.readInt( );
+
+        String[] headerStrings = new String[numColumns];
+        long headerSize = 16;
+
+        for ( int i = 0; i < numColumns; i++ )
+        {
+            headerStrings[i] = dataChannel.readString( );
+            headerSize += 4 + headerStrings[i].getBytes( ENCODING ).length;
+        }
+
+        long[] offsets = new long[numColumns];
+        long[] lengths = new long[numColumns];
+
+        for ( int i = 0; i < numColumns; i++ )
+        {
+            offsets[i] = dataChannel.readLong( );
+            lengths[i] = dataChannel.readLong( );
+            headerSize += 16;
+        }
+
+        return new MappedHeaderInformation( numColumns, numRowsPerColumn, headerStrings, base, headerSize, offsets, lengths );
+    }
+
+    public static class MappedHeaderInformation extends HeaderInformation
+    {
+        protected long base;
+        protected long[] offsets;
+        protected long[] lengths;
+
+        // bytes of the table consumed so far, when reading sequentially from a non-file channel
+        protected long position;
+
+        public MappedHeaderInformation( int numColumns, int numRowsPerColumn, String[] headerNames, long base, long headerSize, long[] offsets, long[] lengths )
+        {
+            super( numColumns, numRowsPerColumn, headerNames );
+
+            this.base = base;
+            this.position = headerSize;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        public long getBase( )
+        {
+            return base;
+        }
+
+        public long getOffset( int column )
+        {
+            return offsets[column];
+        }
+
+        public long getLength( int column )
+        {
+            return lengths[column];
+        }
+    }
+
     protected BinaryTableParserInfo newParserInfo( Concept concept, ReadableDataChannel dataChannel ) throws IOException, JAXBException, DsplException
     {
         HeaderInformation header = parseFirstLine( dataChannel );
@@ -476,7 +985,7 @@ public class ColumnBinaryParser implements TableParser, TableWriter
         DataType[] types = getTypes( concepts, columns );
         TableColumnParser[] parsers = getParsers( factory, columns, types );
 
-        return new BinaryTableParserInfo( header.getNumColumns( ), header.getNumRowsPerColumn( ), columnIds, concepts, null, columns, types, parsers );
+        return new BinaryTableParserInfo( header, columnIds, concepts, null, columns, types, parsers );
     }
 
     protected BinaryTableParserInfo newParserInfo( Slice slice, ReadableDataChannel dataChannel ) throws IOException, JAXBException, DsplException
@@ -491,7 +1000,7 @@ public class ColumnBinaryParser implements TableParser, TableWriter
         DataType[] types = getTypes( concepts, columns );
         TableColumnParser[] parsers = getParsers( factory, columns, types );
 
-        return new BinaryTableParserInfo( header.getNumColumns( ), header.getNumRowsPerColumn( ), columnIds, concepts, sliceColumnTypes, columns, types, parsers );
+        return new BinaryTableParserInfo( header, columnIds, concepts, sliceColumnTypes, columns, types, parsers );
     }
 
     protected TableColumnParser[] getParsers( ParserFactory factory, Column[] columns, DataType[] types ) throws DsplException
@@ -512,13 +1021,27 @@ public class ColumnBinaryParser implements TableParser, TableWriter
     {
         protected int numColumns;
         protected int numRows;
+        protected MappedHeaderInformation mappedHeader;
 
-        public BinaryTableParserInfo( int numColumns, int numRows, String[] columnIds, Concept[] concepts, SliceColumnType[] sliceColumnTypes, Column[] columns, DataType[] types, TableColumnParser[] parsers )
+        public BinaryTableParserInfo( HeaderInformation header, String[] columnIds, Concept[] concepts, SliceColumnType[] sliceColumnTypes, Column[] columns, DataType[] types, TableColumnParser[] parsers )
         {
             super( columnIds, concepts, sliceColumnTypes, columns, types, parsers );
 
-            this.numColumns = numColumns;
-            this.numRows = numRows;
+            this.numColumns = header.getNumColumns( );
+            this.numRows = header.getNumRowsPerColumn( );
+
+            if ( header instanceof MappedHeaderInformation )
+            {
+                this.mappedHeader = ( MappedHeaderInformation ) header;
+            }
+        }
+
+        /**
+         * @return the header of a version 2 table, or null for a version 1 table
+         */
+        public MappedHeaderInformation getMappedHeader( )
+        {
+            return mappedHeader;
         }
 
         public int getNumColumns( )
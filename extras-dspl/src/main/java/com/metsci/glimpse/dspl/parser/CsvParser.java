@@ -34,8 +34,20 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import javax.xml.bind.JAXBException;
@@ -44,6 +56,8 @@ import com.metsci.glimpse.dspl.DsplParser;
 import com.metsci.glimpse.dspl.parser.column.SliceColumnType;
 import com.metsci.glimpse.dspl.parser.table.PropertyTableData;
 import com.metsci.glimpse.dspl.parser.table.SliceTableData;
+import com.metsci.glimpse.dspl.parser.util.ByteTokenParser;
+import com.metsci.glimpse.dspl.parser.util.CsvChunkReader;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.BooleanColumnParser;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.DateColumnParser;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.FloatColumnParser;
@@ -53,17 +67,25 @@ import com.metsci.glimpse.dspl.parser.util.ParserUtils.SimpleParserFactory;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.StringColumnParser;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.TableColumnParser;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.TableParserInfo;
+import com.metsci.glimpse.dspl.parser.util.QuoteAwareByteSplitter;
 import com.metsci.glimpse.dspl.schema.Concept;
 import com.metsci.glimpse.dspl.schema.DataType;
 import com.metsci.glimpse.dspl.schema.Slice;
 import com.metsci.glimpse.dspl.schema.Table.Column;
 import com.metsci.glimpse.dspl.util.DsplException;
 import com.metsci.glimpse.dspl.util.DsplHelper;
+import com.metsci.glimpse.util.primitives.IntsArray;
 
 /**
  * The standard DSPL CSV parser capable of parsing CSV files which correspond to Google's
  * rules for CSV table files.
  *
+ * If the {@link DsplParser} is configured with more than one parse thread, files are
+ * split into large chunks on line boundaries (see {@link CsvChunkReader}) which are
+ * tokenized and parsed concurrently. Columns whose parsers implement {@link CSVBytesColumnParser}
+ * are parsed directly from bytes into primitive arrays, and the chunks are then appended
+ * to the column parsers in file order.
+ *
  * @author ulman
  */
 public class CsvParser implements TableParser
@@ -105,6 +127,24 @@ public class CsvParser implements TableParser
     @Override
     public SliceTableData parse( Slice slice, InputStream stream ) throws IOException, JAXBException, DsplException
     {
+        if ( isParallel( ) )
+        {
+            try
+            {
+                CsvChunkReader reader = new CsvChunkReader( stream );
+
+                TableParserInfo info = newParserInfo( slice, readHeader( reader ) );
+
+                parseParallel( reader, info );
+
+                return buildSliceTableData( slice, info, factory );
+            }
+            finally
+            {
+                stream.close( );
+            }
+        }
+
         BufferedReader in = new BufferedReader( new InputStreamReader( stream ) );
 
         try
@@ -136,6 +176,24 @@ public class CsvParser implements TableParser
     @Override
     public PropertyTableData parse( Concept concept, InputStream stream ) throws IOException, JAXBException, DsplException
     {
+        if ( isParallel( ) )
+        {
+            try
+            {
+                CsvChunkReader reader = new CsvChunkReader( stream );
+
+                TableParserInfo info = newParserInfo( concept, readHeader( reader ) );
+
+                parseParallel( reader, info );
+
+                return buildPropertyTableData( concept, info, factory );
+            }
+            finally
+            {
+                stream.close( );
+            }
+        }
+
         BufferedReader in = new BufferedReader( new InputStreamReader( stream ) );
 
         try
@@ -157,31 +215,273 @@ public class CsvParser implements TableParser
         CSVTableColumnParser[] parsers = ( CSVTableColumnParser[] ) info.getParsers( );
 
         int size = parsers.length;
+        int splitLimit = getSplitLimit( info );
         String line = null;
 
         while ( ( line = in.readLine( ) ) != null )
         {
-            String[] tokens = splitLine( line );
+            String[] tokens = splitLine( line, splitLimit );
 
-            if ( tokens.length == size )
+            if ( tokens.length == size || acceptRow( size, tokens.length, line ) )
             {
                 for ( int i = 0; i < size; i++ )
                 {
-                    parsers[i].addData( tokens[i] );
+                    if ( i < tokens.length )
+                        parsers[i].addData( tokens[i] );
+                    else
+                        parsers[i].addGap( );
                 }
             }
+        }
+    }
+
+    /**
+     * @return the maximum number of tokens to split each row into
+     */
+    protected int getSplitLimit( TableParserInfo info )
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Called for rows which do not have exactly one token per column. If the row is accepted,
+     * missing trailing tokens are added as gaps and extra tokens are ignored.
+     *
+     * @return whether the row should be added to the table
+     */
+    protected boolean acceptRow( int size, int tokenCount, String line ) throws DsplException
+    {
+        if ( dsplParser.isFailOnErrorMode( ) )
+        {
+            throw new DsplException( "Encountered row of incorrect size (expected %d found %d): [%s]", size, tokenCount, line );
+        }
+        else
+        {
+            logWarning( logger, "Skipping row of incorrect size (expected %d found %d): [%s]", size, tokenCount, line );
+            return false;
+        }
+    }
+
+    protected boolean isParallel( )
+    {
+        return dsplParser.getParseThreads( ) > 1;
+    }
+
+    /**
+     * Consumes the header line, leaving the chunk reader positioned at the first data row.
+     *
+     * @return a reader over just the header line, suitable for passing to newParserInfo
+     */
+    protected BufferedReader readHeader( CsvChunkReader reader ) throws IOException
+    {
+        return new BufferedReader( new StringReader( reader.readLine( ) ) );
+    }
+
+    /**
+     * Parses the rows remaining in {@code reader} using the DsplParser's parse threads. At most
+     * two chunks per thread are held in memory at once, and chunks are appended to the column
+     * parsers in file order, so the result is identical to {@link #parse(BufferedReader, TableParserInfo)}.
+     */
+    protected void parseParallel( CsvChunkReader reader, TableParserInfo info ) throws IOException, DsplException
+    {
+        CSVTableColumnParser[] parsers = ( CSVTableColumnParser[] ) info.getParsers( );
+
+        int threads = dsplParser.getParseThreads( );
+        ExecutorService executor = newParseExecutor( threads );
+
+        try
+        {
+            LinkedList<Future<CsvChunk>> pending = new LinkedList<Future<CsvChunk>>( );
+
+            ByteBuffer buffer = null;
+            while ( ( buffer = reader.next( ) ) != null )
+            {
+                pending.add( executor.submit( new CsvChunkTask( buffer, info ) ) );
+
+                if ( pending.size( ) > 2 * threads )
+                {
+                    addChunk( parsers, getChunk( pending.removeFirst( ) ) );
+                }
+            }
+
+            while ( !pending.isEmpty( ) )
+            {
+                addChunk( parsers, getChunk( pending.removeFirst( ) ) );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+    }
+
+    protected ExecutorService newParseExecutor( int threads )
+    {
+        final AtomicInteger threadCount = new AtomicInteger( );
+
+        return Executors.newFixedThreadPool( threads, new ThreadFactory( )
+        {
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable );
+                thread.setName( "csv-parser-" + threadCount.incrementAndGet( ) );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+    }
+
+    protected CsvChunk getChunk( Future<CsvChunk> future ) throws IOException, DsplException
+    {
+        try
+        {
+            return future.get( );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new DsplException( "Interrupted while parsing csv file.", e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause( );
+
+            if ( cause instanceof DsplException ) throw ( DsplException ) cause;
+            if ( cause instanceof IOException ) throw ( IOException ) cause;
+            if ( cause instanceof RuntimeException ) throw ( RuntimeException ) cause;
+
+            throw new DsplException( "Problem parsing csv file.", cause );
+        }
+    }
+
+    protected void addChunk( CSVTableColumnParser[] parsers, CsvChunk chunk ) throws DsplException
+    {
+        for ( int i = 0; i < parsers.length; i++ )
+        {
+            CSVBytesColumnParser chunkParser = chunk.chunkParsers[i];
+
+            if ( chunkParser != null )
+            {
+                ( ( CSVBytesColumnParser ) parsers[i] ).addChunk( chunkParser );
+            }
             else
             {
-                if ( dsplParser.isFailOnErrorMode( ) )
+                for ( String token : chunk.tokens.get( i ) )
+                {
+                    if ( token == null )
+                        parsers[i].addGap( );
+                    else
+                        parsers[i].addData( token );
+                }
+            }
+        }
+    }
+
+    /**
+     * The rows of one chunk of a csv file. Columns whose parser supports it are parsed into
+     * a chunk parser of the same type, and all other columns are kept as String tokens, to be
+     * handed to the column's parser in order on the calling thread.
+     */
+    protected static class CsvChunk
+    {
+        public final CSVBytesColumnParser[] chunkParsers;
+        public final List<List<String>> tokens;
+
+        public CsvChunk( CSVTableColumnParser[] parsers )
+        {
+            int size = parsers.length;
+
+            chunkParsers = new CSVBytesColumnParser[size];
+            tokens = new ArrayList<List<String>>( size );
+
+            for ( int i = 0; i < size; i++ )
+            {
+                if ( parsers[i] instanceof CSVBytesColumnParser )
                 {
-                    throw new DsplException( "Encountered row of incorrect size (expected %d found %d): [%s]", size, tokens.length, line );
+                    chunkParsers[i] = ( ( CSVBytesColumnParser ) parsers[i] ).newChunkParser( );
+                    tokens.add( null );
                 }
                 else
                 {
-                	logWarning( logger,  "Skipping row of incorrect size (expected %d found %d): [%s]", size, tokens.length, line );
+                    tokens.add( new ArrayList<String>( ) );
                 }
             }
         }
+
+        public void addData( int column, ByteBuffer buffer, int start, int end ) throws DsplException
+        {
+            if ( chunkParsers[column] != null )
+                chunkParsers[column].addData( buffer, start, end );
+            else
+                tokens.get( column ).add( ByteTokenParser.toString( buffer, start, end ) );
+        }
+
+        public void addGap( int column )
+        {
+            if ( chunkParsers[column] != null )
+                chunkParsers[column].addGap( );
+            else
+                tokens.get( column ).add( null );
+        }
+    }
+
+    protected class CsvChunkTask implements Callable<CsvChunk>
+    {
+        protected ByteBuffer buffer;
+        protected TableParserInfo info;
+
+        public CsvChunkTask( ByteBuffer buffer, TableParserInfo info )
+        {
+            this.buffer = buffer;
+            this.info = info;
+        }
+
+        @Override
+        public CsvChunk call( ) throws IOException, DsplException
+        {
+            CSVTableColumnParser[] parsers = ( CSVTableColumnParser[] ) info.getParsers( );
+            CsvChunk chunk = new CsvChunk( parsers );
+
+            int size = parsers.length;
+            int splitLimit = getSplitLimit( info );
+            IntsArray tokenStarts = new IntsArray( );
+            IntsArray tokenEnds = new IntsArray( );
+
+            int length = buffer.limit( );
+            int lineStart = 0;
+
+            while ( lineStart < length )
+            {
+                // lines end with '\n', '\r' or '\r\n', as for BufferedReader.readLine
+                int lineEnd = lineStart;
+                byte b = 0;
+                while ( lineEnd < length && ( b = buffer.get( lineEnd ) ) != '\n' && b != '\r' )
+                {
+                    lineEnd++;
+                }
+
+                int nextLineStart = lineEnd + 1;
+                if ( b == '\r' && nextLineStart < length && buffer.get( nextLineStart ) == '\n' ) nextLineStart++;
+
+                int tokenCount = QuoteAwareByteSplitter.splitLine( buffer, lineStart, lineEnd, splitLimit, tokenStarts, tokenEnds );
+
+                if ( tokenCount == size || acceptRow( size, tokenCount, ByteTokenParser.toString( buffer, lineStart, lineEnd ) ) )
+                {
+                    for ( int i = 0; i < size; i++ )
+                    {
+                        if ( i < tokenCount )
+                            chunk.addData( i, buffer, tokenStarts.a[i], tokenEnds.a[i] );
+                        else
+                            chunk.addGap( i );
+                    }
+                }
+
+                lineStart = nextLineStart;
+            }
+
+            return chunk;
+        }
     }
 
     protected String[] parseFirstLine( BufferedReader in ) throws IOException, JAXBException
@@ -222,6 +522,25 @@ public class CsvParser implements TableParser
         public void addGap( );
     }
 
+    /**
+     * A column parser which can parse tokens directly from bytes, and which can be
+     * split into independent chunk parsers for parsing parts of a file concurrently.
+     */
+    public interface CSVBytesColumnParser extends CSVTableColumnParser
+    {
+        public void addData( ByteBuffer buffer, int start, int end ) throws DsplException;
+
+        /**
+         * @return a new, empty parser of the same type, which may be used on another thread
+         */
+        public CSVBytesColumnParser newChunkParser( );
+
+        /**
+         * Appends all the values of a parser created by {@link #newChunkParser()}.
+         */
+        public void addChunk( CSVBytesColumnParser chunk );
+    }
+
     public class CSVParserFactory extends SimpleParserFactory
     {
         @Override
@@ -261,7 +580,7 @@ public class CsvParser implements TableParser
         }
     }
 
-    protected class CSVStringColumnParser extends StringColumnParser implements CSVTableColumnParser
+    protected class CSVStringColumnParser extends StringColumnParser implements CSVBytesColumnParser
     {
         @Override
         public void addData( String token )
@@ -269,6 +588,24 @@ public class CsvParser implements TableParser
             data.add( parse( token ) );
         }
 
+        @Override
+        public void addData( ByteBuffer buffer, int start, int end )
+        {
+            data.add( ByteTokenParser.toString( buffer, start, end ) );
+        }
+
+        @Override
+        public CSVBytesColumnParser newChunkParser( )
+        {
+            return new CSVStringColumnParser( );
+        }
+
+        @Override
+        public void addChunk( CSVBytesColumnParser chunk )
+        {
+            data.addAll( ( ( CSVStringColumnParser ) chunk ).data );
+        }
+
         @Override
         public void addGap( )
         {
@@ -276,7 +613,7 @@ public class CsvParser implements TableParser
         }
     }
 
-    protected class CSVIntegerColumnParser extends IntegerColumnParser implements CSVTableColumnParser
+    protected class CSVIntegerColumnParser extends IntegerColumnParser implements CSVBytesColumnParser
     {
         @Override
         public void addData( String token ) throws DsplException
@@ -306,6 +643,39 @@ public class CsvParser implements TableParser
             }
         }
 
+        @Override
+        public void addData( ByteBuffer buffer, int start, int end ) throws DsplException
+        {
+            if ( start == end )
+            {
+                addGap( );
+            }
+            else
+            {
+                try
+                {
+                    data.append( ByteTokenParser.parseInt( buffer, start, end ) );
+                }
+                catch ( NumberFormatException e )
+                {
+                    // not a plain decimal integer, let the String parse handle it or report the error
+                    addData( ByteTokenParser.toString( buffer, start, end ) );
+                }
+            }
+        }
+
+        @Override
+        public CSVBytesColumnParser newChunkParser( )
+        {
+            return new CSVIntegerColumnParser( );
+        }
+
+        @Override
+        public void addChunk( CSVBytesColumnParser chunk )
+        {
+            data.append( ( ( CSVIntegerColumnParser ) chunk ).data );
+        }
+
         //TODO we need a much better way to mark missing data
         @Override
         public void addGap( )
@@ -314,7 +684,7 @@ public class CsvParser implements TableParser
         }
     }
 
-    protected class CSVFloatColumnParser extends FloatColumnParser implements CSVTableColumnParser
+    protected class CSVFloatColumnParser extends FloatColumnParser implements CSVBytesColumnParser
     {
         @Override
         public void addData( String token ) throws DsplException
@@ -344,6 +714,39 @@ public class CsvParser implements TableParser
             }
         }
 
+        @Override
+        public void addData( ByteBuffer buffer, int start, int end ) throws DsplException
+        {
+            if ( start == end )
+            {
+                addGap( );
+            }
+            else
+            {
+                try
+                {
+                    data.append( ByteTokenParser.parseFloat( buffer, start, end ) );
+                }
+                catch ( NumberFormatException e )
+                {
+                    // not a simple decimal, let the String parse handle it or report the error
+                    addData( ByteTokenParser.toString( buffer, start, end ) );
+                }
+            }
+        }
+
+        @Override
+        public CSVBytesColumnParser newChunkParser( )
+        {
+            return new CSVFloatColumnParser( );
+        }
+
+        @Override
+        public void addChunk( CSVBytesColumnParser chunk )
+        {
+            data.append( ( ( CSVFloatColumnParser ) chunk ).data );
+        }
+
         //TODO we need a much better way to mark missing data
         @Override
         public void addGap( )
@@ -352,7 +755,7 @@ public class CsvParser implements TableParser
         }
     }
 
-    protected class CSVBooleanColumnParser extends BooleanColumnParser implements CSVTableColumnParser
+    protected class CSVBooleanColumnParser extends BooleanColumnParser implements CSVBytesColumnParser
     {
         @Override
         public void addData( String token ) throws DsplException
@@ -382,6 +785,31 @@ public class CsvParser implements TableParser
             }
         }
 
+        @Override
+        public void addData( ByteBuffer buffer, int start, int end ) throws DsplException
+        {
+            if ( start == end )
+            {
+                addGap( );
+            }
+            else
+            {
+                data.append( ByteTokenParser.parseBoolean( buffer, start, end ) );
+            }
+        }
+
+        @Override
+        public CSVBytesColumnParser newChunkParser( )
+        {
+            return new CSVBooleanColumnParser( );
+        }
+
+        @Override
+        public void addChunk( CSVBytesColumnParser chunk )
+        {
+            data.append( ( ( CSVBooleanColumnParser ) chunk ).data );
+        }
+
         //TODO we need a much better way to mark missing data
         @Override
         public void addGap( )
@@ -390,11 +818,15 @@ public class CsvParser implements TableParser
         }
     }
 
-    protected class CSVDateColumnParser extends DateColumnParser implements CSVTableColumnParser
+    protected class CSVDateColumnParser extends DateColumnParser implements CSVBytesColumnParser
     {
+        protected Column column;
+
         public CSVDateColumnParser( Column column )
         {
             super( column );
+
+            this.column = column;
         }
 
         @Override
@@ -425,6 +857,31 @@ public class CsvParser implements TableParser
             }
         }
 
+        @Override
+        public void addData( ByteBuffer buffer, int start, int end ) throws DsplException
+        {
+            if ( start == end )
+            {
+                addGap( );
+            }
+            else
+            {
+                addData( ByteTokenParser.toString( buffer, start, end ) );
+            }
+        }
+
+        @Override
+        public CSVBytesColumnParser newChunkParser( )
+        {
+            return new CSVDateColumnParser( column );
+        }
+
+        @Override
+        public void addChunk( CSVBytesColumnParser chunk )
+        {
+            data.append( ( ( CSVDateColumnParser ) chunk ).data );
+        }
+
         //TODO we need a much better way to mark missing data
         @Override
         public void addGap( )
@@ -27,16 +27,17 @@
 package com.metsci.glimpse.dspl.parser;
 
 import static com.metsci.glimpse.dspl.parser.util.ParserUtils.*;
-import static com.metsci.glimpse.dspl.parser.util.QuoteAwareStringSplitter.*;
 import static com.metsci.glimpse.util.logging.LoggerUtils.*;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -56,6 +57,8 @@ import com.metsci.glimpse.dspl.parser.column.CompactStringTableColumn;
 import com.metsci.glimpse.dspl.parser.column.TableColumn;
 import com.metsci.glimpse.dspl.parser.table.PropertyTableData;
 import com.metsci.glimpse.dspl.parser.table.SliceTableData;
+import com.metsci.glimpse.dspl.parser.util.ByteTokenParser;
+import com.metsci.glimpse.dspl.parser.util.CsvChunkReader;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.DateColumnParser;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.ParserFactory;
 import com.metsci.glimpse.dspl.parser.util.ParserUtils.TableParserInfo;
@@ -87,32 +90,23 @@ public class ExtendedCsvParser extends CsvParser implements MultipleFileTablePar
     }
 
     @Override
-    protected void parse( BufferedReader in, TableParserInfo info ) throws IOException, DsplException
+    protected int getSplitLimit( TableParserInfo info )
     {
-        CSVTableColumnParser[] parsers = ( CSVTableColumnParser[] ) info.getParsers( );
         Column[] columns = info.getColumns( );
-
-        int size = parsers.length;
-        String line = null;
+        int size = columns.length;
 
         // extends the default parsing semantics to include a possible "remainder" format
         // for the last column, indicating that that column should get all extra tokens as one string
         String trailingFormat = columns[size - 1].getFormat( );
         boolean allowExtraTrailingTokens = ( trailingFormat != null && trailingFormat.equals( "remainder" ) );
-        int splitLimit = allowExtraTrailingTokens ? size : Integer.MAX_VALUE;
-
-        while ( ( line = in.readLine( ) ) != null )
-        {
-            String[] tokens = splitLine( line, splitLimit );
+        return allowExtraTrailingTokens ? size : Integer.MAX_VALUE;
+    }
 
-            for ( int i = 0; i < size; i++ )
-            {
-                if ( i < tokens.length )
-                    parsers[i].addData( tokens[i] );
-                else
-                    parsers[i].addGap( );
-            }
-        }
+    // short rows are padded with gaps, and extra tokens are ignored
+    @Override
+    protected boolean acceptRow( int size, int tokenCount, String line )
+    {
+        return true;
     }
 
     @Override
@@ -135,17 +129,7 @@ public class ExtendedCsvParser extends CsvParser implements MultipleFileTablePar
 
         for ( URL f : files )
         {
-            in = new BufferedReader( new InputStreamReader( f.openStream( ) ) );
-
-            try
-            {
-                in.readLine( ); // read the header line, which must be the same in all the files
-                parse( in, info );
-            }
-            finally
-            {
-                in.close( );
-            }
+            parseDataFile( f, info );
         }
 
         return buildSliceTableData( slice, info, factory );
@@ -171,7 +155,32 @@ public class ExtendedCsvParser extends CsvParser implements MultipleFileTablePar
 
         for ( URL f : files )
         {
-            in = new BufferedReader( new InputStreamReader( f.openStream( ) ) );
+            parseDataFile( f, info );
+        }
+
+        return buildPropertyTableData( concept, info, factory );
+    }
+
+    protected void parseDataFile( URL file, TableParserInfo info ) throws IOException, DsplException
+    {
+        if ( isParallel( ) )
+        {
+            InputStream stream = file.openStream( );
+
+            try
+            {
+                CsvChunkReader reader = new CsvChunkReader( stream );
+                readHeader( reader ); // read the header line, which must be the same in all the files
+                parseParallel( reader, info );
+            }
+            finally
+            {
+                stream.close( );
+            }
+        }
+        else
+        {
+            BufferedReader in = new BufferedReader( new InputStreamReader( file.openStream( ) ) );
 
             try
             {
@@ -183,8 +192,6 @@ public class ExtendedCsvParser extends CsvParser implements MultipleFileTablePar
                 in.close( );
             }
         }
-
-        return buildPropertyTableData( concept, info, factory );
     }
 
     @Override
@@ -434,17 +441,38 @@ public class ExtendedCsvParser extends CsvParser implements MultipleFileTablePar
         }
     }
 
-    protected class ExtendedCSVDateColumnParser extends DateColumnParser implements CSVTableColumnParser
+    protected class ExtendedCSVDateColumnParser extends DateColumnParser implements CSVBytesColumnParser
     {
+        protected Column column;
         protected DateFormat alternateDateFormat;
 
         public ExtendedCSVDateColumnParser( Column column )
         {
             super( column );
 
+            this.column = column;
             this.alternateDateFormat = new SimpleDateFormat( format );
         }
 
+        @Override
+        public void addData( ByteBuffer buffer, int start, int end ) throws DsplException
+        {
+            addData( ByteTokenParser.toString( buffer, start, end ) );
+        }
+
+        // each chunk parser gets its own SimpleDateFormat, which is not thread safe
+        @Override
+        public CSVBytesColumnParser newChunkParser( )
+        {
+            return new ExtendedCSVDateColumnParser( column );
+        }
+
+        @Override
+        public void addChunk( CSVBytesColumnParser chunk )
+        {
+            data.append( ( ( ExtendedCSVDateColumnParser ) chunk ).data );
+        }
+
         @Override
         public void addData( String token ) throws DsplException
         {
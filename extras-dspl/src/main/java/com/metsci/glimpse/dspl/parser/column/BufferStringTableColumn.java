@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.dspl.parser.column;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.metsci.glimpse.dspl.schema.Concept;
+import com.metsci.glimpse.dspl.schema.DataType;
+import com.metsci.glimpse.dspl.schema.Table.Column;
+
+/**
+ * A STRING or CONCEPT column whose values are decoded on demand from UTF-8 bytes
+ * held in a ByteBuffer, usually a region of a memory mapped cache file.<p>
+ *
+ * The buffer holds {@code size + 1} int byte offsets, followed by the string bytes.
+ * String i occupies the bytes between offsets i and i+1, relative to the first byte
+ * after the offsets.
+ */
+public class BufferStringTableColumn extends AbstractTableColumn
+{
+    protected static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    protected ByteBuffer data;
+    protected int stringStart;
+
+    public BufferStringTableColumn( Column column, Concept concept, DataType type, ByteBuffer data, int size )
+    {
+        super( column, concept, type, size );
+
+        this.data = data;
+        this.stringStart = ( size + 1 ) * 4;
+    }
+
+    @Override
+    public boolean isConstant( )
+    {
+        return false;
+    }
+
+    @Override
+    public String[] getStringData( )
+    {
+        String[] array = new String[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            array[i] = getStringData( i );
+        }
+
+        return array;
+    }
+
+    @Override
+    public String getStringData( int i )
+    {
+        int start = data.getInt( i * 4 );
+        int end = data.getInt( ( i + 1 ) * 4 );
+
+        ByteBuffer bytes = data.duplicate( );
+        bytes.limit( stringStart + end );
+        bytes.position( stringStart + start );
+
+        return UTF8.decode( bytes ).toString( );
+    }
+}
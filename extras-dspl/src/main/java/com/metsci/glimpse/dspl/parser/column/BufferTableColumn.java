@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.dspl.parser.column;
+
+import java.nio.ByteBuffer;
+
+import com.metsci.glimpse.dspl.schema.Concept;
+import com.metsci.glimpse.dspl.schema.DataType;
+import com.metsci.glimpse.dspl.schema.Table.Column;
+
+/**
+ * A FLOAT, INTEGER, BOOLEAN, or DATE column whose values are read directly out of a
+ * ByteBuffer, usually a region of a memory mapped cache file (see ColumnBinaryParser).<p>
+ *
+ * The single value getters read straight from the buffer. The array getters must copy
+ * the whole column onto the heap, so callers should prefer the single value getters
+ * or {@link #getBuffer()}.
+ */
+public class BufferTableColumn extends AbstractTableColumn
+{
+    protected ByteBuffer data;
+
+    public BufferTableColumn( Column column, Concept concept, DataType type, ByteBuffer data, int size )
+    {
+        super( column, concept, type, size );
+
+        this.data = data;
+    }
+
+    /**
+     * @return a read-only view of the column values, with position zero
+     */
+    public ByteBuffer getBuffer( )
+    {
+        ByteBuffer buffer = data.asReadOnlyBuffer( );
+        buffer.order( data.order( ) );
+        buffer.clear( );
+        return buffer;
+    }
+
+    @Override
+    public boolean isConstant( )
+    {
+        return false;
+    }
+
+    @Override
+    public int[] getIntegerData( )
+    {
+        int[] array = new int[size];
+        getBuffer( ).asIntBuffer( ).get( array );
+        return array;
+    }
+
+    @Override
+    public float[] getFloatData( )
+    {
+        float[] array = new float[size];
+        getBuffer( ).asFloatBuffer( ).get( array );
+        return array;
+    }
+
+    @Override
+    public boolean[] getBooleanData( )
+    {
+        boolean[] array = new boolean[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            array[i] = getBooleanData( i );
+        }
+
+        return array;
+    }
+
+    @Override
+    public long[] getDateData( )
+    {
+        long[] array = new long[size];
+        getBuffer( ).asLongBuffer( ).get( array );
+        return array;
+    }
+
+    @Override
+    public int getIntegerData( int i )
+    {
+        return data.getInt( i * 4 );
+    }
+
+    @Override
+    public float getFloatData( int i )
+    {
+        return data.getFloat( i * 4 );
+    }
+
+    @Override
+    public boolean getBooleanData( int i )
+    {
+        return data.get( i ) != 0;
+    }
+
+    @Override
+    public long getDateData( int i )
+    {
+        return data.getLong( i * 8 );
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.dspl.parser.table;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import com.metsci.glimpse.dspl.parser.column.TableColumn;
+import com.metsci.glimpse.dspl.parser.util.ParserUtils;
+import com.metsci.glimpse.dspl.schema.Concept;
+import com.metsci.glimpse.dspl.schema.Slice;
+import com.metsci.glimpse.dspl.util.DsplException;
+
+/**
+ * A SliceTableData which loads some of its columns the first time they are requested.
+ *
+ * @see com.metsci.glimpse.dspl.parser.ProjectingTableParser
+ */
+public class LazySliceTableData implements SliceTableData
+{
+    public interface ColumnLoader
+    {
+        public TableColumn loadColumn( String columnId ) throws IOException, DsplException;
+    }
+
+    protected Slice slice;
+    protected Collection<String> metricColumnIds;
+    protected Collection<String> dimensionColumnIds;
+    protected Map<String, TableColumn> metricColumns;
+    protected Map<String, TableColumn> dimensionColumns;
+    protected ColumnLoader loader;
+
+    protected int size;
+
+    /**
+     * @param dimensionColumnIds the ids of all dimension columns, loaded or not
+     * @param metricColumnIds the ids of all metric columns, loaded or not
+     * @param dimensionColumns the dimension columns which have already been loaded
+     * @param metricColumns the metric columns which have already been loaded
+     * @param loader loads the remaining columns on demand
+     */
+    public LazySliceTableData( Slice slice, int size, Collection<String> dimensionColumnIds, Collection<String> metricColumnIds, Map<String, TableColumn> dimensionColumns, Map<String, TableColumn> metricColumns, ColumnLoader loader )
+    {
+        this.slice = slice;
+        this.size = size;
+
+        this.metricColumnIds = metricColumnIds;
+        this.dimensionColumnIds = dimensionColumnIds;
+        this.metricColumns = metricColumns;
+        this.dimensionColumns = dimensionColumns;
+
+        this.loader = loader;
+    }
+
+    @Override
+    public Collection<String> getDimensionColumnIds( )
+    {
+        return Collections.unmodifiableCollection( dimensionColumnIds );
+    }
+
+    @Override
+    public Collection<String> getMetricColumnIds( )
+    {
+        return Collections.unmodifiableCollection( metricColumnIds );
+    }
+
+    @Override
+    public int getNumRows( )
+    {
+        return size;
+    }
+
+    @Override
+    public TableColumn getDimensionColumn( String ref )
+    {
+        return getColumn( ref, dimensionColumnIds, dimensionColumns );
+    }
+
+    @Override
+    public TableColumn getMetricColumn( String ref )
+    {
+        return getColumn( ref, metricColumnIds, metricColumns );
+    }
+
+    @Override
+    public TableColumn getDimensionColumn( Concept concept )
+    {
+        return getDimensionColumn( ParserUtils.getMappedDimensionColumn( slice, concept ) );
+    }
+
+    @Override
+    public TableColumn getMetricColumn( Concept concept )
+    {
+        return getMetricColumn( ParserUtils.getMappedMetricColumn( slice, concept ) );
+    }
+
+    protected synchronized TableColumn getColumn( String ref, Collection<String> ids, Map<String, TableColumn> columns )
+    {
+        TableColumn column = columns.get( ref );
+
+        if ( column == null && ref != null && ids.contains( ref ) )
+        {
+            try
+            {
+                column = loader.loadColumn( ref );
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( String.format( "Unable to load column: %s", ref ), e );
+            }
+            catch ( DsplException e )
+            {
+                throw new RuntimeException( String.format( "Unable to load column: %s", ref ), e );
+            }
+
+            columns.put( ref, column );
+        }
+
+        return column;
+    }
+}
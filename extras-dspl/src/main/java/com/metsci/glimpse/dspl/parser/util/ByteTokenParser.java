@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.dspl.parser.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses CSV tokens directly from the bytes of a {@link ByteBuffer}.
+ *
+ * The numeric methods only handle the plain decimal forms which make up nearly all
+ * DSPL data, and for which the result is guaranteed to match {@link Integer#parseInt(String)}
+ * and {@link Float#parseFloat(String)}. They throw {@link NumberFormatException} for anything
+ * else, and callers are expected to fall back to the String based parse, which then either
+ * handles the token or reports the error exactly as before.
+ */
+public class ByteTokenParser
+{
+    // 2^24, the largest float mantissa which can be represented exactly
+    protected static final int maxExactFloatMantissa = 1 << 24;
+
+    // powers of ten which can be represented exactly as floats
+    protected static final float[] exactPowersOfTen = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    public static int parseInt( ByteBuffer buffer, int start, int end ) throws NumberFormatException
+    {
+        int i = start;
+        boolean negative = false;
+
+        if ( i < end && buffer.get( i ) == '-' )
+        {
+            negative = true;
+            i++;
+        }
+
+        // at most 9 digits, so the value can't overflow
+        int digits = end - i;
+        if ( digits < 1 || digits > 9 ) throw new NumberFormatException( );
+
+        int value = 0;
+        for ( ; i < end; i++ )
+        {
+            int d = buffer.get( i ) - '0';
+            if ( d < 0 || d > 9 ) throw new NumberFormatException( );
+            value = value * 10 + d;
+        }
+
+        return negative ? -value : value;
+    }
+
+    public static float parseFloat( ByteBuffer buffer, int start, int end ) throws NumberFormatException
+    {
+        int i = start;
+        boolean negative = false;
+
+        if ( i < end )
+        {
+            byte c = buffer.get( i );
+            if ( c == '-' || c == '+' )
+            {
+                negative = ( c == '-' );
+                i++;
+            }
+        }
+
+        int mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+
+        for ( ; i < end; i++ )
+        {
+            byte c = buffer.get( i );
+
+            if ( c == '.' )
+            {
+                if ( fractionDigits >= 0 ) throw new NumberFormatException( );
+                fractionDigits = 0;
+                continue;
+            }
+
+            int d = c - '0';
+            if ( d < 0 || d > 9 ) throw new NumberFormatException( );
+
+            mantissa = mantissa * 10 + d;
+            if ( mantissa > maxExactFloatMantissa ) throw new NumberFormatException( );
+
+            digits++;
+            if ( fractionDigits >= 0 ) fractionDigits++;
+        }
+
+        if ( digits == 0 || fractionDigits >= exactPowersOfTen.length ) throw new NumberFormatException( );
+
+        // both operands are exact, so the single IEEE division is correctly rounded
+        float value = fractionDigits > 0 ? mantissa / exactPowersOfTen[fractionDigits] : mantissa;
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Equivalent to {@link Boolean#parseBoolean(String)}.
+     */
+    public static boolean parseBoolean( ByteBuffer buffer, int start, int end )
+    {
+        if ( end - start != 4 ) return false;
+
+        return ( buffer.get( start ) | 0x20 ) == 't' && ( buffer.get( start + 1 ) | 0x20 ) == 'r' && ( buffer.get( start + 2 ) | 0x20 ) == 'u' && ( buffer.get( start + 3 ) | 0x20 ) == 'e';
+    }
+
+    /**
+     * Decodes the bytes using the platform default charset, matching the
+     * {@link java.io.InputStreamReader} used by the line based parsers.
+     */
+    public static String toString( ByteBuffer buffer, int start, int end )
+    {
+        int length = end - start;
+
+        if ( buffer.hasArray( ) )
+        {
+            return new String( buffer.array( ), buffer.arrayOffset( ) + start, length );
+        }
+        else
+        {
+            byte[] bytes = new byte[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                bytes[i] = buffer.get( start + i );
+            }
+            return new String( bytes );
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.dspl.parser.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Splits a CSV stream into large chunks which always end on a line boundary, so
+ * that each chunk can be parsed independently. Files are memory mapped, and any
+ * other stream is read into heap buffers. As with {@link java.io.BufferedReader#readLine()},
+ * a line is terminated by '\n', '\r', or '\r' followed by '\n'.
+ */
+public class CsvChunkReader
+{
+    public static final int defaultChunkSize = 8 * 1024 * 1024;
+
+    protected static final byte NEWLINE = '\n';
+    protected static final byte CARRIAGE_RETURN = '\r';
+
+    protected InputStream stream;
+    protected FileChannel channel;
+    protected int chunkSize;
+
+    // mapped mode: position of the next chunk in the file
+    protected long position;
+    protected long size;
+    protected ByteBuffer singleByte;
+
+    // stream mode: bytes read past the end of the last complete line of the previous chunk
+    protected byte[] remainder;
+    protected int remainderLength;
+    protected boolean endOfStream;
+
+    public CsvChunkReader( InputStream stream ) throws IOException
+    {
+        this( stream, defaultChunkSize );
+    }
+
+    /**
+     * Chunks begin at the current position of {@code stream}. The stream should
+     * not be read by anyone else while chunks are being read.
+     */
+    public CsvChunkReader( InputStream stream, int chunkSize ) throws IOException
+    {
+        this.stream = stream;
+        this.chunkSize = chunkSize;
+
+        if ( stream instanceof FileInputStream )
+        {
+            this.channel = ( ( FileInputStream ) stream ).getChannel( );
+            this.position = channel.position( );
+            this.size = channel.size( );
+            this.singleByte = ByteBuffer.allocate( 1 );
+        }
+        else
+        {
+            this.remainder = new byte[0];
+        }
+    }
+
+    /**
+     * Reads the next line as a String, without the line terminator, so that chunks
+     * read afterward begin with the following line. Intended for reading a header
+     * line, so must be called before the first call to {@link #next()}.
+     */
+    public String readLine( ) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream( );
+
+        int b;
+        while ( ( b = read( ) ) != -1 && b != NEWLINE && b != CARRIAGE_RETURN )
+        {
+            line.write( b );
+        }
+
+        if ( b == CARRIAGE_RETURN )
+        {
+            int next = read( );
+            if ( next != -1 && next != NEWLINE ) unread( next );
+        }
+
+        return new String( line.toByteArray( ) );
+    }
+
+    protected int read( ) throws IOException
+    {
+        if ( channel != null )
+        {
+            if ( position >= size ) return -1;
+
+            singleByte.clear( );
+            channel.read( singleByte, position );
+            position++;
+            return singleByte.get( 0 ) & 0xff;
+        }
+        else if ( remainderLength > 0 )
+        {
+            remainderLength = 0;
+            return remainder[0] & 0xff;
+        }
+        else
+        {
+            int b = stream.read( );
+            if ( b == -1 ) endOfStream = true;
+            return b;
+        }
+    }
+
+    // only a single byte may be unread, and only directly after it was read
+    protected void unread( int b )
+    {
+        if ( channel != null )
+        {
+            position--;
+        }
+        else
+        {
+            remainder = new byte[] { ( byte ) b };
+            remainderLength = 1;
+        }
+    }
+
+    /**
+     * @return the next chunk, with position zero and limit at the end of its last line,
+     *         or null if the stream is exhausted
+     */
+    public ByteBuffer next( ) throws IOException
+    {
+        if ( channel != null )
+        {
+            return nextMapped( );
+        }
+        else
+        {
+            return nextRead( );
+        }
+    }
+
+    protected ByteBuffer nextMapped( ) throws IOException
+    {
+        if ( position >= size ) return null;
+
+        long window = Math.min( chunkSize, size - position );
+
+        while ( true )
+        {
+            ByteBuffer buffer = channel.map( MapMode.READ_ONLY, position, window );
+
+            // the final chunk ends at the end of the file, whether or not it ends with a line break
+            if ( position + window == size )
+            {
+                position = size;
+                return buffer;
+            }
+
+            int end = lastLineBreak( buffer, ( int ) window );
+            if ( end >= 0 )
+            {
+                position += end + 1;
+                buffer.limit( end + 1 );
+                return buffer.slice( );
+            }
+
+            // a single line longer than the window, so try again with a larger window
+            window = Math.min( Math.min( window * 2, Integer.MAX_VALUE ), size - position );
+        }
+    }
+
+    protected ByteBuffer nextRead( ) throws IOException
+    {
+        if ( endOfStream && remainderLength == 0 ) return null;
+
+        byte[] bytes = new byte[Math.max( chunkSize, remainderLength * 2 )];
+        System.arraycopy( remainder, 0, bytes, 0, remainderLength );
+        int length = remainderLength;
+
+        while ( true )
+        {
+            while ( !endOfStream && length < bytes.length )
+            {
+                int count = stream.read( bytes, length, bytes.length - length );
+                if ( count < 0 )
+                    endOfStream = true;
+                else
+                    length += count;
+            }
+
+            if ( endOfStream )
+            {
+                remainderLength = 0;
+                if ( length == 0 ) return null;
+                return ByteBuffer.wrap( bytes, 0, length ).slice( );
+            }
+
+            int end = lastLineBreak( ByteBuffer.wrap( bytes ), length );
+            if ( end >= 0 )
+            {
+                remainderLength = length - ( end + 1 );
+                if ( remainder.length < remainderLength ) remainder = new byte[remainderLength];
+                System.arraycopy( bytes, end + 1, remainder, 0, remainderLength );
+                return ByteBuffer.wrap( bytes, 0, end + 1 ).slice( );
+            }
+
+            // a single line longer than the buffer, so keep reading into a larger one
+            byte[] larger = new byte[bytes.length * 2];
+            System.arraycopy( bytes, 0, larger, 0, length );
+            bytes = larger;
+        }
+    }
+
+    /**
+     * Callers only use this when more data follows the buffer, so a '\r' in the last byte
+     * is not a safe place to split: the '\n' of a '\r\n' pair could begin the next chunk.
+     *
+     * @return the index of the last line terminator byte, or -1 if there is none
+     */
+    protected static int lastLineBreak( ByteBuffer buffer, int length )
+    {
+        for ( int i = length - 1; i >= 0; i-- )
+        {
+            byte b = buffer.get( i );
+            if ( b == NEWLINE || ( b == CARRIAGE_RETURN && i < length - 1 ) ) return i;
+        }
+
+        return -1;
+    }
+}
@@ -26,6 +26,8 @@
  */
 package com.metsci.glimpse.dspl.parser.util;
 
+import static com.metsci.glimpse.util.logging.LoggerUtils.logInfo;
+
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -39,12 +41,14 @@ import java.io.OutputStreamWriter;
 import java.net.URL;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.xml.bind.JAXBException;
 
 import com.metsci.glimpse.dspl.DsplParser;
 import com.metsci.glimpse.dspl.parser.MultipleFileTableParser;
+import com.metsci.glimpse.dspl.parser.ProjectingTableParser;
 import com.metsci.glimpse.dspl.parser.TableParser;
 import com.metsci.glimpse.dspl.parser.TableWriter;
 import com.metsci.glimpse.dspl.parser.table.PropertyTableData;
@@ -55,11 +59,21 @@ import com.metsci.glimpse.dspl.schema.Slice;
 import com.metsci.glimpse.dspl.schema.Table;
 import com.metsci.glimpse.dspl.util.DsplException;
 import com.metsci.glimpse.dspl.util.DsplHelper;
+import com.metsci.glimpse.dspl.util.FileFingerprint;
 import com.metsci.glimpse.dspl.util.FileNameCleaner;
 import com.metsci.glimpse.dspl.util.MD5Checksum;
 
 import java.util.logging.Logger;
 
+/**
+ * Caches parsed DSPL tables in a fast binary format (see {@link com.metsci.glimpse.dspl.parser.ColumnBinaryParser}).<p>
+ *
+ * Each cached table is stored with a small header file recording a hash of the source data, the
+ * {@link ValidationMode} used to compute that hash, and the time it took to parse the source data.
+ * A cache entry is only used if it was validated with the parser's current mode and the hash still
+ * matches. The default {@link ValidationMode#FINGERPRINT} mode only samples the source files (see
+ * {@link FileFingerprint}), so validating a warm cache does not require reading the source data.
+ */
 public class DsplCacheHelper
 {
     public static final Logger logger = Logger.getLogger( DsplCacheHelper.class.getName( ) );
@@ -71,6 +85,58 @@ public class DsplCacheHelper
     public static final String CACHE_FORMAT = "bin";
     public static final String HASH_FILE = ".md5";
 
+    public static enum ValidationMode
+    {
+        /**
+         * Hashes the full contents of the source data files.
+         */
+        MD5,
+        /**
+         * Hashes the size, modification time and sampled blocks of the source data files.
+         */
+        FINGERPRINT;
+    }
+
+    /**
+     * The contents of the header file stored alongside each cached table.
+     */
+    public static class CacheHeader
+    {
+        protected ValidationMode mode;
+        protected String hash;
+        protected long parseMillis;
+
+        public CacheHeader( ValidationMode mode, String hash, long parseMillis )
+        {
+            this.mode = mode;
+            this.hash = hash;
+            this.parseMillis = parseMillis;
+        }
+
+        public ValidationMode getMode( )
+        {
+            return mode;
+        }
+
+        public String getHash( )
+        {
+            return hash;
+        }
+
+        /**
+         * @return the time taken to parse the source data when the cache was created, or -1 if unknown
+         */
+        public long getParseMillis( )
+        {
+            return parseMillis;
+        }
+
+        public boolean isValid( ValidationMode mode, String hash )
+        {
+            return this.mode == mode && this.hash.equals( hash );
+        }
+    }
+
     public static PropertyTableData getTableData( Concept concept ) throws DsplException, JAXBException, IOException
     {
         try
@@ -83,9 +149,6 @@ public class DsplCacheHelper
             DsplParser dsplParser = dataset.getParser( );
             if ( dsplParser == null ) return null;
 
-            String calculatedHash = getCalculatedHash( concept );
-            if ( calculatedHash == null ) return null;
-
             Table table = concept.getTable( );
             if ( table == null ) return null;
 
@@ -99,15 +162,21 @@ public class DsplCacheHelper
                 return parser.parse( concept );
             }
 
-            String cachedHash = getCachedHash( concept );
+            long startTime = System.nanoTime( );
+
+            ValidationMode mode = dsplParser.getCacheValidationMode( );
+            String calculatedHash = getCalculatedHash( concept, mode );
+            if ( calculatedHash == null ) return null;
+
+            CacheHeader cacheHeader = getCacheHeader( concept );
 
             // the cache has not been created or the csv data has changed, load the data from the csv file and recreate the hash
-            if ( cachedHash == null || !cachedHash.equals( calculatedHash ) )
+            if ( cacheHeader == null || !cacheHeader.isValid( mode, calculatedHash ) )
             {
                 PropertyTableData tableData = parser.parse( concept );
+                long parseMillis = elapsedMillis( startTime );
 
                 File cacheFile = getCacheFile( concept );
-                FileOutputStream cacheFileStream = new FileOutputStream( cacheFile );
 
                 String cacheFormat = getExtension( cacheFile );
 
@@ -115,8 +184,24 @@ public class DsplCacheHelper
 
                 if ( cacheParser instanceof TableWriter )
                 {
-                    ( ( TableWriter ) cacheParser ).write( concept, tableData, cacheFileStream.getChannel( ) );
-                    writeHash( concept, calculatedHash );
+                    // the old cache file may still be memory mapped by data loaded from it earlier,
+                    // so write the new one alongside it and rename it into place rather than truncating it
+                    File tempFile = createTempFile( cacheFile );
+                    FileOutputStream cacheFileStream = new FileOutputStream( tempFile );
+                    boolean written = false;
+                    try
+                    {
+                        ( ( TableWriter ) cacheParser ).write( concept, tableData, cacheFileStream.getChannel( ) );
+                        written = true;
+                    }
+                    finally
+                    {
+                        cacheFileStream.close( );
+                        if ( !written ) tempFile.delete( );
+                    }
+
+                    commit( tempFile, cacheFile );
+                    writeCacheHeader( getCacheDirectory( concept ), new CacheHeader( mode, calculatedHash, parseMillis ) );
                 }
                 else
                 {
@@ -128,10 +213,16 @@ public class DsplCacheHelper
             // load the data from the cache
             else
             {
+                long validateMillis = elapsedMillis( startTime );
+
                 File cacheFile = getCacheFile( concept );
                 FileInputStream cacheFileStream = new FileInputStream( cacheFile );
                 TableParser cacheParser = dsplParser.getTableParser( getExtension( cacheFile ) );
-                return cacheParser.parse( concept, cacheFileStream.getChannel( ) );
+                PropertyTableData tableData = cacheParser.parse( concept, cacheFileStream.getChannel( ) );
+
+                logCacheHit( concept.getId( ), cacheHeader, validateMillis, elapsedMillis( startTime ) );
+
+                return tableData;
             }
         }
         catch ( NoSuchAlgorithmException e )
@@ -141,6 +232,17 @@ public class DsplCacheHelper
     }
 
     public static SliceTableData getTableData( Slice slice ) throws DsplException, JAXBException, IOException
+    {
+        return getTableData( slice, null );
+    }
+
+    /**
+     * Loads the table data for a slice, loading only the requested columns up front when the cached
+     * data is read by a {@link ProjectingTableParser}. Other columns are loaded when first accessed.
+     *
+     * @param columnIds the ids of the columns which will be used, or null to load all columns
+     */
+    public static SliceTableData getTableData( Slice slice, Collection<String> columnIds ) throws DsplException, JAXBException, IOException
     {
         try
         {
@@ -152,9 +254,6 @@ public class DsplCacheHelper
             DsplParser dsplParser = dataset.getParser( );
             if ( dsplParser == null ) return null;
 
-            String calculatedHash = getCalculatedHash( slice );
-            if ( calculatedHash == null ) return null;
-
             Table table = slice.getTable( );
             if ( table == null ) return null;
 
@@ -168,15 +267,21 @@ public class DsplCacheHelper
                 return parser.parse( slice );
             }
 
-            String cachedHash = getCachedHash( slice );
+            long startTime = System.nanoTime( );
+
+            ValidationMode mode = dsplParser.getCacheValidationMode( );
+            String calculatedHash = getCalculatedHash( slice, mode );
+            if ( calculatedHash == null ) return null;
+
+            CacheHeader cacheHeader = getCacheHeader( slice );
 
             // the cache has not been created or the csv data has changed, load the data from the csv file and recreate the hash
-            if ( cachedHash == null || !cachedHash.equals( calculatedHash ) )
+            if ( cacheHeader == null || !cacheHeader.isValid( mode, calculatedHash ) )
             {
                 SliceTableData tableData = parser.parse( slice );
+                long parseMillis = elapsedMillis( startTime );
 
                 File cacheFile = getCacheFile( slice );
-                OutputStream cacheFileStream = new FileOutputStream( cacheFile );
 
                 String cacheFormat = getExtension( cacheFile );
 
@@ -184,8 +289,24 @@ public class DsplCacheHelper
 
                 if ( cacheParser instanceof TableWriter )
                 {
-                    ( ( TableWriter ) cacheParser ).write( slice, tableData, cacheFileStream );
-                    writeHash( slice, calculatedHash );
+                    // the old cache file may still be memory mapped by data loaded from it earlier,
+                    // so write the new one alongside it and rename it into place rather than truncating it
+                    File tempFile = createTempFile( cacheFile );
+                    OutputStream cacheFileStream = new FileOutputStream( tempFile );
+                    boolean written = false;
+                    try
+                    {
+                        ( ( TableWriter ) cacheParser ).write( slice, tableData, cacheFileStream );
+                        written = true;
+                    }
+                    finally
+                    {
+                        cacheFileStream.close( );
+                        if ( !written ) tempFile.delete( );
+                    }
+
+                    commit( tempFile, cacheFile );
+                    writeCacheHeader( getCacheDirectory( slice ), new CacheHeader( mode, calculatedHash, parseMillis ) );
                 }
                 else
                 {
@@ -197,10 +318,24 @@ public class DsplCacheHelper
             // load the data from the cache
             else
             {
+                long validateMillis = elapsedMillis( startTime );
+
                 File cacheFile = getCacheFile( slice );
                 InputStream cacheFileStream = new FileInputStream( cacheFile );
                 TableParser cacheParser = dsplParser.getTableParser( getExtension( cacheFile ) );
-                return cacheParser.parse( slice, cacheFileStream );
+                SliceTableData tableData;
+                if ( columnIds != null && cacheParser instanceof ProjectingTableParser )
+                {
+                    tableData = ( ( ProjectingTableParser ) cacheParser ).parse( slice, cacheFileStream, columnIds );
+                }
+                else
+                {
+                    tableData = cacheParser.parse( slice, cacheFileStream );
+                }
+
+                logCacheHit( slice.getId( ), cacheHeader, validateMillis, elapsedMillis( startTime ) );
+
+                return tableData;
             }
         }
         catch ( NoSuchAlgorithmException e )
@@ -209,6 +344,23 @@ public class DsplCacheHelper
         }
     }
 
+    protected static long elapsedMillis( long startTime )
+    {
+        return ( System.nanoTime( ) - startTime ) / 1000000;
+    }
+
+    protected static void logCacheHit( String id, CacheHeader header, long validateMillis, long totalMillis )
+    {
+        if ( header.getParseMillis( ) < 0 )
+        {
+            logInfo( logger, "Loaded %s from cache in %d ms (%d ms validating with %s).", id, totalMillis, validateMillis, header.getMode( ) );
+        }
+        else
+        {
+            logInfo( logger, "Loaded %s from cache in %d ms (%d ms validating with %s), saving %d ms over parsing the source data.", id, totalMillis, validateMillis, header.getMode( ), header.getParseMillis( ) - totalMillis );
+        }
+    }
+
     public static File getCacheDirectory( Concept concept ) throws DsplException, JAXBException, IOException
     {
         return getCacheDirectory( concept.getDataSet( ), concept.getTable( ), concept.getId( ) );
@@ -292,126 +444,187 @@ public class DsplCacheHelper
     }
 
     public static String getCalculatedHash( Slice slice ) throws DsplException, JAXBException, IOException, NoSuchAlgorithmException
+    {
+        return getCalculatedHash( slice, slice.getDataSet( ).getParser( ).getCacheValidationMode( ) );
+    }
+
+    public static String getCalculatedHash( Slice slice, ValidationMode mode ) throws DsplException, JAXBException, IOException, NoSuchAlgorithmException
     {
         DataSet dataset = slice.getDataSet( );
         DsplParser dsplParser = dataset.getParser( );
         Table table = slice.getTable( );
         TableParser parser = dsplParser.getTableParser( table );
 
-        // the existence of ExtendedCsvParser complicates things because the data is split over multiple
-        // tables so the hash must hash over all the data files
-        // we handle this by computing a hash for each file then computing the hash of the individual hashes
         if ( parser instanceof MultipleFileTableParser )
         {
-            MultipleFileTableParser multiFileParser = ( MultipleFileTableParser ) parser;
-            List<URL> fileList = multiFileParser.getDataFiles( slice );
-            List<byte[]> fileHashList = new ArrayList<byte[]>( );
-
-            for ( URL file : fileList )
-            {
-                fileHashList.add( MD5Checksum.createChecksum( file.openStream( ) ) );
-            }
-
-            int totalSize = 0;
-            for ( byte[] hash : fileHashList )
-            {
-                totalSize += hash.length;
-            }
-
-            int currentSize = 0;
-            byte[] allHashes = new byte[totalSize];
-            for ( byte[] hash : fileHashList )
-            {
-                System.arraycopy( hash, 0, allHashes, currentSize, hash.length );
-                currentSize += hash.length;
-            }
-
-            return MD5Checksum.getMD5Checksum( allHashes );
+            return getCalculatedHash( ( ( MultipleFileTableParser ) parser ).getDataFiles( slice ), mode );
         }
         else
         {
-            InputStream hashIn = DsplHelper.getTableInputStream( slice );
-            return MD5Checksum.getMD5Checksum( hashIn );
+            return getCalculatedHash( slice.getTable( ), mode );
         }
     }
 
     public static String getCalculatedHash( Concept concept ) throws DsplException, JAXBException, IOException, NoSuchAlgorithmException
+    {
+        return getCalculatedHash( concept, concept.getDataSet( ).getParser( ).getCacheValidationMode( ) );
+    }
+
+    public static String getCalculatedHash( Concept concept, ValidationMode mode ) throws DsplException, JAXBException, IOException, NoSuchAlgorithmException
     {
         DataSet dataset = concept.getDataSet( );
         DsplParser dsplParser = dataset.getParser( );
         Table table = concept.getTable( );
         TableParser parser = dsplParser.getTableParser( table );
 
-        // the existence of ExtendedCsvParser complicates things because the data is split over multiple
-        // tables so the hash must hash over all the data files
-        // we handle this by computing a hash for each file then computing the hash of the individual hashes
         if ( parser instanceof MultipleFileTableParser )
         {
-            MultipleFileTableParser multiFileParser = ( MultipleFileTableParser ) parser;
-            List<URL> fileList = multiFileParser.getDataFiles( concept );
-            List<byte[]> fileHashList = new ArrayList<byte[]>( );
+            return getCalculatedHash( ( ( MultipleFileTableParser ) parser ).getDataFiles( concept ), mode );
+        }
+        else
+        {
+            return getCalculatedHash( concept.getTable( ), mode );
+        }
+    }
 
-            for ( URL file : fileList )
-            {
-                fileHashList.add( MD5Checksum.createChecksum( file.openStream( ) ) );
-            }
+    protected static String getCalculatedHash( Table table, ValidationMode mode ) throws IOException, NoSuchAlgorithmException
+    {
+        // when the table is a local file, fingerprint it the same way as the multiple file
+        // case below, including its modification time
+        if ( mode == ValidationMode.FINGERPRINT )
+        {
+            File file = DsplHelper.getTableFile( table );
+            if ( file != null ) return FileFingerprint.getFingerprint( file );
+        }
 
-            int totalSize = 0;
-            for ( byte[] hash : fileHashList )
-            {
-                totalSize += hash.length;
-            }
+        return getCalculatedHash( DsplHelper.getTableInputStream( table ), mode );
+    }
 
-            int currentSize = 0;
-            byte[] allHashes = new byte[totalSize];
-            for ( byte[] hash : fileHashList )
+    protected static String getCalculatedHash( InputStream hashIn, ValidationMode mode ) throws IOException, NoSuchAlgorithmException
+    {
+        if ( hashIn == null ) return null;
+
+        switch ( mode )
+        {
+        case FINGERPRINT:
+            return FileFingerprint.getFingerprint( hashIn );
+        case MD5:
+        default:
+            return MD5Checksum.getMD5Checksum( hashIn );
+        }
+    }
+
+    // the existence of ExtendedCsvParser complicates things because the data is split over multiple
+    // tables so the hash must hash over all the data files
+    // we handle this by computing a hash for each file then computing the hash of the individual hashes
+    protected static String getCalculatedHash( List<URL> fileList, ValidationMode mode ) throws IOException, NoSuchAlgorithmException
+    {
+        List<byte[]> fileHashList = new ArrayList<byte[]>( );
+
+        for ( URL file : fileList )
+        {
+            switch ( mode )
             {
-                System.arraycopy( hash, 0, allHashes, currentSize, hash.length );
-                currentSize += hash.length;
+            case FINGERPRINT:
+                fileHashList.add( FileFingerprint.createFingerprint( file ) );
+                break;
+            case MD5:
+            default:
+                fileHashList.add( MD5Checksum.createChecksum( file.openStream( ) ) );
+                break;
             }
+        }
 
-            return MD5Checksum.getMD5Checksum( allHashes );
+        int totalSize = 0;
+        for ( byte[] hash : fileHashList )
+        {
+            totalSize += hash.length;
         }
-        else
+
+        int currentSize = 0;
+        byte[] allHashes = new byte[totalSize];
+        for ( byte[] hash : fileHashList )
         {
-            InputStream hashIn = DsplHelper.getTableInputStream( concept );
-            return MD5Checksum.getMD5Checksum( hashIn );
+            System.arraycopy( hash, 0, allHashes, currentSize, hash.length );
+            currentSize += hash.length;
         }
+
+        return MD5Checksum.getMD5Checksum( allHashes );
     }
 
     public static String getCachedHash( Slice slice ) throws DsplException, JAXBException, IOException
     {
-        return getCachedHash( slice.getDataSet( ), slice.getTable( ), slice.getId( ) );
+        CacheHeader header = getCacheHeader( slice );
+        return header == null ? null : header.getHash( );
     }
 
     public static String getCachedHash( Concept concept ) throws DsplException, JAXBException, IOException
     {
-        return getCachedHash( concept.getDataSet( ), concept.getTable( ), concept.getId( ) );
+        CacheHeader header = getCacheHeader( concept );
+        return header == null ? null : header.getHash( );
+    }
+
+    public static CacheHeader getCacheHeader( Slice slice ) throws DsplException, JAXBException, IOException
+    {
+        return getCacheHeader( slice.getDataSet( ), slice.getTable( ), slice.getId( ) );
     }
 
-    protected static String getCachedHash( DataSet dataset, Table table, String id ) throws DsplException, JAXBException, IOException
+    public static CacheHeader getCacheHeader( Concept concept ) throws DsplException, JAXBException, IOException
+    {
+        return getCacheHeader( concept.getDataSet( ), concept.getTable( ), concept.getId( ) );
+    }
+
+    /**
+     * Reads the header file of a cached table. The first line holds the validation mode and the hash,
+     * separated by a space, and the second line holds the time taken to parse the source data. Header
+     * files written before validation modes existed hold only an MD5 hash.
+     */
+    protected static CacheHeader getCacheHeader( DataSet dataset, Table table, String id ) throws DsplException, JAXBException, IOException
     {
         File cacheDirectory = getCacheDirectory( dataset, table, id );
+        File hashFile = new File( cacheDirectory, HASH_FILE );
+
+        if ( !hashFile.exists( ) ) return null;
 
-        for ( File file : cacheDirectory.listFiles( ) )
+        BufferedReader in = new BufferedReader( new InputStreamReader( new FileInputStream( hashFile ) ) );
+        try
         {
-            String fileName = file.getName( );
+            String hashLine = in.readLine( );
+            if ( hashLine == null ) return null;
+
+            int split = hashLine.indexOf( ' ' );
+            if ( split < 0 ) return new CacheHeader( ValidationMode.MD5, hashLine, -1 );
 
-            if ( fileName.equals( HASH_FILE ) )
+            ValidationMode mode;
+            try
+            {
+                mode = ValidationMode.valueOf( hashLine.substring( 0, split ) );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                return null;
+            }
+
+            long parseMillis = -1;
+            String timeLine = in.readLine( );
+            if ( timeLine != null )
             {
-                BufferedReader in = new BufferedReader( new InputStreamReader( new FileInputStream( file ) ) );
                 try
                 {
-                    return in.readLine( );
+                    parseMillis = Long.parseLong( timeLine.trim( ) );
                 }
-                finally
+                catch ( NumberFormatException e )
                 {
-                    in.close( );
+                    // unknown parse time
                 }
             }
-        }
 
-        return null;
+            return new CacheHeader( mode, hashLine.substring( split + 1 ), parseMillis );
+        }
+        finally
+        {
+            in.close( );
+        }
     }
 
     public static void writeHash( Concept concept, String hash ) throws IOException, DsplException, NoSuchAlgorithmException, JAXBException
@@ -424,13 +637,57 @@ public class DsplCacheHelper
         writeHash( getCacheDirectory( slice ), hash );
     }
 
+    /**
+     * Writes a header file containing an {@link ValidationMode#MD5} hash.
+     */
     public static void writeHash( File directory, String hash ) throws IOException, DsplException, NoSuchAlgorithmException, JAXBException
+    {
+        writeCacheHeader( directory, new CacheHeader( ValidationMode.MD5, hash, -1 ) );
+    }
+
+    public static void writeCacheHeader( File directory, CacheHeader header ) throws IOException
     {
         File hashFile = new File( directory, HASH_FILE );
 
         BufferedWriter out = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( hashFile ) ) );
-        out.write( hash );
-        out.close( );
+        try
+        {
+            out.write( header.getMode( ) + " " + header.getHash( ) );
+            out.newLine( );
+            out.write( String.valueOf( header.getParseMillis( ) ) );
+            out.newLine( );
+        }
+        finally
+        {
+            out.close( );
+        }
+    }
+
+    protected static File createTempFile( File file ) throws IOException
+    {
+        File directory = file.getParentFile( );
+        if ( !directory.isDirectory( ) && !directory.mkdirs( ) )
+        {
+            throw new IOException( "Unable to create cache directory " + directory );
+        }
+
+        return File.createTempFile( file.getName( ), ".tmp", directory );
+    }
+
+    // replaces the file with the temp file, if the rename fails (on windows, for example, when
+    // the file already exists) the old file is deleted first, which does not disturb existing
+    // memory mappings of it
+    protected static void commit( File temp, File file ) throws IOException
+    {
+        if ( !temp.renameTo( file ) )
+        {
+            file.delete( );
+            if ( !temp.renameTo( file ) )
+            {
+                temp.delete( );
+                throw new IOException( "Unable to rename " + temp + " to " + file );
+            }
+        }
     }
 
     protected static String getExtension( File file )
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.dspl.parser.util;
+
+import static com.metsci.glimpse.dspl.parser.util.QuoteAwareStringSplitter.ParseMode.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.metsci.glimpse.dspl.parser.util.QuoteAwareStringSplitter.ParseMode;
+import com.metsci.glimpse.util.primitives.IntsArray;
+
+/**
+ * Splits lines of a CSV file held in a {@link ByteBuffer} into tokens without creating
+ * Strings. Follows exactly the same rules as {@link QuoteAwareStringSplitter}, but reports
+ * the start (inclusive) and end (exclusive) buffer index of each token instead of substrings.
+ */
+public class QuoteAwareByteSplitter
+{
+    protected static final byte QUOTE = '\"';
+    protected static final byte COMMA = ',';
+
+    public static int splitLine( ByteBuffer buffer, int start, int end, IntsArray tokenStarts, IntsArray tokenEnds ) throws IOException
+    {
+        return splitLine( buffer, start, end, COMMA, Integer.MAX_VALUE, tokenStarts, tokenEnds );
+    }
+
+    public static int splitLine( ByteBuffer buffer, int start, int end, int limit, IntsArray tokenStarts, IntsArray tokenEnds ) throws IOException
+    {
+        return splitLine( buffer, start, end, COMMA, limit, tokenStarts, tokenEnds );
+    }
+
+    /**
+     * Splits the line occupying {@code [start,end)} of {@code buffer}, replacing the contents of
+     * {@code tokenStarts} and {@code tokenEnds} with the bounds of each token.
+     *
+     * @return the number of tokens found
+     */
+    public static int splitLine( ByteBuffer buffer, int start, int end, byte split, int limit, IntsArray tokenStarts, IntsArray tokenEnds ) throws IOException
+    {
+        tokenStarts.n = 0;
+        tokenEnds.n = 0;
+
+        int itemStartPos = start;
+        ParseMode mode = DEFAULT;
+        for ( int linePos = start; linePos < end; linePos++ )
+        {
+            if ( tokenStarts.n == limit - 1 )
+            {
+                linePos = end - 1;
+            }
+
+            byte c = buffer.get( linePos );
+
+            if ( linePos == end - 1 )
+            {
+                if ( c == QUOTE )
+                {
+                    addToken( itemStartPos, linePos, tokenStarts, tokenEnds );
+                }
+                else if ( c == split )
+                {
+                    addToken( itemStartPos, linePos, tokenStarts, tokenEnds );
+                    if ( tokenStarts.n < limit )
+                    {
+                        addToken( linePos, linePos, tokenStarts, tokenEnds );
+                    }
+                }
+                else
+                {
+                    addToken( itemStartPos, linePos + 1, tokenStarts, tokenEnds );
+                }
+                break;
+            }
+
+            switch ( mode )
+            {
+
+            case BETWEEN_QUOTES:
+                if ( c == QUOTE )
+                {
+                    addToken( itemStartPos, linePos, tokenStarts, tokenEnds );
+                    mode = AFTER_END_QUOTE_BEFORE_COMMA;
+                    itemStartPos = linePos + 1;
+                }
+                break;
+
+            case AFTER_END_QUOTE_BEFORE_COMMA:
+                if ( c == QUOTE )
+                {
+                    throw new IOException( String.format( "Unable to parse: \"%s\"", ByteTokenParser.toString( buffer, start, end ) ) );
+                }
+                else if ( c == split )
+                {
+                    itemStartPos = linePos + 1;
+                    mode = DEFAULT;
+                }
+                break;
+
+            case DEFAULT:
+                if ( c == QUOTE )
+                {
+                    itemStartPos = linePos + 1;
+                    mode = BETWEEN_QUOTES;
+                }
+                else if ( c == split )
+                {
+                    addToken( itemStartPos, linePos, tokenStarts, tokenEnds );
+                    itemStartPos = linePos + 1;
+                }
+                break;
+
+            default:
+                throw new RuntimeException( String.format( "Unexpected state while parsing: \"%s\"", ByteTokenParser.toString( buffer, start, end ) ) );
+
+            }
+        }
+
+        return tokenStarts.n;
+    }
+
+    protected static void addToken( int start, int end, IntsArray tokenStarts, IntsArray tokenEnds )
+    {
+        tokenStarts.append( start );
+        tokenEnds.append( end );
+    }
+}
@@ -33,6 +33,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collection;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -43,6 +44,7 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
 
 import com.metsci.glimpse.dspl.DsplParser;
+import com.metsci.glimpse.dspl.parser.ProjectingTableParser;
 import com.metsci.glimpse.dspl.parser.TableParser;
 import com.metsci.glimpse.dspl.parser.table.PropertyTableData;
 import com.metsci.glimpse.dspl.parser.table.SliceTableData;
@@ -301,6 +303,17 @@ public class DsplHelper
     ///////////////////////////////////////////////////////////////////////
 
     public static SliceTableData getTableData( Slice slice ) throws IOException, JAXBException, DsplException
+    {
+        return getTableData( slice, null );
+    }
+
+    /**
+     * Loads the table data for a slice. If the table is read by a {@link ProjectingTableParser},
+     * only the requested columns are loaded up front and the others are loaded when first accessed.
+     *
+     * @param columnIds the ids of the columns which will be used, or null to load all columns
+     */
+    public static SliceTableData getTableData( Slice slice, Collection<String> columnIds ) throws IOException, JAXBException, DsplException
     {
         if ( slice == null ) return null;
 
@@ -319,7 +332,11 @@ public class DsplHelper
 
         if ( dsplParser.isCacheMode( ) )
         {
-            return DsplCacheHelper.getTableData( slice );
+            return DsplCacheHelper.getTableData( slice, columnIds );
+        }
+        else if ( columnIds != null && parser instanceof ProjectingTableParser )
+        {
+            return ( ( ProjectingTableParser ) parser ).parse( slice, getTableInputStream( slice ), columnIds );
         }
         else
         {
@@ -447,6 +464,50 @@ public class DsplHelper
         }
     }
 
+    /**
+     * @return the local file which {@link #getTableInputStream(Table)} reads the table from,
+     *         or null if the table is read from a classpath resource, a zip file or a url
+     */
+    public static java.io.File getTableFile( Table table )
+    {
+        if ( table == null ) return null;
+
+        DataSet dataset = table.getDataSet( );
+
+        Data data = table.getData( );
+        if ( data == null ) return null;
+
+        String name = data.getFile( ).getValue( );
+
+        String namespace = dataset.getTargetNamespace( );
+
+        if ( namespace != null && namespace.startsWith( canonicalGoogleNamespace ) )
+        {
+            return getExistingFile( new java.io.File( canonicalGoogleLocalBase + name ) );
+        }
+        else if ( namespace != null && namespace.startsWith( canonicalMetronNamespace ) )
+        {
+            return getExistingFile( new java.io.File( canonicalMetronLocalBase + name ) );
+        }
+
+        // same search order as getLocalTableInputStream
+        java.io.File file = getExistingFile( new java.io.File( name ) );
+        if ( file != null ) return file;
+
+        // getLocalTableInputStream would try a classpath resource next
+        if ( DsplHelper.class.getClassLoader( ).getResource( name ) != null ) return null;
+
+        java.io.File dataSetFile = dataset.getFile( );
+        if ( dataSetFile == null || dataSetFile.getName( ).endsWith( ".zip" ) ) return null;
+
+        return getExistingFile( new java.io.File( dataSetFile.getParentFile( ), name ) );
+    }
+
+    private static java.io.File getExistingFile( java.io.File file )
+    {
+        return file.isFile( ) ? file : null;
+    }
+
     public static InputStream getCanonicalTableInputStream( DsplParser parser, String file, String localBase, String urlBase ) throws IOException
     {
         if ( parser.isNetworkMode( ) )
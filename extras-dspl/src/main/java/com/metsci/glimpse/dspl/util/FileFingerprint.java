@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.dspl.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes a cheap fingerprint of a data file which changes whenever the file changes
+ * in any realistic way, without reading the whole file. The fingerprint is an MD5 digest
+ * over the file size, its modification time (when known) and a fixed number of evenly
+ * spaced blocks of the file, always including the first and last block.<p>
+ *
+ * Files smaller than the total size of the sampled blocks, and streams which are not
+ * backed by a local file, are hashed in full, exactly as {@link MD5Checksum} does.
+ *
+ * @see com.metsci.glimpse.dspl.parser.util.DsplCacheHelper
+ */
+public class FileFingerprint
+{
+    public static final int BLOCK_SIZE = 64 * 1024;
+    public static final int NUM_BLOCKS = 32;
+
+    public static byte[] createFingerprint( URL url ) throws NoSuchAlgorithmException, IOException
+    {
+        File file = toFile( url );
+
+        if ( file == null )
+        {
+            return MD5Checksum.createChecksum( url.openStream( ) );
+        }
+        else
+        {
+            return createFingerprint( new FileInputStream( file ), file.lastModified( ) );
+        }
+    }
+
+    public static byte[] createFingerprint( File file ) throws NoSuchAlgorithmException, IOException
+    {
+        return createFingerprint( new FileInputStream( file ), file.lastModified( ) );
+    }
+
+    /**
+     * Computes the fingerprint of the data in the provided stream, then closes it. Only
+     * FileInputStreams can be sampled; any other stream is hashed in full.
+     */
+    public static byte[] createFingerprint( InputStream in ) throws NoSuchAlgorithmException, IOException
+    {
+        return createFingerprint( in, 0 );
+    }
+
+    protected static byte[] createFingerprint( InputStream in, long lastModified ) throws NoSuchAlgorithmException, IOException
+    {
+        if ( ! ( in instanceof FileInputStream ) )
+        {
+            return MD5Checksum.createChecksum( in );
+        }
+
+        try
+        {
+            FileChannel channel = ( ( FileInputStream ) in ).getChannel( );
+            long size = channel.size( );
+
+            MessageDigest digest = MessageDigest.getInstance( "MD5" );
+
+            ByteBuffer header = ByteBuffer.allocate( 16 );
+            header.putLong( size );
+            header.putLong( lastModified );
+            digest.update( header.array( ) );
+
+            ByteBuffer block = ByteBuffer.allocate( BLOCK_SIZE );
+
+            if ( size <= ( long ) BLOCK_SIZE * NUM_BLOCKS )
+            {
+                for ( long position = 0; position < size; position += BLOCK_SIZE )
+                {
+                    update( digest, channel, block, position );
+                }
+            }
+            else
+            {
+                long lastBlock = size - BLOCK_SIZE;
+                for ( int i = 0; i < NUM_BLOCKS; i++ )
+                {
+                    update( digest, channel, block, lastBlock * i / ( NUM_BLOCKS - 1 ) );
+                }
+            }
+
+            return digest.digest( );
+        }
+        finally
+        {
+            in.close( );
+        }
+    }
+
+    /**
+     * Unlike {@link #getFingerprint(File)}, does not include the file's modification time, so
+     * edits which keep the size and fall between the sampled blocks are not detected.
+     */
+    public static String getFingerprint( InputStream in ) throws NoSuchAlgorithmException, IOException
+    {
+        return MD5Checksum.getMD5Checksum( createFingerprint( in ) );
+    }
+
+    public static String getFingerprint( File file ) throws NoSuchAlgorithmException, IOException
+    {
+        return MD5Checksum.getMD5Checksum( createFingerprint( file ) );
+    }
+
+    protected static void update( MessageDigest digest, FileChannel channel, ByteBuffer block, long position ) throws IOException
+    {
+        block.clear( );
+
+        while ( block.hasRemaining( ) )
+        {
+            int count = channel.read( block, position + block.position( ) );
+            if ( count < 0 ) break;
+        }
+
+        digest.update( block.array( ), 0, block.position( ) );
+    }
+
+    protected static File toFile( URL url )
+    {
+        if ( !"file".equals( url.getProtocol( ) ) ) return null;
+
+        try
+        {
+            return new File( url.toURI( ) );
+        }
+        catch ( URISyntaxException e )
+        {
+            return null;
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return null;
+        }
+    }
+}
@@ -83,14 +83,14 @@ public class SwtRepaintManager extends RepaintManager
                     lock.unlock( );
                 }
 
+                // avoid waking the toolkit thread when no canvas needs painting
+                if ( !isRepaintPending( ) ) return;
+
                 Display.getDefault( ).syncExec( new Runnable( )
                 {
                     public void run( )
                     {
-                        for ( GlimpseCanvas canvas : canvasList )
-                        {
-                            canvas.paint( );
-                        }
+                        paintCanvases( );
                     }
                 } );
             }
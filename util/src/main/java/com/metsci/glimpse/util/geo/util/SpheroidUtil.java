@@ -26,12 +26,27 @@
  */
 package com.metsci.glimpse.util.geo.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import com.metsci.glimpse.util.geo.LatLonGeo;
 import com.metsci.glimpse.util.geo.LatLonRect;
 import com.metsci.glimpse.util.geo.datum.Datum;
 import com.metsci.glimpse.util.units.Azimuth;
 
 /**
+ * <p>The batch versions of {@link #forward(Datum, LatLonGeo, double, double)} and
+ * {@link #inverse(Datum, LatLonGeo, LatLonGeo)} read and write parallel arrays of
+ * latitudes and longitudes (in radians), distances, and azimuths, instead of creating
+ * objects for every point. They give the same results as the single-point versions.
+ * If an {@link ExecutorService} is supplied, the batch is split into chunks which are
+ * computed concurrently by the executor and the calling thread.</p>
+ *
  * @author osborn
  */
 public final class SpheroidUtil
@@ -40,6 +55,15 @@ public final class SpheroidUtil
     private static final double piOverTwo  = pi / 2d;
     private static final double twoPi      = pi * 2d;
 
+    /// batches smaller than this are not worth splitting across threads
+    private static final int minPointsPerTask = 8192;
+
+    /// chunks per thread -- more than one, so that uneven chunks balance out
+    private static final int tasksPerThread = 4;
+
+    /// constants for the most recently used datum
+    private static volatile DatumConstants lastConstants;
+
 
     /**
      * Projects a geodetic latitude onto a geocentric latitude
@@ -189,14 +213,74 @@ public final class SpheroidUtil
      * @return final position and initial azimuth of geodesic back to starting position
      */
     public static PositionAzimuth forward( Datum datum, LatLonGeo from, double dist, double azimuth )
+    {
+        final double[] result = new double[3];
+        forward( constants( datum ), from.getLatRad( ), from.getLonRad( ), dist, azimuth, result );
+
+        /// package and ship results
+        return new PositionAzimuth( LatLonGeo.fromRad( result[0], result[1], from.getAltitude( ) ),
+                                    Azimuth.fromNavRad( result[2] ) );
+    }
+
+    /**
+     * Batch version of {@link #forward(Datum, LatLonGeo, double, double)}, for n pairs of
+     * starting positions and displacements. Computed on the calling thread.
+     *
+     * @param fromLatsRad starting north latitudes (rad)
+     * @param fromLonsRad starting east longitudes (rad)
+     * @param dists distances to travel
+     * @param azimuths initial azimuths of geodesics
+     * @param toLatsRad output: final north latitudes (rad), normalized like {@link LatLonGeo#getLatRad()}
+     * @param toLonsRad output: final east longitudes (rad), normalized like {@link LatLonGeo#getLonRad()}
+     * @param backAzimuths output: initial azimuths of geodesics back to starting positions (may be null)
+     */
+    public static void forward( Datum datum, double[] fromLatsRad, double[] fromLonsRad, double[] dists, double[] azimuths,
+                                double[] toLatsRad, double[] toLonsRad, double[] backAzimuths, int n )
+    {
+        forward( datum, fromLatsRad, fromLonsRad, dists, azimuths, toLatsRad, toLonsRad, backAzimuths, n, null );
+    }
+
+    /**
+     * Batch version of {@link #forward(Datum, LatLonGeo, double, double)}, for n pairs of
+     * starting positions and displacements. If executor is null, computed on the calling thread.
+     *
+     * @see #forward(Datum, double[], double[], double[], double[], double[], double[], double[], int)
+     */
+    public static void forward( Datum datum, final double[] fromLatsRad, final double[] fromLonsRad, final double[] dists, final double[] azimuths,
+                                final double[] toLatsRad, final double[] toLonsRad, final double[] backAzimuths, int n, ExecutorService executor )
+    {
+        final DatumConstants c = constants( datum );
+        run( new Batch( )
+        {
+            @Override
+            public void compute( int first, int last )
+            {
+                final double[] result = new double[3];
+                for( int i = first; i < last; i++ )
+                {
+                    forward( c, LatLonGeo.normalizeLat( fromLatsRad[i] ), LatLonGeo.normalizeLon( fromLonsRad[i] ), dists[i], azimuths[i], result );
+
+                    toLatsRad[i] = LatLonGeo.normalizeLat( result[0] );
+                    toLonsRad[i] = LatLonGeo.normalizeLon( result[1] );
+                    if( backAzimuths != null ) backAzimuths[i] = Azimuth.fromNavRad( result[2] );
+                }
+            }
+        }, n, executor );
+    }
+
+    /**
+     * Computes the geodetic direct problem for a single point, writing final north latitude,
+     * east longitude (both unnormalized), and backward azimuth (nav radians) into result.
+     */
+    private static void forward( DatumConstants c, double fromLatRad, double fromLonRad, double dist, double azimuth, double[] result )
     {
         /// map our args onto Fortran args
-        final double GLAT1 = from.getLatRad( );            // start north lat (rad)
-        final double GLON1 = from.getLonRad( );            // start east lon (rad)
+        final double GLAT1 = fromLatRad;                   // start north lat (rad)
+        final double GLON1 = fromLonRad;                   // start east lon (rad)
         final double S     = dist;                         // distance to move
         final double FAZ   = Azimuth.toNavRad( azimuth );  // initial azimuth
-        final double A     = datum.getEquatorialRadius( );
-        final double F     = datum.getFlattening( );
+        final double A     = c.A;
+        final double F     = c.F;
 
         /// the results end up here
         double BAZ;    // backward azimuth
@@ -206,7 +290,7 @@ public final class SpheroidUtil
         /// specify tolerance
         final double EPS = 0.5e-13;
 
-        double R  = 1.0 - F;
+        double R  = c.R;
         double TU = R * Math.sin(GLAT1) / Math.cos(GLAT1);
         double SF = Math.sin(FAZ);
         double CF = Math.cos(FAZ);
@@ -221,7 +305,7 @@ public final class SpheroidUtil
         double SU  =  TU*CU;
         double SA  =  CU*SF;
         double C2A = -SA*SA + 1.0;
-        double X   =  Math.sqrt((1.0/R/R-1.0)*C2A+1.0)+1.0;
+        double X   =  Math.sqrt(c.ONE_OVER_RR_MINUS_ONE*C2A+1.0)+1.0;
                X   =  (X-2.0)/X;
         double C   =  1.0-X;
                C   =  (X*X/4.0+1.0)/C;
@@ -257,9 +341,9 @@ public final class SpheroidUtil
         GLON2 = GLON1+X-(1-C)*D*F;
         BAZ   = Math.atan2(SA,BAZ)+pi;
 
-        /// package and ship results
-        return new PositionAzimuth( LatLonGeo.fromRad( GLAT2, GLON2, from.getAltitude( ) ),
-                                  Azimuth.fromNavRad( BAZ ) );
+        result[0] = GLAT2;
+        result[1] = GLON2;
+        result[2] = BAZ;
     }
 
     /**
@@ -285,16 +369,117 @@ public final class SpheroidUtil
      * @return distance between points and initial geodesic azimuth from start to end
      */
     public static DistanceAzimuth inverse( Datum datum, LatLonGeo from, LatLonGeo to )
+    {
+        final double[] result = new double[2];
+        inverse( constants( datum ), from.getLatRad( ), from.getLonRad( ), to.getLatRad( ), to.getLonRad( ), result );
+
+        return new DistanceAzimuth( result[0], Azimuth.fromNavRad( result[1] ) );
+    }
+
+    /**
+     * Batch version of {@link #inverse(Datum, LatLonGeo, LatLonGeo)}, from one start position
+     * to n end positions -- for instance, ranges from a reference point to many contacts.
+     * Computed on the calling thread.
+     *
+     * @param toLatsRad end north latitudes (rad)
+     * @param toLonsRad end east longitudes (rad)
+     * @param dists output: distances between points (may be null)
+     * @param azimuths output: initial geodesic azimuths from start to end (may be null)
+     */
+    public static void inverse( Datum datum, LatLonGeo from, double[] toLatsRad, double[] toLonsRad, double[] dists, double[] azimuths, int n )
+    {
+        inverse( datum, from, toLatsRad, toLonsRad, dists, azimuths, n, null );
+    }
+
+    /**
+     * Batch version of {@link #inverse(Datum, LatLonGeo, LatLonGeo)}, from one start position
+     * to n end positions. If executor is null, computed on the calling thread.
+     *
+     * @see #inverse(Datum, LatLonGeo, double[], double[], double[], double[], int)
+     */
+    public static void inverse( Datum datum, LatLonGeo from, final double[] toLatsRad, final double[] toLonsRad,
+                                final double[] dists, final double[] azimuths, int n, ExecutorService executor )
+    {
+        final DatumConstants c = constants( datum );
+        final double fromLatRad = from.getLatRad( );
+        final double fromLonRad = from.getLonRad( );
+        run( new Batch( )
+        {
+            @Override
+            public void compute( int first, int last )
+            {
+                final double[] result = new double[2];
+                for( int i = first; i < last; i++ )
+                {
+                    inverse( c, fromLatRad, fromLonRad, LatLonGeo.normalizeLat( toLatsRad[i] ), LatLonGeo.normalizeLon( toLonsRad[i] ), result );
+
+                    if( dists != null ) dists[i] = result[0];
+                    if( azimuths != null ) azimuths[i] = Azimuth.fromNavRad( result[1] );
+                }
+            }
+        }, n, executor );
+    }
+
+    /**
+     * Batch version of {@link #inverse(Datum, LatLonGeo, LatLonGeo)}, for n pairs of start and
+     * end positions. Computed on the calling thread.
+     *
+     * @param fromLatsRad start north latitudes (rad)
+     * @param fromLonsRad start east longitudes (rad)
+     * @param toLatsRad end north latitudes (rad)
+     * @param toLonsRad end east longitudes (rad)
+     * @param dists output: distances between points (may be null)
+     * @param azimuths output: initial geodesic azimuths from start to end (may be null)
+     */
+    public static void inverse( Datum datum, double[] fromLatsRad, double[] fromLonsRad, double[] toLatsRad, double[] toLonsRad,
+                                double[] dists, double[] azimuths, int n )
+    {
+        inverse( datum, fromLatsRad, fromLonsRad, toLatsRad, toLonsRad, dists, azimuths, n, null );
+    }
+
+    /**
+     * Batch version of {@link #inverse(Datum, LatLonGeo, LatLonGeo)}, for n pairs of start and
+     * end positions. If executor is null, computed on the calling thread.
+     *
+     * @see #inverse(Datum, double[], double[], double[], double[], double[], double[], int)
+     */
+    public static void inverse( Datum datum, final double[] fromLatsRad, final double[] fromLonsRad, final double[] toLatsRad, final double[] toLonsRad,
+                                final double[] dists, final double[] azimuths, int n, ExecutorService executor )
+    {
+        final DatumConstants c = constants( datum );
+        run( new Batch( )
+        {
+            @Override
+            public void compute( int first, int last )
+            {
+                final double[] result = new double[2];
+                for( int i = first; i < last; i++ )
+                {
+                    inverse( c, LatLonGeo.normalizeLat( fromLatsRad[i] ), LatLonGeo.normalizeLon( fromLonsRad[i] ),
+                                LatLonGeo.normalizeLat( toLatsRad[i] ), LatLonGeo.normalizeLon( toLonsRad[i] ), result );
+
+                    if( dists != null ) dists[i] = result[0];
+                    if( azimuths != null ) azimuths[i] = Azimuth.fromNavRad( result[1] );
+                }
+            }
+        }, n, executor );
+    }
+
+    /**
+     * Computes the geodetic inverse problem for a single pair of points, writing distance
+     * and initial azimuth (nav radians) into result.
+     */
+    private static void inverse( DatumConstants c, double fromLatRad, double fromLonRad, double toLatRad, double toLonRad, double[] result )
     {
         // map our args onto Fortran args
-        final double A   = datum.getEquatorialRadius( );
-        final double F   = datum.getFlattening( );
-        final double ESQ = datum.getEccentricitySquared( );
+        final Datum datum = c.datum;
+        final double A   = c.A;
+        final double F   = c.F;
 
-        final double P1  =  from.getLatRad( );
-        final double E1  =  from.getLonRad( );
-        final double P2  =  to.getLatRad( );
-              double E2  =  to.getLonRad( );
+        final double P1  =  fromLatRad;
+        final double E1  =  fromLonRad;
+        final double P2  =  toLatRad;
+              double E2  =  toLonRad;
 
         // outputs get filled in here
         double AZ1;
@@ -310,7 +495,7 @@ public final class SpheroidUtil
         if( Math.abs( E2 - E1 ) < TOL1 )
         {
             E2 = E2 + TOL1;
-            S = Math.abs( meridionalDistance( datum, from.getLatRad(), to.getLatRad() ) );
+            S = Math.abs( meridionalDistance( datum, P1, P2 ) );
 
             if( P2 > P1 )
             {
@@ -323,12 +508,14 @@ public final class SpheroidUtil
                 AZ2 = 0;
             }
 
-            return new DistanceAzimuth( S, Azimuth.fromNavRad( AZ1 ) );
+            result[0] = S;
+            result[1] = AZ1;
+            return;
         }
 
         final double DLON = LatLonGeo.normalizeLon( E2 - E1 );
         double SS = Math.abs( DLON );
-        double ALIMIT = pi * (1 - F);
+        double ALIMIT = c.ALIMIT;
 
         /// TEST FOR ANTI-NODAL DISTANCE
         while( SS >= ALIMIT )
@@ -345,31 +532,35 @@ public final class SpheroidUtil
                 AZ1 = 0;
                 AZ2 = 0;
                 S   = 0;
-                return new DistanceAzimuth( S, Azimuth.fromNavRad( AZ1 ) );
+                result[0] = S;
+                result[1] = AZ1;
+                return;
             }
 
             // COMPUTE AZIMUTH TO ANTI-NODAL POINT
-            ResultOfInverseLiftOff result = inverseLiftOff( datum, DLON );
+            ResultOfInverseLiftOff liftOff = inverseLiftOff( datum, DLON );
 
-                   AZ1  = result.AZ1;
-                   AZ2  = result.AZ2;
-//          double AA   = result.A0;
-//          double BB   = result.B0;
-            double SMS  = result.SMS;
+                   AZ1  = liftOff.AZ1;
+                   AZ2  = liftOff.AZ2;
+//          double AA   = liftOff.A0;
+//          double BB   = liftOff.B0;
+            double SMS  = liftOff.SMS;
 
             // COMPUTE EQUATORIAL DISTANCE & GEODETIC
             double EQU  = A * Math.abs( DLON );
                      S  = EQU - SMS;
 
-            return new DistanceAzimuth( S, Azimuth.fromNavRad( AZ1 ) );
+            result[0] = S;
+            result[1] = AZ1;
+            return;
         }
 
-        double F0    = 1-F;
-        double B     = A*F0;
-        double EPSQ  = ESQ / (1 - ESQ);
-        double F2    = F*F;
-        double F3    = F*F2;
-        double F4    = F*F3;
+        double F0    = c.F0;
+        double B     = c.B;
+        double EPSQ  = c.EPSQ;
+        double F2    = c.F2;
+        double F3    = c.F3;
+        double F4    = c.F4;
 
         /// LONGITUDE DIFFERENCE
         double AB     = E2-E1;
@@ -464,7 +655,8 @@ public final class SpheroidUtil
             AZ2 = pi-Math.atan2(sina2,sina2/tana2);
         }
 
-        return new DistanceAzimuth( S, Azimuth.fromNavRad( AZ1 ) );
+        result[0] = S;
+        result[1] = AZ1;
     }
 
     /**
@@ -546,6 +738,140 @@ public final class SpheroidUtil
         return new ResultOfInverseLiftOff( AZ1, AZ2, SMS, AO, BO );
     }
 
+    private static DatumConstants constants( Datum datum )
+    {
+        DatumConstants c = lastConstants;
+        if( c == null || c.datum != datum )
+        {
+            c = new DatumConstants( datum );
+            lastConstants = c;
+        }
+        return c;
+    }
+
+    /**
+     * Datum-dependent terms of the forward and inverse solutions, computed once per datum
+     * rather than once per point. Each is computed with the same expression the solutions
+     * used inline, so results are unchanged.
+     */
+    private static final class DatumConstants
+    {
+        private final Datum datum;
+        private final double A;                      // equatorial radius
+        private final double F;                      // flattening
+        private final double R;                      // 1 - flattening
+        private final double ONE_OVER_RR_MINUS_ONE;  // forward: 1/R/R - 1
+        private final double ALIMIT;                 // inverse: anti-nodal limit
+        private final double F0;                     // inverse: 1 - flattening
+        private final double B;                      // inverse: polar radius
+        private final double EPSQ;                   // inverse: second eccentricity squared
+        private final double F2;
+        private final double F3;
+        private final double F4;
+
+        private DatumConstants( Datum datum )
+        {
+            final double ESQ = datum.getEccentricitySquared( );
+
+            this.datum = datum;
+            this.A     = datum.getEquatorialRadius( );
+            this.F     = datum.getFlattening( );
+            this.R     = 1.0 - F;
+            this.ONE_OVER_RR_MINUS_ONE = 1.0/R/R-1.0;
+            this.ALIMIT = pi * (1 - F);
+            this.F0    = 1-F;
+            this.B     = A*F0;
+            this.EPSQ  = ESQ / (1 - ESQ);
+            this.F2    = F*F;
+            this.F3    = F*F2;
+            this.F4    = F*F3;
+        }
+    }
+
+    private static interface Batch
+    {
+        /**
+         * Computes results for indices [first,last).
+         */
+        void compute( int first, int last );
+    }
+
+    /**
+     * Computes a batch of n points. If executor is non-null, the batch is split into chunks,
+     * and the calling thread and up to one executor task per processor claim chunks until
+     * none are left. The calling thread only waits for chunks that have been claimed, so the
+     * batch completes even if the executor has no free threads (or if this is called from
+     * one of the executor's own threads).
+     */
+    private static void run( final Batch batch, final int n, ExecutorService executor )
+    {
+        if( executor == null || n < 2*minPointsPerTask )
+        {
+            batch.compute( 0, n );
+            return;
+        }
+
+        final int nThreads  = Runtime.getRuntime( ).availableProcessors( );
+        final int chunkSize = Math.max( minPointsPerTask, n / ( tasksPerThread*nThreads ) + 1 );
+        final int nChunks   = ( n - 1 ) / chunkSize + 1;
+
+        final AtomicInteger nextChunk = new AtomicInteger( 0 );
+        final CountDownLatch chunksDone = new CountDownLatch( nChunks );
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>( );
+
+        Runnable worker = new Runnable( )
+        {
+            @Override
+            public void run( )
+            {
+                int chunk;
+                while( ( chunk = nextChunk.getAndIncrement( ) ) < nChunks )
+                {
+                    try
+                    {
+                        int first = chunk * chunkSize;
+                        batch.compute( first, Math.min( n, first + chunkSize ) );
+                    }
+                    catch( Throwable t )
+                    {
+                        failure.compareAndSet( null, t );
+                    }
+                    finally
+                    {
+                        chunksDone.countDown( );
+                    }
+                }
+            }
+        };
+
+        List<Future<?>> futures = new ArrayList<Future<?>>( );
+        for( int i = 1; i < Math.min( nThreads, nChunks ); i++ )
+        {
+            futures.add( executor.submit( worker ) );
+        }
+
+        try
+        {
+            worker.run( );
+            chunksDone.await( );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new RuntimeException( "Interrupted while computing geodesics", e );
+        }
+        finally
+        {
+            // tasks that have not started yet would find no chunks left
+            for( Future<?> f : futures ) f.cancel( false );
+        }
+
+        if( failure.get( ) != null )
+        {
+            throw new RuntimeException( "Failed to compute geodesics", failure.get( ) );
+        }
+    }
+
     private static final class ResultOfInverseLiftOff
     {
         private final double AZ1; // forward azimuth
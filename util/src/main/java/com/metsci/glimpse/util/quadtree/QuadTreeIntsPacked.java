@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2012, Metron, Inc.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Metron, Inc. nor the
+ *       names of its contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL METRON, INC. BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.metsci.glimpse.util.quadtree;
+
+import static com.metsci.glimpse.util.quadtree.QuadTree.truncInf;
+import static java.lang.Math.max;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.metsci.glimpse.util.primitives.FloatsArray;
+import com.metsci.glimpse.util.primitives.Ints;
+import com.metsci.glimpse.util.primitives.IntsArray;
+import com.metsci.glimpse.util.primitives.IntsModifiable;
+
+/**
+ * A read-only quadtree of ints, bulk-loaded from a fixed set of points.
+ *
+ * Where {@link QuadTreeInts} grows one {@code add()} at a time, splitting leaves as they
+ * fill up, this tree partitions all of its points once, at construction time, and stores
+ * the result in flat primitive arrays: the point values and coordinates are permuted so that
+ * each leaf is a contiguous range, and internal nodes are rows in parallel divider and child
+ * arrays. There are no per-node objects, and searches walk contiguous memory.
+ *
+ * Dividers are chosen the same way {@link QuadTreeInts} chooses them (the mean of the points
+ * in the node), and searches use the same inclusive-bounds semantics, so the two trees return
+ * the same values for the same query.
+ *
+ * If an {@link ExecutorService} is supplied, the top few levels are partitioned on the calling
+ * thread, and the remaining subtrees are built concurrently on the executor. Each subtree task
+ * touches only its own range of the arrays, and never waits on other tasks, so the executor may
+ * have any number of threads.
+ */
+public class QuadTreeIntsPacked
+{
+
+    protected static final int EMPTY = Integer.MIN_VALUE;
+
+    // Subtrees with fewer points than this are not worth handing to another thread
+    protected static final int minPointsPerTask = 16384;
+
+    // Tasks per executor thread -- more than one, so that uneven subtrees balance out
+    protected static final int tasksPerThread = 4;
+
+
+    protected final int maxBucketSize;
+    protected final int n;
+
+    // Point values and coordinates, permuted so that each leaf is a contiguous range
+    protected final int[] vs;
+    protected final float[] xs;
+    protected final float[] ys;
+
+    // Internal nodes: dividers, and 4 children per node (indexed like QuadTree.quadrant)
+    //
+    //  child >= 0    : index of an internal node
+    //  child == EMPTY: no points in that quadrant
+    //  otherwise     : leaf index, encoded as -(leaf + 1)
+    //
+    protected final float[] xDividers;
+    protected final float[] yDividers;
+    protected final int[] children;
+
+    // Leaves: range [first,last) into vs, and the bounding box of the leaf's points
+    protected final int[] leafFirsts;
+    protected final int[] leafLasts;
+    protected final float[] leafBounds;
+
+    protected final int root;
+    protected final int maxDepth;
+
+
+    /**
+     * Builds a tree whose values are {@code 0} through {@code n-1}, where value {@code i}
+     * has coordinates {@code (xs[i],ys[i])}.
+     */
+    public QuadTreeIntsPacked(float[] xs, float[] ys, int n, int maxBucketSize)
+    {
+        this(null, xs, ys, n, maxBucketSize, null);
+    }
+
+    /**
+     * Builds a tree whose values are {@code 0} through {@code n-1}, where value {@code i}
+     * has coordinates {@code (xs[i],ys[i])}. Subtrees are built in parallel on {@code executor}.
+     */
+    public QuadTreeIntsPacked(float[] xs, float[] ys, int n, int maxBucketSize, ExecutorService executor)
+    {
+        this(null, xs, ys, n, maxBucketSize, executor);
+    }
+
+    /**
+     * Builds a tree whose values are {@code vs[0]} through {@code vs[n-1]}, where value {@code vs[i]}
+     * has coordinates {@code (xs[i],ys[i])}. None of the input arrays are modified. If {@code vs} is
+     * null, the values are {@code 0} through {@code n-1}. If {@code executor} is null, the tree is
+     * built on the calling thread.
+     */
+    public QuadTreeIntsPacked(int[] vs, float[] xs, float[] ys, int n, int maxBucketSize, ExecutorService executor)
+    {
+        if (maxBucketSize < 1) throw new IllegalArgumentException("maxBucketSize must be positive: " + maxBucketSize);
+
+        this.maxBucketSize = maxBucketSize;
+        this.n = n;
+
+        this.vs = new int[n];
+        if (vs == null)
+        {
+            for (int i = 0; i < n; i++) this.vs[i] = i;
+        }
+        else
+        {
+            System.arraycopy(vs, 0, this.vs, 0, n);
+        }
+
+        this.xs = new float[n];
+        this.ys = new float[n];
+        System.arraycopy(xs, 0, this.xs, 0, n);
+        System.arraycopy(ys, 0, this.ys, 0, n);
+
+        int nThreads = (executor == null ? 1 : Runtime.getRuntime().availableProcessors());
+        int minTaskSize = max(minPointsPerTask, n / (tasksPerThread * nThreads));
+        Builder builder = new Builder(executor == null ? Integer.MAX_VALUE : minTaskSize);
+        int rootRef = builder.build(0, n, 0);
+
+        if (!builder.pending.isEmpty())
+        {
+            List<Future<Builder>> futures = new ArrayList<Future<Builder>>();
+            for (final Subtree subtree : builder.pending)
+            {
+                futures.add(executor.submit(new Callable<Builder>()
+                {
+                    public Builder call()
+                    {
+                        Builder subBuilder = new Builder(Integer.MAX_VALUE);
+                        subBuilder.root = subBuilder.build(subtree.first, subtree.last, subtree.depth);
+                        return subBuilder;
+                    }
+                }));
+            }
+
+            try
+            {
+                for (int t = 0; t < futures.size(); t++)
+                {
+                    Subtree subtree = builder.pending.get(t);
+                    Builder subBuilder = futures.get(t).get();
+                    int subRoot = builder.merge(subBuilder);
+
+                    if (subtree.childSlot < 0) rootRef = subRoot;
+                    else builder.children.a[subtree.childSlot] = subRoot;
+                }
+            }
+            catch (InterruptedException e)
+            {
+                for (Future<Builder> f : futures) f.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while building quadtree", e);
+            }
+            catch (ExecutionException e)
+            {
+                throw new RuntimeException("Failed to build quadtree", e.getCause());
+            }
+        }
+
+        this.root = rootRef;
+        this.maxDepth = builder.maxDepth;
+        this.xDividers = builder.xDividers.copyOf();
+        this.yDividers = builder.yDividers.copyOf();
+        this.children = builder.children.copyOf();
+        this.leafFirsts = builder.leafFirsts.copyOf();
+        this.leafLasts = builder.leafLasts.copyOf();
+        this.leafBounds = builder.leafBounds.copyOf();
+    }
+
+    public int size()
+    {
+        return n;
+    }
+
+    public int numInternalNodes()
+    {
+        return xDividers.length;
+    }
+
+    public int numLeaves()
+    {
+        return leafFirsts.length;
+    }
+
+    public Ints search(float xMin, float xMax, float yMin, float yMax)
+    {
+        IntsModifiable results = new IntsArray();
+        search(xMin, xMax, yMin, yMax, results);
+        return results;
+    }
+
+    public Ints search(float xMin, float xMax, float yMin, float yMax, FilterInt vFilter)
+    {
+        IntsModifiable results = new IntsArray();
+        search(xMin, xMax, yMin, yMax, vFilter, results);
+        return results;
+    }
+
+    /**
+     * @return The number of elements appended to {@code results}.
+     */
+    public int search(float xMin, float xMax, float yMin, float yMax, IntsModifiable results)
+    {
+        return search(xMin, xMax, yMin, yMax, null, results);
+    }
+
+    /**
+     * @return The number of elements appended to {@code results}.
+     */
+    public int search(float xMin, float xMax, float yMin, float yMax, FilterInt vFilter, IntsModifiable results)
+    {
+        int nBefore = results.n();
+        if (n == 0) return 0;
+
+        // Each internal node pops one entry and pushes at most four
+        int[] stack = new int[3*maxDepth + 4];
+        int top = 0;
+        stack[top++] = root;
+
+        while (top > 0)
+        {
+            int ref = stack[--top];
+            if (ref == EMPTY) continue;
+
+            if (ref >= 0)
+            {
+                float xDivider = xDividers[ref];
+                float yDivider = yDividers[ref];
+
+                boolean includeSmallX = (xMin < xDivider);
+                boolean includeLargeX = (xMax >= xDivider);
+                boolean includeSmallY = (yMin < yDivider);
+                boolean includeLargeY = (yMax >= yDivider);
+
+                // Push in reverse, so that leaves are visited in storage order
+                int c = 4*ref;
+                if (includeLargeX && includeLargeY) stack[top++] = children[c+3];
+                if (includeSmallX && includeLargeY) stack[top++] = children[c+2];
+                if (includeLargeX && includeSmallY) stack[top++] = children[c+1];
+                if (includeSmallX && includeSmallY) stack[top++] = children[c+0];
+            }
+            else
+            {
+                int leaf = -(ref + 1);
+                int first = leafFirsts[leaf];
+                int last = leafLasts[leaf];
+
+                int b = 4*leaf;
+                float xMinLeaf = leafBounds[b+0];
+                float xMaxLeaf = leafBounds[b+1];
+                float yMinLeaf = leafBounds[b+2];
+                float yMaxLeaf = leafBounds[b+3];
+
+                if (xMaxLeaf < xMin || xMinLeaf > xMax || yMaxLeaf < yMin || yMinLeaf > yMax) continue;
+
+                boolean xAll = (xMin <= xMinLeaf && xMaxLeaf <= xMax);
+                boolean yAll = (yMin <= yMinLeaf && yMaxLeaf <= yMax);
+
+                if (xAll && yAll)
+                {
+                    if (vFilter == null)
+                    {
+                        results.append(vs, first, last);
+                    }
+                    else
+                    {
+                        for (int i = first; i < last; i++)
+                        {
+                            int v = vs[i];
+                            if (vFilter.include(v)) results.append(v);
+                        }
+                    }
+                }
+                else
+                {
+                    for (int i = first; i < last; i++)
+                    {
+                        float x = xs[i];
+                        if (x < xMin || x > xMax) continue;
+
+                        float y = ys[i];
+                        if (y < yMin || y > yMax) continue;
+
+                        int v = vs[i];
+                        if (vFilter == null || vFilter.include(v)) results.append(v);
+                    }
+                }
+            }
+        }
+
+        return results.n() - nBefore;
+    }
+
+
+    protected static class Subtree
+    {
+        public final int first;
+        public final int last;
+        public final int depth;
+
+        // Index into the parent builder's children array, or -1 for the root
+        public final int childSlot;
+
+        public Subtree(int first, int last, int depth, int childSlot)
+        {
+            this.first = first;
+            this.last = last;
+            this.depth = depth;
+            this.childSlot = childSlot;
+        }
+    }
+
+
+    /**
+     * Partitions a range of the point arrays, and accumulates the resulting nodes. Ranges
+     * with at least {@code minTaskSize} points are recorded as pending subtrees, rather than
+     * being built immediately.
+     */
+    protected class Builder
+    {
+        public final int minTaskSize;
+
+        public final FloatsArray xDividers = new FloatsArray();
+        public final FloatsArray yDividers = new FloatsArray();
+        public final IntsArray children = new IntsArray();
+
+        public final IntsArray leafFirsts = new IntsArray();
+        public final IntsArray leafLasts = new IntsArray();
+        public final FloatsArray leafBounds = new FloatsArray();
+
+        public final List<Subtree> pending = new ArrayList<Subtree>();
+
+        public int root = EMPTY;
+        public int maxDepth = 0;
+
+
+        public Builder(int minTaskSize)
+        {
+            this.minTaskSize = minTaskSize;
+        }
+
+        /**
+         * @return A node reference, encoded as described for {@link QuadTreeIntsPacked#children}
+         */
+        public int build(int first, int last, int depth)
+        {
+            if (first >= last) return EMPTY;
+
+            maxDepth = max(maxDepth, depth);
+
+            float xMin = Float.POSITIVE_INFINITY;
+            float xMax = Float.NEGATIVE_INFINITY;
+            float yMin = Float.POSITIVE_INFINITY;
+            float yMax = Float.NEGATIVE_INFINITY;
+
+            double oneOverSize = 1.0 / (last - first);
+            double xMean = 0;
+            double yMean = 0;
+
+            for (int i = first; i < last; i++)
+            {
+                float x = xs[i];
+                float y = ys[i];
+
+                if (x < xMin) xMin = x;
+                if (x > xMax) xMax = x;
+                if (y < yMin) yMin = y;
+                if (y > yMax) yMax = y;
+
+                xMean += truncInf(x) * oneOverSize;
+                yMean += truncInf(y) * oneOverSize;
+            }
+
+            if (last - first <= maxBucketSize) return addLeaf(first, last, xMin, xMax, yMin, yMax);
+
+            float xDivider = truncInf((float) xMean);
+            float yDivider = truncInf((float) yMean);
+
+            // Partition into quadrants 0..3, in QuadTree.quadrant order
+            int ySplit = partitionY(first, last, yDivider);
+            int xSplitLow = partitionX(first, ySplit, xDivider);
+            int xSplitHigh = partitionX(ySplit, last, xDivider);
+
+            // If every point landed in one quadrant (e.g. all points coincide),
+            // splitting would never terminate -- use an oversized leaf instead
+            int[] bounds = { first, xSplitLow, ySplit, xSplitHigh, last };
+            for (int q = 0; q < 4; q++)
+            {
+                if (bounds[q] == first && bounds[q+1] == last) return addLeaf(first, last, xMin, xMax, yMin, yMax);
+            }
+
+            int node = xDividers.n;
+            xDividers.append(xDivider);
+            yDividers.append(yDivider);
+            children.append(new int[] { EMPTY, EMPTY, EMPTY, EMPTY });
+
+            for (int q = 0; q < 4; q++)
+            {
+                int childFirst = bounds[q];
+                int childLast = bounds[q+1];
+                int childSlot = 4*node + q;
+
+                if (childLast - childFirst >= minTaskSize)
+                {
+                    pending.add(new Subtree(childFirst, childLast, depth+1, childSlot));
+                }
+                else
+                {
+                    int child = build(childFirst, childLast, depth+1);
+                    children.a[childSlot] = child;
+                }
+            }
+
+            return node;
+        }
+
+        /**
+         * Appends the nodes from {@code sub}, adjusting node and leaf indices, and returns
+         * the adjusted reference to {@code sub}'s root.
+         */
+        public int merge(Builder sub)
+        {
+            int nodeOffset = xDividers.n;
+            int leafOffset = leafFirsts.n;
+
+            xDividers.append(sub.xDividers);
+            yDividers.append(sub.yDividers);
+            leafFirsts.append(sub.leafFirsts);
+            leafLasts.append(sub.leafLasts);
+            leafBounds.append(sub.leafBounds);
+
+            int[] subChildren = sub.children.a;
+            int nSubChildren = sub.children.n;
+            children.ensureCapacity(children.n + nSubChildren);
+            for (int i = 0; i < nSubChildren; i++)
+            {
+                children.append(offsetRef(subChildren[i], nodeOffset, leafOffset));
+            }
+
+            maxDepth = max(maxDepth, sub.maxDepth);
+
+            return offsetRef(sub.root, nodeOffset, leafOffset);
+        }
+
+        protected int addLeaf(int first, int last, float xMin, float xMax, float yMin, float yMax)
+        {
+            int leaf = leafFirsts.n;
+            leafFirsts.append(first);
+            leafLasts.append(last);
+            leafBounds.append(new float[] { xMin, xMax, yMin, yMax });
+            return -(leaf + 1);
+        }
+    }
+
+    protected static int offsetRef(int ref, int nodeOffset, int leafOffset)
+    {
+        if (ref == EMPTY) return EMPTY;
+        if (ref >= 0) return ref + nodeOffset;
+        return ref - leafOffset;
+    }
+
+    /**
+     * Moves points with {@code y < yDivider} to the front of {@code [first,last)}.
+     *
+     * @return The index of the first point with {@code y >= yDivider}
+     */
+    protected int partitionY(int first, int last, float yDivider)
+    {
+        int i = first;
+        int j = last - 1;
+        while (true)
+        {
+            while (i <= j && ys[i] < yDivider) i++;
+            while (i <= j && !(ys[j] < yDivider)) j--;
+            if (i >= j) return i;
+            swap(i, j);
+            i++;
+            j--;
+        }
+    }
+
+    /**
+     * Moves points with {@code x < xDivider} to the front of {@code [first,last)}.
+     *
+     * @return The index of the first point with {@code x >= xDivider}
+     */
+    protected int partitionX(int first, int last, float xDivider)
+    {
+        int i = first;
+        int j = last - 1;
+        while (true)
+        {
+            while (i <= j && xs[i] < xDivider) i++;
+            while (i <= j && !(xs[j] < xDivider)) j--;
+            if (i >= j) return i;
+            swap(i, j);
+            i++;
+            j--;
+        }
+    }
+
+    protected void swap(int i, int j)
+    {
+        int v = vs[i];
+        vs[i] = vs[j];
+        vs[j] = v;
+
+        float x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+
+        float y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+    }
+
+}
@@ -33,6 +33,7 @@ import java.util.Date;
 
 import com.metsci.glimpse.util.GeneralUtils;
 import com.metsci.glimpse.util.units.time.format.TimeStampFormat;
+import com.metsci.glimpse.util.units.time.format.TimeStampFormatStandard;
 import com.metsci.glimpse.util.units.time.format.TimeStampParseException;
 
 /**
@@ -129,6 +130,9 @@ public class TimeStampPosixMicrosInt64 extends TimeStamp implements Serializable
 
         public TimeStampPosixMicrosInt64 fromString(String string, TimeStampFormat format) throws TimeStampParseException
         {
+            if (format instanceof TimeStampFormatStandard)
+                return new TimeStampPosixMicrosInt64(((TimeStampFormatStandard) format).parsePosixMicros(string));
+
             long posixMicros = secondsToMicros(format.parse(string));
             return new TimeStampPosixMicrosInt64(posixMicros);
         }
@@ -281,6 +285,15 @@ public class TimeStampPosixMicrosInt64 extends TimeStamp implements Serializable
         return super.equals(o);
     }
 
+    @Override
+    public String toString(TimeStampFormat format)
+    {
+        if (format instanceof TimeStampFormatStandard)
+            return ((TimeStampFormatStandard) format).formatPosixMicros(posixMicros);
+
+        return super.toString(format);
+    }
+
     @Override
     public int hashCode()
     {
@@ -33,6 +33,7 @@ import java.util.Date;
 
 import com.metsci.glimpse.util.GeneralUtils;
 import com.metsci.glimpse.util.units.time.format.TimeStampFormat;
+import com.metsci.glimpse.util.units.time.format.TimeStampFormatStandard;
 import com.metsci.glimpse.util.units.time.format.TimeStampParseException;
 
 /**
@@ -129,6 +130,9 @@ public class TimeStampPosixMillisInt64 extends TimeStamp implements Serializable
 
         public TimeStampPosixMillisInt64 fromString(String string, TimeStampFormat format) throws TimeStampParseException
         {
+            if (format instanceof TimeStampFormatStandard)
+                return new TimeStampPosixMillisInt64(((TimeStampFormatStandard) format).parsePosixMillis(string));
+
             long posixMillis = secondsToMillis(format.parse(string));
             return new TimeStampPosixMillisInt64(posixMillis);
         }
@@ -278,6 +282,15 @@ public class TimeStampPosixMillisInt64 extends TimeStamp implements Serializable
         return super.equals(o);
     }
 
+    @Override
+    public String toString(TimeStampFormat format)
+    {
+        if (format instanceof TimeStampFormatStandard)
+            return ((TimeStampFormatStandard) format).formatPosixMillis(posixMillis);
+
+        return super.toString(format);
+    }
+
     @Override
     public int hashCode()
     {
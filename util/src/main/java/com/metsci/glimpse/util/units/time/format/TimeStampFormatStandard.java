@@ -29,11 +29,15 @@ package com.metsci.glimpse.util.units.time.format;
 import static java.util.Arrays.asList;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.text.DateFormatSymbols;
+import java.text.DecimalFormatSymbols;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.regex.Matcher;
@@ -118,16 +122,54 @@ import com.metsci.glimpse.util.GeneralUtils;
  * </ul>
  * If, for some strange reason, a format string contains multiple %S fields, the precision of
  * the rightmost one is used for figuring rollover.
+ *
+ *
+ * <h4>Fast Paths</h4>
+ * <p>
+ * {@link #format(BigDecimal)} and {@link #parse(String)} go through BigDecimal, Calendar, and
+ * regular expressions. For bulk work, {@link #formatPosixMillis(long, StringBuilder)} and
+ * {@link #formatPosixMicros(long, StringBuilder)} format directly from integer posix times into
+ * a caller-supplied StringBuilder, using civil-date arithmetic and a cached zone offset, and
+ * {@link #parsePosixMillis(CharSequence)} and {@link #parsePosixMicros(CharSequence)} scan the
+ * input without a regex. These produce the same results as the general methods, and fall back
+ * to them for anything the fast paths do not handle: years outside 1600-9999, times close to a
+ * zone transition (when parsing), input with more than microsecond precision, formats with a %z
+ * field or with regex metacharacters in their literal text (when parsing), and default locales
+ * that do not use ASCII digits and '.' as the decimal separator (when formatting).
  */
 public class TimeStampFormatStandard implements TimeStampFormat
 {
+    private static final long millisPerDay = 86400000L;
+    private static final long[] powersOfTen = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L };
+
+    // The fast paths only handle local times in [1600, 10000), which is comfortably after the
+    // Julian-Gregorian cutover in GregorianCalendar and fits in 4-digit year fields
+    private static final long minFastLocalMillis = daysFromCivil(1600, 1, 1) * millisPerDay;
+    private static final long maxFastLocalMillis = daysFromCivil(10000, 1, 1) * millisPerDay;
+
+    // Millis values whose micros value would overflow a long
+    private static final long maxMillisForMicros = Long.MAX_VALUE / 1000L;
+
+    // Returned by parseFast when the fast path cannot handle the input
+    private static final long notParsed = Long.MIN_VALUE;
+
+    private static final String regexMetaChars = "\\.[]{}()*+?^$|";
+
     private final ThreadLocal<Calendar> calendars;
+    private final ThreadLocal<CivilFields> civilFields;
 
     private final Field[] fields;
     private final Pattern parsePattern;
     private final String formatString;
     private final int precision;
 
+    private final TimeZone timeZone;
+    private final String[] literals;
+    private final boolean canFormatFast;
+    private final boolean canParseFast;
+    private final CivilFields parseDefaults;
+    private volatile ZoneSpan zoneSpan;
+
 
     public TimeStampFormatStandard(String format, String timeZoneName)
     {
@@ -137,10 +179,15 @@ public class TimeStampFormatStandard implements TimeStampFormat
     public TimeStampFormatStandard(String format, final TimeZone timeZone)
     {
         calendars = new ThreadLocal<Calendar>() { public Calendar initialValue() { return Calendar.getInstance(timeZone); } };
+        civilFields = new ThreadLocal<CivilFields>() { public CivilFields initialValue() { return new CivilFields(); } };
 
         List<Field> fieldsList = new LinkedList<Field>();
+        List<String> literalsList = new LinkedList<String>();
         StringBuilder patternBuilder = new StringBuilder();
         StringBuilder formatBuilder = new StringBuilder();
+        StringBuilder literalBuilder = new StringBuilder();
+        boolean regexLiterals = false;
+        boolean timeZoneField = false;
         int floatSecondsPrecision = -1;
         for (int i = 0; i < format.length(); )
         {
@@ -151,12 +198,15 @@ public class TimeStampFormatStandard implements TimeStampFormat
             {
                 formatBuilder.append(c);
                 patternBuilder.append(c);
+                literalBuilder.append(c);
+                if (regexMetaChars.indexOf(c) >= 0) regexLiterals = true;
             }
             else if (c == '%' && i < format.length() && format.charAt(i) == '%')
             {
                 i++;
                 formatBuilder.append("%%");
                 patternBuilder.append('%');
+                literalBuilder.append('%');
             }
             else
             {
@@ -181,18 +231,35 @@ public class TimeStampFormatStandard implements TimeStampFormat
 
                 Field field = newField(fieldCode, fieldFlags.toString());
                 fieldsList.add(field);
+                literalsList.add(literalBuilder.toString());
+                literalBuilder.setLength(0);
                 patternBuilder.append(field.getRegexSpecifier());
                 formatBuilder.append(field.getFormatSpecifier());
 
                 // See "Rollover and the %S Field" in the class comment
                 if (field instanceof FloatSecondField) floatSecondsPrecision = ((FloatSecondField) field).precision;
+                if (isTimeZoneField(field)) timeZoneField = true;
             }
         }
+        literalsList.add(literalBuilder.toString());
 
         fields = fieldsList.toArray(new Field[0]);
         parsePattern = Pattern.compile(patternBuilder.toString());
         formatString = formatBuilder.toString();
         precision = floatSecondsPrecision;
+
+        this.timeZone = timeZone;
+        literals = literalsList.toArray(new String[0]);
+
+        // String.format localizes digits and the decimal separator, which the fast path does not
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols(Locale.getDefault());
+        canFormatFast = (symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() == '.');
+        canParseFast = (!regexLiterals && !timeZoneField);
+
+        // Parsing starts from a calendar set to the epoch, so fields missing from the
+        // format take their values from the epoch in this time-zone
+        parseDefaults = new CivilFields();
+        parseDefaults.setLocalMillis(timeZone.getOffset(0));
     }
 
     public Field newField(char code, String flags)
@@ -258,14 +325,233 @@ public class TimeStampFormatStandard implements TimeStampFormat
         return (field instanceof TimeZoneField);
     }
 
+    /**
+     * Same result as {@link #parse(String)}, converted to posix milliseconds with the same
+     * rounding as {@link com.metsci.glimpse.util.units.time.TimeStampPosixMillisInt64}. Parses
+     * without a regex and without allocating, except when falling back to {@link #parse(String)}.
+     *
+     * @throws TimeStampParseException if the string cannot be parsed according to this format
+     */
+    public long parsePosixMillis(CharSequence string) throws TimeStampParseException
+    {
+        long posixMicros = parseFast(string);
+        if (posixMicros != notParsed) return roundHalfUp(posixMicros, 1000L) / 1000L;
+
+        BigDecimal posixSeconds = parse(string.toString());
+        return posixSeconds.scaleByPowerOfTen(3).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * Same result as {@link #parse(String)}, converted to posix microseconds with the same
+     * rounding as {@link com.metsci.glimpse.util.units.time.TimeStampPosixMicrosInt64}. Parses
+     * without a regex and without allocating, except when falling back to {@link #parse(String)}.
+     *
+     * @throws TimeStampParseException if the string cannot be parsed according to this format
+     */
+    public long parsePosixMicros(CharSequence string) throws TimeStampParseException
+    {
+        long posixMicros = parseFast(string);
+        if (posixMicros != notParsed) return posixMicros;
+
+        BigDecimal posixSeconds = parse(string.toString());
+        return posixSeconds.scaleByPowerOfTen(6).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * Follows the first path the parse regex would try at each choice point (greedy quantifiers
+     * take as much as they can, reluctant ones as little). If that path matches the whole string,
+     * it is the match the regex would have found. Otherwise, or if the input is something the
+     * fast path does not handle, returns notParsed and leaves the final word to the regex.
+     */
+    private long parseFast(CharSequence string)
+    {
+        if (!canParseFast) return notParsed;
+
+        CivilFields f = civilFields.get();
+        f.setTo(parseDefaults);
+
+        int pos = matchLiteral(string, 0, literals[0]);
+        for (int i = 0; i < fields.length && pos >= 0; i++)
+        {
+            pos = fields[i].parseValue(string, pos, literals[i + 1], f);
+            if (pos >= 0) pos = matchLiteral(string, pos, literals[i + 1]);
+        }
+        if (pos != string.length()) return notParsed;
+
+        // Lenient, like GregorianCalendar: out-of-range fields roll over into larger fields
+        long months = (long) f.year * 12 + f.month;
+        long days = daysFromCivil(floorDiv(months, 12), (int) (months - 12 * floorDiv(months, 12)) + 1, 1) + (f.day - 1);
+        long localMillis = days * millisPerDay + f.hour * 3600000L + f.minute * 60000L + f.second * 1000L + f.milli;
+        if (localMillis < minFastLocalMillis || localMillis >= maxFastLocalMillis) return notParsed;
+
+        // Near a zone transition, a local time can be ambiguous or skipped, and Calendar
+        // has its own rules for resolving it -- so let Calendar handle those cases
+        int offset = timeZone.getOffset(localMillis - timeZone.getRawOffset());
+        long posixMillis = localMillis - offset;
+        if (timeZone.getOffset(posixMillis) != offset) return notParsed;
+        if (timeZone.getOffset(posixMillis - millisPerDay) != offset) return notParsed;
+        if (timeZone.getOffset(posixMillis + millisPerDay) != offset) return notParsed;
+
+        return 1000L * posixMillis + f.remainderMicros;
+    }
+
+    private static int matchLiteral(CharSequence string, int pos, String literal)
+    {
+        int n = literal.length();
+        if (pos + n > string.length()) return -1;
+        for (int i = 0; i < n; i++)
+        {
+            if (string.charAt(pos + i) != literal.charAt(i)) return -1;
+        }
+        return pos + n;
+    }
+
+    /**
+     * Same result as {@link #format(BigDecimal)}.
+     */
+    public String formatPosixMillis(long posixMillis)
+    {
+        return formatPosixMillis(posixMillis, new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the same string as {@link #format(BigDecimal)} to the specified StringBuilder.
+     * Does not allocate, except when falling back to {@link #format(BigDecimal)}, so formatting
+     * many times into a reused StringBuilder creates no garbage.
+     *
+     * @return the StringBuilder that was passed in
+     */
+    public StringBuilder formatPosixMillis(long posixMillis, StringBuilder out)
+    {
+        if (posixMillis > maxMillisForMicros || posixMillis < -maxMillisForMicros || !formatFast(1000L * posixMillis, out))
+        {
+            out.append(format(BigDecimal.valueOf(posixMillis, 3)));
+        }
+        return out;
+    }
+
+    /**
+     * Same result as {@link #format(BigDecimal)}.
+     */
+    public String formatPosixMicros(long posixMicros)
+    {
+        return formatPosixMicros(posixMicros, new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the same string as {@link #format(BigDecimal)} to the specified StringBuilder.
+     * Does not allocate, except when falling back to {@link #format(BigDecimal)}, so formatting
+     * many times into a reused StringBuilder creates no garbage.
+     *
+     * @return the StringBuilder that was passed in
+     */
+    public StringBuilder formatPosixMicros(long posixMicros, StringBuilder out)
+    {
+        if (!formatFast(posixMicros, out))
+        {
+            out.append(format(BigDecimal.valueOf(posixMicros, 6)));
+        }
+        return out;
+    }
+
+    /**
+     * @return false, without appending anything, if the fast path cannot handle the time
+     */
+    private boolean formatFast(long posixMicros, StringBuilder out)
+    {
+        if (!canFormatFast) return false;
+
+        // See "Rollover and the %S Field" in the class comment
+        if (precision >= 0 && precision < 6) posixMicros = roundHalfUp(posixMicros, powersOfTen[6 - precision]);
+
+        long posixMillis = floorDiv(posixMicros, 1000L);
+        ZoneSpan span = zoneSpan(posixMillis);
+        long localMillis = posixMillis + span.offset;
+        if (localMillis < minFastLocalMillis || localMillis >= maxFastLocalMillis) return false;
+
+        CivilFields f = civilFields.get();
+        f.setLocalMillis(localMillis);
+        f.daylight = span.daylight;
+        f.timeZone = timeZone;
+
+        // Like FloatSecondField.getValue, measure seconds from the local minute-floor
+        f.microOfMinute = (posixMicros - 1000L * posixMillis) + 1000L * (1000L * f.second + f.milli);
+
+        out.append(literals[0]);
+        for (int i = 0; i < fields.length; i++)
+        {
+            fields[i].appendValue(f, out);
+            out.append(literals[i + 1]);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a span of time, containing the specified time, over which this format's time-zone
+     * has a constant offset. Spans are a day long, and the most recent one is cached, since
+     * successive calls usually format nearby times.
+     */
+    private ZoneSpan zoneSpan(long posixMillis)
+    {
+        ZoneSpan span = zoneSpan;
+        if (span != null && span.start <= posixMillis && posixMillis < span.end) return span;
+
+        long start = millisPerDay * floorDiv(posixMillis, millisPerDay);
+        long end = start + millisPerDay;
+        int offset = timeZone.getOffset(start);
+        boolean daylight = timeZone.inDaylightTime(new Date(start));
+        if (timeZone.getOffset(end - 1) == offset && timeZone.inDaylightTime(new Date(end - 1)) == daylight)
+        {
+            span = new ZoneSpan(start, end, offset, daylight);
+            zoneSpan = span;
+            return span;
+        }
+
+        // There is a zone transition during this day -- don't cache
+        return new ZoneSpan(posixMillis, posixMillis + 1, timeZone.getOffset(posixMillis), timeZone.inDaylightTime(new Date(posixMillis)));
+    }
+
+    /**
+     * Rounds to the nearest multiple of unit, with ties going away from zero -- the same as
+     * RoundingMode.HALF_UP.
+     */
+    private static long roundHalfUp(long value, long unit)
+    {
+        long quotient = value / unit;
+        long remainder = value % unit;
+        if (2 * Math.abs(remainder) >= unit) quotient += (remainder < 0 ? -1 : 1);
+        return quotient * unit;
+    }
+
+    private static long floorDiv(long a, long b)
+    {
+        long q = a / b;
+        return (q * b == a || a >= 0 ? q : q - 1);
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar, for the specified year, month
+     * (1-12), and day of month. Algorithm from Howard Hinnant, "chrono-Compatible Low-Level Date
+     * Algorithms".
+     */
+    private static long daysFromCivil(long year, int month, int day)
+    {
+        long y = (month <= 2 ? year - 1 : year);
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - 400 * era;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = 365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return 146097 * era + dayOfEra - 719468;
+    }
+
     @Override
     public String format(BigDecimal posixSeconds)
     {
         // See "Rollover and the %S Field" in the class comment
-        if (precision >= 0) posixSeconds = posixSeconds.scaleByPowerOfTen(precision).setScale(0, BigDecimal.ROUND_HALF_UP).scaleByPowerOfTen(-precision);
+        if (precision >= 0) posixSeconds = posixSeconds.scaleByPowerOfTen(precision).setScale(0, RoundingMode.HALF_UP).scaleByPowerOfTen(-precision);
 
         Calendar calendar = calendars.get();
-        long posixMillis = posixSeconds.scaleByPowerOfTen(3).setScale(0, BigDecimal.ROUND_FLOOR).longValue();
+        long posixMillis = posixSeconds.scaleByPowerOfTen(3).setScale(0, RoundingMode.FLOOR).longValue();
         calendar.setTimeInMillis(posixMillis);
 
         Object[] fieldValues = new Object[fields.length];
@@ -286,6 +572,185 @@ public class TimeStampFormatStandard implements TimeStampFormat
          * @throws NumberFormatException if valueString cannot be parsed
          */
         BigDecimal putValue(String valueString, Calendar calendar);
+
+        /**
+         * Fast-path equivalent of getValue, appending the formatted value.
+         */
+        void appendValue(CivilFields f, StringBuilder out);
+
+        /**
+         * Fast-path equivalent of matching this field's regex, then calling putValue.
+         *
+         * @param nextLiteral the literal text that follows this field in the format string
+         * @return the position just after the field, or -1 if the fast path fails
+         */
+        int parseValue(CharSequence string, int pos, String nextLiteral, CivilFields f);
+    }
+
+    /**
+     * Broken-down local time, filled in by the fast paths in place of a Calendar. Field
+     * numbering follows Calendar, so months are zero-based.
+     */
+    private static final class CivilFields
+    {
+        public int year;
+        public int month;
+        public int day;
+        public int hour;
+        public int minute;
+        public int second;
+        public int milli;
+
+        // Formatting only
+        public long microOfMinute;
+        public boolean daylight;
+        public TimeZone timeZone;
+
+        // Parsing only: sub-millisecond part of parsed seconds
+        public long remainderMicros;
+
+        public void setLocalMillis(long localMillis)
+        {
+            long days = floorDiv(localMillis, millisPerDay);
+            int millisOfDay = (int) (localMillis - days * millisPerDay);
+
+            // Inverse of daysFromCivil
+            long z = days + 719468;
+            long era = floorDiv(z, 146097);
+            long dayOfEra = z - 146097 * era;
+            long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+            long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            long mp = (5 * dayOfYear + 2) / 153;
+            int month1 = (int) (mp < 10 ? mp + 3 : mp - 9);
+
+            year = (int) (yearOfEra + 400 * era + (month1 <= 2 ? 1 : 0));
+            month = month1 - 1;
+            day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+            hour = millisOfDay / 3600000;
+            minute = (millisOfDay / 60000) % 60;
+            second = (millisOfDay / 1000) % 60;
+            milli = millisOfDay % 1000;
+        }
+
+        public void setTo(CivilFields o)
+        {
+            year = o.year;
+            month = o.month;
+            day = o.day;
+            hour = o.hour;
+            minute = o.minute;
+            second = o.second;
+            milli = o.milli;
+            remainderMicros = 0;
+        }
+
+        public int get(int calendarField)
+        {
+            switch (calendarField)
+            {
+                case Calendar.YEAR:         return year;
+                case Calendar.MONTH:        return month;
+                case Calendar.DAY_OF_MONTH: return day;
+                case Calendar.HOUR_OF_DAY:  return hour;
+                case Calendar.MINUTE:       return minute;
+                case Calendar.SECOND:       return second;
+                default: throw new IllegalArgumentException("Unsupported calendar field: " + calendarField);
+            }
+        }
+
+        public void set(int calendarField, int value)
+        {
+            switch (calendarField)
+            {
+                case Calendar.YEAR:         year = value; break;
+                case Calendar.MONTH:        month = value; break;
+                case Calendar.DAY_OF_MONTH: day = value; break;
+                case Calendar.HOUR_OF_DAY:  hour = value; break;
+                case Calendar.MINUTE:       minute = value; break;
+                case Calendar.SECOND:       second = value; break;
+                default: throw new IllegalArgumentException("Unsupported calendar field: " + calendarField);
+            }
+        }
+    }
+
+    /**
+     * A span of posix time over which a time-zone has a constant offset.
+     */
+    private static final class ZoneSpan
+    {
+        public final long start;
+        public final long end;
+        public final int offset;
+        public final boolean daylight;
+
+        public ZoneSpan(long start, long end, int offset, boolean daylight)
+        {
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+            this.daylight = daylight;
+        }
+    }
+
+    private static boolean isDigit(char c)
+    {
+        // Same as \d in a regex, which (unlike Character.isDigit) is ASCII only
+        return (c >= '0' && c <= '9');
+    }
+
+    private static boolean isLetter(char c)
+    {
+        return ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'));
+    }
+
+    private static boolean isWhitespace(char c)
+    {
+        // Same as \s in a regex
+        return (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r');
+    }
+
+    private static int skipWhitespace(CharSequence string, int pos)
+    {
+        int n = string.length();
+        while (pos < n && isWhitespace(string.charAt(pos))) pos++;
+        return pos;
+    }
+
+    /**
+     * Skips whitespace matched by the \s* at the end of a field's regex. If the literal text
+     * after the field starts with whitespace, the regex backtracks to leave enough whitespace for
+     * the literal, so this leaves that much unskipped.
+     */
+    private static int skipTrailingWhitespace(CharSequence string, int pos, String nextLiteral)
+    {
+        int end = skipWhitespace(string, pos);
+
+        int literalWhitespace = 0;
+        while (literalWhitespace < nextLiteral.length() && isWhitespace(nextLiteral.charAt(literalWhitespace))) literalWhitespace++;
+
+        return Math.max(pos, end - literalWhitespace);
+    }
+
+    private static int numDigits(long value)
+    {
+        int n = 1;
+        while (value >= 10)
+        {
+            value /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    private static void appendRepeated(StringBuilder out, char c, int count)
+    {
+        for (int i = 0; i < count; i++) out.append(c);
+    }
+
+    private static void appendZeroPadded(StringBuilder out, long value, int width)
+    {
+        appendRepeated(out, '0', width - numDigits(value));
+        out.append(value);
     }
 
     private static class CalendarField implements Field
@@ -333,6 +798,51 @@ public class TimeStampFormatStandard implements TimeStampFormat
             calendar.set(calendarField, Integer.parseInt(valueString));
             return BigDecimal.ZERO;
         }
+
+        protected int getFastValue(CivilFields f)
+        {
+            return f.get(calendarField);
+        }
+
+        protected void putFastValue(int value, CivilFields f)
+        {
+            f.set(calendarField, value);
+        }
+
+        public void appendValue(CivilFields f, StringBuilder out)
+        {
+            int value = getFastValue(f);
+            int padCount = numDigits - numDigits(value);
+
+            switch (padding)
+            {
+                case SPACES_ON_LEFT:  appendRepeated(out, ' ', padCount); out.append(value); break;
+                case SPACES_ON_RIGHT: out.append(value); appendRepeated(out, ' ', padCount); break;
+                case NONE:            out.append(value); break;
+                default:              appendRepeated(out, '0', padCount); out.append(value); break;
+            }
+        }
+
+        public int parseValue(CharSequence string, int pos, String nextLiteral, CivilFields f)
+        {
+            if (padding == Padding.SPACES_ON_LEFT) pos = skipWhitespace(string, pos);
+
+            int start = pos;
+            int end = Math.min(string.length(), start + numDigits);
+            int value = 0;
+            while (pos < end && isDigit(string.charAt(pos)))
+            {
+                value = 10 * value + (string.charAt(pos) - '0');
+                pos++;
+            }
+
+            if (pos == start) return -1;
+            if (padding == Padding.ZEROS && pos - start != numDigits) return -1;
+            if (padding == Padding.SPACES_ON_RIGHT) pos = skipTrailingWhitespace(string, pos, nextLiteral);
+
+            putFastValue(value, f);
+            return pos;
+        }
     }
 
     private static class YearField extends CalendarField
@@ -362,6 +872,16 @@ public class TimeStampFormatStandard implements TimeStampFormat
             calendar.set(calendarField, Integer.parseInt(valueString) - 1);
             return BigDecimal.ZERO;
         }
+
+        protected int getFastValue(CivilFields f)
+        {
+            return f.month + 1;
+        }
+
+        protected void putFastValue(int value, CivilFields f)
+        {
+            f.month = value - 1;
+        }
     }
 
     private static class DayOfMonthField extends CalendarField
@@ -409,11 +929,16 @@ public class TimeStampFormatStandard implements TimeStampFormat
 
         private final boolean abbreviate;
         private final Case capitalization;
+        private final String[] formattedNames;
 
         public TextMonthField(String flags)
         {
             abbreviate = flags.contains("3");
             capitalization = getCase(flags);
+
+            String[] monthNames = (abbreviate ? shortMonthNames : longMonthNames);
+            formattedNames = new String[monthNames.length];
+            for (int i = 0; i < monthNames.length; i++) formattedNames[i] = applyCase(monthNames[i], capitalization);
         }
 
         public String getFormatSpecifier()
@@ -454,6 +979,59 @@ public class TimeStampFormatStandard implements TimeStampFormat
 
             return BigDecimal.ZERO;
         }
+
+        public void appendValue(CivilFields f, StringBuilder out)
+        {
+            out.append(formattedNames[f.month]);
+        }
+
+        public int parseValue(CharSequence string, int pos, String nextLiteral, CivilFields f)
+        {
+            pos = skipWhitespace(string, pos);
+
+            int start = pos;
+            int end = (abbreviate ? Math.min(string.length(), start + 3) : string.length());
+            while (pos < end && isLetter(string.charAt(pos))) pos++;
+            if (pos - start < 3) return -1;
+
+            // An unrecognized name leaves Calendar with a month of -1, which is better left to the slow path
+            String[] monthNames = (abbreviate ? shortMonthNames : longMonthNames);
+            int month = -1;
+            for (int i = 0; i < monthNames.length; i++)
+            {
+                if (regionEqualsIgnoreCase(string, start, pos, monthNames[i]))
+                {
+                    month = i;
+                    break;
+                }
+            }
+            if (month < 0) return -1;
+
+            f.month = month;
+            return skipTrailingWhitespace(string, pos, nextLiteral);
+        }
+
+        /**
+         * Same comparison as String.equalsIgnoreCase.
+         */
+        private static boolean regionEqualsIgnoreCase(CharSequence string, int start, int end, String name)
+        {
+            if (end - start != name.length()) return false;
+            for (int i = 0; i < name.length(); i++)
+            {
+                char c1 = string.charAt(start + i);
+                char c2 = name.charAt(i);
+                if (c1 == c2) continue;
+
+                char u1 = Character.toUpperCase(c1);
+                char u2 = Character.toUpperCase(c2);
+                if (u1 == u2) continue;
+                if (Character.toLowerCase(u1) == Character.toLowerCase(u2)) continue;
+
+                return false;
+            }
+            return true;
+        }
     }
 
     private static class TimeZoneField implements Field
@@ -462,6 +1040,10 @@ public class TimeStampFormatStandard implements TimeStampFormat
 
         private final Case capitalization;
 
+        // Standard and daylight display names, looked up on first use by the fast path
+        private volatile TimeZone displayNamesZone;
+        private volatile String[] displayNames;
+
         public TimeZoneField(String flags)
         {
             capitalization = getCase(flags);
@@ -501,6 +1083,25 @@ public class TimeStampFormatStandard implements TimeStampFormat
             if (!recognizedTimeZoneIds.contains(id)) throw new IllegalArgumentException("Unrecognized time-zone id: " + id);
             return TimeZone.getTimeZone(id);
         }
+
+        public void appendValue(CivilFields f, StringBuilder out)
+        {
+            String[] names = displayNames;
+            if (names == null || displayNamesZone != f.timeZone)
+            {
+                names = new String[] { applyCase(f.timeZone.getDisplayName(false, TimeZone.SHORT), capitalization),
+                                       applyCase(f.timeZone.getDisplayName(true, TimeZone.SHORT), capitalization) };
+                displayNames = names;
+                displayNamesZone = f.timeZone;
+            }
+            out.append(names[f.daylight ? 1 : 0]);
+        }
+
+        public int parseValue(CharSequence string, int pos, String nextLiteral, CivilFields f)
+        {
+            // Time-zone fields are never parsed by the fast path
+            return -1;
+        }
     }
 
     private static class FloatSecondField implements Field
@@ -581,16 +1182,95 @@ public class TimeStampFormatStandard implements TimeStampFormat
             if (!isPlainDecimal(valueString)) throw new NumberFormatException("Illegal seconds string: " + valueString);
             BigDecimal valueSeconds = new BigDecimal(valueString);
 
-            BigDecimal calendarSecond = valueSeconds.setScale(0, BigDecimal.ROUND_FLOOR);
+            BigDecimal calendarSecond = valueSeconds.setScale(0, RoundingMode.FLOOR);
             calendar.set(Calendar.SECOND, calendarSecond.intValue());
 
-            BigDecimal calendarMilli = valueSeconds.subtract(calendarSecond).scaleByPowerOfTen(3).setScale(0, BigDecimal.ROUND_FLOOR);
+            BigDecimal calendarMilli = valueSeconds.subtract(calendarSecond).scaleByPowerOfTen(3).setScale(0, RoundingMode.FLOOR);
             calendar.set(Calendar.MILLISECOND, calendarMilli.intValue());
 
-            BigDecimal remainderSeconds = valueSeconds.subtract(valueSeconds.setScale(3, BigDecimal.ROUND_FLOOR));
+            BigDecimal remainderSeconds = valueSeconds.subtract(valueSeconds.setScale(3, RoundingMode.FLOOR));
             return remainderSeconds;
         }
 
+        public void appendValue(CivilFields f, StringBuilder out)
+        {
+            long wholeSeconds = f.microOfMinute / 1000000L;
+            long fractionMicros = f.microOfMinute % 1000000L;
+
+            appendZeroPadded(out, wholeSeconds, 2);
+
+            if (precision < 0)
+            {
+                // Full precision: as many digits as needed, with trailing zeros stripped
+                if (fractionMicros != 0)
+                {
+                    int numFractionDigits = 6;
+                    while (fractionMicros % 10 == 0)
+                    {
+                        fractionMicros /= 10;
+                        numFractionDigits--;
+                    }
+                    out.append('.');
+                    appendZeroPadded(out, fractionMicros, numFractionDigits);
+                }
+            }
+            else if (precision > 0)
+            {
+                // Already rounded to precision, so digits past precision are zero
+                int numFractionDigits = Math.min(precision, 6);
+                out.append('.');
+                appendZeroPadded(out, fractionMicros / powersOfTen[6 - numFractionDigits], numFractionDigits);
+                appendRepeated(out, '0', precision - numFractionDigits);
+            }
+        }
+
+        public int parseValue(CharSequence string, int pos, String nextLiteral, CivilFields f)
+        {
+            int n = string.length();
+            pos = skipWhitespace(string, pos);
+
+            int wholeStart = pos;
+            int wholeSeconds = 0;
+            while (pos < n && pos - wholeStart < 2 && isDigit(string.charAt(pos)))
+            {
+                wholeSeconds = 10 * wholeSeconds + (string.charAt(pos) - '0');
+                pos++;
+            }
+            int numWholeDigits = pos - wholeStart;
+
+            long fractionMicros = 0;
+            if (pos < n && string.charAt(pos) == '.')
+            {
+                pos++;
+
+                // Greedy part of the regex: up to precision digits (at least 1 if there
+                // were no whole digits), or any number for full precision
+                int maxFractionDigits = (precision < 0 ? Integer.MAX_VALUE : (numWholeDigits == 0 ? Math.max(1, precision) : precision));
+                int fractionStart = pos;
+                while (pos < n && pos - fractionStart < maxFractionDigits && isDigit(string.charAt(pos)))
+                {
+                    if (pos - fractionStart >= 6) return -1;
+                    fractionMicros = 10 * fractionMicros + (string.charAt(pos) - '0');
+                    pos++;
+                }
+                int numFractionDigits = pos - fractionStart;
+                if (numWholeDigits == 0 && numFractionDigits == 0) return -1;
+
+                fractionMicros *= powersOfTen[6 - numFractionDigits];
+            }
+            else if (numWholeDigits == 0)
+            {
+                return -1;
+            }
+
+            // Same split as putValue: seconds and millis go into the calendar, and the rest is added afterwards
+            f.second = wholeSeconds;
+            f.milli = (int) (fractionMicros / 1000);
+            f.remainderMicros += fractionMicros % 1000;
+
+            return skipTrailingWhitespace(string, pos, nextLiteral);
+        }
+
         private static boolean isPlainDecimal(String string)
         {
             boolean seenDecimalPoint = false;
@@ -632,6 +1312,16 @@ public class TimeStampFormatStandard implements TimeStampFormat
         return defaultValue;
     }
 
+    private static String applyCase(String string, Case capitalization)
+    {
+        switch (capitalization)
+        {
+            case UPPERCASE: return string.toUpperCase();
+            case LOWERCASE: return string.toLowerCase();
+            default:        return string;
+        }
+    }
+
     private static enum Case { NORMAL, LOWERCASE, UPPERCASE }
     private static Case getCase(String flags)
     {